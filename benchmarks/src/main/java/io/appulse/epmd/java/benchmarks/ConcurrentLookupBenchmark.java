@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.benchmarks;
+
+import static io.appulse.epmd.java.core.model.NodeType.R6_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.client.ExecutionMode;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.epmd.java.core.model.response.NodeInfo;
+import io.appulse.epmd.java.server.ServerEngine;
+import io.appulse.epmd.java.server.SubcommandServer;
+import io.appulse.utils.SocketUtils;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fires a burst of 10k concurrent PORT_PLEASE2 lookups from one client
+ * to one server and waits for all of them.
+ * <p>
+ * The {@code throughput} benchmark reports the completed lookups per second,
+ * the {@code latency} benchmark reports the time until the whole burst is
+ * completed, which is the latency of the slowest lookup in the burst.
+ * Lookups, which were rejected by the client's executor or failed, are
+ * counted separately in the {@code failed} counter.
+ * <p>
+ * The virtual threads mode needs a JVM with virtual threads support,
+ * on older JVMs it falls back to the platform threads pool.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class ConcurrentLookupBenchmark {
+
+  static final int LOOKUPS = 10_000;
+
+  static final String NODE_NAME = "benchmark";
+
+  @Param({ "BLOCKING", "NIO" })
+  ServerEngine.Type engine;
+
+  @Param({ "PLATFORM_THREADS", "VIRTUAL_THREADS" })
+  ExecutionMode executionMode;
+
+  SubcommandServer server;
+
+  Thread serverThread;
+
+  EpmdClient client;
+
+  int port;
+
+  @Setup(Level.Trial)
+  public void setup () throws Exception {
+    port = SocketUtils.findFreePort().orElseThrow(IllegalStateException::new);
+    server = SubcommandServer.builder()
+        .port(port)
+        .engine(engine)
+        .executionMode(executionMode)
+        .build();
+
+    serverThread = new Thread(server, "benchmark-epmd-server");
+    serverThread.start();
+    awaitServer();
+
+    client = new EpmdClient(InetAddress.getLoopbackAddress(), port, executionMode);
+    client.register(Registration.builder()
+        .name(NODE_NAME)
+        .port(port + 1)
+        .type(R6_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build()
+    ).get(5, SECONDS);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown () throws Exception {
+    client.close();
+    server.stop();
+    serverThread.join(SECONDS.toMillis(10));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(SECONDS)
+  @OperationsPerInvocation(LOOKUPS)
+  public int throughput (Outcome outcome) {
+    return burst(outcome);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(MILLISECONDS)
+  public int latency (Outcome outcome) {
+    return burst(outcome);
+  }
+
+  @SuppressWarnings({
+      "unchecked",
+      "PMD.AvoidCatchingGenericException"
+  })
+  private int burst (Outcome outcome) {
+    val futures = new CompletableFuture[LOOKUPS];
+    for (int index = 0; index < LOOKUPS; index++) {
+      try {
+        futures[index] = client.lookup(NODE_NAME, InetAddress.getLoopbackAddress(), port);
+      } catch (RuntimeException ex) {
+        futures[index] = CompletableFuture.completedFuture(Optional.empty());
+        outcome.failed++;
+      }
+    }
+
+    int found = 0;
+    for (val future : futures) {
+      try {
+        val result = ((CompletableFuture<Optional<NodeInfo>>) future).join();
+        if (result.isPresent()) {
+          found++;
+          outcome.succeeded++;
+        }
+      } catch (RuntimeException ex) {
+        outcome.failed++;
+      }
+    }
+    return found;
+  }
+
+  @SneakyThrows
+  private void awaitServer () {
+    val address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    for (int attempt = 0; attempt < 100; attempt++) {
+      try (val socket = new Socket()) {
+        socket.connect(address, 100);
+        return;
+      } catch (IOException ex) {
+        MILLISECONDS.sleep(100);
+      }
+    }
+    throw new IllegalStateException("The EPMD server didn't start");
+  }
+
+  /**
+   * Lookups' outcome counters.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Outcome {
+
+    public long succeeded;
+
+    public long failed;
+
+    @Setup(Level.Iteration)
+    public void reset () {
+      succeeded = 0;
+      failed = 0;
+    }
+  }
+}
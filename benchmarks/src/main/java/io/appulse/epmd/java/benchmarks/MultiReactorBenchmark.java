@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.benchmarks;
+
+import static io.appulse.epmd.java.core.model.NodeType.R6_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.epmd.java.server.ServerEngine;
+import io.appulse.epmd.java.server.SubcommandServer;
+import io.appulse.utils.SocketUtils;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@code NIO} engine's loopback lookups per second depending
+ * on the number of its I/O loops.
+ * <p>
+ * Every benchmark thread is a client, which connects to the server,
+ * sends a PORT_PLEASE2 request and reads the response until the server
+ * closes the connection, as {@code erl} does. The clients don't share
+ * any state, so the throughput is limited by the server only.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class MultiReactorBenchmark {
+
+  static final String NODE_NAME = "benchmark";
+
+  static final byte PORT_PLEASE2_REQ = 122;
+
+  @Param({ "1", "2", "4", "8" })
+  int ioThreads;
+
+  SubcommandServer server;
+
+  Thread serverThread;
+
+  EpmdClient client;
+
+  InetSocketAddress address;
+
+  byte[] request;
+
+  @Setup(Level.Trial)
+  public void setup () throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(IllegalStateException::new);
+    address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    server = SubcommandServer.builder()
+        .port(port)
+        .engine(ServerEngine.Type.NIO)
+        .ioThreads(ioThreads)
+        .build();
+
+    serverThread = new Thread(server, "benchmark-epmd-server");
+    serverThread.start();
+    awaitServer();
+
+    client = new EpmdClient(port);
+    client.register(Registration.builder()
+        .name(NODE_NAME)
+        .port(port + 1)
+        .type(R6_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build()
+    ).get(5, SECONDS);
+
+    val name = NODE_NAME.getBytes(ISO_8859_1);
+    request = new byte[Short.BYTES + 1 + name.length];
+    request[1] = (byte) (1 + name.length);
+    request[2] = PORT_PLEASE2_REQ;
+    System.arraycopy(name, 0, request, 3, name.length);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown () throws Exception {
+    client.close();
+    server.stop();
+    serverThread.join(SECONDS.toMillis(10));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(SECONDS)
+  public int lookup () throws IOException {
+    try (val socket = new Socket()) {
+      socket.setTcpNoDelay(true);
+      socket.connect(address);
+      socket.getOutputStream().write(request);
+
+      val input = socket.getInputStream();
+      val buffer = new byte[64];
+      int total = 0;
+      for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+        total += read;
+      }
+      return total;
+    }
+  }
+
+  @SneakyThrows
+  private void awaitServer () {
+    for (int attempt = 0; attempt < 100; attempt++) {
+      try (val socket = new Socket()) {
+        socket.connect(address, 100);
+        return;
+      } catch (IOException ex) {
+        MILLISECONDS.sleep(100);
+      }
+    }
+    throw new IllegalStateException("The EPMD server didn't start");
+  }
+}
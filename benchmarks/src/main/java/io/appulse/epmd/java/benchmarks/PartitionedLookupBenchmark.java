@@ -0,0 +1,191 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.benchmarks;
+
+import static io.appulse.epmd.java.core.model.NodeType.R6_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.client.HashRing;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.epmd.java.core.model.response.NodeInfo;
+import io.appulse.epmd.java.server.ServerEngine;
+import io.appulse.epmd.java.server.SubcommandServer;
+import io.appulse.utils.SocketUtils;
+
+import lombok.SneakyThrows;
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the loopback lookups per second of a partitioned cluster
+ * depending on the number of its servers.
+ * <p>
+ * Every server has a single I/O loop, so a server's capacity is limited
+ * the same way regardless of the machine's cores. The names are registered
+ * in their owner servers, every benchmark thread has its own client, which
+ * routes the lookups of the random names to their owners by the client's
+ * copy of the ring through the pipelined connections.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class PartitionedLookupBenchmark {
+
+  static final int NAMES = 256;
+
+  @Param({ "1", "2", "4" })
+  int servers;
+
+  List<SubcommandServer> instances = new ArrayList<>();
+
+  List<Thread> threads = new ArrayList<>();
+
+  HashRing ring;
+
+  EpmdClient registrations;
+
+  @Setup(Level.Trial)
+  public void setup () throws Exception {
+    List<InetSocketAddress> members = new ArrayList<>();
+    int port = 65_536;
+    for (int index = 0; index < servers; index++) {
+      port = SocketUtils.findFreePort(1024, port - 1).orElseThrow(IllegalStateException::new);
+      members.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+    ring = new HashRing(members);
+
+    for (val member : members) {
+      start(member, members);
+    }
+
+    registrations = client();
+    for (int index = 0; index < NAMES; index++) {
+      registrations.register(Registration.builder()
+          .name("node-" + index)
+          .port(10_000 + index)
+          .type(R6_ERLANG)
+          .protocol(TCP)
+          .high(R6)
+          .low(R6)
+          .build()
+      ).get(5, SECONDS);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown () throws Exception {
+    registrations.close();
+    instances.forEach(SubcommandServer::stop);
+    for (val thread : threads) {
+      thread.join(SECONDS.toMillis(10));
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(SECONDS)
+  public Optional<NodeInfo> lookup (Lookups lookups) {
+    val name = "node-" + ThreadLocalRandom.current().nextInt(NAMES);
+    return lookups.client.lookup(name).join();
+  }
+
+  EpmdClient client () {
+    return EpmdClient.builder()
+        .address(InetAddress.getLoopbackAddress())
+        .port(ring.getMembers().get(0).getPort())
+        .ring(ring)
+        .build();
+  }
+
+  private void start (InetSocketAddress member, List<InetSocketAddress> members) {
+    val builder = SubcommandServer.builder()
+        .port(member.getPort())
+        .engine(ServerEngine.Type.NIO)
+        .ioThreads(1);
+    members.forEach(builder::partition);
+    val server = builder.build();
+    instances.add(server);
+
+    val thread = new Thread(server, "benchmark-epmd-server-" + member.getPort());
+    thread.start();
+    threads.add(thread);
+    awaitServer(member);
+  }
+
+  @SneakyThrows
+  private static void awaitServer (InetSocketAddress address) {
+    for (int attempt = 0; attempt < 100; attempt++) {
+      try (val socket = new Socket()) {
+        socket.connect(address, 100);
+        return;
+      } catch (IOException ex) {
+        MILLISECONDS.sleep(100);
+      }
+    }
+    throw new IllegalStateException("The EPMD server didn't start");
+  }
+
+  /**
+   * A benchmark thread's own client.
+   */
+  @State(Scope.Thread)
+  public static class Lookups {
+
+    EpmdClient client;
+
+    @Setup(Level.Trial)
+    public void setup (PartitionedLookupBenchmark benchmark) {
+      client = benchmark.client();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown () {
+      client.close();
+    }
+  }
+}
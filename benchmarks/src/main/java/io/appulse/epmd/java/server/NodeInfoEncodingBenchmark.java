@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R6_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+import io.appulse.epmd.java.core.model.request.GetNodeInfo;
+import io.appulse.epmd.java.core.model.response.NodeInfo;
+
+import lombok.val;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the PORT_PLEASE2 response creation: building and encoding
+ * a {@link NodeInfo} on every lookup versus the node's pre-encoded response.
+ * <p>
+ * The benchmark lives in the server's package, because it drives
+ * the package-private request processor directly, without any network I/O.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+public class NodeInfoEncodingBenchmark {
+
+  @Param({ "1000" })
+  int nodes;
+
+  SubcommandServer server;
+
+  GetNodeInfo[] hits;
+
+  GetNodeInfo miss;
+
+  int index;
+
+  @Setup(Level.Trial)
+  public void setup () {
+    server = new SubcommandServer();
+    server.nodes = new NodeRegistry();
+
+    hits = new GetNodeInfo[nodes];
+    for (int node = 0; node < nodes; node++) {
+      val name = "node-" + node;
+      server.nodes.register(Node.builder()
+          .name(name)
+          .port(10_000 + node)
+          .type(R6_ERLANG)
+          .protocol(TCP)
+          .high(R6)
+          .low(R6)
+          .creation(1)
+          .session(new BlackholeSession())
+          .build());
+
+      hits[node] = new GetNodeInfo(name);
+    }
+    miss = new GetNodeInfo("unknown");
+  }
+
+  @Benchmark
+  public byte[] hitEncodedOnLookup () {
+    return encodeOnLookup(nextHit());
+  }
+
+  @Benchmark
+  public ByteBuffer[] hitPreEncoded () {
+    return preEncoded(nextHit());
+  }
+
+  @Benchmark
+  public byte[] missEncodedOnLookup () {
+    return encodeOnLookup(miss);
+  }
+
+  @Benchmark
+  public ByteBuffer[] missPreEncoded () {
+    return preEncoded(miss);
+  }
+
+  /**
+   * The lookup's path before the nodes' responses were pre-encoded.
+   *
+   * @param request the lookup request
+   *
+   * @return the encoded response
+   */
+  byte[] encodeOnLookup (GetNodeInfo request) {
+    return server.getNode(request.getName())
+        .map(node -> NodeInfo.builder()
+            .ok(true)
+            .port(node.getPort())
+            .type(node.getType())
+            .protocol(node.getProtocol())
+            .high(node.getHigh())
+            .low(node.getLow())
+            .name(node.getName())
+            .build())
+        .orElseGet(() -> NodeInfo.builder()
+            .ok(false)
+            .build())
+        .toBytes();
+  }
+
+  ByteBuffer[] preEncoded (GetNodeInfo request) {
+    val response = new GetNodeInfoRequestProcessor(server, request, BlackholeSession.INSTANCE).respond();
+    return ((EncodedResponse) response).toBuffers();
+  }
+
+  private GetNodeInfo nextHit () {
+    index = (index + 1) % hits.length;
+    return hits[index];
+  }
+
+  private static class BlackholeSession implements Session {
+
+    static final BlackholeSession INSTANCE = new BlackholeSession();
+
+    static final InetSocketAddress ADDRESS = new InetSocketAddress(0);
+
+    @Override
+    public InetSocketAddress getRemoteAddress () {
+      return ADDRESS;
+    }
+
+    @Override
+    public long getAcceptTime () {
+      return System.nanoTime();
+    }
+
+    @Override
+    public void send (ByteBuffer... buffers) {
+      // the responses are returned by the benchmark methods
+    }
+
+    @Override
+    public void watch (Runnable onClose) {
+      // never closed
+    }
+
+    @Override
+    public void push (Runnable onSent, ByteBuffer... buffers) {
+      // never watched
+    }
+
+    @Override
+    public void pipeline () {
+      // never pipelined
+    }
+
+    @Override
+    public boolean isPipelined () {
+      return false;
+    }
+
+    @Override
+    public void next () {
+      // never pipelined
+    }
+
+    @Override
+    public void close () {
+      // never closed
+    }
+  }
+}
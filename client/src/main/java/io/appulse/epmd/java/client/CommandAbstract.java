@@ -16,13 +16,18 @@
 
 package io.appulse.epmd.java.client;
 
+import static io.appulse.epmd.java.core.metrics.Phase.DECODE;
+import static io.appulse.epmd.java.core.metrics.Phase.READ;
+import static io.appulse.epmd.java.core.metrics.Phase.WRITE;
 import static lombok.AccessLevel.PRIVATE;
 import static lombok.AccessLevel.PROTECTED;
 
 import java.net.InetAddress;
 import java.util.function.Supplier;
 
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
 import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.response.Response;
 
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -30,6 +35,7 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import lombok.experimental.FieldDefaults;
+import lombok.val;
 
 /**
  * A command's common fields holder class.
@@ -57,6 +63,14 @@ abstract class CommandAbstract<R extends Request, T> implements Supplier<T> {
   @NonNull
   R request;
 
+  /**
+   * The client's metrics, which record the command's write, read and decode phases.
+   */
+  @NonNull
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  RequestMetrics metrics;
+
   /**
    * Creates a remote connection object.
    *
@@ -66,6 +80,90 @@ abstract class CommandAbstract<R extends Request, T> implements Supplier<T> {
     return new Connection(address, port);
   }
 
+  /**
+   * Sends the request and receives the whole response through the server's
+   * pipelined connection, if it is available, or through a new connection.
+   *
+   * @param pipelines the client's pipelined connections
+   *
+   * @return the response's bytes
+   */
+  protected byte[] exchange (@NonNull Pipelines pipelines) {
+    val requestBytes = getRequestBytes();
+    val start = System.nanoTime();
+    val response = pipelines.exchange(address, port, requestBytes);
+    if (response.isPresent()) {
+      metrics.record(request.getTag(), READ, System.nanoTime() - start);
+      return response.get();
+    }
+
+    try (val connection = createConnection()) {
+      send(connection, requestBytes);
+      return receive(connection);
+    }
+  }
+
+  /**
+   * Writes the request's bytes into the connection and records the write phase.
+   *
+   * @param connection the server's connection
+   *
+   * @param bytes the request's bytes
+   */
+  protected void send (@NonNull Connection connection, @NonNull byte[] bytes) {
+    val start = System.nanoTime();
+    connection.send(bytes);
+    metrics.record(request.getTag(), WRITE, System.nanoTime() - start);
+  }
+
+  /**
+   * Reads the whole response from the connection and records the read phase.
+   *
+   * @param connection the server's connection
+   *
+   * @return the response's bytes
+   */
+  protected byte[] receive (@NonNull Connection connection) {
+    val start = System.nanoTime();
+    val result = connection.receive();
+    metrics.record(request.getTag(), READ, System.nanoTime() - start);
+    return result;
+  }
+
+  /**
+   * Reads the response's bytes from the connection and records the read phase.
+   *
+   * @param connection the server's connection
+   *
+   * @param length the number of the bytes to read
+   *
+   * @return the response's bytes
+   */
+  protected byte[] receive (@NonNull Connection connection, int length) {
+    val start = System.nanoTime();
+    val result = connection.receive(length);
+    metrics.record(request.getTag(), READ, System.nanoTime() - start);
+    return result;
+  }
+
+  /**
+   * Parses the response and records the decode phase.
+   *
+   * @param bytes the response's bytes
+   *
+   * @param type the response's type
+   *
+   * @param <T> the response's type
+   *
+   * @return the parsed response
+   */
+  protected <T extends Response> T decode (@NonNull byte[] bytes, @NonNull Class<T> type) {
+    val start = System.nanoTime();
+    val result = Response.parse(bytes, type);
+    metrics.record(request.getTag(), DECODE, System.nanoTime() - start);
+    return result;
+  }
+
   /**
    * Returns a request's byte array representation.
    *
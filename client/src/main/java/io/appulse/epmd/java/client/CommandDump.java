@@ -16,15 +16,18 @@
 
 package io.appulse.epmd.java.client;
 
+import static lombok.AccessLevel.PRIVATE;
+
 import java.net.InetAddress;
 import java.util.List;
 
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
 import io.appulse.epmd.java.core.model.request.GetEpmdDump;
 import io.appulse.epmd.java.core.model.response.EpmdDump;
 import io.appulse.epmd.java.core.model.response.EpmdDump.NodeDump;
-import io.appulse.epmd.java.core.model.response.Response;
 
 import lombok.Builder;
+import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
@@ -35,8 +38,11 @@ import lombok.val;
  * @author Artem Labazin
  */
 @Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
 final class CommandDump extends CommandAbstract<GetEpmdDump, List<NodeDump>> {
 
+  Pipelines pipelines;
+
   /**
    * Constructs the command object.
    *
@@ -45,22 +51,23 @@ final class CommandDump extends CommandAbstract<GetEpmdDump, List<NodeDump>> {
    * @param port the remote EPMD server's port
    *
    * @param request the command's request to the remote EPMD server
+   *
+   * @param pipelines the client's pipelined connections
+   *
+   * @param metrics the client's metrics
    */
   @Builder
-  CommandDump (InetAddress address, Integer port, GetEpmdDump request) {
-    super(address, port, request);
+  CommandDump (InetAddress address, Integer port, GetEpmdDump request, Pipelines pipelines, RequestMetrics metrics) {
+    super(address, port, request, metrics);
+    this.pipelines = pipelines;
   }
 
   @Override
   public List<NodeDump> get () {
     log.debug("requesting debug info");
 
-    val requestBytes = getRequestBytes();
-    try (val connection = createConnection();) {
-      connection.send(requestBytes);
-      val responseBytes = connection.receive();
-      val response = Response.parse(responseBytes, EpmdDump.class);
-      return response.getNodes();
-    }
+    val responseBytes = exchange(pipelines);
+    val response = decode(responseBytes, EpmdDump.class);
+    return response.getNodes();
   }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.client;
+
+import static java.util.Collections.emptyList;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.net.InetAddress;
+import java.util.List;
+
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
+import io.appulse.epmd.java.core.model.request.GetClusterNodeInfo;
+import io.appulse.epmd.java.core.model.response.ClusterNodesInfo;
+
+import lombok.Builder;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A command for finding a node in a remote EPMD server's cluster.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class CommandGetClusterNodeInfo extends CommandAbstract<GetClusterNodeInfo, List<ClusterNodesInfo.Item>> {
+
+  Pipelines pipelines;
+
+  /**
+   * Constructs the command object.
+   *
+   * @param address the remote EPMD server's inet address
+   *
+   * @param port the remote EPMD server's port
+   *
+   * @param request the command's request to the remote EPMD server
+   *
+   * @param pipelines the client's pipelined connections
+   *
+   * @param metrics the client's metrics
+   */
+  @Builder
+  CommandGetClusterNodeInfo (InetAddress address, Integer port, GetClusterNodeInfo request, Pipelines pipelines, RequestMetrics metrics) {
+    super(address, port, request, metrics);
+    this.pipelines = pipelines;
+  }
+
+  @Override
+  public List<ClusterNodesInfo.Item> get () {
+    val request = getRequest();
+    log.debug("requesting the cluster's info about '{}'", request.getName());
+
+    val responseBytes = exchange(pipelines);
+    if (responseBytes == null || responseBytes.length == 0) {
+      log.debug("the cluster's lookups are not supported by {}:{}", getAddress(), getPort());
+      return emptyList();
+    }
+    return decode(responseBytes, ClusterNodesInfo.class).getNodes();
+  }
+}
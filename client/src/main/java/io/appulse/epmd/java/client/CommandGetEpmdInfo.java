@@ -16,36 +16,39 @@
 
 package io.appulse.epmd.java.client;
 
+import static lombok.AccessLevel.PRIVATE;
+
 import java.net.InetAddress;
 import java.util.List;
 
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
 import io.appulse.epmd.java.core.model.request.GetEpmdInfo;
 import io.appulse.epmd.java.core.model.response.EpmdInfo;
 import io.appulse.epmd.java.core.model.response.EpmdInfo.NodeDescription;
-import io.appulse.epmd.java.core.model.response.Response;
 
 import lombok.Builder;
+import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
 @Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
 final class CommandGetEpmdInfo extends CommandAbstract<GetEpmdInfo, List<NodeDescription>> {
 
+  Pipelines pipelines;
+
   @Builder
-  CommandGetEpmdInfo (InetAddress address, Integer port, GetEpmdInfo request) {
-    super(address, port, request);
+  CommandGetEpmdInfo (InetAddress address, Integer port, GetEpmdInfo request, Pipelines pipelines, RequestMetrics metrics) {
+    super(address, port, request, metrics);
+    this.pipelines = pipelines;
   }
 
   @Override
   public List<NodeDescription> get () {
     log.debug("requesting registered nodes in EPMD server");
 
-    val requestBytes = getRequestBytes();
-    try (val connection = createConnection()) {
-      connection.send(requestBytes);
-      val responseBytes = connection.receive();
-      val response = Response.parse(responseBytes, EpmdInfo.class);
-      return response.getNodes();
-    }
+    val responseBytes = exchange(pipelines);
+    val response = decode(responseBytes, EpmdInfo.class);
+    return response.getNodes();
   }
 }
@@ -17,15 +17,17 @@
 package io.appulse.epmd.java.client;
 
 import static java.util.Optional.ofNullable;
+import static lombok.AccessLevel.PRIVATE;
 
 import java.net.InetAddress;
 import java.util.Optional;
 
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
 import io.appulse.epmd.java.core.model.request.GetNodeInfo;
 import io.appulse.epmd.java.core.model.response.NodeInfo;
-import io.appulse.epmd.java.core.model.response.Response;
 
 import lombok.Builder;
+import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
@@ -36,8 +38,11 @@ import lombok.val;
  * @author Artem Labazin
  */
 @Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
 final class CommandGetNodeInfo extends CommandAbstract<GetNodeInfo, Optional<NodeInfo>> {
 
+  Pipelines pipelines;
+
   /**
    * Constructs the command object.
    *
@@ -46,10 +51,15 @@ final class CommandGetNodeInfo extends CommandAbstract<GetNodeInfo, Optional<Nod
    * @param port the remote EPMD server's port
    *
    * @param request the command's request to the remote EPMD server
+   *
+   * @param pipelines the client's pipelined connections
+   *
+   * @param metrics the client's metrics
    */
   @Builder
-  CommandGetNodeInfo (InetAddress address, Integer port, GetNodeInfo request) {
-    super(address, port, request);
+  CommandGetNodeInfo (InetAddress address, Integer port, GetNodeInfo request, Pipelines pipelines, RequestMetrics metrics) {
+    super(address, port, request, metrics);
+    this.pipelines = pipelines;
   }
 
   @Override
@@ -57,13 +67,9 @@ final class CommandGetNodeInfo extends CommandAbstract<GetNodeInfo, Optional<Nod
     val request = getRequest();
     log.debug("requesting info about '{}'", request.getName());
 
-    val requestBytes = request.toBytes();
-    try (val connection = createConnection()) {
-      connection.send(requestBytes);
-      val responseBytes = connection.receive();
-      return ofNullable(responseBytes)
-          .map(it -> Response.parse(it, NodeInfo.class))
-          .filter(NodeInfo::isOk);
-    }
+    val responseBytes = exchange(pipelines);
+    return ofNullable(responseBytes)
+        .map(it -> decode(it, NodeInfo.class))
+        .filter(NodeInfo::isOk);
   }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.client;
+
+import static io.appulse.epmd.java.core.metrics.Phase.DECODE;
+import static io.appulse.epmd.java.core.metrics.Phase.READ;
+import static io.appulse.epmd.java.core.metrics.Phase.WRITE;
+import static io.appulse.epmd.java.core.model.Tag.BATCH_PORT_PLEASE2_REQUEST;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import io.appulse.epmd.java.client.exception.EpmdConnectionException;
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
+import io.appulse.epmd.java.core.model.request.GetNodeInfo;
+import io.appulse.epmd.java.core.model.request.GetNodesInfo;
+import io.appulse.epmd.java.core.model.response.NodeInfo;
+import io.appulse.epmd.java.core.model.response.NodesInfo;
+import io.appulse.epmd.java.core.model.response.Response;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A command for getting several nodes information from a remote EPMD server at once.
+ * <p>
+ * The names are sent in the batch requests (see {@link GetNodesInfo}), which fit
+ * into the server's maximum frame length, reported by its pipelined connection
+ * (or the default one). All the batches are sent through
+ * the server's pipelined connection in a single round-trip, if it is available.
+ * The servers without the batch requests support (like the original epmd)
+ * are asked for every name separately.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class CommandGetNodesInfo implements Supplier<Map<String, Optional<NodeInfo>>> {
+
+  InetAddress address;
+
+  int port;
+
+  List<String> names;
+
+  Pipelines pipelines;
+
+  RequestMetrics metrics;
+
+  /**
+   * Constructs the command object.
+   *
+   * @param address the remote EPMD server's inet address
+   *
+   * @param port the remote EPMD server's port
+   *
+   * @param names the nodes' short names
+   *
+   * @param pipelines the client's pipelined connections
+   *
+   * @param metrics the client's metrics
+   */
+  @Builder
+  CommandGetNodesInfo (@NonNull InetAddress address,
+                       int port,
+                       @NonNull List<String> names,
+                       @NonNull Pipelines pipelines,
+                       @NonNull RequestMetrics metrics
+  ) {
+    this.address = address;
+    this.port = port;
+    this.names = names;
+    this.pipelines = pipelines;
+    this.metrics = metrics;
+  }
+
+  @Override
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  public Map<String, Optional<NodeInfo>> get () {
+    log.debug("requesting info about {} nodes", names.size());
+
+    val batches = split(pipelines.maxFrameLength(address, port));
+    List<byte[]> requests = new ArrayList<>(batches.size());
+    for (val batch : batches) {
+      requests.add(new GetNodesInfo(batch).toBytes());
+    }
+
+    val start = System.nanoTime();
+    val responses = pipelines.exchange(address, port, requests)
+        .map(it -> {
+          metrics.record(BATCH_PORT_PLEASE2_REQUEST, READ, System.nanoTime() - start);
+          return it;
+        })
+        .orElseGet(() -> exchange(requests));
+
+    Map<String, Optional<NodeInfo>> result = new LinkedHashMap<>(names.size() * 2);
+    for (int index = 0; index < batches.size(); index++) {
+      val batch = batches.get(index);
+      val nodes = parse(responses.get(index), batch);
+      for (int position = 0; position < batch.size(); position++) {
+        result.put(batch.get(position), nodes.get(position));
+      }
+    }
+    return result;
+  }
+
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  List<List<String>> split (int maxFrameLength) {
+    List<List<String>> result = new ArrayList<>();
+    List<String> batch = new ArrayList<>();
+    for (val name : names) {
+      batch.add(name);
+      if (batch.size() > 1 && GetNodesInfo.frameLength(batch) > maxFrameLength) {
+        batch.remove(batch.size() - 1);
+        result.add(batch);
+        batch = new ArrayList<>();
+        batch.add(name);
+      }
+    }
+    if (!batch.isEmpty()) {
+      result.add(batch);
+    }
+    return result;
+  }
+
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  List<byte[]> exchange (List<byte[]> requests) {
+    List<byte[]> result = new ArrayList<>(requests.size());
+    for (val request : requests) {
+      try (val connection = new Connection(address, port)) {
+        val start = System.nanoTime();
+        connection.send(request);
+        val sent = System.nanoTime();
+        result.add(connection.receive());
+        metrics.record(BATCH_PORT_PLEASE2_REQUEST, WRITE, sent - start);
+        metrics.record(BATCH_PORT_PLEASE2_REQUEST, READ, System.nanoTime() - sent);
+      } catch (EpmdConnectionException ex) {
+        // the server could reset the connection with an unknown (or too long) request
+        log.debug("the batch request to {}:{} failed - '{}'", address, port, ex.getMessage());
+        result.add(null);
+      }
+    }
+    return result;
+  }
+
+  List<Optional<NodeInfo>> parse (byte[] response, List<String> batch) {
+    List<Optional<NodeInfo>> result = new ArrayList<>(batch.size());
+    if (response == null || response.length == 0) {
+      log.debug("{}:{} doesn't support the batch requests", address, port);
+      for (val name : batch) {
+        result.add(lookup(name));
+      }
+      return result;
+    }
+
+    val start = System.nanoTime();
+    val nodes = Response.parse(response, NodesInfo.class).getNodes();
+    metrics.record(BATCH_PORT_PLEASE2_REQUEST, DECODE, System.nanoTime() - start);
+    if (nodes.size() != batch.size()) {
+      throw new EpmdConnectionException("Unexpected number of the nodes in the batch response: " + nodes.size());
+    }
+    for (val node : nodes) {
+      result.add(Optional.of(node).filter(NodeInfo::isOk));
+    }
+    return result;
+  }
+
+  Optional<NodeInfo> lookup (String name) {
+    return CommandGetNodeInfo.builder()
+        .address(address)
+        .port(port)
+        .request(new GetNodeInfo(name))
+        .pipelines(pipelines)
+        .metrics(metrics)
+        .build()
+        .get();
+  }
+}
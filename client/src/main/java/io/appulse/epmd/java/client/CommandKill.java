@@ -20,9 +20,9 @@ import static io.appulse.epmd.java.core.model.response.KillResult.OK;
 
 import java.net.InetAddress;
 
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
 import io.appulse.epmd.java.core.model.request.Kill;
 import io.appulse.epmd.java.core.model.response.KillResult;
-import io.appulse.epmd.java.core.model.response.Response;
 
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
@@ -45,10 +45,12 @@ final class CommandKill extends CommandAbstract<Kill, Boolean> {
    * @param port the remote EPMD server's port
    *
    * @param request the command's request to the remote EPMD server
+   *
+   * @param metrics the client's metrics
    */
   @Builder
-  CommandKill (InetAddress address, Integer port, Kill request) {
-    super(address, port, request);
+  CommandKill (InetAddress address, Integer port, Kill request, RequestMetrics metrics) {
+    super(address, port, request, metrics);
   }
 
   @Override
@@ -57,9 +59,9 @@ final class CommandKill extends CommandAbstract<Kill, Boolean> {
 
     val requestBytes = getRequestBytes();
     try (val connection = createConnection()) {
-      connection.send(requestBytes);
-      val responseBytes = connection.receive();
-      val response = Response.parse(responseBytes, KillResult.class);
+      send(connection, requestBytes);
+      val responseBytes = receive(connection);
+      val response = decode(responseBytes, KillResult.class);
       return response == OK;
     } catch (Exception ex) {
       log.error("Error during killing the EPMD server", ex);
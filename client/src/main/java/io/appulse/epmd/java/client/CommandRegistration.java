@@ -22,9 +22,9 @@ import java.net.InetAddress;
 import java.util.Map;
 
 import io.appulse.epmd.java.client.exception.EpmdRegistrationException;
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
 import io.appulse.epmd.java.core.model.request.Registration;
 import io.appulse.epmd.java.core.model.response.RegistrationResult;
-import io.appulse.epmd.java.core.model.response.Response;
 
 import lombok.Builder;
 import lombok.experimental.FieldDefaults;
@@ -51,10 +51,19 @@ final class CommandRegistration extends CommandAbstract<Registration, Registrati
    * @param port the remote EPMD server's port
    *
    * @param request the command's request to the remote EPMD server
+   *
+   * @param registered the client's registered nodes' connections
+   *
+   * @param metrics the client's metrics
    */
   @Builder
-  CommandRegistration (InetAddress address, Integer port, Registration request, Map<String, Connection> registered) {
-    super(address, port, request);
+  CommandRegistration (InetAddress address,
+                       Integer port,
+                       Registration request,
+                       Map<String, Connection> registered,
+                       RequestMetrics metrics
+  ) {
+    super(address, port, request, metrics);
     this.registered = registered;
   }
 
@@ -66,10 +75,10 @@ final class CommandRegistration extends CommandAbstract<Registration, Registrati
     val connection = createConnection();
 
     val requestBytes = request.toBytes();
-    connection.send(requestBytes);
+    send(connection, requestBytes);
 
-    val responseBytes = connection.receive(4);
-    val result = Response.parse(responseBytes, RegistrationResult.class);
+    val responseBytes = receive(connection, 4);
+    val result = decode(responseBytes, RegistrationResult.class);
 
     if (!result.isOk()) {
       connection.close();
@@ -20,8 +20,8 @@ import static io.appulse.epmd.java.core.model.response.StopResult.STOPPED;
 
 import java.net.InetAddress;
 
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
 import io.appulse.epmd.java.core.model.request.Stop;
-import io.appulse.epmd.java.core.model.response.Response;
 import io.appulse.epmd.java.core.model.response.StopResult;
 
 import lombok.Builder;
@@ -45,10 +45,12 @@ final class CommandStop extends CommandAbstract<Stop, Boolean> {
    * @param port the remote EPMD server's port
    *
    * @param request the command's request to the remote EPMD server
+   *
+   * @param metrics the client's metrics
    */
   @Builder
-  CommandStop (InetAddress address, Integer port, Stop request) {
-    super(address, port, request);
+  CommandStop (InetAddress address, Integer port, Stop request, RequestMetrics metrics) {
+    super(address, port, request, metrics);
   }
 
   @Override
@@ -58,9 +60,9 @@ final class CommandStop extends CommandAbstract<Stop, Boolean> {
 
     val requestBytes = request.toBytes();
     try (val connection = createConnection()) {
-      connection.send(requestBytes);
-      val responseBytes = connection.receive();
-      val response = Response.parse(responseBytes, StopResult.class);
+      send(connection, requestBytes);
+      val responseBytes = receive(connection);
+      val response = decode(responseBytes, StopResult.class);
       return response == STOPPED;
     }
   }
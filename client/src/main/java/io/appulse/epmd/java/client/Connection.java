@@ -113,6 +113,18 @@ class Connection implements Closeable {
               socket.getLocalPort(), socket.getRemoteSocketAddress());
   }
 
+  /**
+   * Disables the read timeout of a long-lived connection,
+   * which waits for the server's pushes.
+   */
+  void disableReadTimeout () {
+    try {
+      socket.setSoTimeout(0);
+    } catch (IOException ex) {
+      throw new EpmdConnectionException(ex);
+    }
+  }
+
   boolean isClosed () {
     return socket.isClosed();
   }
@@ -16,27 +16,53 @@
 
 package io.appulse.epmd.java.client;
 
+import static io.appulse.epmd.java.core.metrics.Phase.PROCESS;
+import static io.appulse.epmd.java.core.model.Tag.ALIVE2_REQUEST;
+import static io.appulse.epmd.java.core.model.Tag.BATCH_PORT_PLEASE2_REQUEST;
+import static io.appulse.epmd.java.core.model.Tag.CLUSTER_PORT_PLEASE2_REQUEST;
+import static io.appulse.epmd.java.core.model.Tag.DUMP_REQUEST;
+import static io.appulse.epmd.java.core.model.Tag.KILL_REQUEST;
+import static io.appulse.epmd.java.core.model.Tag.NAMES_REQUEST;
+import static io.appulse.epmd.java.core.model.Tag.PORT_PLEASE2_REQUEST;
+import static io.appulse.epmd.java.core.model.Tag.STOP_REQUEST;
+import static java.util.Optional.ofNullable;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
 import static lombok.AccessLevel.PRIVATE;
 
 import java.io.Closeable;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import io.appulse.epmd.java.client.exception.EpmdRegistrationException;
 import io.appulse.epmd.java.client.exception.EpmdRegistrationNameConflictException;
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.epmd.java.core.model.request.GetClusterNodeInfo;
 import io.appulse.epmd.java.core.model.request.GetEpmdDump;
 import io.appulse.epmd.java.core.model.request.GetEpmdInfo;
 import io.appulse.epmd.java.core.model.request.GetNodeInfo;
 import io.appulse.epmd.java.core.model.request.Kill;
+import io.appulse.epmd.java.core.model.request.Pipeline;
 import io.appulse.epmd.java.core.model.request.Registration;
 import io.appulse.epmd.java.core.model.request.Stop;
+import io.appulse.epmd.java.core.model.response.ClusterNodesInfo;
 import io.appulse.epmd.java.core.model.response.EpmdDump;
 import io.appulse.epmd.java.core.model.response.EpmdInfo.NodeDescription;
 import io.appulse.epmd.java.core.model.response.NodeInfo;
@@ -63,16 +89,37 @@ import lombok.val;
 @FieldDefaults(level = PRIVATE, makeFinal = true)
 public final class EpmdClient implements Closeable {
 
+  private static final AtomicInteger INSTANCES = new AtomicInteger();
+
   Map<String, Connection> registered = new ConcurrentHashMap<>();
 
   ExecutorService executor;
 
+  Pipelines pipelines;
+
+  Set<NodesSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+  AtomicBoolean closed = new AtomicBoolean();
+
   @Getter
   InetAddress address;
 
   @Getter
   Integer port;
 
+  /**
+   * The partitioned servers' ring, or {@code null} if the servers are not partitioned.
+   */
+  HashRing ring;
+
+  /**
+   * The client's requests counters and the latencies of their phases by the requests' tags.
+   * They are published as the {@code io.appulse.epmd.java:type=Client,id=<number>}
+   * platform MBean until the client is closed.
+   */
+  @Getter
+  RequestMetrics metrics = new RequestMetrics();
+
   /**
    * Default no arguments constructor.
    * <p>
@@ -111,26 +158,92 @@ public final class EpmdClient implements Closeable {
    *
    * @param port EPMD server port
    */
+  public EpmdClient (InetAddress address, int port) {
+    this(address, port, ExecutionMode.PLATFORM_THREADS);
+  }
+
+  /**
+   * Constructs EPMD client with the specified address, port and execution mode.
+   *
+   * @param address EPMD server address
+   *
+   * @param port EPMD server port
+   *
+   * @param executionMode the way how the client's requests are executed,
+   *                      {@link ExecutionMode#PLATFORM_THREADS} if not set
+   */
+  public EpmdClient (InetAddress address, int port, ExecutionMode executionMode) {
+    this(address, port, executionMode, null, null, null);
+  }
+
+  /**
+   * Constructs EPMD client with all the options, see {@link #builder()}.
+   * <p>
+   * The lookup requests ({@code PORT_PLEASE2}, {@code NAMES} and {@code DUMP})
+   * are sent through a single pipelined connection per server, if the server
+   * supports the pipelined mode extension (see {@link Pipeline}), otherwise
+   * every request opens a new connection.
+   * <p>
+   * With the partitioned servers' ring, the registrations and the lookups
+   * of the short names (without the explicit server's address) go directly
+   * to the name's owner server, see {@link HashRing}.
+   * <p>
+   * Every request holds a pool's thread, while it waits for its server,
+   * so a client, which sends a lot of concurrent requests (like a proxy),
+   * needs a bigger pool.
+   *
+   * @param address EPMD server address
+   *
+   * @param port EPMD server port
+   *
+   * @param executionMode the way how the client's requests are executed,
+   *                      {@link ExecutionMode#PLATFORM_THREADS} if not set
+   *
+   * @param pipelining use the pipelined connections, if the servers support them,
+   *                   {@code true} if not set
+   *
+   * @param ring the partitioned servers' ring, the servers are not partitioned if not set
+   *
+   * @param threads the maximum number of the platform threads, which execute the requests,
+   *                at least 2 (the default), the virtual threads are not limited
+   */
   @Builder
-  public EpmdClient (@NonNull InetAddress address, int port) {
+  private EpmdClient (@NonNull InetAddress address,
+                      int port,
+                      ExecutionMode executionMode,
+                      Boolean pipelining,
+                      HashRing ring,
+                      Integer threads
+  ) {
     this.address = address;
     this.port = port;
-
-    executor = AppulseExecutors.newCachedThreadPool()
-        .corePoolSize(2)
-        .maxPoolSize(2)
-        .enableClientTrace()
-        .threadFactory(AppulseThreadFactory.builder()
-            .name("epmd-%d")
-            .build())
-        .keepAliveTime(500L)
-        .unit(MILLISECONDS)
-        .queueLimit(100)
-        .build();
+    this.ring = ring;
+    pipelines = new Pipelines(ofNullable(pipelining).orElse(true));
+
+    // the pool grows over its core size only when its queue is full,
+    // so all the pool's threads are the core ones
+    val poolSize = Math.max(2, ofNullable(threads).orElse(2));
+    executor = ofNullable(executionMode)
+        .orElse(ExecutionMode.PLATFORM_THREADS)
+        .createExecutor(() -> AppulseExecutors.newCachedThreadPool()
+            .corePoolSize(poolSize)
+            .maxPoolSize(poolSize)
+            .enableClientTrace()
+            .threadFactory(AppulseThreadFactory.builder()
+                .name("epmd-%d")
+                .build())
+            .keepAliveTime(500L)
+            .unit(MILLISECONDS)
+            .queueLimit(100)
+            .build());
+    publishMetrics();
   }
 
   /**
    * Registers node at EPMD server.
+   * <p>
+   * If the client has the partitioned servers' ring, the node is registered
+   * in its name's owner server.
    *
    * @param request registration holder
    *
@@ -143,14 +256,19 @@ public final class EpmdClient implements Closeable {
       return FutureUtils.completedExceptionally(exception);
     }
 
+    val server = ring == null
+                 ? new InetSocketAddress(address, port)
+                 : ring.owner(request.getName());
+
     val supplier = CommandRegistration.builder()
         .registered(registered)
-        .address(address)
-        .port(port)
+        .address(server.getAddress())
+        .port(server.getPort())
         .request(request)
+        .metrics(metrics)
         .build();
 
-    return CompletableFuture.supplyAsync(supplier, executor)
+    return submit(ALIVE2_REQUEST, supplier)
         .exceptionally(throwable -> {
           log.error("'{}' wasn't registered successfully", request.getName());
           throw new EpmdRegistrationException(throwable);
@@ -171,9 +289,11 @@ public final class EpmdClient implements Closeable {
         .address(address)
         .port(port)
         .request(new GetEpmdDump())
+        .pipelines(pipelines)
+        .metrics(metrics)
         .build();
 
-    return CompletableFuture.supplyAsync(command, executor);
+    return submit(DUMP_REQUEST, command);
   }
 
   /**
@@ -188,9 +308,10 @@ public final class EpmdClient implements Closeable {
         .address(address)
         .port(port)
         .request(new Stop(node))
+        .metrics(metrics)
         .build();
 
-    return CompletableFuture.supplyAsync(supplier, executor);
+    return submit(STOP_REQUEST, supplier);
   }
 
   /**
@@ -203,19 +324,28 @@ public final class EpmdClient implements Closeable {
         .address(address)
         .port(port)
         .request(new Kill())
+        .metrics(metrics)
         .build();
 
-    return CompletableFuture.supplyAsync(supplier, executor);
+    return submit(KILL_REQUEST, supplier);
   }
 
   /**
    * Look up a specific node in lremote or ocal EPMD server.
+   * <p>
+   * If the client has the partitioned servers' ring, a short node name is
+   * looked up directly in its owner server, a full name is still looked up
+   * in its host's EPMD server.
    *
    * @param node a full or short node name to search
    *
    * @return an optional information about a node from EPMD server
    */
   public CompletableFuture<Optional<NodeInfo>> lookup (@NonNull String node) {
+    if (ring != null && node.indexOf('@') < 0) {
+      val owner = ring.owner(node);
+      return lookup(node, owner.getAddress(), owner.getPort());
+    }
     return lookup(node, EpmdDefaults.PORT);
   }
 
@@ -228,15 +358,15 @@ public final class EpmdClient implements Closeable {
    *
    * @return an optional information about a node from EPMD server
    */
-  @SneakyThrows
   public CompletableFuture<Optional<NodeInfo>> lookup (@NonNull String node, int nodePort) {
     val tokens = node.split("@", 2);
-    val shortName = tokens[0];
-    val nodeAddress = tokens.length == 2
-                      ? InetAddress.getByName(tokens[1])
-                      : EpmdDefaults.ADDRESS;
-
-    return lookup(shortName, nodeAddress, nodePort);
+    InetAddress nodeAddress;
+    try {
+      nodeAddress = hostAddress(tokens);
+    } catch (UnknownHostException ex) {
+      return failed(PORT_PLEASE2_REQUEST, ex);
+    }
+    return lookup(tokens[0], nodeAddress, nodePort);
   }
 
   /**
@@ -272,9 +402,169 @@ public final class EpmdClient implements Closeable {
         .address(nodeAddress)
         .port(nodePort)
         .request(new GetNodeInfo(shortName))
+        .pipelines(pipelines)
+        .metrics(metrics)
+        .build();
+
+    return submit(PORT_PLEASE2_REQUEST, supplier);
+  }
+
+  /**
+   * Locates a node in the cluster of the local EPMD server and its replication peers.
+   *
+   * @param node a short node name to search
+   *
+   * @return the located node's items, the server's own registration goes first
+   *
+   * @see #locate(String, InetAddress, int)
+   */
+  public CompletableFuture<List<ClusterNodesInfo.Item>> locate (@NonNull String node) {
+    return locate(node, EpmdDefaults.ADDRESS, EpmdDefaults.PORT);
+  }
+
+  /**
+   * Locates a node in the cluster of a remote (or local) EPMD server and its replication peers.
+   * <p>
+   * The items without an origin are the server's own registrations, the others
+   * are replicated from the origin peers. An empty list is returned, if the node
+   * is unknown or the server doesn't support the cluster's lookups.
+   *
+   * @param node a short node name to search
+   *
+   * @param nodeAddress a remote (or local) EPMD server's inet address
+   *
+   * @param nodePort a remote (or local) EPMD server's port
+   *
+   * @return the located node's items, the server's own registration goes first
+   */
+  public CompletableFuture<List<ClusterNodesInfo.Item>> locate (@NonNull String node,
+                                                                @NonNull InetAddress nodeAddress,
+                                                                int nodePort
+  ) {
+    log.debug("Locating node '{}' at '{}:{}'", node, nodeAddress, nodePort);
+
+    val supplier = CommandGetClusterNodeInfo.builder()
+        .address(nodeAddress)
+        .port(nodePort)
+        .request(new GetClusterNodeInfo(node))
+        .pipelines(pipelines)
+        .metrics(metrics)
+        .build();
+
+    return submit(CLUSTER_PORT_PLEASE2_REQUEST, supplier);
+  }
+
+  /**
+   * Looks up several nodes at once.
+   * <p>
+   * The nodes are grouped by their hosts (the local host for the short names),
+   * every server is asked with the batch requests. If the client has
+   * the partitioned servers' ring, the short names are grouped by their
+   * owner servers instead.
+   *
+   * @param nodes the full or short nodes' names
+   *
+   * @return the nodes' optional infos by their names
+   *
+   * @see #lookupAll(Collection, InetAddress, int)
+   */
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  public CompletableFuture<Map<String, Optional<NodeInfo>>> lookupAll (@NonNull Collection<String> nodes) {
+    if (ring == null) {
+      return lookupAll(nodes, EpmdDefaults.PORT);
+    }
+
+    List<String> fullNames = new ArrayList<>();
+    Map<InetSocketAddress, List<String>> byOwner = new LinkedHashMap<>();
+    for (val node : nodes) {
+      if (node.indexOf('@') < 0) {
+        byOwner.computeIfAbsent(ring.owner(node), it -> new ArrayList<>()).add(node);
+      } else {
+        fullNames.add(node);
+      }
+    }
+    List<CompletableFuture<Map<String, Optional<NodeInfo>>>> futures = byOwner.entrySet().stream()
+        .map(it -> lookupAll(it.getValue(), it.getKey().getAddress(), it.getKey().getPort()))
+        .collect(toCollection(ArrayList::new));
+    if (!fullNames.isEmpty()) {
+      futures.add(lookupAll(fullNames, EpmdDefaults.PORT));
+    }
+    return merge(futures);
+  }
+
+  /**
+   * Looks up several nodes at once.
+   * <p>
+   * The nodes are grouped by their hosts (the local host for the short names),
+   * every host's EPMD server is asked with the batch requests.
+   *
+   * @param nodes the full or short nodes' names
+   *
+   * @param nodePort the EPMD servers' port
+   *
+   * @return the nodes' optional infos by their names
+   *
+   * @see #lookupAll(Collection, InetAddress, int)
+   */
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  public CompletableFuture<Map<String, Optional<NodeInfo>>> lookupAll (@NonNull Collection<String> nodes, int nodePort) {
+    Map<InetAddress, List<String>> byHost = new LinkedHashMap<>();
+    for (val node : nodes) {
+      InetAddress nodeAddress;
+      try {
+        nodeAddress = hostAddress(node.split("@", 2));
+      } catch (UnknownHostException ex) {
+        return failed(BATCH_PORT_PLEASE2_REQUEST, ex);
+      }
+      byHost.computeIfAbsent(nodeAddress, it -> new ArrayList<>()).add(node);
+    }
+
+    return merge(byHost.entrySet().stream()
+        .map(it -> lookupAll(it.getValue(), it.getKey(), nodePort))
+        .collect(toList()));
+  }
+
+  /**
+   * Looks up several nodes in a single EPMD server at once.
+   * <p>
+   * The names are sent in the batch requests (an extension of the EPMD protocol),
+   * which fit into the server's maximum frame size, through the server's
+   * pipelined connection, if it is available. So, hundreds of nodes are resolved
+   * in a single round-trip. The servers, which don't support the batch requests
+   * (like the original epmd), are asked for every node separately.
+   *
+   * @param nodes the full or short nodes' names, the hosts are ignored
+   *
+   * @param nodeAddress a remote (or local) EPMD server's inet address
+   *
+   * @param nodePort a remote (or local) EPMD server's port
+   *
+   * @return the nodes' optional infos by their names, in the given names' order
+   */
+  public CompletableFuture<Map<String, Optional<NodeInfo>>> lookupAll (@NonNull Collection<String> nodes,
+                                                                       @NonNull InetAddress nodeAddress,
+                                                                       int nodePort
+  ) {
+    Map<String, String> shortNames = new LinkedHashMap<>();
+    for (val node : nodes) {
+      shortNames.put(node, node.split("@", 2)[0]);
+    }
+    log.debug("Looking up {} nodes at '{}:{}'", shortNames.size(), nodeAddress, nodePort);
+
+    val supplier = CommandGetNodesInfo.builder()
+        .address(nodeAddress)
+        .port(nodePort)
+        .names(shortNames.values().stream().distinct().collect(toList()))
+        .pipelines(pipelines)
+        .metrics(metrics)
         .build();
 
-    return CompletableFuture.supplyAsync(supplier, executor);
+    return submit(BATCH_PORT_PLEASE2_REQUEST, supplier)
+        .thenApply(infos -> {
+          Map<String, Optional<NodeInfo>> result = new LinkedHashMap<>();
+          shortNames.forEach((node, shortName) -> result.put(node, infos.get(shortName)));
+          return result;
+        });
   }
 
   /**
@@ -350,14 +640,55 @@ public final class EpmdClient implements Closeable {
         .address(nodeAddress)
         .port(nodePort)
         .request(new GetEpmdInfo())
+        .pipelines(pipelines)
+        .metrics(metrics)
         .build();
 
-    return CompletableFuture.supplyAsync(supplier, executor);
+    return submit(NAMES_REQUEST, supplier);
+  }
+
+  /**
+   * Subscribes to the registered nodes changes of the client's EPMD server.
+   *
+   * @param listener the changes' listener
+   *
+   * @return the subscription's future, which is completed once the already
+   *         registered nodes are passed to the listener
+   */
+  public CompletableFuture<NodesSubscription> subscribe (@NonNull NodesListener listener) {
+    return subscribe(listener, address, port);
+  }
+
+  /**
+   * Subscribes to the registered nodes changes of a remote EPMD server.
+   * <p>
+   * The listener receives the already registered nodes first and then
+   * every registration and unregistration, until the subscription is closed.
+   * The future is failed if the server doesn't support the subscriptions.
+   *
+   * @param listener the changes' listener
+   *
+   * @param nodeAddress a remote EPMD server's address
+   *
+   * @param nodePort a remote EPMD server's port
+   *
+   * @return the subscription's future, which is completed once the already
+   *         registered nodes are passed to the listener
+   */
+  public CompletableFuture<NodesSubscription> subscribe (@NonNull NodesListener listener,
+                                                        @NonNull InetAddress nodeAddress,
+                                                        int nodePort
+  ) {
+    log.debug("Subscribing to {}:{}", nodeAddress, nodePort);
+    subscriptions.removeIf(NodesSubscription::isClosed);
+    return CompletableFuture.supplyAsync(() -> track(NodesSubscription.open(nodeAddress, nodePort, listener)), executor)
+        .thenCompose(NodesSubscription::getSynced);
   }
 
   @Override
   @SneakyThrows
   public void close () {
+    closed.set(true);
     executor.shutdown();
 
     val terminated = executor.awaitTermination(5, SECONDS);
@@ -365,5 +696,67 @@ public final class EpmdClient implements Closeable {
 
     registered.values().forEach(Connection::close);
     registered.clear();
+
+    pipelines.close();
+
+    subscriptions.forEach(NodesSubscription::close);
+    subscriptions.clear();
+
+    metrics.unpublish();
+  }
+
+  private <T> CompletableFuture<T> submit (Tag tag, Supplier<T> command) {
+    metrics.request(tag);
+    val start = System.nanoTime();
+    return CompletableFuture.supplyAsync(command, executor)
+        .whenComplete((result, throwable) -> {
+          metrics.record(tag, PROCESS, System.nanoTime() - start);
+          if (throwable != null) {
+            metrics.error(tag);
+          }
+        });
+  }
+
+  private void publishMetrics () {
+    try {
+      metrics.publish("type=Client,id=" + INSTANCES.incrementAndGet());
+    } catch (IllegalStateException ex) {
+      log.warn("the client's metrics MBean is not published - '{}'", ex.getMessage());
+    }
+  }
+
+  private <T> CompletableFuture<T> failed (Tag tag, Throwable throwable) {
+    metrics.request(tag);
+    metrics.error(tag);
+    CompletableFuture<T> result = new CompletableFuture<>();
+    result.completeExceptionally(throwable);
+    return result;
+  }
+
+  // the subscription is tracked before its sync, so the client's close
+  // doesn't miss the connecting ones
+  private NodesSubscription track (NodesSubscription subscription) {
+    subscriptions.add(subscription);
+    if (closed.get()) {
+      subscription.close();
+    }
+    return subscription;
+  }
+
+  private static InetAddress hostAddress (String[] nameTokens) throws UnknownHostException {
+    return nameTokens.length == 2
+           ? InetAddress.getByName(nameTokens[1])
+           : EpmdDefaults.ADDRESS;
+  }
+
+  private static CompletableFuture<Map<String, Optional<NodeInfo>>> merge (
+      List<CompletableFuture<Map<String, Optional<NodeInfo>>>> futures
+  ) {
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+        .thenApply(none -> {
+          Map<String, Optional<NodeInfo>> result = new LinkedHashMap<>();
+          futures.forEach(it -> result.putAll(it.join()));
+          return result;
+        });
   }
 }
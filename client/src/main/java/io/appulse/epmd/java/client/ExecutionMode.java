@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.client;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The way how the requests' tasks are executed.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+public enum ExecutionMode {
+
+  /**
+   * Every task is executed in a bounded pool of platform threads.
+   */
+  PLATFORM_THREADS,
+
+  /**
+   * Every task is executed in its own virtual thread.
+   * <p>
+   * If the current JVM doesn't support virtual threads, the bounded
+   * pool of platform threads is used instead.
+   */
+  VIRTUAL_THREADS;
+
+  /**
+   * Checks if the current JVM supports virtual threads.
+   *
+   * @return {@code true} if the virtual threads are supported
+   */
+  public static boolean isVirtualThreadsSupported () {
+    return newVirtualThreadPerTaskExecutor()
+        .map(it -> {
+          it.shutdown();
+          return true;
+        })
+        .orElse(false);
+  }
+
+  /**
+   * Creates a new executor, which starts a new virtual thread for each task,
+   * if the current JVM supports it.
+   *
+   * @return the new executor or empty, if the virtual threads are not supported
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor () {
+    try {
+      val method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return of((ExecutorService) method.invoke(null));
+    } catch (NoSuchMethodException | IllegalAccessException ex) {
+      return empty();
+    } catch (InvocationTargetException ex) {
+      // for example, the virtual threads are a preview feature and it is not enabled
+      log.debug("virtual threads are not available - '{}'", ex.getCause().getMessage());
+      return empty();
+    }
+  }
+
+  /**
+   * Creates an executor for this execution mode.
+   *
+   * @param platformThreadsPool the supplier of the bounded pool of platform threads
+   *
+   * @return the executor for this mode
+   */
+  public ExecutorService createExecutor (@NonNull Supplier<ExecutorService> platformThreadsPool) {
+    if (this == PLATFORM_THREADS) {
+      return platformThreadsPool.get();
+    }
+    return newVirtualThreadPerTaskExecutor()
+        .orElseGet(() -> {
+          log.warn("virtual threads are not supported by the current JVM, the platform threads pool is used");
+          return platformThreadsPool.get();
+        });
+  }
+}
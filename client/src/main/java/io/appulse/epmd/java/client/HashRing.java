@@ -0,0 +1,187 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.client;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableList;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * A consistent-hash ring of the partitioned EPMD servers, it decides,
+ * which server owns a node's name.
+ * <p>
+ * Every server is placed on the ring at a number of virtual points, a name
+ * is owned by the first server's point clockwise from the name's hash. So,
+ * the names are spread evenly and adding or removing a server moves only
+ * its share of the names. The servers and the clients must use the same
+ * members and the same number of the virtual points, the ring doesn't depend
+ * on the members' order.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class HashRing {
+
+  /**
+   * The default number of the virtual points per server.
+   */
+  public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+  /**
+   * The ring's servers.
+   */
+  @Getter
+  List<InetSocketAddress> members;
+
+  long[] points;
+
+  InetSocketAddress[] owners;
+
+  /**
+   * Constructs a ring with the default number of the virtual points per server.
+   *
+   * @param members the ring's servers
+   */
+  public HashRing (Collection<InetSocketAddress> members) {
+    this(members, DEFAULT_VIRTUAL_NODES);
+  }
+
+  /**
+   * Constructs a ring.
+   *
+   * @param members the ring's servers
+   *
+   * @param virtualNodes the number of the virtual points per server
+   */
+  public HashRing (@NonNull Collection<InetSocketAddress> members, int virtualNodes) {
+    if (members.isEmpty()) {
+      throw new IllegalArgumentException("The ring must have at least one member");
+    }
+    if (virtualNodes <= 0) {
+      throw new IllegalArgumentException("The number of the virtual nodes must be positive, but it is " + virtualNodes);
+    }
+    this.members = unmodifiableList(new ArrayList<>(new LinkedHashSet<>(members)));
+
+    List<Point> list = new ArrayList<>(this.members.size() * virtualNodes);
+    for (InetSocketAddress member : this.members) {
+      addPoints(list, member, virtualNodes);
+    }
+    // the ties are broken by the members' keys, so the ring doesn't depend on the members' order
+    list.sort(Comparator.comparingLong((Point it) -> it.hash)
+        .thenComparing(it -> it.key));
+
+    points = new long[list.size()];
+    owners = new InetSocketAddress[list.size()];
+    for (int index = 0; index < points.length; index++) {
+      points[index] = list.get(index).hash;
+      owners[index] = list.get(index).member;
+    }
+  }
+
+  /**
+   * Finds a name's owner.
+   *
+   * @param name the node's short name
+   *
+   * @return the server, which owns the name
+   */
+  public InetSocketAddress owner (@NonNull String name) {
+    val hash = hash(name.getBytes(UTF_8));
+    int index = Arrays.binarySearch(points, hash);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return index == points.length
+           ? owners[0]
+           : owners[index];
+  }
+
+  /**
+   * Returns a member's key on the ring: its IP address and its port.
+   *
+   * @param member the ring's member
+   *
+   * @return the member's key
+   */
+  static String key (@NonNull InetSocketAddress member) {
+    if (member.isUnresolved()) {
+      throw new IllegalArgumentException("The ring's member " + member + " is not resolved");
+    }
+    return member.getAddress().getHostAddress() + ':' + member.getPort();
+  }
+
+  /**
+   * The 64-bit FNV-1a hash with the MurmurHash3's finalizer, which spreads
+   * the similar names (like {@code node-1} and {@code node-2}) over the ring.
+   *
+   * @param bytes the hashed bytes
+   *
+   * @return the bytes' hash
+   */
+  static long hash (byte[] bytes) {
+    long hash = 0xCBF29CE484222325L;
+    for (val value : bytes) {
+      hash ^= value & 0xFF;
+      hash *= 0x100000001B3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  private static void addPoints (List<Point> list, InetSocketAddress member, int virtualNodes) {
+    val key = key(member);
+    for (int index = 0; index < virtualNodes; index++) {
+      val hash = hash((key + '#' + index).getBytes(UTF_8));
+      list.add(new Point(hash, key, member));
+    }
+  }
+
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  private static final class Point {
+
+    long hash;
+
+    String key;
+
+    InetSocketAddress member;
+
+    Point (long hash, String key, InetSocketAddress member) {
+      this.hash = hash;
+      this.key = key;
+      this.member = member;
+    }
+  }
+}
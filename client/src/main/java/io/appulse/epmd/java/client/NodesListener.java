@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.client;
+
+import io.appulse.epmd.java.core.model.response.NodeInfo;
+
+/**
+ * The registered nodes changes listener of a {@link NodesSubscription}.
+ * <p>
+ * The listener's methods are called by the subscription's thread one by one,
+ * in the changes' order.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+public interface NodesListener {
+
+  /**
+   * Receives a registered node. At the subscription's start,
+   * it is called for every already registered node.
+   *
+   * @param node the registered node's info
+   */
+  void registered (NodeInfo node);
+
+  /**
+   * Receives an unregistered node's name.
+   *
+   * @param name the unregistered node's name
+   */
+  void unregistered (String name);
+
+  /**
+   * Receives the subscription's disconnection by the server
+   * or because of the connection's error.
+   * <p>
+   * It is not called, if the subscription is closed by the client.
+   *
+   * @param cause the disconnection's cause
+   */
+  default void disconnected (Throwable cause) {
+    // noop
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.client;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.appulse.epmd.java.client.exception.EpmdConnectionException;
+import io.appulse.epmd.java.core.model.request.Subscribe;
+import io.appulse.epmd.java.core.model.response.NodeEvent;
+import io.appulse.epmd.java.core.model.response.Response;
+import io.appulse.utils.Bytes;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A subscription to a server's registered nodes changes (see {@link Subscribe}).
+ * <p>
+ * The subscription has its own connection and thread, which reads the server's
+ * events and passes them to the {@link NodesListener}. The server disconnects
+ * the subscribers, which don't keep up with the changes, so the listener
+ * must not block for long. An exception, thrown by the listener,
+ * closes the subscription.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class NodesSubscription implements Closeable {
+
+  /**
+   * Subscribes to the server's changes.
+   *
+   * @param address the server's address
+   *
+   * @param port the server's port
+   *
+   * @param listener the changes' listener
+   *
+   * @return the connected subscription, its {@link #getSynced()} future is completed
+   *         once the already registered nodes are passed to the listener
+   */
+  static NodesSubscription open (@NonNull InetAddress address, int port, @NonNull NodesListener listener) {
+    val subscription = new NodesSubscription(new Connection(address, port), listener);
+    try {
+      subscription.connection.send(new Subscribe().toBytes());
+      subscription.connection.disableReadTimeout();
+    } catch (EpmdConnectionException ex) {
+      subscription.connection.close();
+      subscription.synced.completeExceptionally(ex);
+      return subscription;
+    }
+
+    val thread = new Thread(subscription::run, "epmd-subscription-" + address.getHostAddress() + ':' + port);
+    thread.setDaemon(true);
+    thread.start();
+    return subscription;
+  }
+
+  Connection connection;
+
+  NodesListener listener;
+
+  CompletableFuture<NodesSubscription> synced = new CompletableFuture<>();
+
+  AtomicBoolean closed = new AtomicBoolean();
+
+  AtomicLong receivedBytes = new AtomicLong();
+
+  private NodesSubscription (@NonNull Connection connection, @NonNull NodesListener listener) {
+    this.connection = connection;
+    this.listener = listener;
+  }
+
+  /**
+   * Tells if the subscription is closed by the client or the server.
+   *
+   * @return {@code true} if the subscription is closed
+   */
+  public boolean isClosed () {
+    return closed.get();
+  }
+
+  /**
+   * Returns the subscription's sync future.
+   *
+   * @return the future, which is completed once the already registered nodes
+   *         are passed to the listener, or is failed, if the server is not
+   *         available, doesn't support the subscriptions or the subscription
+   *         is closed before
+   */
+  CompletableFuture<NodesSubscription> getSynced () {
+    return synced;
+  }
+
+  /**
+   * Returns the number of the received events' bytes, including the frames' headers.
+   *
+   * @return the received bytes number
+   */
+  public long getReceivedBytes () {
+    return receivedBytes.get();
+  }
+
+  @Override
+  public void close () {
+    if (closed.compareAndSet(false, true)) {
+      connection.close();
+      synced.completeExceptionally(new EpmdConnectionException("The subscription is closed"));
+    }
+  }
+
+  private void run () {
+    try {
+      while (!closed.get()) {
+        val length = Bytes.wrap(receive(Integer.BYTES)).readInt();
+        dispatch(Response.parse(receive(length), NodeEvent.class));
+      }
+    } catch (RuntimeException ex) {
+      if (!closed.compareAndSet(false, true)) {
+        return;
+      }
+      connection.close();
+      log.debug("the subscription was disconnected - '{}'", ex.getMessage());
+      if (!synced.completeExceptionally(ex)) {
+        listener.disconnected(ex);
+      }
+    }
+  }
+
+  private byte[] receive (int length) {
+    val bytes = connection.receive(length);
+    if (bytes.length < length) {
+      throw new EpmdConnectionException("The server closed the connection");
+    }
+    receivedBytes.addAndGet(length);
+    return bytes;
+  }
+
+  private void dispatch (NodeEvent event) {
+    switch (event.getType()) {
+    case REGISTERED:
+      listener.registered(event.getNode().get());
+      break;
+    case UNREGISTERED:
+      listener.unregistered(event.getName());
+      break;
+    case SYNCED:
+      synced.complete(this);
+      break;
+    default:
+      log.warn("unknown subscription's event - {}", event);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.client;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.appulse.epmd.java.client.exception.EpmdConnectionException;
+import io.appulse.epmd.java.core.model.request.Pipeline;
+import io.appulse.epmd.java.core.model.response.PipelineResult;
+import io.appulse.epmd.java.core.model.response.Response;
+import io.appulse.utils.Bytes;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A connection in the pipelined mode (see {@link Pipeline}).
+ * <p>
+ * The requests of a single exchange are written at once and queued, the
+ * responses are read in the requests' order and handed out to the queued
+ * exchanges one by one. So, the concurrent exchanges share the connection's
+ * round-trip: a caller writes its requests without waiting for the previous
+ * responses, and the reading caller completes all the exchanges before its own.
+ * <p>
+ * The first connection's error fails all the queued exchanges and breaks
+ * the connection for good.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@RequiredArgsConstructor(access = PRIVATE)
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class PipelinedConnection implements Closeable {
+
+  /**
+   * Opens a connection to the server and switches it to the pipelined mode.
+   *
+   * @param address the server's address
+   *
+   * @param port the server's port
+   *
+   * @return the pipelined connection or empty, if the server doesn't support the pipelined mode
+   *
+   * @throws EpmdConnectionException if the server is not available
+   */
+  static Optional<PipelinedConnection> open (@NonNull InetAddress address, int port) {
+    val connection = new Connection(address, port);
+    connection.send(new Pipeline().toBytes());
+    try {
+      // the tag and the version, the newer versions have more fields
+      val head = receive(connection, Byte.BYTES + Byte.BYTES);
+      val length = PipelineResult.length(Byte.toUnsignedInt(head[1]));
+      val bytes = Bytes.allocate(length).writeNB(head);
+      if (length > head.length) {
+        bytes.writeNB(receive(connection, length - head.length));
+      }
+      val result = Response.parse(bytes.array(), PipelineResult.class);
+      log.debug("the pipelined mode (version {}, max frame length {}) is enabled for {}:{}",
+                result.getVersion(), result.getMaxFrameLength(), address, port);
+      return Optional.of(new PipelinedConnection(connection, result.getMaxFrameLength()));
+    } catch (EpmdConnectionException | IllegalArgumentException ex) {
+      log.debug("the pipelined mode is not supported by {}:{}", address, port);
+      connection.close();
+      return Optional.empty();
+    }
+  }
+
+  private static byte[] receive (Connection connection, int length) {
+    val bytes = connection.receive(length);
+    if (bytes.length < length) {
+      throw new EpmdConnectionException("The server closed the connection");
+    }
+    return bytes;
+  }
+
+  @NonNull
+  Connection connection;
+
+  /**
+   * The server's maximum request's frame length.
+   */
+  @Getter
+  int maxFrameLength;
+
+  Queue<Exchange> queue = new ConcurrentLinkedQueue<>();
+
+  Object writeLock = new Object();
+
+  Object readLock = new Object();
+
+  AtomicBoolean broken = new AtomicBoolean();
+
+  /**
+   * Sends the requests and receives their responses.
+   *
+   * @param requests the requests' bytes
+   *
+   * @return the responses' bytes in the requests' order
+   *
+   * @throws EpmdConnectionException in case of the connection's errors
+   */
+  List<byte[]> exchange (@NonNull List<byte[]> requests) {
+    int length = 0;
+    for (val request : requests) {
+      length += request.length;
+    }
+    val output = Bytes.allocate(length);
+    requests.forEach(output::writeNB);
+
+    val exchange = new Exchange(requests.size());
+    synchronized (writeLock) {
+      if (broken.get()) {
+        throw new EpmdConnectionException("The pipelined connection is broken");
+      }
+      queue.add(exchange);
+      try {
+        connection.send(output.array());
+      } catch (EpmdConnectionException ex) {
+        fail(ex);
+        throw ex;
+      }
+    }
+
+    synchronized (readLock) {
+      while (!exchange.responses.isDone()) {
+        receiveNext();
+      }
+    }
+
+    try {
+      return exchange.responses.join();
+    } catch (CompletionException ex) {
+      val cause = ex.getCause();
+      throw cause instanceof EpmdConnectionException
+            ? (EpmdConnectionException) cause
+            : new EpmdConnectionException(ex);
+    }
+  }
+
+  /**
+   * Tells if the connection is broken or closed and can't be used anymore.
+   *
+   * @return {@code true} if the connection is not usable
+   */
+  boolean isBroken () {
+    return broken.get() || connection.isClosed();
+  }
+
+  @Override
+  public void close () {
+    fail(new EpmdConnectionException("The pipelined connection is closed"));
+  }
+
+  private void receiveNext () {
+    val next = queue.peek();
+    if (next == null) {
+      return;
+    }
+    try {
+      List<byte[]> responses = new ArrayList<>(next.count);
+      while (responses.size() < next.count) {
+        val responseLength = Bytes.wrap(receive(connection, Integer.BYTES)).readInt();
+        responses.add(receive(connection, responseLength));
+      }
+      queue.remove(next);
+      next.responses.complete(responses);
+    } catch (EpmdConnectionException ex) {
+      fail(ex);
+    }
+  }
+
+  private void fail (EpmdConnectionException exception) {
+    broken.set(true);
+    connection.close();
+    for (Exchange exchange = queue.poll(); exchange != null; exchange = queue.poll()) {
+      exchange.responses.completeExceptionally(exception);
+    }
+  }
+
+  @RequiredArgsConstructor
+  @FieldDefaults(makeFinal = true)
+  static final class Exchange {
+
+    int count;
+
+    CompletableFuture<List<byte[]>> responses = new CompletableFuture<>();
+  }
+}
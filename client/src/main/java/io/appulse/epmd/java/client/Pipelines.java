@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.client;
+
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.appulse.epmd.java.client.exception.EpmdConnectionException;
+import io.appulse.epmd.java.core.model.response.PipelineResult;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The client's pipelined connections, one per server.
+ * <p>
+ * The servers, which don't support the pipelined mode, are remembered for
+ * {@link #UNSUPPORTED_EXPIRATION} nanoseconds and get a new connection per
+ * request meanwhile, after that the server is asked again. A broken or closed
+ * pipelined connection is dropped and re-opened by the next exchange.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class Pipelines implements Closeable {
+
+  /**
+   * How long a server, which doesn't support the pipelined mode, is not asked again.
+   */
+  static final long UNSUPPORTED_EXPIRATION = SECONDS.toNanos(30);
+
+  boolean enabled;
+
+  Map<InetSocketAddress, PipelinedConnection> connections = new ConcurrentHashMap<>();
+
+  /**
+   * The servers without the pipelined mode and the times, when they could be asked again.
+   */
+  Map<InetSocketAddress, Long> unsupported = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs the pipelined connections.
+   *
+   * @param enabled use the pipelined mode or always open a new connection per request
+   */
+  Pipelines (boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Sends a request through the server's pipelined connection.
+   *
+   * @param address the server's address
+   *
+   * @param port the server's port
+   *
+   * @param request the request's bytes
+   *
+   * @return the response's bytes or empty, if the pipelined mode is not available
+   */
+  Optional<byte[]> exchange (@NonNull InetAddress address, int port, @NonNull byte[] request) {
+    return exchange(address, port, singletonList(request))
+        .map(it -> it.get(0));
+  }
+
+  /**
+   * Sends the requests through the server's pipelined connection.
+   *
+   * @param address the server's address
+   *
+   * @param port the server's port
+   *
+   * @param requests the requests' bytes
+   *
+   * @return the responses' bytes in the requests' order or empty, if the pipelined mode is not available
+   */
+  Optional<List<byte[]>> exchange (@NonNull InetAddress address, int port, @NonNull List<byte[]> requests) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+
+    InetSocketAddress key = new InetSocketAddress(address, port);
+    val connection = get(key);
+    if (connection == null) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(connection.exchange(requests));
+    } catch (EpmdConnectionException ex) {
+      log.debug("the pipelined connection to {} is broken - '{}'", key, ex.getMessage());
+      connections.remove(key, connection);
+      connection.close();
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns the server's maximum request's frame length, which is reported
+   * by its pipelined connection.
+   *
+   * @param address the server's address
+   *
+   * @param port the server's port
+   *
+   * @return the server's maximum frame length or the default one, if the pipelined mode is not available
+   */
+  int maxFrameLength (@NonNull InetAddress address, int port) {
+    if (!enabled) {
+      return PipelineResult.DEFAULT_MAX_FRAME_LENGTH;
+    }
+    val connection = get(new InetSocketAddress(address, port));
+    return connection == null
+           ? PipelineResult.DEFAULT_MAX_FRAME_LENGTH
+           : connection.getMaxFrameLength();
+  }
+
+  private PipelinedConnection get (InetSocketAddress key) {
+    val retryTime = unsupported.get(key);
+    if (retryTime != null) {
+      if (System.nanoTime() - retryTime < 0) {
+        return null;
+      }
+      unsupported.remove(key, retryTime);
+    }
+
+    val existing = connections.get(key);
+    if (existing != null) {
+      if (!existing.isBroken()) {
+        return existing;
+      }
+      connections.remove(key, existing);
+      existing.close();
+    }
+
+    // the connection is opened outside the map, so the blocking connect
+    // and negotiation don't stall the other servers' callers
+    val opened = PipelinedConnection.open(key.getAddress(), key.getPort());
+    if (!opened.isPresent()) {
+      unsupported.put(key, System.nanoTime() + UNSUPPORTED_EXPIRATION);
+      return null;
+    }
+    val connection = opened.get();
+    val winner = connections.putIfAbsent(key, connection);
+    if (winner == null) {
+      return connection;
+    }
+    connection.close();
+    return winner;
+  }
+
+  @Override
+  public void close () {
+    connections.values().forEach(PipelinedConnection::close);
+    connections.clear();
+    unsupported.clear();
+  }
+}
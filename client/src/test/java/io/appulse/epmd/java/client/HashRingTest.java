@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.client;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+  static final List<InetSocketAddress> MEMBERS = asList(
+      member(4369),
+      member(4370),
+      member(4371),
+      member(4372)
+  );
+
+  @Test
+  void balanced () {
+    val ring = new HashRing(MEMBERS);
+    val counts = names(10_000).stream()
+        .collect(groupingBy(ring::owner, counting()));
+
+    assertThat(counts)
+        .hasSize(4);
+    assertThat(counts.values())
+        .allSatisfy(it -> assertThat(it).isBetween(1_750L, 3_250L));
+  }
+
+  @Test
+  void orderIndependent () {
+    List<InetSocketAddress> reversed = new ArrayList<>(MEMBERS);
+    Collections.reverse(reversed);
+
+    val ring1 = new HashRing(MEMBERS);
+    val ring2 = new HashRing(reversed);
+    assertThat(names(1_000))
+        .allSatisfy(it -> assertThat(ring2.owner(it)).isEqualTo(ring1.owner(it)));
+  }
+
+  @Test
+  void minimalMovement () {
+    val ring = new HashRing(MEMBERS);
+    List<InetSocketAddress> grown = new ArrayList<>(MEMBERS);
+    grown.add(member(4373));
+    val grownRing = new HashRing(grown);
+
+    // a name either stays with its owner or moves to the new member
+    assertThat(names(10_000))
+        .allSatisfy(it -> assertThat(grownRing.owner(it)).isIn(ring.owner(it), member(4373)));
+  }
+
+  @Test
+  void invalidMembers () {
+    assertThatThrownBy(() -> new HashRing(Collections.emptyList()))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new HashRing(asList(InetSocketAddress.createUnresolved("popa", 4369))))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static List<String> names (int count) {
+    List<String> result = new ArrayList<>(count);
+    IntStream.range(0, count)
+        .mapToObj(it -> "node-" + it)
+        .forEach(result::add);
+    return result;
+  }
+
+  private static InetSocketAddress member (int port) {
+    return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+  }
+}
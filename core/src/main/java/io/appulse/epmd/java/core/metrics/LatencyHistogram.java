@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.metrics;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * A lock-free latency histogram with the log-linear buckets, like the HDR histograms.
+ * <p>
+ * Every power of two range of the values is split into 16 linear sub-buckets,
+ * so a recorded value is reported with at most 6.25% error. The values up
+ * to 2^40 nanoseconds (about 18 minutes) are distinguished, the bigger values
+ * are counted in the last bucket.
+ * <p>
+ * The counts are striped by the recording threads, every stripe is a separate
+ * region of an {@link AtomicLongArray}, so the concurrent recordings rarely
+ * touch the same cache lines. A {@link #snapshot()} sums up the stripes.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class LatencyHistogram {
+
+  static final int SUB_BUCKET_BITS = 4;
+
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  static final int MAX_EXPONENT = 40;
+
+  static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  /**
+   * The stripe's length: the buckets, the values' sum and a cache line of padding.
+   */
+  static final int STRIPE_LENGTH = BUCKETS + 1 + 8;
+
+  static final int MAX_STRIPES = 8;
+
+  /**
+   * Returns the bucket's index of a value.
+   *
+   * @param value the value
+   *
+   * @return the value's bucket index
+   */
+  static int index (long value) {
+    if (value < SUB_BUCKETS) {
+      return value < 0
+             ? 0
+             : (int) value;
+    }
+    val exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    val subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the highest value of a bucket.
+   *
+   * @param index the bucket's index
+   *
+   * @return the bucket's highest value
+   */
+  static long highestValue (int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    val shift = index / SUB_BUCKETS - 1;
+    val lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  private static int stripes () {
+    val processors = Runtime.getRuntime().availableProcessors();
+    val stripes = processors > 1
+                  ? Integer.highestOneBit(processors - 1) << 1
+                  : 1;
+    return Math.min(stripes, MAX_STRIPES);
+  }
+
+  int mask;
+
+  AtomicLongArray counts;
+
+  /**
+   * Constructs an empty histogram.
+   */
+  public LatencyHistogram () {
+    val stripes = stripes();
+    mask = stripes - 1;
+    counts = new AtomicLongArray(stripes * STRIPE_LENGTH);
+  }
+
+  /**
+   * Records a value.
+   *
+   * @param nanos the value in nanoseconds, the negative values are recorded as zeros
+   */
+  public void record (long nanos) {
+    val offset = ((int) Thread.currentThread().getId() & mask) * STRIPE_LENGTH;
+    counts.incrementAndGet(offset + index(nanos));
+    counts.addAndGet(offset + BUCKETS, Math.max(0, nanos));
+  }
+
+  /**
+   * Sums up the histogram's current counts. The concurrent recordings could
+   * be partially visible in the snapshot.
+   *
+   * @return the histogram's snapshot
+   */
+  public Snapshot snapshot () {
+    val buckets = new long[BUCKETS];
+    long count = 0;
+    long sum = 0;
+    for (int offset = 0; offset < counts.length(); offset += STRIPE_LENGTH) {
+      for (int index = 0; index < BUCKETS; index++) {
+        val value = counts.get(offset + index);
+        buckets[index] += value;
+        count += value;
+      }
+      sum += counts.get(offset + BUCKETS);
+    }
+    return new Snapshot(buckets, count, sum);
+  }
+
+  /**
+   * A histogram's snapshot, all the values are in nanoseconds.
+   */
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  public static final class Snapshot {
+
+    long[] buckets;
+
+    long count;
+
+    long sum;
+
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    Snapshot (long[] buckets, long count, long sum) {
+      this.buckets = buckets;
+      this.count = count;
+      this.sum = sum;
+    }
+
+    /**
+     * Returns the number of the recorded values.
+     *
+     * @return the values' number
+     */
+    public long getCount () {
+      return count;
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return the values' sum
+     */
+    public long getSum () {
+      return sum;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the values' mean or zero, if there are no values
+     */
+    public double getMean () {
+      return count == 0
+             ? 0
+             : (double) sum / count;
+    }
+
+    /**
+     * Returns the highest recorded value, rounded up to its bucket's highest value.
+     *
+     * @return the highest value or zero, if there are no values
+     */
+    public long getMax () {
+      for (int index = buckets.length - 1; index >= 0; index--) {
+        if (buckets[index] != 0) {
+          return highestValue(index);
+        }
+      }
+      return 0;
+    }
+
+    /**
+     * Returns the value, which is higher or equal to the percentile of the recorded values.
+     *
+     * @param percentile the percentile in [0, 100] range
+     *
+     * @return the value at the percentile, rounded up to its bucket's
+     *         highest value, or zero, if there are no values
+     */
+    public long getValueAtPercentile (double percentile) {
+      if (percentile < 0 || percentile > 100) {
+        throw new IllegalArgumentException("The percentile must be in [0, 100] range, but it is " + percentile);
+      }
+      val rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int index = 0; index < buckets.length; index++) {
+        seen += buckets[index];
+        if (seen >= rank) {
+          return highestValue(index);
+        }
+      }
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.metrics;
+
+import io.appulse.epmd.java.core.model.Tag;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * A request phase's latencies summary, all the latencies are in nanoseconds.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+@Builder
+public class LatencyStatistics {
+
+  @NonNull
+  Tag tag;
+
+  @NonNull
+  Phase phase;
+
+  /**
+   * The number of the measured requests.
+   */
+  long count;
+
+  double mean;
+
+  long median;
+
+  long p90;
+
+  long p99;
+
+  long p999;
+
+  long max;
+}
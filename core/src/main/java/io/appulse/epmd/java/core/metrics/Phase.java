@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.metrics;
+
+/**
+ * The measured phases of a request.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+public enum Phase {
+
+  /**
+   * The server reads the request's frame, from its header to the last byte of its body.
+   * The client waits for and reads the response, in the pipelined mode it is
+   * the whole round-trip, including the request's writing.
+   */
+  READ,
+
+  /**
+   * The server parses the request's frame, the client parses the response.
+   */
+  DECODE,
+
+  /**
+   * The server handles the request and prepares its response. For the client,
+   * it is the whole request, from its submission to its result, including
+   * the wait in the client's executor.
+   */
+  PROCESS,
+
+  /**
+   * The server writes the response, the client writes the request.
+   */
+  WRITE;
+}
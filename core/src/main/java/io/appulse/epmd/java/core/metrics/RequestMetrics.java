@@ -0,0 +1,250 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.metrics;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import io.appulse.epmd.java.core.model.Tag;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The requests' counters and the latency histograms of their phases, by the requests' tags.
+ * <p>
+ * The counters are {@link LongAdder}s and the histograms are striped
+ * {@link LatencyHistogram}s, which are created on the first recording, so
+ * the measurements don't add a contention point to the requests' path.
+ * The metrics could be published as a platform MBean, see {@link #publish(String)}.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class RequestMetrics implements RequestMetricsMxBean {
+
+  /**
+   * The published MBeans' domain.
+   */
+  public static final String DOMAIN = "io.appulse.epmd.java";
+
+  private static final Tag[] TAGS = Tag.values();
+
+  private static final Phase[] PHASES = Phase.values();
+
+  LongAdder[] requests = adders();
+
+  LongAdder[] errors = adders();
+
+  AtomicReferenceArray<LatencyHistogram> histograms = new AtomicReferenceArray<>(TAGS.length * PHASES.length);
+
+  AtomicReference<ObjectName> objectName = new AtomicReference<>();
+
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  private static LongAdder[] adders () {
+    val result = new LongAdder[TAGS.length];
+    for (int index = 0; index < result.length; index++) {
+      result[index] = new LongAdder();
+    }
+    return result;
+  }
+
+  private static Map<Tag, Long> toMap (LongAdder[] adders) {
+    Map<Tag, Long> result = new EnumMap<>(Tag.class);
+    for (val tag : TAGS) {
+      val value = adders[tag.ordinal()].sum();
+      if (value != 0) {
+        result.put(tag, value);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Counts a request.
+   *
+   * @param tag the request's tag
+   */
+  public void request (@NonNull Tag tag) {
+    requests[tag.ordinal()].increment();
+  }
+
+  /**
+   * Counts a failed request.
+   *
+   * @param tag the request's tag
+   */
+  public void error (@NonNull Tag tag) {
+    errors[tag.ordinal()].increment();
+  }
+
+  /**
+   * Records a request phase's latency.
+   *
+   * @param tag the request's tag
+   *
+   * @param phase the measured phase
+   *
+   * @param nanos the phase's duration in nanoseconds
+   */
+  public void record (@NonNull Tag tag, @NonNull Phase phase, long nanos) {
+    val index = tag.ordinal() * PHASES.length + phase.ordinal();
+    LatencyHistogram histogram = histograms.get(index);
+    if (histogram == null) {
+      histograms.compareAndSet(index, null, new LatencyHistogram());
+      histogram = histograms.get(index);
+    }
+    histogram.record(nanos);
+  }
+
+  /**
+   * Returns the number of the requests with the tag.
+   *
+   * @param tag the requests' tag
+   *
+   * @return the requests' number
+   */
+  public long getRequests (@NonNull Tag tag) {
+    return requests[tag.ordinal()].sum();
+  }
+
+  /**
+   * Returns the number of the failed requests with the tag.
+   *
+   * @param tag the requests' tag
+   *
+   * @return the failed requests' number
+   */
+  public long getErrors (@NonNull Tag tag) {
+    return errors[tag.ordinal()].sum();
+  }
+
+  /**
+   * Returns a snapshot of the requests phase's latencies.
+   *
+   * @param tag the requests' tag
+   *
+   * @param phase the measured phase
+   *
+   * @return the latencies' snapshot or empty, if the phase was never measured
+   */
+  public Optional<LatencyHistogram.Snapshot> getLatency (@NonNull Tag tag, @NonNull Phase phase) {
+    return Optional.ofNullable(histograms.get(tag.ordinal() * PHASES.length + phase.ordinal()))
+        .map(LatencyHistogram::snapshot);
+  }
+
+  @Override
+  public Map<Tag, Long> getRequests () {
+    return toMap(requests);
+  }
+
+  @Override
+  public Map<Tag, Long> getErrors () {
+    return toMap(errors);
+  }
+
+  @Override
+  public List<LatencyStatistics> getLatencies () {
+    List<LatencyStatistics> result = new ArrayList<>();
+    for (Tag tag : TAGS) {
+      for (Phase phase : PHASES) {
+        getLatency(tag, phase)
+            .map(it -> toStatistics(tag, phase, it))
+            .ifPresent(result::add);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the name of the published MBean.
+   *
+   * @return the MBean's name or empty, if the metrics are not published
+   */
+  public Optional<ObjectName> getObjectName () {
+    return Optional.ofNullable(objectName.get());
+  }
+
+  /**
+   * Registers the metrics in the platform MBean server.
+   *
+   * @param properties the MBean name's key properties, like {@code type=Server,port=4369},
+   *                   the name's domain is {@link #DOMAIN}
+   *
+   * @throws IllegalStateException if the metrics are already published,
+   *                               or if the MBean could not be registered
+   */
+  public void publish (@NonNull String properties) {
+    try {
+      val name = ObjectName.getInstance(DOMAIN + ':' + properties);
+      if (!objectName.compareAndSet(null, name)) {
+        throw new IllegalStateException("The metrics are already published as " + objectName.get());
+      }
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+    } catch (JMException ex) {
+      objectName.set(null);
+      throw new IllegalStateException("The metrics MBean could not be registered", ex);
+    }
+  }
+
+  /**
+   * Unregisters the published metrics from the platform MBean server,
+   * it does nothing if the metrics are not published or were already unregistered.
+   */
+  @SuppressWarnings("PMD.EmptyCatchBlock")
+  public void unpublish () {
+    val name = objectName.getAndSet(null);
+    if (name == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    } catch (InstanceNotFoundException ex) {
+      // noop
+    } catch (JMException ex) {
+      throw new IllegalStateException("The metrics MBean " + name + " could not be unregistered", ex);
+    }
+  }
+
+  private LatencyStatistics toStatistics (Tag tag, Phase phase, LatencyHistogram.Snapshot snapshot) {
+    return LatencyStatistics.builder()
+        .tag(tag)
+        .phase(phase)
+        .count(snapshot.getCount())
+        .mean(snapshot.getMean())
+        .median(snapshot.getValueAtPercentile(50))
+        .p90(snapshot.getValueAtPercentile(90))
+        .p99(snapshot.getValueAtPercentile(99))
+        .p999(snapshot.getValueAtPercentile(99.9))
+        .max(snapshot.getMax())
+        .build();
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.metrics;
+
+import java.util.List;
+import java.util.Map;
+import javax.management.MXBean;
+
+import io.appulse.epmd.java.core.model.Tag;
+
+/**
+ * The management interface of the {@link RequestMetrics}, it is published as an MXBean,
+ * so the generic JMX clients see the tags and the latencies' summaries as the open types.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@MXBean
+public interface RequestMetricsMxBean {
+
+  /**
+   * Returns the number of the requests by their tags.
+   *
+   * @return the requests' numbers, the tags without the requests are omitted
+   */
+  Map<Tag, Long> getRequests ();
+
+  /**
+   * Returns the number of the failed requests by their tags.
+   *
+   * @return the failed requests' numbers, the tags without the failures are omitted
+   */
+  Map<Tag, Long> getErrors ();
+
+  /**
+   * Returns the latencies' summaries of the measured requests' phases.
+   *
+   * @return the summaries by the requests' tags and phases
+   */
+  List<LatencyStatistics> getLatencies ();
+}
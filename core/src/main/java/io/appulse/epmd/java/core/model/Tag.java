@@ -72,6 +72,55 @@ public enum Tag {
    */
   STOP_REQUEST(115),
 
+  /**
+   * Switch a connection to the pipelined mode request tag.
+   * <p>
+   * It is an extension, which is not a part of the original EPMD protocol,
+   * the original servers close the connection on this request.
+   */
+  PIPELINE_REQUEST(240),
+
+  /**
+   * Pipelined mode is enabled response tag.
+   */
+  PIPELINE_RESPONSE(241),
+
+  /**
+   * Get the distribution ports of several nodes request tag.
+   * <p>
+   * It is an extension, which is not a part of the original EPMD protocol.
+   */
+  BATCH_PORT_PLEASE2_REQUEST(242),
+
+  /**
+   * Several nodes info from EPMD response tag.
+   */
+  BATCH_PORT2_RESPONSE(243),
+
+  /**
+   * Subscribe to the registered nodes changes request tag.
+   * <p>
+   * It is an extension, which is not a part of the original EPMD protocol.
+   */
+  SUBSCRIBE_REQUEST(244),
+
+  /**
+   * A registered nodes change event response tag.
+   */
+  NODE_EVENT_RESPONSE(245),
+
+  /**
+   * Find a node in the server's cluster (the server's own and its peers' nodes) request tag.
+   * <p>
+   * It is an extension, which is not a part of the original EPMD protocol.
+   */
+  CLUSTER_PORT_PLEASE2_REQUEST(246),
+
+  /**
+   * The cluster's nodes info from EPMD response tag.
+   */
+  CLUSTER_PORT2_RESPONSE(247),
+
   /**
    * Unknown request tag.
    */
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.request;
+
+import static io.appulse.epmd.java.core.model.Tag.CLUSTER_PORT_PLEASE2_REQUEST;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.utils.Bytes;
+
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Find a node by its name in the server's cluster request.
+ * <p>
+ * It is an extension of the EPMD protocol. The server answers with
+ * a {@link io.appulse.epmd.java.core.model.response.ClusterNodesInfo},
+ * which contains the server's own node and its peers' replicated nodes
+ * with the name.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+@AllArgsConstructor
+public class GetClusterNodeInfo implements Request {
+
+  @NonNull
+  String name;
+
+  GetClusterNodeInfo (Bytes bytes) {
+    name = bytes.readString(bytes.readableBytes(), ISO_8859_1);
+  }
+
+  @Override
+  public byte[] toBytes () {
+    val nameBytes = name.getBytes(ISO_8859_1);
+    val length = Byte.BYTES + nameBytes.length;
+    return Bytes.allocate(length + Short.BYTES)
+        .write2B(length)
+        .write1B(getTag().getCode())
+        .writeNB(nameBytes)
+        .array();
+  }
+
+  @Override
+  public Tag getTag () {
+    return CLUSTER_PORT_PLEASE2_REQUEST;
+  }
+}
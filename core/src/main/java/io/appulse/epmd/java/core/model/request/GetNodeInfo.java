@@ -44,7 +44,7 @@ public class GetNodeInfo implements Request {
   String name;
 
   GetNodeInfo (Bytes bytes) {
-    name = bytes.readString(ISO_8859_1);
+    name = bytes.readString(bytes.readableBytes(), ISO_8859_1);
   }
 
   @Override
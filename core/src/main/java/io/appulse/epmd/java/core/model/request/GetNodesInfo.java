@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.request;
+
+import static io.appulse.epmd.java.core.model.Tag.BATCH_PORT_PLEASE2_REQUEST;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.utils.Bytes;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Get the distribution ports of several nodes request.
+ * <p>
+ * It is an extension of the EPMD protocol, the server answers with
+ * a single {@link io.appulse.epmd.java.core.model.response.NodesInfo} response,
+ * which contains the nodes' infos in the requested names' order.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+public class GetNodesInfo implements Request {
+
+  /**
+   * The maximum frame's length (without the 2 bytes of size).
+   */
+  public static final int MAX_FRAME_LENGTH = 0xFFFF;
+
+  /**
+   * Calculates the request's frame length (without the 2 bytes of size).
+   *
+   * @param names the nodes' names
+   *
+   * @return the frame's length
+   */
+  public static int frameLength (@NonNull List<String> names) {
+    int length = Byte.BYTES + Short.BYTES;
+    for (val name : names) {
+      length += Short.BYTES + name.length();
+    }
+    return length;
+  }
+
+  @NonNull
+  List<String> names;
+
+  /**
+   * Constructs the request.
+   *
+   * @param names the nodes' names
+   *
+   * @throws IllegalArgumentException if the request doesn't fit into a frame
+   */
+  public GetNodesInfo (@NonNull List<String> names) {
+    if (frameLength(names) > MAX_FRAME_LENGTH) {
+      throw new IllegalArgumentException("Too many names for a single request");
+    }
+    this.names = unmodifiableList(new ArrayList<>(names));
+  }
+
+  GetNodesInfo (Bytes bytes) {
+    val count = bytes.readUnsignedShort();
+    List<String> list = new ArrayList<>(count);
+    for (int index = 0; index < count; index++) {
+      val length = bytes.readUnsignedShort();
+      list.add(bytes.readString(length, ISO_8859_1));
+    }
+    names = unmodifiableList(list);
+  }
+
+  @Override
+  public byte[] toBytes () {
+    val length = frameLength(names);
+    val bytes = Bytes.allocate(length + Short.BYTES)
+        .write2B(length)
+        .write1B(getTag().getCode())
+        .write2B(names.size());
+
+    for (val name : names) {
+      val nameBytes = name.getBytes(ISO_8859_1);
+      bytes.write2B(nameBytes.length)
+          .writeNB(nameBytes);
+    }
+    return bytes.array();
+  }
+
+  @Override
+  public Tag getTag () {
+    return BATCH_PORT_PLEASE2_REQUEST;
+  }
+}
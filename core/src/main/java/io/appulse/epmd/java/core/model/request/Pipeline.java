@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.request;
+
+import static io.appulse.epmd.java.core.model.Tag.PIPELINE_REQUEST;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.utils.Bytes;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Switch a connection to the pipelined mode request.
+ * <p>
+ * It is an extension of the EPMD protocol. After the successful
+ * {@link io.appulse.epmd.java.core.model.response.PipelineResult} response
+ * the connection stays open, a client could send several length-prefixed
+ * lookup requests ({@code PORT_PLEASE2}, {@code NAMES} and {@code DUMP})
+ * without waiting for the responses and the server sends the responses
+ * in the requests' order, every response is prefixed by its 4 bytes length.
+ * Since the version 2 the server reports its maximum request's frame length.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+@AllArgsConstructor
+public class Pipeline implements Request {
+
+  /**
+   * The current version of the pipelined mode.
+   */
+  public static final int VERSION = 2;
+
+  int version;
+
+  /**
+   * Constructs the request of the current version.
+   */
+  public Pipeline () {
+    this(VERSION);
+  }
+
+  Pipeline (Bytes bytes) {
+    version = bytes.readableBytes() > 0
+              ? bytes.readUnsignedByte()
+              : VERSION;
+  }
+
+  @Override
+  public byte[] toBytes () {
+    return new byte[] {
+        0, 2, // 2 bytes of size
+        getTag().getCode(),
+        (byte) version
+    };
+  }
+
+  @Override
+  public Tag getTag () {
+    return PIPELINE_REQUEST;
+  }
+}
@@ -108,6 +108,14 @@ public interface Request extends TaggedMessage {
       return (T) new Kill();
     case STOP_REQUEST:
       return (T) new Stop(bytes);
+    case PIPELINE_REQUEST:
+      return (T) new Pipeline(bytes);
+    case BATCH_PORT_PLEASE2_REQUEST:
+      return (T) new GetNodesInfo(bytes);
+    case SUBSCRIBE_REQUEST:
+      return (T) new Subscribe();
+    case CLUSTER_PORT_PLEASE2_REQUEST:
+      return (T) new GetClusterNodeInfo(bytes);
     default:
       throw new IllegalArgumentException();
     }
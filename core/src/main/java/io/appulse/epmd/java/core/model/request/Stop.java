@@ -41,7 +41,7 @@ public class Stop implements Request {
   String name;
 
   Stop (Bytes bytes) {
-    name = bytes.readString(ISO_8859_1);
+    name = bytes.readString(bytes.readableBytes(), ISO_8859_1);
   }
 
   @Override
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.request;
+
+import static io.appulse.epmd.java.core.model.Tag.SUBSCRIBE_REQUEST;
+
+import io.appulse.epmd.java.core.model.Tag;
+
+import lombok.Value;
+
+/**
+ * Subscribe to the registered nodes changes request.
+ * <p>
+ * It is an extension of the EPMD protocol. The connection stays open,
+ * the server sends a {@link io.appulse.epmd.java.core.model.response.NodeEvent}
+ * for every already registered node, then the snapshot's end event and
+ * then an event for every following registration and unregistration.
+ * Every event is prefixed by its 4 bytes length.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+public class Subscribe implements Request {
+
+  @Override
+  public byte[] toBytes () {
+    return new byte[] {
+        0, 1, // 2 bytes of size
+        getTag().getCode()
+    };
+  }
+
+  @Override
+  public Tag getTag () {
+    return SUBSCRIBE_REQUEST;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.response;
+
+import static io.appulse.epmd.java.core.model.Tag.CLUSTER_PORT2_RESPONSE;
+import static java.util.Collections.unmodifiableList;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.epmd.java.core.model.TaggedMessage;
+import io.appulse.utils.Bytes;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * The cluster's nodes info response, the answer to
+ * {@link io.appulse.epmd.java.core.model.request.GetClusterNodeInfo} request.
+ * <p>
+ * It consists of the tag, the 2 bytes number of the found nodes and the nodes one by one.
+ * A node is the 1 byte length of its origin server's address, the address,
+ * the origin server's 2 bytes port, the node's 8 bytes version at the origin
+ * and its {@link NodeInfo} encoding. The server's own nodes have no origin.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+public class ClusterNodesInfo implements Response, TaggedMessage {
+
+  /**
+   * The found nodes, the server's own node goes first.
+   */
+  List<Item> nodes;
+
+  /**
+   * Constructs the response.
+   *
+   * @param nodes the found nodes
+   */
+  public ClusterNodesInfo (@NonNull List<Item> nodes) {
+    this.nodes = unmodifiableList(new ArrayList<>(nodes));
+  }
+
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  ClusterNodesInfo (Bytes bytes) {
+    val tag = Tag.of(bytes.readByte());
+    if (tag != getTag()) {
+      throw new IllegalArgumentException("Unexpected message's tag " + tag.name());
+    }
+
+    val count = bytes.readUnsignedShort();
+    List<Item> list = new ArrayList<>(count);
+    for (int index = 0; index < count; index++) {
+      list.add(Item.read(bytes));
+    }
+    nodes = unmodifiableList(list);
+  }
+
+  @Override
+  public byte[] toBytes () {
+    val bytes = Bytes.resizableArray()
+        .write1B(getTag().getCode())
+        .write2B(nodes.size());
+
+    for (val node : nodes) {
+      node.write(bytes);
+    }
+    return bytes.arrayCopy();
+  }
+
+  @Override
+  public final Tag getTag () {
+    return CLUSTER_PORT2_RESPONSE;
+  }
+
+  /**
+   * A found node.
+   */
+  @Value
+  @Builder
+  public static final class Item {
+
+    /**
+     * The node's origin server, it is empty for the answering server's own node.
+     */
+    @NonNull
+    @Builder.Default
+    Optional<InetSocketAddress> origin = Optional.empty();
+
+    /**
+     * The node's version at its origin server, the later changes have the bigger versions.
+     */
+    long version;
+
+    @NonNull
+    NodeInfo node;
+
+    static Item read (Bytes bytes) {
+      val addressLength = bytes.readUnsignedByte();
+      Optional<InetSocketAddress> origin = Optional.empty();
+      if (addressLength > 0) {
+        val address = bytes.readBytes(addressLength);
+        val port = bytes.readUnsignedShort();
+        origin = Optional.of(new InetSocketAddress(toInetAddress(address), port));
+      }
+      return Item.builder()
+          .origin(origin)
+          .version(bytes.readLong())
+          .node(new NodeInfo(bytes))
+          .build();
+    }
+
+    private static InetAddress toInetAddress (byte[] address) {
+      try {
+        return InetAddress.getByAddress(address);
+      } catch (UnknownHostException ex) {
+        throw new IllegalArgumentException(ex);
+      }
+    }
+
+    void write (Bytes bytes) {
+      if (origin.isPresent()) {
+        val address = origin.get().getAddress().getAddress();
+        bytes.write1B(address.length)
+            .writeNB(address)
+            .write2B(origin.get().getPort());
+      } else {
+        bytes.write1B(0);
+      }
+      bytes.write8B(version)
+          .writeNB(node.toBytes());
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.response;
+
+import static io.appulse.epmd.java.core.model.Tag.NODE_EVENT_RESPONSE;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.epmd.java.core.model.TaggedMessage;
+import io.appulse.utils.Bytes;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * A registered nodes change event, the server sends them to the
+ * {@link io.appulse.epmd.java.core.model.request.Subscribe} request's connection.
+ * <p>
+ * It consists of the tag, the event's type, the 2 bytes length of the node's name,
+ * the name and, for a registration, the node's {@link NodeInfo} encoding.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+@AllArgsConstructor(access = PRIVATE)
+public class NodeEvent implements Response, TaggedMessage {
+
+  /**
+   * Creates a node's registration event.
+   *
+   * @param node the registered node's info
+   *
+   * @return the event
+   */
+  public static NodeEvent registered (@NonNull NodeInfo node) {
+    val name = node.getName()
+        .orElseThrow(() -> new IllegalArgumentException("The node's name is absent"));
+    return new NodeEvent(Type.REGISTERED, name, of(node));
+  }
+
+  /**
+   * Creates a node's unregistration event.
+   *
+   * @param name the unregistered node's name
+   *
+   * @return the event
+   */
+  public static NodeEvent unregistered (@NonNull String name) {
+    return new NodeEvent(Type.UNREGISTERED, name, empty());
+  }
+
+  /**
+   * Creates the event, which follows the subscription's snapshot of the
+   * already registered nodes.
+   *
+   * @return the event
+   */
+  public static NodeEvent synced () {
+    return new NodeEvent(Type.SYNCED, "", empty());
+  }
+
+  Type type;
+
+  /**
+   * The registered or unregistered node's name, it is empty for the {@link Type#SYNCED} event.
+   */
+  String name;
+
+  /**
+   * The registered node's info, it is present for the {@link Type#REGISTERED} event only.
+   */
+  Optional<NodeInfo> node;
+
+  NodeEvent (Bytes bytes) {
+    val tag = Tag.of(bytes.readByte());
+    if (tag != getTag()) {
+      throw new IllegalArgumentException("Unexpected message's tag " + tag.name());
+    }
+
+    type = Type.of(bytes.readByte());
+    val length = bytes.readUnsignedShort();
+    name = bytes.readString(length, ISO_8859_1);
+    node = type == Type.REGISTERED
+           ? of(new NodeInfo(bytes))
+           : empty();
+  }
+
+  @Override
+  public byte[] toBytes () {
+    val nameBytes = name.getBytes(ISO_8859_1);
+    val bytes = Bytes.resizableArray()
+        .write1B(getTag().getCode())
+        .write1B(type.getCode())
+        .write2B(nameBytes.length)
+        .writeNB(nameBytes);
+
+    node.map(NodeInfo::toBytes)
+        .ifPresent(bytes::writeNB);
+    return bytes.arrayCopy();
+  }
+
+  @Override
+  public final Tag getTag () {
+    return NODE_EVENT_RESPONSE;
+  }
+
+  /**
+   * The event's type.
+   */
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  public enum Type {
+
+    /**
+     * A node was registered.
+     */
+    REGISTERED(1),
+
+    /**
+     * A node was unregistered.
+     */
+    UNREGISTERED(2),
+
+    /**
+     * All the already registered nodes were sent, the following events are the changes.
+     */
+    SYNCED(3),
+
+    /**
+     * Unknown event's type.
+     */
+    UNKNOWN(-1);
+
+    @Getter
+    byte code;
+
+    Type (int code) {
+      this.code = (byte) code;
+    }
+
+    /**
+     * Parses numeric code to {@link Type} instance.
+     *
+     * @param code {@link Type} numeric representation.
+     *
+     * @return {@link Type} instance. {@link Type#UNKNOWN} if unknown.
+     */
+    public static Type of (byte code) {
+      return Stream.of(values())
+          .filter(it -> it.getCode() == code)
+          .findAny()
+          .orElse(UNKNOWN);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.response;
+
+import static io.appulse.epmd.java.core.model.Tag.BATCH_PORT2_RESPONSE;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.epmd.java.core.model.TaggedMessage;
+import io.appulse.utils.Bytes;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Several nodes info response, the answer to
+ * {@link io.appulse.epmd.java.core.model.request.GetNodesInfo} request.
+ * <p>
+ * It consists of the tag, the 2 bytes number of the nodes and the nodes'
+ * {@link NodeInfo} encodings one by one.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+public class NodesInfo implements Response, TaggedMessage {
+
+  /**
+   * The nodes' infos in the requested names' order.
+   */
+  List<NodeInfo> nodes;
+
+  /**
+   * Constructs the response.
+   *
+   * @param nodes the nodes' infos in the requested names' order
+   */
+  public NodesInfo (@NonNull List<NodeInfo> nodes) {
+    this.nodes = unmodifiableList(new ArrayList<>(nodes));
+  }
+
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  NodesInfo (Bytes bytes) {
+    val tag = Tag.of(bytes.readByte());
+    if (tag != getTag()) {
+      throw new IllegalArgumentException("Unexpected message's tag " + tag.name());
+    }
+
+    val count = bytes.readUnsignedShort();
+    List<NodeInfo> list = new ArrayList<>(count);
+    for (int index = 0; index < count; index++) {
+      list.add(new NodeInfo(bytes));
+    }
+    nodes = unmodifiableList(list);
+  }
+
+  @Override
+  public byte[] toBytes () {
+    val bytes = Bytes.resizableArray()
+        .write1B(getTag().getCode())
+        .write2B(nodes.size());
+
+    for (val node : nodes) {
+      bytes.writeNB(node.toBytes());
+    }
+    return bytes.arrayCopy();
+  }
+
+  @Override
+  public final Tag getTag () {
+    return BATCH_PORT2_RESPONSE;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.response;
+
+import static io.appulse.epmd.java.core.model.Tag.PIPELINE_RESPONSE;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.epmd.java.core.model.TaggedMessage;
+import io.appulse.utils.Bytes;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.val;
+
+/**
+ * Pipelined mode is enabled response.
+ * <p>
+ * Since the version 2 the response reports the server's maximum request's
+ * frame length, so a client could size its batch requests.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+@AllArgsConstructor
+public class PipelineResult implements Response, TaggedMessage {
+
+  /**
+   * The maximum request's frame length (without the 2 bytes of size) of a server
+   * with the default settings, the version 1 responses don't report the server's one.
+   */
+  public static final int DEFAULT_MAX_FRAME_LENGTH = 0xFFFF;
+
+  /**
+   * The first version, which reports the server's maximum frame length.
+   */
+  static final int MAX_FRAME_LENGTH_VERSION = 2;
+
+  /**
+   * Returns the response's length of a version.
+   *
+   * @param version the pipelined mode's version
+   *
+   * @return the response's length in bytes
+   */
+  public static int length (int version) {
+    return version < MAX_FRAME_LENGTH_VERSION
+           ? Byte.BYTES + Byte.BYTES
+           : Byte.BYTES + Byte.BYTES + Short.BYTES;
+  }
+
+  /**
+   * The pipelined mode's version, which the server uses for the connection.
+   */
+  int version;
+
+  /**
+   * The server's maximum request's frame length (without the 2 bytes of size).
+   */
+  int maxFrameLength;
+
+  /**
+   * Constructs the response of the server with the default maximum frame length.
+   *
+   * @param version the pipelined mode's version
+   */
+  public PipelineResult (int version) {
+    this(version, DEFAULT_MAX_FRAME_LENGTH);
+  }
+
+  PipelineResult (Bytes bytes) {
+    val tag = Tag.of(bytes.readByte());
+    if (tag != getTag()) {
+      throw new IllegalArgumentException("Unexpected message's tag " + tag.name());
+    }
+    version = bytes.readUnsignedByte();
+    maxFrameLength = version >= MAX_FRAME_LENGTH_VERSION && bytes.readableBytes() >= Short.BYTES
+                     ? bytes.readUnsignedShort()
+                     : DEFAULT_MAX_FRAME_LENGTH;
+  }
+
+  @Override
+  public byte[] toBytes () {
+    val bytes = Bytes.allocate(length(version))
+        .write1B(getTag().getCode())
+        .write1B(version);
+    if (version >= MAX_FRAME_LENGTH_VERSION) {
+      bytes.write2B(maxFrameLength);
+    }
+    return bytes.array();
+  }
+
+  @Override
+  public final Tag getTag () {
+    return PIPELINE_RESPONSE;
+  }
+}
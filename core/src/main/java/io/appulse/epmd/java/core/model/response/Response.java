@@ -67,6 +67,14 @@ public interface Response {
       return (T) new RegistrationResult(bytes);
     } else if (type == StopResult.class) {
       return (T) StopResult.from(bytes);
+    } else if (type == NodesInfo.class) {
+      return (T) new NodesInfo(bytes);
+    } else if (type == PipelineResult.class) {
+      return (T) new PipelineResult(bytes);
+    } else if (type == NodeEvent.class) {
+      return (T) new NodeEvent(bytes);
+    } else if (type == ClusterNodesInfo.class) {
+      return (T) new ClusterNodesInfo(bytes);
     }
     throw new IllegalArgumentException();
   }
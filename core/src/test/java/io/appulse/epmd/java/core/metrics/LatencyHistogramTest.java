@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.metrics;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void empty () {
+    val snapshot = new LatencyHistogram().snapshot();
+
+    assertThat(snapshot.getCount())
+        .isEqualTo(0);
+    assertThat(snapshot.getMean())
+        .isEqualTo(0);
+    assertThat(snapshot.getMax())
+        .isEqualTo(0);
+    assertThat(snapshot.getValueAtPercentile(99))
+        .isEqualTo(0);
+  }
+
+  @Test
+  void buckets () {
+    for (long value = 0; value < 1_000_000; value += 7) {
+      val index = LatencyHistogram.index(value);
+      val highest = LatencyHistogram.highestValue(index);
+      assertThat(highest)
+          .isGreaterThanOrEqualTo(value)
+          .isLessThanOrEqualTo(value + value / LatencyHistogram.SUB_BUCKETS);
+      assertThat(LatencyHistogram.index(highest))
+          .isEqualTo(index);
+      assertThat(LatencyHistogram.index(highest + 1))
+          .isEqualTo(index + 1);
+    }
+    assertThat(LatencyHistogram.index(-1))
+        .isEqualTo(0);
+    assertThat(LatencyHistogram.index(Long.MAX_VALUE))
+        .isEqualTo(LatencyHistogram.BUCKETS - 1);
+  }
+
+  @Test
+  void percentiles () {
+    val histogram = new LatencyHistogram();
+    for (long value = 1; value <= 10_000; value++) {
+      histogram.record(value * 1_000);
+    }
+
+    val snapshot = histogram.snapshot();
+    assertThat(snapshot.getCount())
+        .isEqualTo(10_000);
+    assertThat(snapshot.getMean())
+        .isCloseTo(5_000_500, within(0.1));
+    assertThat(snapshot.getValueAtPercentile(50))
+        .isBetween(5_000_000L, 5_000_000L + 5_000_000L / 16);
+    assertThat(snapshot.getValueAtPercentile(99))
+        .isBetween(9_900_000L, 9_900_000L + 9_900_000L / 16);
+    assertThat(snapshot.getValueAtPercentile(100))
+        .isEqualTo(snapshot.getMax())
+        .isBetween(10_000_000L, 10_000_000L + 10_000_000L / 16);
+    assertThat(snapshot.getValueAtPercentile(0))
+        .isBetween(1_000L, 1_000L + 1_000L / 16);
+
+    assertThatThrownBy(() -> snapshot.getValueAtPercentile(101))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void concurrentRecordings () throws Exception {
+    val histogram = new LatencyHistogram();
+    val start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int index = 0; index < 8; index++) {
+      val thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (int value = 0; value < 100_000; value++) {
+          histogram.record(MILLISECONDS.toNanos(1));
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (val thread : threads) {
+      thread.join();
+    }
+
+    val snapshot = histogram.snapshot();
+    assertThat(snapshot.getCount())
+        .isEqualTo(800_000);
+    assertThat(snapshot.getMean())
+        .isEqualTo(MILLISECONDS.toNanos(1));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.metrics;
+
+import static io.appulse.epmd.java.core.model.Tag.NAMES_REQUEST;
+import static io.appulse.epmd.java.core.model.Tag.PORT_PLEASE2_REQUEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class RequestMetricsTest {
+
+  @Test
+  void record () {
+    val metrics = new RequestMetrics();
+    metrics.request(PORT_PLEASE2_REQUEST);
+    metrics.request(PORT_PLEASE2_REQUEST);
+    metrics.request(NAMES_REQUEST);
+    metrics.error(NAMES_REQUEST);
+    metrics.record(PORT_PLEASE2_REQUEST, Phase.PROCESS, 1_000);
+    metrics.record(PORT_PLEASE2_REQUEST, Phase.PROCESS, 3_000);
+
+    assertThat(metrics.getRequests())
+        .containsOnlyKeys(PORT_PLEASE2_REQUEST, NAMES_REQUEST)
+        .containsEntry(PORT_PLEASE2_REQUEST, 2L)
+        .containsEntry(NAMES_REQUEST, 1L);
+    assertThat(metrics.getErrors())
+        .containsOnlyKeys(NAMES_REQUEST);
+    assertThat(metrics.getLatency(PORT_PLEASE2_REQUEST, Phase.WRITE))
+        .isEmpty();
+    assertThat(metrics.getLatency(PORT_PLEASE2_REQUEST, Phase.PROCESS))
+        .hasValueSatisfying(it -> assertThat(it.getMean()).isEqualTo(2_000));
+
+    assertThat(metrics.getLatencies())
+        .hasSize(1)
+        .first()
+        .satisfies(it -> {
+          assertThat(it.getTag()).isEqualTo(PORT_PLEASE2_REQUEST);
+          assertThat(it.getPhase()).isEqualTo(Phase.PROCESS);
+          assertThat(it.getCount()).isEqualTo(2);
+          assertThat(it.getMax()).isBetween(3_000L, 3_200L);
+        });
+  }
+
+  @Test
+  void publish () throws Exception {
+    val metrics = new RequestMetrics();
+    metrics.request(PORT_PLEASE2_REQUEST);
+    metrics.record(PORT_PLEASE2_REQUEST, Phase.READ, 1_000);
+
+    metrics.publish("type=Test,name=publish");
+    val name = new ObjectName(RequestMetrics.DOMAIN + ":type=Test,name=publish");
+    assertThat(metrics.getObjectName())
+        .hasValue(name);
+    assertThatThrownBy(() -> metrics.publish("type=Test,name=publish"))
+        .isInstanceOf(IllegalStateException.class);
+
+    val server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      val requests = (TabularData) server.getAttribute(name, "Requests");
+      assertThat(requests.get(new Object[] { PORT_PLEASE2_REQUEST.name() }).get("value"))
+          .isEqualTo(1L);
+
+      val latencies = (CompositeData[]) server.getAttribute(name, "Latencies");
+      assertThat(latencies)
+          .hasSize(1);
+      assertThat(latencies[0].get("phase"))
+          .isEqualTo(Phase.READ.name());
+      assertThat(latencies[0].get("count"))
+          .isEqualTo(1L);
+    } finally {
+      metrics.unpublish();
+    }
+
+    assertThat(server.isRegistered(name))
+        .isFalse();
+    assertThat(metrics.getObjectName())
+        .isEmpty();
+  }
+}
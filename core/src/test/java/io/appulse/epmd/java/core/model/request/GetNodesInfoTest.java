@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.request;
+
+import static io.appulse.epmd.java.core.model.Tag.BATCH_PORT_PLEASE2_REQUEST;
+import static java.util.Arrays.asList;
+import static java.util.Collections.nCopies;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.appulse.utils.Bytes;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class GetNodesInfoTest {
+
+  @Test
+  void serialize () {
+    val expected = Bytes.resizableArray()
+        .write2B(1 + 2 + 2 + 4 + 2 + 5)
+        .write1B(BATCH_PORT_PLEASE2_REQUEST.getCode())
+        .write2B(2)
+        .write2B(4)
+        .writeNB("popa")
+        .write2B(5)
+        .writeNB("popa2")
+        .arrayCopy();
+
+    val request = new GetNodesInfo(asList("popa", "popa2"));
+    assertThat(request.toBytes())
+        .isEqualTo(expected);
+  }
+
+  @Test
+  void deserialize () {
+    val bytes = Bytes.resizableArray()
+        .write2B(1 + 2 + 2 + 4 + 2 + 5)
+        .write1B(BATCH_PORT_PLEASE2_REQUEST.getCode())
+        .write2B(2)
+        .write2B(4)
+        .writeNB("popa")
+        .write2B(5)
+        .writeNB("popa2")
+        .arrayCopy();
+
+    val request = (GetNodesInfo) Request.parse(bytes);
+    assertThat(request.getNames())
+        .containsExactly("popa", "popa2");
+  }
+
+  @Test
+  void tooManyNames () {
+    assertThatThrownBy(() -> new GetNodesInfo(nCopies(20_000, "popa")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.request;
+
+import static io.appulse.epmd.java.core.model.Tag.PIPELINE_REQUEST;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.appulse.utils.Bytes;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class PipelineTest {
+
+  @Test
+  void serialize () {
+    val expected = Bytes.resizableArray()
+        .write2B(2)
+        .write1B(PIPELINE_REQUEST.getCode())
+        .write1B(Pipeline.VERSION)
+        .arrayCopy();
+
+    val request = new Pipeline();
+    assertThat(request.toBytes())
+        .isEqualTo(expected);
+  }
+
+  @Test
+  void deserialize () {
+    val bytes = Bytes.resizableArray()
+        .write2B(2)
+        .write1B(PIPELINE_REQUEST.getCode())
+        .write1B(7)
+        .arrayCopy();
+
+    val request = (Pipeline) Request.parse(bytes);
+    assertThat(request.getVersion())
+        .isEqualTo(7);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.response;
+
+import static io.appulse.epmd.java.core.model.NodeType.R4_HIDDEN;
+import static io.appulse.epmd.java.core.model.Protocol.UDP;
+import static io.appulse.epmd.java.core.model.Tag.CLUSTER_PORT2_RESPONSE;
+import static io.appulse.epmd.java.core.model.Version.R4;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Optional;
+
+import io.appulse.utils.Bytes;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class ClusterNodesInfoTest {
+
+  static final NodeInfo NODE = NodeInfo.builder()
+      .ok(true)
+      .port(8080)
+      .type(R4_HIDDEN)
+      .protocol(UDP)
+      .high(R4)
+      .low(R4)
+      .name("popa")
+      .build();
+
+  static final InetSocketAddress ORIGIN = new InetSocketAddress(InetAddress.getLoopbackAddress(), 4369);
+
+  @Test
+  void serialize () {
+    val expected = Bytes.resizableArray()
+        .write1B(CLUSTER_PORT2_RESPONSE.getCode())
+        .write2B(2)
+        .write1B(0)
+        .write8B(1L)
+        .writeNB(NODE.toBytes())
+        .write1B(4)
+        .writeNB(new byte[] { 127, 0, 0, 1 })
+        .write2B(4369)
+        .write8B(7L)
+        .writeNB(NODE.toBytes())
+        .arrayCopy();
+
+    val response = new ClusterNodesInfo(asList(
+        ClusterNodesInfo.Item.builder()
+            .origin(Optional.empty())
+            .version(1)
+            .node(NODE)
+            .build(),
+        ClusterNodesInfo.Item.builder()
+            .origin(Optional.of(ORIGIN))
+            .version(7)
+            .node(NODE)
+            .build()
+    ));
+    assertThat(response.toBytes())
+        .isEqualTo(expected);
+  }
+
+  @Test
+  void deserialize () {
+    val bytes = Bytes.resizableArray()
+        .write1B(CLUSTER_PORT2_RESPONSE.getCode())
+        .write2B(1)
+        .write1B(4)
+        .writeNB(new byte[] { 127, 0, 0, 1 })
+        .write2B(4369)
+        .write8B(7L)
+        .writeNB(NODE.toBytes())
+        .arrayCopy();
+
+    val response = Response.parse(bytes, ClusterNodesInfo.class);
+    assertThat(response.getNodes())
+        .hasSize(1);
+
+    val item = response.getNodes().get(0);
+    assertThat(item.getOrigin())
+        .hasValue(ORIGIN);
+    assertThat(item.getVersion())
+        .isEqualTo(7);
+    assertThat(item.getNode().getName())
+        .hasValue("popa");
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.response;
+
+import static io.appulse.epmd.java.core.model.NodeType.R4_HIDDEN;
+import static io.appulse.epmd.java.core.model.Protocol.UDP;
+import static io.appulse.epmd.java.core.model.Tag.NODE_EVENT_RESPONSE;
+import static io.appulse.epmd.java.core.model.Version.R4;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.appulse.utils.Bytes;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class NodeEventTest {
+
+  static final NodeInfo NODE = NodeInfo.builder()
+      .ok(true)
+      .port(8080)
+      .type(R4_HIDDEN)
+      .protocol(UDP)
+      .high(R4)
+      .low(R4)
+      .name("popa")
+      .build();
+
+  @Test
+  void serialize () {
+    val expected = Bytes.resizableArray()
+        .write1B(NODE_EVENT_RESPONSE.getCode())
+        .write1B(NodeEvent.Type.REGISTERED.getCode())
+        .write2B(4)
+        .writeNB("popa", ISO_8859_1)
+        .writeNB(NODE.toBytes())
+        .arrayCopy();
+
+    assertThat(NodeEvent.registered(NODE).toBytes())
+        .isEqualTo(expected);
+  }
+
+  @Test
+  void deserialize () {
+    val registered = Response.parse(NodeEvent.registered(NODE).toBytes(), NodeEvent.class);
+    assertThat(registered.getType())
+        .isEqualTo(NodeEvent.Type.REGISTERED);
+    assertThat(registered.getName())
+        .isEqualTo("popa");
+    assertThat(registered.getNode())
+        .hasValueSatisfying(node -> {
+          assertThat(node.getName()).hasValue("popa");
+          assertThat(node.getPort()).hasValue(8080);
+        });
+
+    val unregistered = Response.parse(NodeEvent.unregistered("popa").toBytes(), NodeEvent.class);
+    assertThat(unregistered.getType())
+        .isEqualTo(NodeEvent.Type.UNREGISTERED);
+    assertThat(unregistered.getName())
+        .isEqualTo("popa");
+    assertThat(unregistered.getNode())
+        .isEmpty();
+
+    val synced = Response.parse(NodeEvent.synced().toBytes(), NodeEvent.class);
+    assertThat(synced.getType())
+        .isEqualTo(NodeEvent.Type.SYNCED);
+    assertThat(synced.getName())
+        .isEmpty();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.response;
+
+import static io.appulse.epmd.java.core.model.NodeType.R4_HIDDEN;
+import static io.appulse.epmd.java.core.model.Protocol.UDP;
+import static io.appulse.epmd.java.core.model.Tag.BATCH_PORT2_RESPONSE;
+import static io.appulse.epmd.java.core.model.Version.R4;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.appulse.utils.Bytes;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class NodesInfoTest {
+
+  static final NodeInfo FOUND = NodeInfo.builder()
+      .ok(true)
+      .port(8080)
+      .type(R4_HIDDEN)
+      .protocol(UDP)
+      .high(R4)
+      .low(R4)
+      .name("popa")
+      .build();
+
+  static final NodeInfo NOT_FOUND = NodeInfo.builder()
+      .ok(false)
+      .build();
+
+  @Test
+  void serialize () {
+    val expected = Bytes.resizableArray()
+        .write1B(BATCH_PORT2_RESPONSE.getCode())
+        .write2B(2)
+        .writeNB(NOT_FOUND.toBytes())
+        .writeNB(FOUND.toBytes())
+        .arrayCopy();
+
+    val response = new NodesInfo(asList(NOT_FOUND, FOUND));
+    assertThat(response.toBytes())
+        .isEqualTo(expected);
+  }
+
+  @Test
+  void deserialize () {
+    val bytes = Bytes.resizableArray()
+        .write1B(BATCH_PORT2_RESPONSE.getCode())
+        .write2B(2)
+        .writeNB(FOUND.toBytes())
+        .writeNB(NOT_FOUND.toBytes())
+        .arrayCopy();
+
+    val response = Response.parse(bytes, NodesInfo.class);
+    assertThat(response.getNodes())
+        .hasSize(2);
+
+    val found = response.getNodes().get(0);
+    assertThat(found.isOk())
+        .isTrue();
+    assertThat(found.getName())
+        .hasValue("popa");
+    assertThat(found.getPort())
+        .hasValue(8080);
+
+    assertThat(response.getNodes().get(1).isOk())
+        .isFalse();
+  }
+}
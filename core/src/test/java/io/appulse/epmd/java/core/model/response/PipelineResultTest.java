@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.core.model.response;
+
+import static io.appulse.epmd.java.core.model.Tag.PIPELINE_RESPONSE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.appulse.utils.Bytes;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class PipelineResultTest {
+
+  @Test
+  void serialize () {
+    val expected = Bytes.resizableArray()
+        .write1B(PIPELINE_RESPONSE.getCode())
+        .write1B(1)
+        .arrayCopy();
+
+    assertThat(new PipelineResult(1).toBytes())
+        .isEqualTo(expected);
+  }
+
+  @Test
+  void serializeMaxFrameLength () {
+    val expected = Bytes.resizableArray()
+        .write1B(PIPELINE_RESPONSE.getCode())
+        .write1B(2)
+        .write2B(4096)
+        .arrayCopy();
+
+    assertThat(new PipelineResult(2, 4096).toBytes())
+        .isEqualTo(expected);
+  }
+
+  @Test
+  void deserializeMaxFrameLength () {
+    val bytes = Bytes.resizableArray()
+        .write1B(PIPELINE_RESPONSE.getCode())
+        .write1B(2)
+        .write2B(4096)
+        .arrayCopy();
+
+    val response = Response.parse(bytes, PipelineResult.class);
+    assertThat(response.getVersion())
+        .isEqualTo(2);
+    assertThat(response.getMaxFrameLength())
+        .isEqualTo(4096);
+  }
+
+  @Test
+  void deserialize () {
+    val bytes = Bytes.resizableArray()
+        .write1B(PIPELINE_RESPONSE.getCode())
+        .write1B(1)
+        .arrayCopy();
+
+    val response = Response.parse(bytes, PipelineResult.class);
+    assertThat(response.getVersion())
+        .isEqualTo(1);
+    assertThat(response.getMaxFrameLength())
+        .isEqualTo(PipelineResult.DEFAULT_MAX_FRAME_LENGTH);
+  }
+}
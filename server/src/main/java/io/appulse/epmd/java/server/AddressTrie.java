@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collection;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * An immutable set of IPv4 and IPv6 networks, stored as binary prefix tries.
+ * <p>
+ * The membership check walks an address' bits from the most significant one
+ * until it reaches a network's end or a missing branch, so it takes at most
+ * 32 (IPv4) or 128 (IPv6) steps without any allocation besides the address'
+ * bytes. The tries' nodes are kept in flat arrays, instead of node objects.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class AddressTrie {
+
+  static final byte[] IPV6_ANY = new byte[16];
+
+  /**
+   * Builds a trie.
+   * <p>
+   * For the compatibility with the plain addresses list, the unspecified
+   * host address ({@code 0.0.0.0} or {@code ::}) matches any address.
+   *
+   * @param networks the trie's networks
+   *
+   * @return the built trie
+   */
+  static AddressTrie of (@NonNull Collection<Cidr> networks) {
+    val ipv4 = new Trie();
+    val ipv6 = new Trie();
+    for (val network : networks) {
+      val address = network.getAddress();
+      if (address.isAnyLocalAddress() && network.isHost()) {
+        ipv4.add(address.getAddress(), 0);
+        ipv6.add(IPV6_ANY, 0);
+        continue;
+      }
+      val trie = address instanceof Inet4Address
+                 ? ipv4
+                 : ipv6;
+      trie.add(address.getAddress(), network.getPrefix());
+    }
+    return new AddressTrie(ipv4, ipv6);
+  }
+
+  Trie ipv4;
+
+  Trie ipv6;
+
+  private AddressTrie (Trie ipv4, Trie ipv6) {
+    this.ipv4 = ipv4;
+    this.ipv6 = ipv6;
+  }
+
+  /**
+   * Checks if the address belongs to any of the trie's networks.
+   *
+   * @param address the checking address
+   *
+   * @return {@code true} if the address belongs to a network
+   */
+  boolean contains (@NonNull InetAddress address) {
+    val trie = address instanceof Inet4Address
+               ? ipv4
+               : ipv6;
+    return trie.contains(address.getAddress());
+  }
+
+  /**
+   * A binary trie of one address family.
+   * <p>
+   * The node {@code N} children are {@code children[2N]} (bit 0) and
+   * {@code children[2N + 1]} (bit 1), the node {@code 0} is the root,
+   * so the {@code 0} child means no child.
+   */
+  @FieldDefaults(level = PRIVATE)
+  static final class Trie {
+
+    int[] children = new int[64];
+
+    boolean[] terminal = new boolean[32];
+
+    int size = 1;
+
+    void add (byte[] address, int prefix) {
+      int node = 0;
+      for (int bit = 0; bit < prefix && !terminal[node]; bit++) {
+        val index = node * 2 + bit(address, bit);
+        if (children[index] == 0) {
+          val child = allocate(); // it could grow the arrays
+          children[index] = child;
+        }
+        node = children[index];
+      }
+      terminal[node] = true;
+    }
+
+    boolean contains (byte[] address) {
+      int node = 0;
+      for (int bit = 0; !terminal[node]; bit++) {
+        if (bit == address.length * Byte.SIZE) {
+          return false;
+        }
+        node = children[node * 2 + bit(address, bit)];
+        if (node == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private int allocate () {
+      if (size == terminal.length) {
+        terminal = Arrays.copyOf(terminal, size * 2);
+        children = Arrays.copyOf(children, size * 4);
+      }
+      return size++;
+    }
+
+    private static int bit (byte[] address, int bit) {
+      return address[bit / Byte.SIZE] >>> (Byte.SIZE - 1 - bit % Byte.SIZE) & 1;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.appulse.epmd.java.core.model.request.Request;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The classic blocking engine, which accepts a connection and hands it
+ * to the server's executor for reading, processing and responding.
+ * <p>
+ * The kept open registration connections are watched for disconnection
+ * by a single {@link DisconnectionWatcher} thread, the idle pipelined
+ * connections are watched by it for their next requests, so they hold no workers.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+class BlockingServerEngine implements ServerEngine {
+
+  @NonNull
+  SubcommandServer server;
+
+  AtomicReference<Listeners> listeners = new AtomicReference<>();
+
+  @Override
+  @SuppressWarnings("PMD.CloseResource")
+  public void run () throws IOException {
+    try (val watcher = new DisconnectionWatcher();
+         val currentListeners = server.openListeners()) {
+
+      listeners.set(currentListeners);
+
+      val watcherThread = new Thread(watcher, "epmd-watcher");
+      watcherThread.setDaemon(true);
+      watcherThread.start();
+
+      currentListeners.accept(clientChannel -> {
+        val remoteSocketAddress = clientChannel.socket().getRemoteSocketAddress();
+        val remoteAddress = server.getAllowedRemoteAddress(remoteSocketAddress);
+        if (remoteAddress == null) {
+          clientChannel.close();
+          return;
+        }
+        log.debug("{} - a new incoming connection", remoteSocketAddress);
+
+        val session = new SocketSession(clientChannel, watcher, server.inFlight.start());
+        dispatch(session, server.rateLimiter.of(remoteAddress));
+      });
+      server.awaitDrain();
+    }
+  }
+
+  @Override
+  public void close () {
+    val currentListeners = listeners.get();
+    if (currentListeners != null) {
+      currentListeners.close();
+    }
+  }
+
+  /**
+   * Hands the session's next request reading to a worker.
+   *
+   * @param session the client's session
+   *
+   * @param buckets the client address' rate limits, or {@code null} if there are no limits
+   */
+  void dispatch (SocketSession session, RateLimiter.Buckets buckets) {
+    try {
+      server.executor.execute(new ServerHandler(session, buckets));
+    } catch (RejectedExecutionException ex) {
+      server.overload.rejected(session);
+    }
+  }
+
+  static void readFully (SocketChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("the client closed the connection");
+      }
+    }
+  }
+
+  @Value
+  private class ServerHandler implements Runnable {
+
+    @NonNull
+    SocketSession session;
+
+    /**
+     * The client address' rate limits, or {@code null} if there are no limits.
+     */
+    RateLimiter.Buckets buckets;
+
+    @Override
+    public void run () {
+      session.dequeued();
+      val request = read();
+      if (request == null) {
+        return;
+      }
+      server.handle(request, session);
+      if (session.resume()) {
+        // an idle pipelined session must not hold the worker
+        session.awaitRequest(() -> dispatch(session, buckets));
+      }
+    }
+
+    /**
+     * Reads the session's next request.
+     *
+     * @return the parsed request or {@code null}, if the session was closed
+     */
+    Request read () {
+      val channel = session.getChannel();
+      val pool = server.bufferPool;
+      ByteBuffer buffer = pool.acquire();
+      Request request;
+      try {
+        buffer.limit(Short.BYTES);
+        if (channel.read(buffer) < 0) {
+          // a close between the frames is a normal end of the session
+          log.debug("{} - the client closed the connection", session);
+          session.close();
+          return null;
+        }
+        readFully(channel, buffer);
+        val readStart = System.nanoTime();
+        val requestLength = Short.toUnsignedInt(buffer.getShort(0));
+        if (requestLength > pool.getMaxBufferSize()) {
+          throw new ProtocolException("the frame of " + requestLength + " bytes exceeds the maximum frame size " + pool.getMaxBufferSize());
+        }
+        if (requestLength > buffer.capacity()) {
+          pool.release(buffer);
+          buffer = pool.acquire(requestLength);
+        }
+
+        buffer.clear();
+        if (buckets != null && requestLength > 0) {
+          buffer.limit(1);
+          readFully(channel, buffer);
+          if (!buckets.tryAcquire(buffer.get(0))) {
+            session.close();
+            return null;
+          }
+        }
+        buffer.limit(requestLength);
+        readFully(channel, buffer);
+        request = ServerMetrics.decode(server.metrics, buffer.array(), requestLength, readStart);
+      } catch (IOException | RuntimeException ex) {
+        server.handleError(session, ex);
+        return null;
+      } finally {
+        pool.release(buffer);
+      }
+      session.requestArrived();
+      return request;
+    }
+  }
+}
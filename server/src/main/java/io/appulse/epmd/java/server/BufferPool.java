@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * A pool of the same size heap buffers for reading the requests' frames.
+ * <p>
+ * The pool never blocks: if there is no free buffer, a new one is allocated,
+ * and the released buffers above the retained limit are left for the GC.
+ * The rare frames, which are bigger than the pooled buffers (but not bigger
+ * than the maximum frame size), are read into the one-off buffers.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+class BufferPool {
+
+  /**
+   * The pooled buffers' size, the most of the requests fit into it.
+   */
+  static final int DEFAULT_BUFFER_SIZE = 1024;
+
+  @Getter
+  int bufferSize;
+
+  @Getter
+  int maxBufferSize;
+
+  int maxRetained;
+
+  Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+
+  AtomicInteger freeCount = new AtomicInteger();
+
+  /**
+   * Constructs an empty pool.
+   *
+   * @param bufferSize the size of the pool's buffers
+   *
+   * @param maxRetained the maximum number of the free buffers, which are kept for reuse
+   */
+  BufferPool (int bufferSize, int maxRetained) {
+    this(bufferSize, bufferSize, maxRetained);
+  }
+
+  /**
+   * Constructs an empty pool.
+   *
+   * @param bufferSize the size of the pool's buffers
+   *
+   * @param maxBufferSize the maximum size of the acquired buffers, the pooled buffers are
+   *                      no bigger than it
+   *
+   * @param maxRetained the maximum number of the free buffers, which are kept for reuse
+   */
+  BufferPool (int bufferSize, int maxBufferSize, int maxRetained) {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("The buffer size must be positive, but it is " + bufferSize);
+    }
+    this.bufferSize = Math.min(bufferSize, maxBufferSize);
+    this.maxBufferSize = maxBufferSize;
+    this.maxRetained = maxRetained;
+  }
+
+  /**
+   * Acquires a cleared buffer.
+   *
+   * @return the pooled or a new buffer
+   */
+  ByteBuffer acquire () {
+    val buffer = free.poll();
+    if (buffer == null) {
+      return ByteBuffer.allocate(bufferSize);
+    }
+    freeCount.decrementAndGet();
+    return buffer;
+  }
+
+  /**
+   * Acquires a cleared buffer for a frame.
+   *
+   * @param size the frame's size
+   *
+   * @return the pooled buffer, or a new one-off buffer, if the frame is bigger than the pooled buffers
+   *
+   * @throws IllegalArgumentException if the size exceeds the maximum buffer size
+   */
+  ByteBuffer acquire (int size) {
+    if (size > maxBufferSize) {
+      throw new IllegalArgumentException("The buffer size " + size + " exceeds the maximum " + maxBufferSize);
+    }
+    return size > bufferSize
+           ? ByteBuffer.allocate(size)
+           : acquire();
+  }
+
+  /**
+   * Returns the buffer to the pool. The buffer must not be used after the call.
+   *
+   * @param buffer the acquired from the pool buffer
+   */
+  void release (@NonNull ByteBuffer buffer) {
+    if (buffer.capacity() != bufferSize) {
+      return;
+    }
+    if (freeCount.incrementAndGet() > maxRetained) {
+      freeCount.decrementAndGet();
+      return;
+    }
+    buffer.clear();
+    free.add(buffer);
+  }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.net.StandardSocketOptions.SO_KEEPALIVE;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+import static java.util.Arrays.asList;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
+import io.appulse.epmd.java.core.model.request.Request;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A non-blocking {@link SocketChannel} based session.
+ * <p>
+ * All the channel's I/O happens in its {@link EventLoop} thread,
+ * the {@link Session} methods could be safely called from any thread.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE)
+final class ChannelSession implements Session {
+
+  final EventLoop loop;
+
+  final BufferPool pool;
+
+  final SocketChannel channel;
+
+  final InetSocketAddress remoteAddress;
+
+  long acceptTime;
+
+  /**
+   * The time, which the accepted connection waited for its registration in the loop.
+   */
+  long queueDelay;
+
+  /**
+   * The client address' rate limits, or {@code null} if there are no limits.
+   */
+  final RateLimiter.Buckets buckets;
+
+  /**
+   * The current request's ticket, an idle pipelined session's ticket is finished.
+   */
+  InFlightRequests.Ticket ticket;
+
+  final ByteBuffer header = ByteBuffer.allocate(Short.BYTES);
+
+  final Queue<ByteBuffer> output = new ArrayDeque<>();
+
+  final AtomicReference<Runnable> closeListener = new AtomicReference<>();
+
+  final AtomicReference<Runnable> sentListener = new AtomicReference<>();
+
+  SelectionKey key;
+
+  ByteBuffer body;
+
+  int frameLength;
+
+  /**
+   * Tells if the current frame's tag was checked by the rate limits (or it needs no check).
+   */
+  boolean tagChecked;
+
+  long readStart;
+
+  boolean closeAfterFlush;
+
+  boolean watched;
+
+  boolean pipelined;
+
+  ChannelSession (@NonNull EventLoop loop,
+                  @NonNull BufferPool pool,
+                  @NonNull SocketChannel channel,
+                  @NonNull InetSocketAddress remoteAddress,
+                  long acceptTime,
+                  RateLimiter.Buckets buckets,
+                  @NonNull InFlightRequests.Ticket ticket
+  ) {
+    this.loop = loop;
+    this.pool = pool;
+    this.channel = channel;
+    this.remoteAddress = remoteAddress;
+    this.acceptTime = acceptTime;
+    queueDelay = System.nanoTime() - acceptTime;
+    this.buckets = buckets;
+    this.ticket = ticket;
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress () {
+    return remoteAddress;
+  }
+
+  @Override
+  public long getAcceptTime () {
+    return acceptTime;
+  }
+
+  @Override
+  public void send (@NonNull ByteBuffer... buffers) {
+    loop.execute(() -> {
+      output.addAll(asList(pipelined
+                           ? Session.frame(buffers)
+                           : buffers));
+      flush();
+    });
+  }
+
+  @Override
+  public void watch (@NonNull Runnable onClose) {
+    loop.execute(() -> {
+      ticket.finish();
+      closeListener.set(onClose);
+      if (!channel.isOpen()) {
+        notifyClosed();
+        return;
+      }
+      watched = true;
+      enableKeepAlive();
+      key.interestOps(key.interestOps() | OP_READ);
+    });
+  }
+
+  @Override
+  public void push (@NonNull Runnable onSent, @NonNull ByteBuffer... buffers) {
+    loop.execute(() -> {
+      output.addAll(asList(buffers));
+      sentListener.set(onSent);
+      flush();
+    });
+  }
+
+  @Override
+  public void pipeline () {
+    loop.execute(() -> pipelined = true);
+  }
+
+  @Override
+  public boolean isPipelined () {
+    return pipelined;
+  }
+
+  @Override
+  public void next () {
+    loop.execute(() -> {
+      // an idle pipelined session has no in-flight request, so it doesn't delay a drain
+      ticket.finish();
+      if (key.isValid()) {
+        key.interestOps(key.interestOps() | OP_READ);
+      }
+    });
+  }
+
+  @Override
+  public void close () {
+    loop.execute(() -> {
+      if (output.isEmpty()) {
+        closeNow();
+      } else {
+        closeAfterFlush = true;
+      }
+    });
+  }
+
+  @Override
+  public String toString () {
+    return String.valueOf(remoteAddress);
+  }
+
+  void register (@NonNull SelectionKey selectionKey) {
+    key = selectionKey;
+  }
+
+  /**
+   * Reads the channel's available bytes.
+   *
+   * @param metrics the server's metrics, which record the request's reading and parsing
+   *
+   * @return the parsed request, if it was fully read, or {@code null} otherwise
+   *
+   * @throws IOException in case of I/O errors, if the channel reached end-of-stream
+   *                     or if the frame exceeds the maximum frame size
+   */
+  Request read (@NonNull RequestMetrics metrics) throws IOException {
+    if (watched) {
+      discard();
+      return null;
+    }
+
+    if (header.hasRemaining() && !readHeader()) {
+      return null;
+    }
+    if (!readBody()) {
+      return null;
+    }
+
+    header.clear();
+    key.interestOps(key.interestOps() & ~OP_READ);
+    // the client's own sending time is never taken for the server's overload
+    acceptTime = System.nanoTime() - queueDelay;
+    queueDelay = 0;
+    try {
+      return ServerMetrics.decode(metrics, body.array(), body.position(), readStart);
+    } finally {
+      pool.release(body);
+    }
+  }
+
+  /**
+   * Writes the pending output into the channel.
+   */
+  void flush () {
+    if (!channel.isOpen()) {
+      output.clear();
+      return;
+    }
+
+    try {
+      if (!output.isEmpty()) {
+        channel.write(output.toArray(new ByteBuffer[0]));
+        while (!output.isEmpty() && !output.peek().hasRemaining()) {
+          output.remove();
+        }
+      }
+      if (!output.isEmpty()) {
+        key.interestOps(key.interestOps() | OP_WRITE);
+        return;
+      }
+    } catch (IOException ex) {
+      log.debug("{} - writing error '{}'", this, ex.getMessage());
+      closeNow();
+      return;
+    }
+
+    if (key.isValid()) {
+      key.interestOps(key.interestOps() & ~OP_WRITE);
+    }
+    if (closeAfterFlush) {
+      closeNow();
+      return;
+    }
+    notifySent();
+  }
+
+  @SuppressWarnings("PMD.EmptyCatchBlock")
+  void closeNow () {
+    output.clear();
+    sentListener.set(null);
+    if (!header.hasRemaining()) { // a frame's body is being read
+      pool.release(body);
+      header.clear();
+    }
+    if (key != null) {
+      key.cancel();
+    }
+    try {
+      channel.close();
+    } catch (IOException ex) {
+      // noop
+    }
+    ticket.finish();
+    notifyClosed();
+  }
+
+  private boolean readHeader () throws IOException {
+    if (channel.read(header) < 0) {
+      if (header.position() > 0) {
+        throw new EOFException("the client closed the connection in the middle of a frame");
+      }
+      // a close between the frames is a normal end of the session
+      log.debug("{} - the client closed the connection", this);
+      closeNow();
+      return false;
+    }
+    if (header.hasRemaining()) {
+      return false;
+    }
+    int length = Short.toUnsignedInt(header.getShort(0));
+    if (length > pool.getMaxBufferSize()) {
+      header.clear();
+      throw new ProtocolException("the frame of " + length + " bytes exceeds the maximum frame size " + pool.getMaxBufferSize());
+    }
+    body = pool.acquire(length);
+    ticket = ticket.next();
+    frameLength = length;
+    readStart = System.nanoTime();
+    // with the rate limits, the tag is read first and checked before the rest of the frame
+    tagChecked = buckets == null || length == 0;
+    body.limit(tagChecked ? length : 1);
+    return true;
+  }
+
+  private boolean readBody () throws IOException {
+    if (body.hasRemaining() && channel.read(body) < 0) {
+      throw new EOFException("the client closed the connection");
+    }
+    if (!tagChecked && !body.hasRemaining()) {
+      tagChecked = true;
+      if (!buckets.tryAcquire(body.get(0))) {
+        closeNow();
+        return false;
+      }
+      if (body.limit() < frameLength) {
+        body.limit(frameLength);
+        if (channel.read(body) < 0) {
+          throw new EOFException("the client closed the connection");
+        }
+      }
+    }
+    return !body.hasRemaining();
+  }
+
+  private void discard () {
+    header.clear();
+    try {
+      if (channel.read(header) < 0) {
+        log.debug("{} - the watched client closed the connection", this);
+        closeNow();
+      }
+    } catch (IOException ex) {
+      log.debug("{} - the watched client's connection error '{}'", this, ex.getMessage());
+      closeNow();
+    }
+    header.clear();
+  }
+
+  private void enableKeepAlive () {
+    try {
+      channel.setOption(SO_KEEPALIVE, true);
+    } catch (IOException ex) {
+      log.debug("{} - enabling keep-alive error '{}'", this, ex.getMessage());
+    }
+  }
+
+  private void notifySent () {
+    val listener = sentListener.getAndSet(null);
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
+  private void notifyClosed () {
+    val listener = closeListener.getAndSet(null);
+    if (listener != null) {
+      listener.run();
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * An IPv4 or IPv6 network in the CIDR notation, like {@code 10.20.0.0/16}.
+ * <p>
+ * A single host is a network with the full prefix length
+ * ({@code /32} for IPv4 and {@code /128} for IPv6).
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Getter
+@EqualsAndHashCode
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+public final class Cidr {
+
+  /**
+   * Parses a network's string, an address with an optional prefix length
+   * ({@code 10.20.0.0/16}, {@code fd00::/8} or {@code 192.168.0.1}).
+   *
+   * @param string the network's string
+   *
+   * @return the parsed network
+   *
+   * @throws IllegalArgumentException if the string is not a valid network
+   */
+  public static Cidr parse (@NonNull String string) {
+    val trimmed = string.trim();
+    val slash = trimmed.indexOf('/');
+    val host = slash < 0
+               ? trimmed
+               : trimmed.substring(0, slash);
+
+    InetAddress address;
+    try {
+      address = InetAddress.getByName(host);
+    } catch (UnknownHostException ex) {
+      throw new IllegalArgumentException("Invalid host " + host, ex);
+    }
+    if (slash < 0) {
+      return of(address);
+    }
+
+    int prefix;
+    try {
+      prefix = Integer.parseInt(trimmed.substring(slash + 1));
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Invalid prefix length in " + trimmed, ex);
+    }
+    return new Cidr(address, prefix);
+  }
+
+  /**
+   * Creates a single host network.
+   *
+   * @param address the host's address
+   *
+   * @return the host's network
+   */
+  public static Cidr of (@NonNull InetAddress address) {
+    return new Cidr(address, address.getAddress().length * Byte.SIZE);
+  }
+
+  /**
+   * The network's address, with all the bits after the prefix cleared.
+   */
+  InetAddress address;
+
+  /**
+   * The prefix length in bits.
+   */
+  int prefix;
+
+  /**
+   * Creates a network.
+   *
+   * @param address any address of the network
+   *
+   * @param prefix the prefix length in bits
+   *
+   * @throws IllegalArgumentException if the prefix length is out of the address' bits range
+   */
+  public Cidr (@NonNull InetAddress address, int prefix) {
+    val bytes = address.getAddress();
+    if (prefix < 0 || prefix > bytes.length * Byte.SIZE) {
+      throw new IllegalArgumentException("Invalid prefix length " + prefix + " of " + address.getHostAddress());
+    }
+    for (int bit = prefix; bit < bytes.length * Byte.SIZE; bit++) {
+      bytes[bit / Byte.SIZE] &= ~(0x80 >>> (bit % Byte.SIZE));
+    }
+    try {
+      this.address = InetAddress.getByAddress(bytes);
+    } catch (UnknownHostException ex) {
+      throw new IllegalArgumentException(ex);
+    }
+    this.prefix = prefix;
+  }
+
+  /**
+   * Tells if the network is a single host.
+   *
+   * @return {@code true} if the prefix is the full address length
+   */
+  public boolean isHost () {
+    return prefix == address.getAddress().length * Byte.SIZE;
+  }
+
+  @Override
+  public String toString () {
+    return isHost()
+           ? address.getHostAddress()
+           : address.getHostAddress() + '/' + prefix;
+  }
+}
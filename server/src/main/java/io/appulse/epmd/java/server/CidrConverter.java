@@ -0,0 +1,33 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * The command line {@link Cidr} options converter.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+class CidrConverter implements ITypeConverter<Cidr> {
+
+  @Override
+  public Cidr convert (String value) {
+    return Cidr.parse(value);
+  }
+}
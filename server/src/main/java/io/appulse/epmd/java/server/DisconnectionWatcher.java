@@ -0,0 +1,206 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.net.StandardSocketOptions.SO_KEEPALIVE;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A single selector thread, which watches the blocking engine's
+ * kept open sessions (the nodes registrations) for the remote side's
+ * disconnection and closes them, so the closing callbacks are invoked
+ * right away, without any polling.
+ * <p>
+ * The thread also writes the watched sessions' pushed bytes (the subscriptions'
+ * events) without blocking, so a slow client doesn't hold any thread.
+ * <p>
+ * The idle pipelined sessions are watched too, until their next requests arrive,
+ * then they are switched back to the blocking mode and handed to the workers
+ * (see {@link SocketSession#awaitRequest(Runnable)}).
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+class DisconnectionWatcher implements Runnable, Closeable {
+
+  Selector selector;
+
+  /**
+   * The sessions' registrations and flushes, in the calls' order.
+   */
+  Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The awaiting sessions, which next requests arrived, their keys are cancelled,
+   * but the channels are still registered until the next selection.
+   */
+  Queue<SocketSession> readable = new ArrayDeque<>();
+
+  ByteBuffer buffer = ByteBuffer.allocate(64);
+
+  AtomicBoolean running = new AtomicBoolean(true);
+
+  DisconnectionWatcher () throws IOException {
+    selector = Selector.open();
+  }
+
+  /**
+   * Starts watching the session.
+   * <p>
+   * The session's channel is switched to the non-blocking mode,
+   * so nothing could be read from, or written to, its streams after the call.
+   *
+   * @param session the session for watching
+   */
+  void watch (@NonNull SocketSession session) {
+    pending.add(() -> register(session));
+    selector.wakeup();
+  }
+
+  /**
+   * Writes the watched session's pushed bytes in the watcher's thread.
+   *
+   * @param session the watched session
+   */
+  void flush (@NonNull SocketSession session) {
+    pending.add(() -> {
+      val key = session.getChannel().keyFor(selector);
+      if (key != null && key.isValid()) {
+        session.flush(key);
+      }
+    });
+    selector.wakeup();
+  }
+
+  @Override
+  public void run () {
+    try {
+      while (running.get() && !Thread.interrupted()) {
+        selector.select();
+        dispatchReadable();
+        registerPending();
+
+        val iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+          val key = iterator.next();
+          iterator.remove();
+          check(key);
+        }
+      }
+    } catch (IOException ex) {
+      log.error("disconnection watcher error - '{}'", ex.getMessage());
+    } finally {
+      selector.keys().stream()
+          .map(SelectionKey::attachment)
+          .map(it -> (SocketSession) it)
+          .forEach(SocketSession::close);
+      readable.forEach(SocketSession::close);
+      closeSelector();
+    }
+  }
+
+  @Override
+  public void close () {
+    running.set(false);
+    selector.wakeup();
+  }
+
+  @SuppressWarnings("PMD.CloseResource")
+  private void dispatchReadable () {
+    for (SocketSession session = readable.poll(); session != null; session = readable.poll()) {
+      session.requestReadable();
+    }
+  }
+
+  private void registerPending () {
+    for (Runnable task = pending.poll(); task != null; task = pending.poll()) {
+      task.run();
+    }
+  }
+
+  @SuppressWarnings("PMD.CloseResource")
+  private void register (SocketSession session) {
+    val channel = session.getChannel();
+    try {
+      channel.configureBlocking(false);
+      channel.setOption(SO_KEEPALIVE, true);
+      channel.register(selector, OP_READ, session);
+    } catch (IOException ex) {
+      log.debug("{} - registering for watching error '{}'", session, ex.getMessage());
+      session.close();
+    }
+  }
+
+  void check (SelectionKey key) {
+    val session = (SocketSession) key.attachment();
+    if (!key.isValid()) {
+      session.close();
+      return;
+    }
+    if (key.isReadable() && session.isAwaitingRequest()) {
+      // the channel could be switched to the blocking mode, once it is deregistered by the next selection
+      key.cancel();
+      readable.add(session);
+      selector.wakeup();
+      return;
+    }
+    if (key.isWritable()) {
+      session.flush(key);
+      if (!key.isValid() || !key.isReadable()) {
+        return;
+      }
+    }
+
+    buffer.clear();
+    try {
+      if (session.getChannel().read(buffer) < 0) {
+        log.debug("{} - the watched client closed the connection", session);
+        session.close();
+      }
+    } catch (IOException ex) {
+      log.debug("{} - the watched client's connection error '{}'", session, ex.getMessage());
+      session.close();
+    }
+  }
+
+  @SuppressWarnings("PMD.EmptyCatchBlock")
+  private void closeSelector () {
+    try {
+      selector.close();
+    } catch (IOException ex) {
+      // noop
+    }
+  }
+}
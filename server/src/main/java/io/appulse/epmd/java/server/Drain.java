@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.CompletableFuture;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A server's graceful shutdown in progress.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class Drain {
+
+  InFlightRequests inFlight;
+
+  long started = System.nanoTime();
+
+  long deadline;
+
+  @Getter
+  CompletableFuture<DrainReport> future = new CompletableFuture<>();
+
+  Drain (@NonNull InFlightRequests inFlight, long timeout) {
+    this.inFlight = inFlight;
+    deadline = started + MILLISECONDS.toNanos(timeout);
+  }
+
+  /**
+   * Waits for the in-flight requests up to the drain's deadline and completes
+   * the drain's report future.
+   */
+  void await () {
+    DrainReport report;
+    try {
+      report = inFlight.await(deadline, started);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      abort();
+      return;
+    }
+    log.info("the server was drained: {} request(s) completed, {} aborted in {}ms",
+             report.getCompleted(), report.getAborted(), report.getDuration());
+    future.complete(report);
+  }
+
+  /**
+   * Completes the drain's report future, if it is not completed yet,
+   * with all the in-flight requests aborted.
+   */
+  void abort () {
+    future.complete(DrainReport.builder()
+        .aborted(inFlight.getActive())
+        .build());
+  }
+}
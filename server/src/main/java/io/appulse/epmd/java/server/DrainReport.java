@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The server's drain report.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+@Builder
+public class DrainReport {
+
+  /**
+   * The number of the in-flight requests, which were completed during the drain.
+   */
+  long completed;
+
+  /**
+   * The number of the in-flight requests, which were not completed until
+   * the drain's deadline and were aborted.
+   */
+  long aborted;
+
+  /**
+   * The drain's duration in milliseconds.
+   */
+  long duration;
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import io.appulse.epmd.java.core.model.request.GetEpmdDump;
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.response.EpmdDump;
+import io.appulse.epmd.java.core.model.response.EpmdDump.NodeDump;
+import io.appulse.epmd.java.core.model.response.Response;
+
+import lombok.val;
+
+/**
+ * The DUMP request processor.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+class DumpRequestProcessor extends RespondingRequestProcessor<GetEpmdDump> {
+
+  DumpRequestProcessor (SubcommandServer server, Request request, Session session) {
+    super(server, (GetEpmdDump) request, session);
+  }
+
+  @Override
+  protected Response respond () {
+    return server.dumpResponse.get(server.nodes.getVersion(), () -> EncodedResponse.of(server.portHeader, createResponse()));
+  }
+
+  Response createResponse () {
+    val builder = EpmdDump.builder()
+        .port(server.options.port);
+
+    server.getNodes().stream()
+        .map(it -> NodeDump.builder()
+            .status(NodeDump.Status.ACTIVE)
+            .name(it.getName())
+            .port(it.getPort())
+            .fileDescriptor(-1)
+            .build()
+        )
+        .forEach(builder::node);
+
+    return builder.build();
+  }
+}
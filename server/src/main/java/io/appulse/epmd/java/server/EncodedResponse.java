@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+
+import io.appulse.epmd.java.core.model.response.Response;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * An already encoded response, which could be sent many times
+ * without the re-encoding.
+ * <p>
+ * The response is stored as a sequence of read-only direct buffers,
+ * which are written with a single gathering write, so the sockets layer
+ * doesn't copy them into its temporary direct buffers. The segments
+ * could be shared between several responses (for example, a common header).
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class EncodedResponse implements Response {
+
+  /**
+   * Copies the bytes into a new read-only direct buffer.
+   *
+   * @param bytes the bytes for copying
+   *
+   * @return the direct buffer
+   */
+  static ByteBuffer direct (@NonNull byte[] bytes) {
+    val buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes);
+    buffer.flip();
+    return buffer.asReadOnlyBuffer();
+  }
+
+  /**
+   * Encodes the response.
+   *
+   * @param response the response for encoding
+   *
+   * @return the encoded response
+   */
+  static EncodedResponse of (@NonNull Response response) {
+    return new EncodedResponse(response.getClass().getSimpleName(), direct(response.toBytes()));
+  }
+
+  /**
+   * Encodes the response, which encoding starts with the shared header.
+   * Only the response's rest is copied, the header is shared.
+   *
+   * @param header the shared header, it must be the first bytes of the encoded response
+   *
+   * @param response the response for encoding
+   *
+   * @return the encoded response
+   */
+  static EncodedResponse of (@NonNull ByteBuffer header, @NonNull Response response) {
+    val bytes = response.toBytes();
+    val body = ByteBuffer.allocateDirect(bytes.length - header.remaining());
+    body.put(bytes, header.remaining(), body.capacity());
+    body.flip();
+    return new EncodedResponse(response.getClass().getSimpleName(), header, body.asReadOnlyBuffer());
+  }
+
+  String description;
+
+  ByteBuffer[] segments;
+
+  int length;
+
+  EncodedResponse (@NonNull String description, @NonNull ByteBuffer... segments) {
+    this.description = description;
+    this.segments = segments.clone();
+
+    int total = 0;
+    for (val segment : segments) {
+      total += segment.remaining();
+    }
+    length = total;
+  }
+
+  /**
+   * Returns the response's segments for a gathering write.
+   * <p>
+   * Every call returns new independent views of the shared segments.
+   *
+   * @return the segments' views
+   */
+  ByteBuffer[] toBuffers () {
+    val result = new ByteBuffer[segments.length];
+    for (int index = 0; index < segments.length; index++) {
+      result[index] = segments[index].duplicate();
+    }
+    return result;
+  }
+
+  @Override
+  public byte[] toBytes () {
+    val result = ByteBuffer.allocate(length);
+    for (val segment : segments) {
+      result.put(segment.duplicate());
+    }
+    return result.array();
+  }
+
+  @Override
+  public String toString () {
+    return description + '(' + length + " bytes)";
+  }
+}
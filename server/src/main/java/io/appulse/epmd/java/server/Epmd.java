@@ -48,6 +48,7 @@ import picocli.CommandLine.Option;
       HelpCommand.class,
       SubcommandNames.class,
       SubcommandServer.class,
+      SubcommandProxy.class,
       SubcommandStop.class,
       SubcommandKill.class
     }
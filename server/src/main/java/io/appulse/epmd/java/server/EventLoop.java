@@ -0,0 +1,254 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.net.StandardSocketOptions.TCP_NODELAY;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A single-threaded I/O loop of the {@link NioServerEngine}.
+ * <p>
+ * Every loop owns its {@link Selector} and {@link BufferPool}, it reads the
+ * requests of its connections, processes them and writes the responses in
+ * its own thread, so the loops share nothing except the nodes' registry.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+class EventLoop implements Runnable, Closeable {
+
+  SubcommandServer server;
+
+  BufferPool pool;
+
+  Selector selector;
+
+  Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  AtomicReference<Thread> loopThread = new AtomicReference<>();
+
+  AtomicBoolean running = new AtomicBoolean(true);
+
+  EventLoop (@NonNull SubcommandServer server, @NonNull BufferPool pool) throws IOException {
+    this.server = server;
+    this.pool = pool;
+    selector = Selector.open();
+  }
+
+  @Override
+  public void run () {
+    loopThread.set(Thread.currentThread());
+    try {
+      loop();
+    } catch (IOException | RuntimeException ex) {
+      log.error("event-loop error", ex);
+    } finally {
+      shutdown();
+    }
+  }
+
+  @Override
+  public void close () {
+    running.set(false);
+    selector.wakeup();
+  }
+
+  /**
+   * Hands a just accepted connection to the loop.
+   *
+   * @param channel the accepted connection
+   *
+   * @param remoteAddress the client's address
+   *
+   * @param buckets the client address' rate limits, or {@code null} if there are no limits
+   */
+  void register (@NonNull SocketChannel channel, @NonNull InetSocketAddress remoteAddress, RateLimiter.Buckets buckets) {
+    if (!running.get()) {
+      closeQuietly(channel);
+      return;
+    }
+    val registration = new PendingRegistration(channel, remoteAddress, System.nanoTime(), buckets, server.inFlight.start());
+    execute(registration);
+    // the loop could be shut down after the check above, but before the task was queued
+    if (!running.get() && tasks.remove(registration)) {
+      registration.abort();
+    }
+  }
+
+  /**
+   * Executes the task in the loop's thread.
+   *
+   * @param task the task for execution
+   */
+  void execute (@NonNull Runnable task) {
+    if (Thread.currentThread() == loopThread.get()) {
+      task.run();
+      return;
+    }
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  void loop () throws IOException {
+    while (running.get() && !Thread.interrupted()) {
+      selector.select();
+      runTasks();
+      if (!running.get()) {
+        return;
+      }
+
+      val iterator = selector.selectedKeys().iterator();
+      while (iterator.hasNext()) {
+        val key = iterator.next();
+        iterator.remove();
+        handle(key);
+      }
+    }
+  }
+
+  void handle (SelectionKey key) {
+    if (!key.isValid()) {
+      return;
+    }
+
+    val session = (ChannelSession) key.attachment();
+    try {
+      if (key.isReadable()) {
+        val request = session.read(server.metrics);
+        if (request != null) {
+          server.handle(request, session);
+        }
+      }
+      if (key.isValid() && key.isWritable()) {
+        session.flush();
+      }
+    } catch (Exception ex) {
+      server.handleError(session, ex);
+      session.closeNow();
+    }
+  }
+
+  private void shutdown () {
+    running.set(false);
+    selector.keys().stream()
+        .map(SelectionKey::attachment)
+        .filter(it -> it instanceof ChannelSession)
+        .map(it -> (ChannelSession) it)
+        .forEach(ChannelSession::closeNow);
+    for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+      if (task instanceof PendingRegistration) {
+        ((PendingRegistration) task).abort();
+      } else {
+        runTask(task);
+      }
+    }
+    closeQuietly(selector);
+  }
+
+  private void runTasks () {
+    for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+      runTask(task);
+    }
+  }
+
+  private void runTask (Runnable task) {
+    try {
+      task.run();
+    } catch (Exception ex) {
+      log.error("event-loop task error", ex);
+    }
+  }
+
+  @SuppressWarnings("PMD.EmptyCatchBlock")
+  void closeQuietly (Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException ex) {
+      // noop
+    }
+  }
+
+  /**
+   * A just accepted connection, which waits for its registration in the loop's selector.
+   * The registrations, which are still queued, when the loop is shut down, are aborted:
+   * their connections are closed and their requests are finished.
+   */
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  private final class PendingRegistration implements Runnable {
+
+    SocketChannel channel;
+
+    InetSocketAddress remoteAddress;
+
+    long acceptTime;
+
+    RateLimiter.Buckets buckets;
+
+    InFlightRequests.Ticket ticket;
+
+    PendingRegistration (SocketChannel channel,
+                         InetSocketAddress remoteAddress,
+                         long acceptTime,
+                         RateLimiter.Buckets buckets,
+                         InFlightRequests.Ticket ticket
+    ) {
+      this.channel = channel;
+      this.remoteAddress = remoteAddress;
+      this.acceptTime = acceptTime;
+      this.buckets = buckets;
+      this.ticket = ticket;
+    }
+
+    @Override
+    public void run () {
+      try {
+        channel.configureBlocking(false);
+        channel.setOption(TCP_NODELAY, true);
+
+        val session = new ChannelSession(EventLoop.this, pool, channel, remoteAddress, acceptTime, buckets, ticket);
+        session.register(channel.register(selector, OP_READ, session));
+      } catch (IOException ex) {
+        log.error("registering a new connection error - '{}'", ex.getMessage());
+        abort();
+      }
+    }
+
+    void abort () {
+      closeQuietly(channel);
+      ticket.finish();
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.appulse.epmd.java.core.model.request.GetClusterNodeInfo;
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.response.ClusterNodesInfo;
+import io.appulse.epmd.java.core.model.response.NodeInfo;
+import io.appulse.epmd.java.core.model.response.Response;
+
+import lombok.val;
+
+/**
+ * The cluster's PORT_PLEASE2 request processor, it answers with the local
+ * registration and the replicated ones from the server's peers.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+class GetClusterNodeInfoRequestProcessor extends RespondingRequestProcessor<GetClusterNodeInfo> {
+
+  GetClusterNodeInfoRequestProcessor (SubcommandServer server, Request request, Session session) {
+    super(server, (GetClusterNodeInfo) request, session);
+  }
+
+  @Override
+  protected Response respond () {
+    val name = request.getName();
+    List<ClusterNodesInfo.Item> items = new ArrayList<>();
+    server.getNode(name)
+        .map(it -> ClusterNodesInfo.Item.builder()
+            .node(Response.parse(it.getNodeInfo().toBytes(), NodeInfo.class))
+            .build())
+        .ifPresent(items::add);
+
+    val replication = server.replication.get();
+    if (replication != null) {
+      items.addAll(replication.locate(name));
+    }
+    return new ClusterNodesInfo(items);
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.Arrays.asList;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.epmd.java.core.model.request.GetNodesInfo;
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.response.Response;
+
+import lombok.val;
+
+/**
+ * The batch PORT_PLEASE2 request processor.
+ * <p>
+ * The response is composed of the nodes' already encoded
+ * PORT2_RESPONSEs, they are not copied.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+class GetNodesInfoRequestProcessor extends RespondingRequestProcessor<GetNodesInfo> {
+
+  GetNodesInfoRequestProcessor (SubcommandServer server, Request request, Session session) {
+    super(server, (GetNodesInfo) request, session);
+  }
+
+  @Override
+  protected Response respond () {
+    val names = request.getNames();
+    val header = ByteBuffer.allocate(Byte.BYTES + Short.BYTES)
+        .put(Tag.BATCH_PORT2_RESPONSE.getCode())
+        .putShort((short) names.size());
+    header.flip();
+
+    List<ByteBuffer> segments = new ArrayList<>(names.size() + 1);
+    segments.add(header);
+    for (val name : names) {
+      val nodeInfo = server.getNode(name)
+          .map(Node::getNodeInfo)
+          .orElse(GetNodeInfoRequestProcessor.NOT_FOUND);
+      segments.addAll(asList(nodeInfo.toBuffers()));
+    }
+    return new EncodedResponse("NodesInfo", segments.toArray(new ByteBuffer[0]));
+  }
+}
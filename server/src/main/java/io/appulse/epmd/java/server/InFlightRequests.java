@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The server's in-flight requests counter.
+ * <p>
+ * A request is in flight from its connection's acceptance until the connection
+ * is closed or, for a registration, until the response is sent and the connection
+ * is only watched for the node's disconnection.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class InFlightRequests {
+
+  /**
+   * The in-flight requests' polling period during a drain, in milliseconds.
+   */
+  static final long POLL_PERIOD = 10;
+
+  AtomicInteger active = new AtomicInteger();
+
+  AtomicLong finished = new AtomicLong();
+
+  /**
+   * Starts tracking a just accepted connection's request.
+   *
+   * @return the request's ticket
+   */
+  Ticket start () {
+    active.incrementAndGet();
+    return new Ticket();
+  }
+
+  /**
+   * Returns the number of the in-flight requests.
+   *
+   * @return the in-flight requests number
+   */
+  int getActive () {
+    return active.get();
+  }
+
+  /**
+   * Waits until all the in-flight requests are finished or the deadline is reached.
+   *
+   * @param deadline the {@link System#nanoTime()} deadline
+   *
+   * @param started the {@link System#nanoTime()} moment of the drain's start
+   *
+   * @return the drain's report, the requests, which were not finished until the deadline,
+   *         are reported as aborted
+   *
+   * @throws InterruptedException if the current thread was interrupted
+   */
+  DrainReport await (long deadline, long started) throws InterruptedException {
+    val finishedBefore = finished.get();
+    while (active.get() > 0 && deadline - System.nanoTime() > 0) {
+      MILLISECONDS.sleep(POLL_PERIOD);
+    }
+    return DrainReport.builder()
+        .completed(finished.get() - finishedBefore)
+        .aborted(active.get())
+        .duration(NANOSECONDS.toMillis(System.nanoTime() - started))
+        .build();
+  }
+
+  /**
+   * A request's ticket.
+   */
+  final class Ticket {
+
+    final AtomicBoolean done = new AtomicBoolean();
+
+    /**
+     * Marks the request as finished, the repeated calls are ignored.
+     */
+    void finish () {
+      if (done.compareAndSet(false, true)) {
+        active.decrementAndGet();
+        finished.incrementAndGet();
+      }
+    }
+
+    /**
+     * Starts tracking the same connection's next request (of a pipelined session),
+     * if this ticket's request is finished.
+     *
+     * @return this ticket, if its request is not finished yet, or a new ticket otherwise
+     */
+    Ticket next () {
+      return done.get()
+             ? start()
+             : this;
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import io.appulse.epmd.java.core.model.request.Kill;
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.response.KillResult;
+import io.appulse.epmd.java.core.model.response.Response;
+
+/**
+ * The KILL request processor.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+class KillRequestProcessor extends RespondingRequestProcessor<Kill> {
+
+  KillRequestProcessor (SubcommandServer server, Request request, Session session) {
+    super(server, (Kill) request, session);
+  }
+
+  @Override
+  protected Response respond () {
+    if (!server.unsafe) {
+      return KillResult.NOK;
+    }
+    server.nodes.getAll().forEach(Node::close);
+    return KillResult.OK;
+  }
+
+  @Override
+  protected void afterSend (Response response) {
+    super.afterSend(response);
+    if (response.equals(KillResult.NOK)) {
+      return;
+    }
+    server.drain();
+  }
+}
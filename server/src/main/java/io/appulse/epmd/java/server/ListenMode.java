@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The way how the server applies its allowed IPs list.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+public enum ListenMode {
+
+  /**
+   * Listens on all the local addresses and closes the accepted connections
+   * of the not allowed clients.
+   */
+  FILTER {
+
+    @Override
+    List<InetAddress> getBindAddresses (Set<Cidr> ips) {
+      return singletonList(null);
+    }
+  },
+
+  /**
+   * Listens only on the allowed local addresses (like the original epmd's
+   * {@code -address} option), one listener per address, so the kernel refuses
+   * the connections to the other addresses before they reach the server.
+   */
+  BIND {
+
+    @Override
+    List<InetAddress> getBindAddresses (Set<Cidr> ips) {
+      List<Cidr> networks = ips.stream()
+          .filter(it -> !it.isHost())
+          .collect(toList());
+      if (!networks.isEmpty()) {
+        throw new IllegalArgumentException("The networks " + networks + " can't be bound, use FILTER listen mode");
+      }
+
+      List<InetAddress> addresses = ips.stream()
+          .map(Cidr::getAddress)
+          .distinct()
+          .collect(toList());
+      return addresses.stream().anyMatch(InetAddress::isAnyLocalAddress)
+             ? singletonList(null)
+             : addresses;
+    }
+  };
+
+  /**
+   * Returns the server's listeners' local addresses.
+   *
+   * @param ips the allowed IPs
+   *
+   * @return the listeners' addresses, a {@code null} address means the wildcard one
+   *
+   * @throws IllegalArgumentException if the allowed IPs can't be bound
+   */
+  abstract List<InetAddress> getBindAddresses (Set<Cidr> ips);
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.net.StandardSocketOptions.SO_REUSEADDR;
+import static java.util.Collections.singletonList;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The server's listening sockets.
+ * <p>
+ * The listeners could be bound to all the local addresses or to a list
+ * of them, every address gets its own listeners. With more than one listener
+ * per address, all the sockets are bound to the same port
+ * with the {@code SO_REUSEPORT} option, so the kernel balances the incoming
+ * connections between their accept queues, and every listener has its own
+ * accept thread. The option appeared in Java 9 and is not supported by all
+ * the platforms, without it the server falls back to a single listener.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class Listeners implements Closeable {
+
+  /**
+   * The maximum length of every listener's accept queue.
+   */
+  static final int BACKLOG = 1000;
+
+  static final Optional<SocketOption<Boolean>> SO_REUSEPORT = findReusePortOption();
+
+  List<ServerSocketChannel> channels;
+
+  private Listeners (List<ServerSocketChannel> channels) {
+    this.channels = channels;
+  }
+
+  /**
+   * Opens the listeners on all the local addresses.
+   *
+   * @param port the port to bind
+   *
+   * @param count the requested number of the listeners
+   *
+   * @return the bound listeners
+   *
+   * @throws IOException in case of binding errors
+   */
+  static Listeners open (int port, int count) throws IOException {
+    return open(singletonList(null), port, count);
+  }
+
+  /**
+   * Opens the listeners on the specified local addresses.
+   *
+   * @param addresses the local addresses to bind, {@code null} means all the local addresses
+   *
+   * @param port the port to bind
+   *
+   * @param count the requested number of the listeners per address
+   *
+   * @return the bound listeners
+   *
+   * @throws IOException in case of binding errors
+   */
+  @SuppressWarnings({
+      "PMD.AvoidInstantiatingObjectsInLoops",
+      "PMD.CloseResource"
+  })
+  static Listeners open (@NonNull List<InetAddress> addresses, int port, int count) throws IOException {
+    List<ServerSocketChannel> channels = new ArrayList<>(addresses.size() * count);
+    try {
+      for (val address : addresses) {
+        val first = ServerSocketChannel.open();
+        channels.add(first);
+
+        val reusePort = count > 1
+                        ? SO_REUSEPORT.filter(it -> first.supportedOptions().contains(it))
+                        : Optional.<SocketOption<Boolean>>empty();
+        if (count > 1 && !reusePort.isPresent()) {
+          log.warn("SO_REUSEPORT is not supported, falling back to a single listener");
+        }
+        bind(first, new InetSocketAddress(address, port), reusePort);
+
+        for (int index = 1; index < count && reusePort.isPresent(); index++) {
+          val channel = ServerSocketChannel.open();
+          channels.add(channel);
+          bind(channel, new InetSocketAddress(address, port), reusePort);
+        }
+      }
+    } catch (IOException | RuntimeException ex) {
+      closeAll(channels);
+      throw ex;
+    }
+    return new Listeners(channels);
+  }
+
+  static SocketChannel accept (ServerSocketChannel channel) throws IOException {
+    try {
+      return channel.accept();
+    } catch (IOException ex) {
+      if (!channel.isOpen()) {
+        log.debug("the server socket was closed");
+        return null;
+      }
+      throw ex;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  static Optional<SocketOption<Boolean>> findReusePortOption () {
+    try {
+      val field = StandardSocketOptions.class.getField("SO_REUSEPORT");
+      return Optional.of((SocketOption<Boolean>) field.get(null));
+    } catch (NoSuchFieldException | IllegalAccessException ex) {
+      return Optional.empty();
+    }
+  }
+
+  static void bind (ServerSocketChannel channel,
+                    InetSocketAddress address,
+                    Optional<SocketOption<Boolean>> reusePort
+  ) throws IOException {
+    channel.setOption(SO_REUSEADDR, true);
+    if (reusePort.isPresent()) {
+      channel.setOption(reusePort.get(), true);
+    }
+    channel.bind(address, BACKLOG);
+  }
+
+  @SuppressWarnings("PMD.EmptyCatchBlock")
+  private static void closeAll (List<ServerSocketChannel> channels) {
+    for (val channel : channels) {
+      try {
+        channel.close();
+      } catch (IOException ex) {
+        // noop
+      }
+    }
+  }
+
+  /**
+   * Returns the number of the opened listeners.
+   *
+   * @return the number of the listeners
+   */
+  int size () {
+    return channels.size();
+  }
+
+  /**
+   * Accepts the connections of all the listeners and hands them to the handler.
+   * <p>
+   * The first listener is served by the current thread, the others - by their
+   * own accept threads. The method blocks until the listeners are closed,
+   * the current thread is interrupted or an accept error happens.
+   *
+   * @param handler the accepted connections' handler, it is called concurrently
+   *                by the accept threads
+   *
+   * @throws IOException in case of an accept error
+   */
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  void accept (@NonNull Handler handler) throws IOException {
+    try {
+      for (int index = 1; index < channels.size(); index++) {
+        val channel = channels.get(index);
+        val thread = new Thread(() -> acceptSafely(channel, handler), "epmd-acceptor-" + index);
+        thread.setDaemon(true);
+        thread.start();
+      }
+      acceptLoop(channels.get(0), handler);
+    } finally {
+      close();
+    }
+  }
+
+  @Override
+  public void close () {
+    closeAll(channels);
+  }
+
+  void acceptSafely (ServerSocketChannel channel, Handler handler) {
+    try {
+      acceptLoop(channel, handler);
+    } catch (IOException ex) {
+      log.error("accepting a new connection error - '{}'", ex.getMessage());
+      close();
+    }
+  }
+
+  void acceptLoop (ServerSocketChannel channel, Handler handler) throws IOException {
+    while (!Thread.interrupted() && channel.isOpen()) {
+      val clientChannel = accept(channel);
+      if (clientChannel == null) {
+        continue;
+      }
+      try {
+        handler.handle(clientChannel);
+      } catch (IOException ex) {
+        log.error("handling a new connection error - '{}'", ex.getMessage());
+        clientChannel.close();
+      }
+    }
+  }
+
+  /**
+   * The accepted connections' handler.
+   */
+  @FunctionalInterface
+  interface Handler {
+
+    /**
+     * Handles a just accepted connection.
+     *
+     * @param channel the accepted connection
+     *
+     * @throws IOException in case of I/O errors
+     */
+    void handle (SocketChannel channel) throws IOException;
+  }
+}
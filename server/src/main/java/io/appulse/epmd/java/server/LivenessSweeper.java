@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.appulse.utils.threads.AppulseExecutors;
+import io.appulse.utils.threads.AppulseThreadFactory;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A background sweeper, which periodically probes the registered nodes' ports
+ * and unregisters the unreachable ones (for example, the hung nodes,
+ * which still keep their registration connections open).
+ * <p>
+ * All the nodes are probed concurrently by a non-blocking {@link NodeProber},
+ * so a sweep takes about one connection timeout regardless of the nodes number.
+ * The probing never happens on the requests handling path, the requests
+ * just read the registered nodes, which survived the last sweep.
+ * The interval between the sweeps is randomized with up to 10% jitter,
+ * so the sweeps of several servers don't synchronize.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+class LivenessSweeper implements Closeable {
+
+  SubcommandServer server;
+
+  long interval;
+
+  NodeProber prober;
+
+  ScheduledExecutorService scheduler;
+
+  AtomicReference<SweepStatistics> lastSweep = new AtomicReference<>();
+
+  LongAdder reachable = new LongAdder();
+
+  LongAdder unreachable = new LongAdder();
+
+  /**
+   * Starts the server's sweeper.
+   *
+   * @param server the starting server
+   *
+   * @return the started sweeper, or empty if the sweeps are disabled
+   *
+   * @throws IOException if the prober could not be created
+   */
+  static Optional<LivenessSweeper> start (@NonNull SubcommandServer server) throws IOException {
+    if (server.livenessCheckInterval <= 0) {
+      return Optional.empty();
+    }
+    val sweeper = new LivenessSweeper(server, server.livenessCheckInterval,
+                                      server.livenessCheckTimeout, server.livenessCheckHostLimit);
+    sweeper.start();
+    return Optional.of(sweeper);
+  }
+
+  /**
+   * Constructs a not started sweeper.
+   *
+   * @param server the server, which nodes are swept
+   *
+   * @param interval the interval between the sweeps in milliseconds
+   *
+   * @param timeout the node's port connection timeout in milliseconds
+   *
+   * @param maxPerHost the maximum number of the simultaneous probes of the same host
+   *
+   * @throws IOException if the prober could not be created
+   */
+  LivenessSweeper (@NonNull SubcommandServer server, long interval, long timeout, int maxPerHost) throws IOException {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("The sweep interval must be positive, but it is " + interval);
+    }
+    this.server = server;
+    this.interval = interval;
+    prober = new NodeProber(timeout, maxPerHost);
+
+    scheduler = AppulseExecutors.newScheduledThreadPool()
+        .poolSize(1)
+        .threadFactory(AppulseThreadFactory.builder()
+            .name("epmd-sweeper-%d")
+            .daemon(true)
+            .build())
+        .build();
+  }
+
+  /**
+   * Schedules the first sweep.
+   */
+  void start () {
+    val proberThread = new Thread(prober, "epmd-prober");
+    proberThread.setDaemon(true);
+    proberThread.start();
+    scheduleNext();
+  }
+
+  /**
+   * Returns the statistics of the last completed sweep.
+   *
+   * @return the last sweep statistics, if any
+   */
+  Optional<SweepStatistics> getLastSweep () {
+    return Optional.ofNullable(lastSweep.get());
+  }
+
+  /**
+   * Returns the number of the probes, since the sweeper's start.
+   *
+   * @param isReachable the probes' outcome
+   *
+   * @return the number of the probes with the outcome
+   */
+  long getProbes (boolean isReachable) {
+    return isReachable
+           ? reachable.sum()
+           : unreachable.sum();
+  }
+
+  @Override
+  public void close () {
+    scheduler.shutdownNow();
+    prober.close();
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  void sweep () {
+    try {
+      val start = System.nanoTime();
+      val nodes = new ArrayList<>(server.nodes.getAll());
+      val evicted = new AtomicInteger();
+      val probes = nodes.stream()
+          .map(node -> prober.probe(getAddress(node)).thenAccept(isReachable -> {
+            if (isReachable) {
+              reachable.increment();
+            } else {
+              unreachable.increment();
+              evict(node);
+              evicted.incrementAndGet();
+            }
+          }))
+          .toArray(CompletableFuture[]::new);
+
+      CompletableFuture.allOf(probes).join();
+
+      val previous = lastSweep.get();
+      val statistics = SweepStatistics.builder()
+          .sweep(previous == null
+                 ? 1
+                 : previous.getSweep() + 1)
+          .probes(nodes.size())
+          .evicted(evicted.get())
+          .duration(NANOSECONDS.toMillis(System.nanoTime() - start))
+          .build();
+
+      lastSweep.set(statistics);
+      log.debug("liveness sweep is completed - {}", statistics);
+    } catch (CancellationException | CompletionException ex) {
+      log.debug("liveness sweep was interrupted");
+    } catch (RuntimeException ex) {
+      log.error("liveness sweep error", ex);
+    } finally {
+      scheduleNext();
+    }
+  }
+
+  InetSocketAddress getAddress (Node node) {
+    return new InetSocketAddress(node.getAddress(), node.getPort());
+  }
+
+  void evict (Node node) {
+    log.info("node '{}' is unreachable at port {}, unregistering it", node.getName(), node.getPort());
+    server.nodes.unregister(node);
+    node.close();
+  }
+
+  private void scheduleNext () {
+    val delay = interval + ThreadLocalRandom.current().nextLong(interval / 10 + 1);
+    try {
+      scheduler.schedule(this::sweep, delay, MILLISECONDS);
+    } catch (RejectedExecutionException ex) {
+      log.debug("the sweeper is closed");
+    }
+  }
+}
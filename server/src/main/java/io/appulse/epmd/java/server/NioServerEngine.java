@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The multi-reactor engine: one or more acceptors and a number of non-blocking
+ * {@link EventLoop}s.
+ * <p>
+ * The acceptors (see {@link Listeners}) only accept the connections and
+ * distribute them round-robin between the loops, every loop reads the requests,
+ * processes them and writes the responses of its connections without blocking,
+ * so idle or slow clients don't hold any thread and the loops don't contend
+ * with each other for a shared queue.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+class NioServerEngine implements ServerEngine {
+
+  /**
+   * The number of the released read buffers, which every loop keeps for reuse.
+   */
+  static final int RETAINED_BUFFERS_PER_LOOP = 64;
+
+  @NonNull
+  SubcommandServer server;
+
+  AtomicReference<Listeners> listeners = new AtomicReference<>();
+
+  @Override
+  @SuppressWarnings("PMD.CloseResource")
+  public void run () throws IOException {
+    val loops = new EventLoop[server.ioThreads];
+    try (val currentListeners = server.openListeners()) {
+      listeners.set(currentListeners);
+      startLoops(loops);
+
+      val next = new AtomicInteger();
+      currentListeners.accept(clientChannel -> {
+        val remoteSocketAddress = clientChannel.socket().getRemoteSocketAddress();
+        val remoteAddress = server.getAllowedRemoteAddress(remoteSocketAddress);
+        if (remoteAddress == null) {
+          clientChannel.close();
+          return;
+        }
+        val buckets = server.rateLimiter.of(remoteAddress);
+        log.debug("{} - a new incoming connection", remoteSocketAddress);
+
+        val index = Math.floorMod(next.getAndIncrement(), loops.length);
+        loops[index].register(clientChannel, (InetSocketAddress) remoteSocketAddress, buckets);
+      });
+      server.awaitDrain();
+    } finally {
+      for (val loop : loops) {
+        if (loop != null) {
+          loop.close();
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close () {
+    val currentListeners = listeners.get();
+    if (currentListeners != null) {
+      currentListeners.close();
+    }
+  }
+
+  @SuppressWarnings({
+      "PMD.AvoidInstantiatingObjectsInLoops",
+      "PMD.CloseResource"
+  })
+  void startLoops (EventLoop[] loops) throws IOException {
+    for (int index = 0; index < loops.length; index++) {
+      val loop = new EventLoop(server, new BufferPool(BufferPool.DEFAULT_BUFFER_SIZE, server.maxFrameSize, RETAINED_BUFFERS_PER_LOOP));
+      loops[index] = loop;
+
+      val thread = new Thread(loop, "epmd-io-" + index);
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+
+import io.appulse.epmd.java.core.model.NodeType;
+import io.appulse.epmd.java.core.model.Protocol;
+import io.appulse.epmd.java.core.model.Version;
+import io.appulse.epmd.java.core.model.response.NodeInfo;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * A registered in the server node.
+ * <p>
+ * The node's PORT2_RESPONSE is encoded once, at the registration,
+ * and is shared by all the node's lookups.
+ * <p>
+ * A provisional node is restored from the {@link RegistrationJournal} at the server's
+ * start, it has no registration session and answers the lookups until the node
+ * re-registers, or it is evicted.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+class Node implements Closeable {
+
+  String name;
+
+  int port;
+
+  NodeType type;
+
+  Protocol protocol;
+
+  Version high;
+
+  Version low;
+
+  int creation;
+
+  /**
+   * The registration session, which stays open while the node is alive,
+   * or {@code null} for a provisional node.
+   */
+  Session session;
+
+  /**
+   * The provisional node's host address.
+   */
+  InetAddress address;
+
+  /**
+   * The node's encoded successful PORT2_RESPONSE.
+   */
+  EncodedResponse nodeInfo;
+
+  @Builder
+  Node (@NonNull String name,
+        int port,
+        @NonNull NodeType type,
+        @NonNull Protocol protocol,
+        @NonNull Version high,
+        @NonNull Version low,
+        int creation,
+        Session session,
+        InetAddress address
+  ) {
+    if (session == null && address == null) {
+      throw new IllegalArgumentException("A provisional node must have an address");
+    }
+    this.name = name;
+    this.port = port;
+    this.type = type;
+    this.protocol = protocol;
+    this.high = high;
+    this.low = low;
+    this.creation = creation;
+    this.session = session;
+    this.address = session == null
+                   ? address
+                   : null;
+
+    nodeInfo = EncodedResponse.of(NodeInfo.builder()
+        .ok(true)
+        .port(port)
+        .type(type)
+        .protocol(protocol)
+        .high(high)
+        .low(low)
+        .name(name)
+        .build());
+  }
+
+  /**
+   * Tells if the node is a provisional one, restored from the journal.
+   *
+   * @return {@code true} if the node has no registration session
+   */
+  boolean isProvisional () {
+    return session == null;
+  }
+
+  /**
+   * Returns the node's host address, the registration session's remote address.
+   *
+   * @return the node's host address
+   */
+  InetAddress getAddress () {
+    return session == null
+           ? address
+           : session.getRemoteAddress().getAddress();
+  }
+
+  @Override
+  public void close () {
+    if (session != null) {
+      session.close();
+    }
+  }
+}
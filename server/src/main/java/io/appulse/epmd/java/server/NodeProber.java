@@ -0,0 +1,295 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A TCP connect prober, which multiplexes thousands of non-blocking
+ * connects on a single selector thread.
+ * <p>
+ * The number of the simultaneous connects to the same remote host is capped,
+ * the rest of the host's probes wait in the host's queue. A probe, which is not
+ * connected in the timeout, is failed.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+class NodeProber implements Runnable, Closeable {
+
+  long timeout;
+
+  int maxPerHost;
+
+  Selector selector;
+
+  Queue<Probe> submitted = new ConcurrentLinkedQueue<>();
+
+  AtomicBoolean running = new AtomicBoolean(true);
+
+  // the fields below are accessed only from the prober's thread
+
+  Queue<Probe> inFlight = new ArrayDeque<>();
+
+  Queue<Probe> ready = new ArrayDeque<>();
+
+  Map<InetAddress, Integer> activePerHost = new HashMap<>();
+
+  Map<InetAddress, Queue<Probe>> waitingPerHost = new HashMap<>();
+
+  /**
+   * Constructs a not started prober.
+   *
+   * @param timeout the connection timeout in milliseconds
+   *
+   * @param maxPerHost the maximum number of the simultaneous connects to the same host
+   *
+   * @throws IOException if the prober's selector could not be opened
+   */
+  NodeProber (long timeout, int maxPerHost) throws IOException {
+    if (timeout <= 0 || maxPerHost <= 0) {
+      throw new IllegalArgumentException("The timeout and the per-host limit must be positive");
+    }
+    this.timeout = MILLISECONDS.toNanos(timeout);
+    this.maxPerHost = maxPerHost;
+    selector = Selector.open();
+  }
+
+  /**
+   * Probes the address by connecting to it.
+   *
+   * @param address the address for probing
+   *
+   * @return the future, which is completed with {@code true}, when the connection
+   *         is established, or with {@code false}, if it was refused or timed out;
+   *         the future is cancelled, if the prober is closed before the probe's completion
+   */
+  CompletableFuture<Boolean> probe (@NonNull InetSocketAddress address) {
+    val probe = new Probe(address);
+    if (!running.get()) {
+      probe.future.cancel(false);
+      return probe.future;
+    }
+    submitted.add(probe);
+    selector.wakeup();
+    return probe.future;
+  }
+
+  @Override
+  public void run () {
+    try {
+      while (running.get() && !Thread.interrupted()) {
+        selector.select(nextSelectTimeout());
+        startSubmitted();
+
+        val iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+          val key = iterator.next();
+          iterator.remove();
+          finishConnect(key);
+        }
+        expire();
+        startReady();
+      }
+    } catch (IOException ex) {
+      log.error("prober's selector error - '{}'", ex.getMessage());
+    } finally {
+      inFlight.forEach(this::cancel);
+      ready.forEach(this::cancel);
+      waitingPerHost.values().forEach(queue -> queue.forEach(this::cancel));
+      submitted.forEach(this::cancel);
+      closeSelector();
+    }
+  }
+
+  @Override
+  public void close () {
+    running.set(false);
+    selector.wakeup();
+  }
+
+  private long nextSelectTimeout () {
+    val next = inFlight.peek();
+    if (next == null) {
+      return 0;
+    }
+    return Math.max(1, NANOSECONDS.toMillis(next.deadline - System.nanoTime()));
+  }
+
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  private void startSubmitted () {
+    for (Probe probe = submitted.poll(); probe != null; probe = submitted.poll()) {
+      val host = probe.address.getAddress();
+      val active = activePerHost.getOrDefault(host, 0);
+      if (active < maxPerHost) {
+        activePerHost.put(host, active + 1);
+        ready.add(probe);
+      } else {
+        waitingPerHost.computeIfAbsent(host, key -> new ArrayDeque<>())
+            .add(probe);
+      }
+    }
+  }
+
+  private void startReady () {
+    while (!ready.isEmpty()) {
+      start(ready.remove());
+    }
+  }
+
+  @SuppressWarnings("PMD.CloseResource")
+  void start (Probe probe) {
+    probe.deadline = System.nanoTime() + timeout;
+    try {
+      val channel = SocketChannel.open();
+      probe.channel = channel;
+      channel.configureBlocking(false);
+      if (channel.connect(probe.address)) {
+        complete(probe, true);
+        return;
+      }
+      probe.key = channel.register(selector, OP_CONNECT, probe);
+      inFlight.add(probe);
+    } catch (IOException ex) {
+      log.debug("{} - probe's connecting error '{}'", probe.address, ex.getMessage());
+      complete(probe, false);
+    }
+  }
+
+  void finishConnect (SelectionKey key) {
+    val probe = (Probe) key.attachment();
+    try {
+      complete(probe, probe.channel.finishConnect());
+    } catch (IOException ex) {
+      complete(probe, false);
+    }
+  }
+
+  private void expire () {
+    val now = System.nanoTime();
+    while (!inFlight.isEmpty()) {
+      val probe = inFlight.peek();
+      if (!probe.done && probe.deadline - now > 0) {
+        return;
+      }
+      inFlight.remove();
+      if (!probe.done) {
+        log.debug("{} - probe timed out", probe.address);
+        complete(probe, false);
+      }
+    }
+  }
+
+  void complete (Probe probe, boolean reachable) {
+    if (probe.done) {
+      return;
+    }
+    probe.done = true;
+    closeChannel(probe);
+    probe.future.complete(reachable);
+    releaseHost(probe.address.getAddress());
+  }
+
+  void cancel (Probe probe) {
+    probe.done = true;
+    closeChannel(probe);
+    probe.future.cancel(false);
+  }
+
+  @SuppressWarnings("PMD.EmptyCatchBlock")
+  private void closeChannel (Probe probe) {
+    if (probe.key != null) {
+      probe.key.cancel();
+    }
+    if (probe.channel == null) {
+      return;
+    }
+    try {
+      probe.channel.close();
+    } catch (IOException ex) {
+      // noop
+    }
+  }
+
+  private void releaseHost (InetAddress host) {
+    val waiting = waitingPerHost.get(host);
+    if (waiting != null && !waiting.isEmpty()) {
+      ready.add(waiting.remove()); // hands the host's slot over to the next probe
+      return;
+    }
+    waitingPerHost.remove(host);
+
+    val active = activePerHost.getOrDefault(host, 1) - 1;
+    if (active > 0) {
+      activePerHost.put(host, active);
+    } else {
+      activePerHost.remove(host);
+    }
+  }
+
+  @SuppressWarnings("PMD.EmptyCatchBlock")
+  private void closeSelector () {
+    try {
+      selector.close();
+    } catch (IOException ex) {
+      // noop
+    }
+  }
+
+  @RequiredArgsConstructor
+  @FieldDefaults(level = PRIVATE)
+  private static final class Probe {
+
+    final InetSocketAddress address;
+
+    final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+    SocketChannel channel;
+
+    SelectionKey key;
+
+    long deadline;
+
+    boolean done;
+  }
+}
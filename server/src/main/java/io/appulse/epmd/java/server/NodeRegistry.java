@@ -0,0 +1,203 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The registered nodes storage.
+ * <p>
+ * Every change of the registered nodes set bumps the registry's version,
+ * so the registry's derived data (like the encoded NAMES or DUMP responses)
+ * could be cached until the next change.
+ * <p>
+ * The changes are serialized and every change is reported to the registry's
+ * {@link Listener}s in the changes' order, right after it was made.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+class NodeRegistry {
+
+  Map<String, Node> nodes = new ConcurrentHashMap<>();
+
+  AtomicLong version = new AtomicLong();
+
+  /**
+   * The registered nodes number, it is maintained by the changes, so it
+   * is read without locking or traversing the nodes.
+   */
+  AtomicInteger size = new AtomicInteger();
+
+  Set<Listener> listeners = new CopyOnWriteArraySet<>();
+
+  /**
+   * Registers the node, if its name is not taken yet, or is taken by
+   * a provisional node (the provisional node is confirmed by the new one).
+   *
+   * @param node the node for registration
+   *
+   * @return the node, registered under the name (the new one, or the previously registered)
+   */
+  synchronized Node register (@NonNull Node node) {
+    Node registered = nodes.putIfAbsent(node.getName(), node);
+    if (registered != null && !confirm(registered, node)) {
+      return registered;
+    }
+    if (registered == null) {
+      size.incrementAndGet();
+    }
+    version.incrementAndGet();
+    for (val listener : listeners) {
+      listener.registered(node);
+    }
+    return node;
+  }
+
+  /**
+   * Unregisters the node, if it is still registered.
+   *
+   * @param node the node for unregistration
+   *
+   * @return {@code true} if the node was unregistered, {@code false} otherwise
+   */
+  synchronized boolean unregister (@NonNull Node node) {
+    if (!nodes.remove(node.getName(), node)) {
+      return false;
+    }
+    size.decrementAndGet();
+    version.incrementAndGet();
+    for (val listener : listeners) {
+      listener.unregistered(node);
+    }
+    return true;
+  }
+
+  /**
+   * Starts reporting the registry's changes to the listener. The listener
+   * gets the snapshot of the registered nodes first, no change could happen
+   * between the snapshot and the following changes' reports.
+   *
+   * @param listener the registry's listener
+   */
+  synchronized void listen (@NonNull Listener listener) {
+    listener.listened(new ArrayList<>(nodes.values()));
+    listeners.add(listener);
+  }
+
+  /**
+   * Stops reporting the registry's changes to the listener.
+   *
+   * @param listener the registry's listener
+   */
+  synchronized void unlisten (@NonNull Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Returns a registered node.
+   *
+   * @param name the node's name
+   *
+   * @return the registered node
+   */
+  Optional<Node> get (String name) {
+    return Optional.ofNullable(name)
+        .map(nodes::get);
+  }
+
+  /**
+   * Returns all registered nodes.
+   *
+   * @return the registered nodes view
+   */
+  Collection<Node> getAll () {
+    return nodes.values();
+  }
+
+  /**
+   * Returns the registered nodes number.
+   *
+   * @return the registered nodes number
+   */
+  int size () {
+    return size.get();
+  }
+
+  /**
+   * Returns the registry's version, which is changed after every registration
+   * and unregistration.
+   * <p>
+   * The version must be read before the nodes, so the derived from them data
+   * would never be older than its version.
+   *
+   * @return the current version
+   */
+  long getVersion () {
+    return version.get();
+  }
+
+  private boolean confirm (Node provisional, Node node) {
+    return provisional.isProvisional()
+           && !node.isProvisional()
+           && nodes.replace(node.getName(), provisional, node);
+  }
+
+  /**
+   * The registry's changes listener.
+   * <p>
+   * The listener is called under the registry's lock, so it must not block.
+   */
+  interface Listener {
+
+    /**
+     * Receives the snapshot of the registered nodes at the listening's start.
+     *
+     * @param nodes the registered nodes
+     */
+    void listened (Collection<Node> nodes);
+
+    /**
+     * Receives a new registered node.
+     *
+     * @param node the registered node
+     */
+    void registered (Node node);
+
+    /**
+     * Receives an unregistered node.
+     *
+     * @param node the unregistered node
+     */
+    void unregistered (Node node);
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+/**
+ * The server's reaction to a request, which was shed because of an overload.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+public enum OverloadAction {
+
+  /**
+   * Closes the client's connection right away.
+   */
+  CLOSE,
+
+  /**
+   * Replies with a minimal error response, where the protocol allows one
+   * (PORT2_RESPONSE with a non-zero result), and closes the connection
+   * otherwise.
+   */
+  REPLY;
+}
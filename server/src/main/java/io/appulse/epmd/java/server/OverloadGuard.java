@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.epmd.java.core.model.request.Request;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The server's overload policy.
+ * <p>
+ * The overload is detected by a request's delay - the time, which the request
+ * waited for the server (see {@link Session#getAcceptTime()}), it grows with the work
+ * queue or the I/O loops' lag. The time, which a slow client spends on sending
+ * its request, is not counted. The overdue requests are shed according to their priorities:
+ * <ul>
+ * <li>ALIVE2, STOP and KILL requests are never shed, the nodes must be able to register and unregister;</li>
+ * <li>PORT_PLEASE2 requests are shed, when their delay exceeds the maximum delay;</li>
+ * <li>NAMES and DUMP requests are shed, when their delay exceeds a half of the maximum delay.</li>
+ * </ul>
+ * So, under a flood the callers get a fast failure instead of waiting for
+ * the client's read timeout, and the less important requests are the first
+ * to fail.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class OverloadGuard {
+
+  /**
+   * The overload warning is logged for the first and then for every this number of the shed requests.
+   */
+  static final long LOG_EVERY = 1000;
+
+  OverloadAction action;
+
+  long maxDelayNanos;
+
+  Map<Tag, LongAdder> shed = new EnumMap<>(Tag.class);
+
+  AtomicLong shedTotal = new AtomicLong();
+
+  LongAdder rejected = new LongAdder();
+
+  /**
+   * Creates a guard.
+   *
+   * @param action the shed requests' action
+   *
+   * @param maxDelay the maximum delay of a request in milliseconds, {@code 0} disables the shedding
+   */
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  OverloadGuard (@NonNull OverloadAction action, long maxDelay) {
+    this.action = action;
+    maxDelayNanos = MILLISECONDS.toNanos(maxDelay);
+    for (val tag : Tag.values()) {
+      shed.put(tag, new LongAdder());
+    }
+  }
+
+  /**
+   * Checks the request's delay and sheds the request, if it is overdue.
+   *
+   * @param request the parsed request
+   *
+   * @param session the client's session
+   *
+   * @return {@code true} if the request was shed and must not be processed
+   */
+  boolean shed (@NonNull Request request, @NonNull Session session) {
+    if (maxDelayNanos <= 0) {
+      return false;
+    }
+
+    val delay = System.nanoTime() - session.getAcceptTime();
+    if (delay < threshold(request.getTag())) {
+      return false;
+    }
+
+    shed.get(request.getTag()).increment();
+    val total = shedTotal.incrementAndGet();
+    if ((total - 1) % LOG_EVERY == 0) {
+      log.warn("the server is overloaded, {} request(s) were shed, the last one is {} from {} delayed for {}ms",
+               total, request.getTag(), session.getRemoteAddress(), NANOSECONDS.toMillis(delay));
+    }
+
+    if (action == OverloadAction.REPLY && request.getTag() == Tag.PORT_PLEASE2_REQUEST) {
+      session.send(GetNodeInfoRequestProcessor.NOT_FOUND.toBuffers());
+    }
+    session.close();
+    return true;
+  }
+
+  /**
+   * Records a connection, which was rejected because the work queue was full.
+   *
+   * @param session the rejected client's session
+   */
+  void rejected (@NonNull Session session) {
+    rejected.increment();
+    log.warn("{} - the connection was rejected, the work queue is full ({} rejected in total)",
+             session, rejected.sum());
+    session.close();
+  }
+
+  OverloadStatistics getStatistics () {
+    val builder = OverloadStatistics.builder()
+        .rejected(rejected.sum());
+    shed.forEach((tag, counter) -> {
+      val count = counter.sum();
+      if (count > 0) {
+        builder.shed(tag, count);
+      }
+    });
+    return builder.build();
+  }
+
+  private long threshold (Tag tag) {
+    switch (tag) {
+    case ALIVE2_REQUEST:
+    case STOP_REQUEST:
+    case KILL_REQUEST:
+      return Long.MAX_VALUE;
+    case NAMES_REQUEST:
+    case DUMP_REQUEST:
+      return maxDelayNanos / 2;
+    default:
+      return maxDelayNanos;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import java.util.Map;
+
+import io.appulse.epmd.java.core.model.Tag;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * The server's overload statistics since its start.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+@Builder(toBuilder = true)
+public class OverloadStatistics {
+
+  /**
+   * The number of the connections, which were closed without reading their
+   * requests, because the server's work queue was full.
+   */
+  long rejected;
+
+  /**
+   * The number of the connections, which were dropped by the per-address rate limits.
+   */
+  long limited;
+
+  /**
+   * The number of the shed requests by their tags.
+   */
+  @Singular("shed")
+  Map<Tag, Long> shed;
+
+  /**
+   * Returns the total number of the shed requests.
+   *
+   * @return the shed requests number
+   */
+  public long getShedTotal () {
+    return shed.values().stream()
+        .mapToLong(Long::longValue)
+        .sum();
+  }
+}
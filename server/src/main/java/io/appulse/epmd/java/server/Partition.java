@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Collection;
+import java.util.Optional;
+
+import io.appulse.epmd.java.client.HashRing;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The server's partition of the names on the partitioned servers' {@link HashRing}.
+ * A strict partition registers only the names, which the server owns.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@RequiredArgsConstructor(access = PRIVATE)
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class Partition {
+
+  /**
+   * Creates the server's partition. The server is the ring's member
+   * with the server's port and a local address.
+   *
+   * @param members all the partitioned servers, including this one
+   *
+   * @param port the server's port
+   *
+   * @param strict if the server rejects the names, which it does not own
+   *
+   * @return the server's partition, or empty if the servers are not partitioned
+   */
+  static Optional<Partition> of (@NonNull Collection<InetSocketAddress> members, int port, boolean strict) {
+    if (members.isEmpty()) {
+      return Optional.empty();
+    }
+
+    val ring = new HashRing(members);
+    val message = "Exactly one of the partitions " + ring.getMembers() +
+                  " must be this server's local address with port " + port;
+    InetSocketAddress self = ring.getMembers().stream()
+        .filter(it -> it.getPort() == port && isLocal(it.getAddress()))
+        .reduce((first, second) -> {
+          throw new IllegalArgumentException(message);
+        })
+        .orElseThrow(() -> new IllegalArgumentException(message));
+    return Optional.of(new Partition(ring, self, strict));
+  }
+
+  @Getter
+  @NonNull
+  HashRing ring;
+
+  @Getter
+  @NonNull
+  InetSocketAddress self;
+
+  @Getter
+  boolean strict;
+
+  /**
+   * Tells if the server owns a name.
+   *
+   * @param name the node's name
+   *
+   * @return {@code true} if the name's owner is this server
+   */
+  boolean owns (@NonNull String name) {
+    return self.equals(ring.owner(name));
+  }
+
+  private static boolean isLocal (InetAddress address) {
+    if (address.isAnyLocalAddress() || address.isLoopbackAddress()) {
+      return true;
+    }
+    try {
+      return NetworkInterface.getByInetAddress(address) != null;
+    } catch (SocketException ex) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import io.appulse.epmd.java.core.model.request.Pipeline;
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.response.PipelineResult;
+import io.appulse.epmd.java.core.model.response.Response;
+
+/**
+ * The PIPELINE request processor, it switches the session to the pipelined mode.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+class PipelineRequestProcessor extends RespondingRequestProcessor<Pipeline> {
+
+  PipelineRequestProcessor (SubcommandServer server, Request request, Session session) {
+    super(server, (Pipeline) request, session);
+  }
+
+  @Override
+  protected Response respond () {
+    if (request.getVersion() <= 0 || server.isDraining()) {
+      return null;
+    }
+    return new PipelineResult(Math.min(request.getVersion(), Pipeline.VERSION), server.maxFrameSize);
+  }
+
+  @Override
+  protected void afterSend (Response response) {
+    session.pipeline();
+    session.next();
+  }
+}
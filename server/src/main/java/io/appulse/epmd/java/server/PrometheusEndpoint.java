@@ -0,0 +1,321 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import io.appulse.epmd.java.core.metrics.LatencyHistogram;
+import io.appulse.epmd.java.core.metrics.Phase;
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.utils.threads.AppulseThreadFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * An embedded HTTP listener, which serves the server's metrics at {@code /metrics}
+ * in the Prometheus text exposition format. The listener answers 403 to the clients,
+ * which the server doesn't accept the EPMD requests from (see {@code --allowed-ips}).
+ * <p>
+ * A scrape reads only the pre-aggregated counters: the requests' counters and
+ * latency histograms, the registered nodes number, the liveness probes' outcomes,
+ * the rejected connections and the requests executor's queue depth, plus the cache's
+ * statistics of a proxy (see {@link ProxyStatistics}). It never locks or traverses
+ * the registered nodes, so the scrapes don't interfere with the requests handling.
+ * The scrapes are served one by one by a single daemon thread.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class PrometheusEndpoint implements Closeable {
+
+  static final String PATH = "/metrics";
+
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  static final double[] QUANTILES = { 50, 90, 99, 99.9 };
+
+  /**
+   * The {@link #QUANTILES} labels, the computed ones could be rendered like {@code 0.9990000000000001}.
+   */
+  static final String[] QUANTILE_LABELS = { "0.5", "0.9", "0.99", "0.999" };
+
+  static final double NANOS_PER_SECOND = 1_000_000_000D;
+
+  static final String COUNTER = "counter";
+
+  static final String GAUGE = "gauge";
+
+  SubcommandServer server;
+
+  HttpServer http;
+
+  ExecutorService executor;
+
+  /**
+   * Starts the server's endpoint.
+   *
+   * @param server the starting server
+   *
+   * @return the started endpoint, or empty if the metrics' port is not set
+   *
+   * @throws IOException if the metrics' port could not be bound
+   */
+  static Optional<PrometheusEndpoint> start (@NonNull SubcommandServer server) throws IOException {
+    if (server.metricsPort <= 0) {
+      return Optional.empty();
+    }
+    val endpoint = new PrometheusEndpoint(server, server.metricsPort);
+    log.info("metrics endpoint is started at {}", endpoint.getAddress());
+    return Optional.of(endpoint);
+  }
+
+  /**
+   * Constructs and starts the endpoint.
+   *
+   * @param server the server, which metrics are served
+   *
+   * @param port the listener's port, zero means any free port
+   *
+   * @throws IOException if the port could not be bound
+   */
+  PrometheusEndpoint (@NonNull SubcommandServer server, int port) throws IOException {
+    if (port < 0 || port > 65_535) {
+      throw new IllegalArgumentException("The metrics port must be in [0, 65535] range, but it is " + port);
+    }
+    this.server = server;
+    http = HttpServer.create(new InetSocketAddress(port), 0);
+    executor = Executors.newSingleThreadExecutor(AppulseThreadFactory.builder()
+        .name("epmd-metrics-%d")
+        .daemon(true)
+        .build());
+
+    http.setExecutor(executor);
+    http.createContext(PATH, this::handle);
+    http.start();
+  }
+
+  /**
+   * Returns the listener's local address.
+   *
+   * @return the bound address
+   */
+  InetSocketAddress getAddress () {
+    return http.getAddress();
+  }
+
+  @Override
+  public void close () {
+    http.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Renders the server's current metrics.
+   *
+   * @return the metrics in the Prometheus text exposition format
+   */
+  String render () {
+    StringBuilder out = new StringBuilder(4096);
+    requests(out);
+    latencies(out);
+
+    header(out, "epmd_registered_nodes", GAUGE, "The registered nodes number.");
+    sample(out, "epmd_registered_nodes", "", server.nodes.size());
+
+    probes(out);
+    rejections(out);
+
+    header(out, "epmd_executor_queue_depth", GAUGE, "The requests waiting in the executor's queue.");
+    sample(out, "epmd_executor_queue_depth", "", queueDepth());
+
+    if (server.upstreams != null) {
+      proxy(out, server.upstreams.getStatistics());
+    }
+    return out.toString();
+  }
+
+  private void handle (HttpExchange exchange) throws IOException {
+    try {
+      if (!isAllowed(exchange)) {
+        exchange.sendResponseHeaders(403, -1);
+        return;
+      }
+
+      val method = exchange.getRequestMethod();
+      if (!"GET".equals(method) && !"HEAD".equals(method)) {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+
+      val body = render().getBytes(UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      if ("HEAD".equals(method)) {
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(body);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * The metrics are served to the same clients as the EPMD requests: the client's
+   * address must be allowed and, in {@link ListenMode#BIND} mode, the request
+   * must come to one of the server's listened addresses.
+   */
+  private boolean isAllowed (HttpExchange exchange) {
+    if (server.getAllowedRemoteAddress(exchange.getRemoteAddress()) == null) {
+      return false;
+    }
+    val local = exchange.getLocalAddress().getAddress();
+    return server.bindAddresses.stream()
+        .anyMatch(it -> it == null || it.equals(local));
+  }
+
+  private void requests (StringBuilder out) {
+    val metrics = server.metrics;
+    header(out, "epmd_requests_total", COUNTER, "The received requests by their tags.");
+    for (Tag tag : Tag.values()) {
+      val count = metrics.getRequests(tag);
+      if (count > 0) {
+        sample(out, "epmd_requests_total", tag(tag), count);
+      }
+    }
+
+    header(out, "epmd_request_errors_total", COUNTER, "The failed requests by their tags.");
+    for (Tag tag : Tag.values()) {
+      val count = metrics.getErrors(tag);
+      if (count > 0) {
+        sample(out, "epmd_request_errors_total", tag(tag), count);
+      }
+    }
+  }
+
+  private void probes (StringBuilder out) {
+    val name = "epmd_liveness_probes_total";
+    header(out, name, COUNTER, "The liveness probes of the registered nodes by their outcomes.");
+    val sweeper = server.sweeper.get();
+    sample(out, name, "{outcome=\"reachable\"}", sweeper == null ? 0 : sweeper.getProbes(true));
+    sample(out, name, "{outcome=\"unreachable\"}", sweeper == null ? 0 : sweeper.getProbes(false));
+  }
+
+  private void rejections (StringBuilder out) {
+    val overload = server.getOverloadStatistics();
+    val name = "epmd_rejected_connections_total";
+    header(out, name, COUNTER, "The connections closed without reading their requests.");
+    sample(out, name, "{reason=\"forbidden\"}", server.forbidden.sum());
+    sample(out, name, "{reason=\"overload\"}", overload.getRejected());
+    sample(out, name, "{reason=\"rate_limit\"}", overload.getLimited());
+
+    header(out, "epmd_shed_requests_total", COUNTER, "The requests shed by the overload protection.");
+    for (Map.Entry<Tag, Long> entry : overload.getShed().entrySet()) {
+      sample(out, "epmd_shed_requests_total", tag(entry.getKey()), entry.getValue());
+    }
+  }
+
+  private static void proxy (StringBuilder out, ProxyStatistics statistics) {
+    val requests = "epmd_proxy_cache_requests_total";
+    header(out, requests, COUNTER, "The proxy's requests by their cache results.");
+    sample(out, requests, "{result=\"hit\"}", statistics.getHits());
+    sample(out, requests, "{result=\"miss\"}", statistics.getMisses());
+
+    header(out, "epmd_proxy_negative_answers_total", COUNTER, "The proxy's \"not found\" lookups answers.");
+    sample(out, "epmd_proxy_negative_answers_total", "", statistics.getNegatives());
+
+    header(out, "epmd_proxy_refreshes_total", COUNTER, "The background refreshes of the proxy's cached entries.");
+    sample(out, "epmd_proxy_refreshes_total", "", statistics.getRefreshes());
+
+    header(out, "epmd_proxy_upstream_errors_total", COUNTER, "The failed and timed out upstreams' requests.");
+    sample(out, "epmd_proxy_upstream_errors_total", "", statistics.getErrors());
+
+    header(out, "epmd_proxy_cache_entries", GAUGE, "The proxy's cached entries number.");
+    sample(out, "epmd_proxy_cache_entries", "", statistics.getEntries());
+
+    header(out, "epmd_proxy_cache_staleness_seconds", GAUGE, "The age of the proxy's oldest cached entry.");
+    out.append("epmd_proxy_cache_staleness_seconds ").append(statistics.getStaleness() / 1000D).append('\n');
+  }
+
+  private void latencies (StringBuilder out) {
+    String name = "epmd_request_duration_seconds";
+    header(out, name, "summary", "The requests' phases latencies by the requests' tags.");
+    for (Tag tag : Tag.values()) {
+      for (Phase phase : Phase.values()) {
+        Optional<LatencyHistogram.Snapshot> snapshot = server.metrics.getLatency(tag, phase);
+        if (snapshot.isPresent()) {
+          summary(out, name, tag, phase, snapshot.get());
+        }
+      }
+    }
+  }
+
+  private void summary (StringBuilder out, String name, Tag tag, Phase phase, LatencyHistogram.Snapshot snapshot) {
+    val labels = "tag=\"" + tag.name() + "\",phase=\"" + phase.name().toLowerCase(Locale.ENGLISH) + '"';
+    for (int index = 0; index < QUANTILES.length; index++) {
+      out.append(name).append('{').append(labels)
+          .append(",quantile=\"").append(QUANTILE_LABELS[index]).append("\"} ")
+          .append(snapshot.getValueAtPercentile(QUANTILES[index]) / NANOS_PER_SECOND)
+          .append('\n');
+    }
+    out.append(name).append("_sum{").append(labels).append("} ")
+        .append(snapshot.getSum() / NANOS_PER_SECOND)
+        .append('\n');
+    sample(out, name + "_count", '{' + labels + '}', snapshot.getCount());
+  }
+
+  private long queueDepth () {
+    return server.executor instanceof ThreadPoolExecutor
+           ? ((ThreadPoolExecutor) server.executor).getQueue().size()
+           : 0;
+  }
+
+  private static String tag (Tag tag) {
+    return "{tag=\"" + tag.name() + "\"}";
+  }
+
+  private static void header (StringBuilder out, String name, String type, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help)
+        .append("\n# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample (StringBuilder out, String name, String labels, long value) {
+    out.append(name).append(labels).append(' ').append(value).append('\n');
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
+import io.appulse.utils.threads.AppulseExecutors;
+import io.appulse.utils.threads.AppulseThreadFactory;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The provisional nodes, restored from the {@link RegistrationJournal}.
+ * <p>
+ * The provisional nodes answer the lookups right after the server's start.
+ * They are probed once by a {@link NodeProber} and the unreachable ones are
+ * evicted, the reachable ones are confirmed by the nodes' re-registrations,
+ * the nodes, which don't re-register in the grace period, are evicted too.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+class ProvisionalNodes implements Closeable {
+
+  NodeRegistry registry;
+
+  List<Node> nodes;
+
+  NodeProber prober;
+
+  ScheduledExecutorService scheduler;
+
+  /**
+   * Constructs the not started provisional nodes.
+   *
+   * @param registry the registry for the nodes' restoring
+   *
+   * @param nodes the restored nodes
+   *
+   * @param timeout the node's port connection timeout in milliseconds
+   *
+   * @param maxPerHost the maximum number of the simultaneous probes of the same host
+   *
+   * @throws IOException if the prober could not be created
+   */
+  ProvisionalNodes (@NonNull NodeRegistry registry, @NonNull Collection<Node> nodes, long timeout, int maxPerHost) throws IOException {
+    this.registry = registry;
+    this.nodes = new ArrayList<>(nodes);
+    prober = new NodeProber(timeout, maxPerHost);
+
+    scheduler = AppulseExecutors.newScheduledThreadPool()
+        .poolSize(1)
+        .threadFactory(AppulseThreadFactory.builder()
+            .name("epmd-provisional-%d")
+            .daemon(true)
+            .build())
+        .build();
+  }
+
+  /**
+   * Registers the provisional nodes, probes them and schedules the eviction
+   * of the not confirmed ones.
+   *
+   * @param grace the grace period of the nodes' re-registrations in milliseconds
+   */
+  void start (long grace) {
+    if (nodes.isEmpty()) {
+      return;
+    }
+    nodes.forEach(registry::register);
+
+    val proberThread = new Thread(prober, "epmd-provisional-prober");
+    proberThread.setDaemon(true);
+    proberThread.start();
+
+    val probes = nodes.stream()
+        .map(node -> prober.probe(new InetSocketAddress(node.getAddress(), node.getPort())).thenAccept(reachable -> {
+          if (!reachable) {
+            evict(node, "it is unreachable");
+          }
+        }))
+        .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(probes)
+        .whenComplete((result, throwable) -> prober.close());
+
+    scheduler.schedule(() -> nodes.forEach(node -> evict(node, "it was not re-registered")), grace, MILLISECONDS);
+  }
+
+  @Override
+  public void close () {
+    scheduler.shutdownNow();
+    prober.close();
+  }
+
+  private void evict (Node node, String reason) {
+    // the confirmed nodes are replaced in the registry and are not unregistered
+    if (registry.unregister(node)) {
+      log.info("provisional node '{}' is evicted, {}", node.getName(), reason);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import io.appulse.epmd.java.core.model.request.GetEpmdInfo;
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.response.EpmdInfo;
+import io.appulse.epmd.java.core.model.response.Response;
+
+/**
+ * The proxy's NAMES request processor, it answers with the upstreams' nodes from the cache.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+class ProxyGetEpmdInfoRequestProcessor extends RespondingRequestProcessor<GetEpmdInfo> {
+
+  ProxyGetEpmdInfoRequestProcessor (SubcommandServer server, Request request, Session session) {
+    super(server, (GetEpmdInfo) request, session);
+  }
+
+  @Override
+  protected Response respond () {
+    return EpmdInfo.builder()
+        .port(server.options.port)
+        .nodes(server.upstreams.getNames())
+        .build();
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The proxy's upstream cache statistics since its start.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+@Builder
+public class ProxyStatistics {
+
+  /**
+   * The number of the requests, which were answered from the cache.
+   */
+  long hits;
+
+  /**
+   * The number of the requests, which waited for the upstreams.
+   */
+  long misses;
+
+  /**
+   * The number of the answered "not found" lookups, both cached and not.
+   */
+  long negatives;
+
+  /**
+   * The number of the background refreshes of the cached entries.
+   */
+  long refreshes;
+
+  /**
+   * The number of the failed upstreams' requests.
+   */
+  long errors;
+
+  /**
+   * The number of the cached entries.
+   */
+  int entries;
+
+  /**
+   * The age in milliseconds of the oldest cached entry, the cache answers
+   * are never older than the TTL.
+   */
+  long staleness;
+
+  /**
+   * Returns the ratio of the cache hits to all the requests.
+   *
+   * @return the hit ratio in [0, 1] range, or 0 if there were no requests
+   */
+  public double getHitRatio () {
+    long total = hits + misses;
+    return total == 0
+           ? 0
+           : (double) hits / total;
+  }
+}
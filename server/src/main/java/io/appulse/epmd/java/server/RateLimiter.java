@@ -0,0 +1,203 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.appulse.epmd.java.core.model.Tag;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Per-remote-address rate limits of the requests, by their tags.
+ * <p>
+ * Every address has a token bucket per limited tag, which holds up to
+ * a second of requests and is refilled with the tag's rate. A bucket is
+ * implemented as a virtual scheduling (GCRA) timestamp in a single atomic
+ * long, so acquiring a token is a lock-free compare-and-set without any
+ * allocation. The full buckets are indistinguishable from the new ones,
+ * so the addresses with only full buckets are evicted periodically and
+ * the memory is bounded by the number of the recently active addresses.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class RateLimiter {
+
+  /**
+   * The idle addresses are evicted on every this number of the looked up addresses.
+   */
+  static final int EVICTION_PERIOD = 1024;
+
+  /**
+   * The bucket's capacity - a second of requests.
+   */
+  static final long CAPACITY_NANOS = SECONDS.toNanos(1);
+
+  static final Tag[] TAGS = Tag.values();
+
+  static final Tag[] TAGS_BY_CODE = new Tag[256];
+
+  static {
+    for (val tag : TAGS) {
+      TAGS_BY_CODE[tag.getCode() & 0xFF] = tag;
+    }
+  }
+
+  /**
+   * The intervals between the tokens by the tags' ordinals, {@code 0} means no limit.
+   */
+  long[] intervals = new long[TAGS.length];
+
+  boolean enabled;
+
+  ConcurrentMap<InetAddress, Buckets> buckets = new ConcurrentHashMap<>();
+
+  AtomicLong lookups = new AtomicLong();
+
+  LongAdder dropped = new LongAdder();
+
+  /**
+   * Creates a rate limiter.
+   *
+   * @param rates the limited tags' rates, requests per second
+   */
+  RateLimiter (@NonNull Map<Tag, Integer> rates) {
+    rates.forEach((tag, rate) -> {
+      if (rate == null || rate <= 0) {
+        throw new IllegalArgumentException("The rate limit of " + tag + " must be positive, but it is " + rate);
+      }
+      intervals[tag.ordinal()] = Math.max(1, CAPACITY_NANOS / rate);
+    });
+    enabled = !rates.isEmpty();
+  }
+
+  /**
+   * Returns the buckets of a just accepted client's address.
+   *
+   * @param address the client's address
+   *
+   * @return the address' buckets, or {@code null} if there are no limits
+   */
+  Buckets of (@NonNull InetAddress address) {
+    if (!enabled) {
+      return null;
+    }
+    if (lookups.incrementAndGet() % EVICTION_PERIOD == 0) {
+      evictIdle();
+    }
+    return buckets.computeIfAbsent(address, it -> new Buckets());
+  }
+
+  /**
+   * Evicts the addresses, whose buckets are full.
+   */
+  void evictIdle () {
+    val now = System.nanoTime();
+    buckets.values().removeIf(it -> it.isIdle(now));
+  }
+
+  /**
+   * Returns the number of the tracked addresses.
+   *
+   * @return the number of the addresses
+   */
+  int size () {
+    return buckets.size();
+  }
+
+  /**
+   * Returns the number of the dropped connections.
+   *
+   * @return the number of the connections, which exceeded the limits
+   */
+  long getDropped () {
+    return dropped.sum();
+  }
+
+  /**
+   * The token buckets of a single remote address.
+   */
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  final class Buckets {
+
+    AtomicLongArray arrivals = new AtomicLongArray(TAGS.length);
+
+    Buckets () {
+      val now = System.nanoTime();
+      for (int index = 0; index < TAGS.length; index++) {
+        arrivals.set(index, now);
+      }
+    }
+
+    /**
+     * Takes a token for a request.
+     *
+     * @param code the request's tag code
+     *
+     * @return {@code true} if the request is allowed, or {@code false} if it exceeds the limit
+     */
+    boolean tryAcquire (byte code) {
+      val tag = TAGS_BY_CODE[code & 0xFF];
+      if (tag == null) {
+        return true;
+      }
+      val index = tag.ordinal();
+      val interval = intervals[index];
+      if (interval == 0) {
+        return true;
+      }
+
+      while (true) {
+        val now = System.nanoTime();
+        val arrival = arrivals.get(index);
+        val next = Math.max(arrival - now, 0) + now + interval;
+        if (next - now > CAPACITY_NANOS) {
+          dropped.increment();
+          log.debug("{} request exceeds its rate limit", tag);
+          return false;
+        }
+        if (arrivals.compareAndSet(index, arrival, next)) {
+          return true;
+        }
+      }
+    }
+
+    boolean isIdle (long now) {
+      for (int index = 0; index < TAGS.length; index++) {
+        if (arrivals.get(index) - now > 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
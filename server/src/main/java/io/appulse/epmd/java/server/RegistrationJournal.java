@@ -0,0 +1,503 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.appulse.epmd.java.core.model.NodeType;
+import io.appulse.epmd.java.core.model.Protocol;
+import io.appulse.epmd.java.core.model.Version;
+import io.appulse.utils.threads.AppulseExecutors;
+import io.appulse.utils.threads.AppulseThreadFactory;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * An append-only journal of the registrations and the unregistrations
+ * in a memory-mapped file, for the server's warm restart.
+ * <p>
+ * The journal listens to the {@link NodeRegistry} and appends a record per change,
+ * an append is a memory write, without any system calls, it is the only work
+ * done under the registry's lock. The records survive the server process' crash,
+ * they are flushed to the disk by the OS.
+ * <p>
+ * The journal is compacted in its background thread periodically and when
+ * the file is half full: the registered nodes are written into a new file,
+ * which replaces the journal atomically, the file is enlarged if the nodes
+ * don't fit in its half. The records appended during a compaction are copied
+ * into the new file before it replaces the current one in memory. If the file
+ * gets full before the compaction ends, the changes are kept in memory only,
+ * until the compaction writes them.
+ * <p>
+ * A record is the kind's byte, the 2 bytes length and the record's body;
+ * the kind is written after the body, so a torn record is never read.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class RegistrationJournal implements NodeRegistry.Listener, Closeable {
+
+  static final int MAGIC = 0x45504D4A; // EPMJ
+
+  static final byte VERSION = 1;
+
+  static final int HEADER_LENGTH = Integer.BYTES + 1;
+
+  static final byte END = 0;
+
+  static final byte REGISTERED = 1;
+
+  static final byte UNREGISTERED = 2;
+
+  static final int IPV4_LENGTH = 4;
+
+  static final int IPV6_LENGTH = 16;
+
+  /**
+   * The default period in milliseconds of the journal's compaction.
+   */
+  static final long COMPACTION_INTERVAL = 60_000;
+
+  /**
+   * Opens or creates the journal's file.
+   *
+   * @param path the journal's file
+   *
+   * @param size the journal's initial size in bytes
+   *
+   * @return the opened journal
+   *
+   * @throws IOException if the file could not be read or created
+   */
+  static RegistrationJournal open (@NonNull Path path, int size) throws IOException {
+    return open(path, size, COMPACTION_INTERVAL);
+  }
+
+  /**
+   * Opens or creates the journal's file.
+   *
+   * @param path the journal's file
+   *
+   * @param size the journal's initial size in bytes
+   *
+   * @param compactionInterval the period in milliseconds of the journal's compaction
+   *
+   * @return the opened journal
+   *
+   * @throws IOException if the file could not be read or created
+   */
+  static RegistrationJournal open (@NonNull Path path, int size, long compactionInterval) throws IOException {
+    if (size <= HEADER_LENGTH) {
+      throw new IllegalArgumentException("The journal's size must be greater than " + HEADER_LENGTH + ", but it is " + size);
+    }
+    Map<String, Node> records = Files.exists(path)
+                                ? replay(path)
+                                : new LinkedHashMap<>();
+
+    val journal = new RegistrationJournal(path, size, records.values());
+    journal.compactor.scheduleWithFixedDelay(journal::compactIfAppended,
+                                             compactionInterval, compactionInterval, MILLISECONDS);
+    log.info("the registration journal {} is opened, {} nodes are restored", path, records.size());
+    return journal;
+  }
+
+  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+  static Map<String, Node> replay (@NonNull Path path) throws IOException {
+    Map<String, Node> result = new LinkedHashMap<>();
+    try (val channel = FileChannel.open(path, READ)) {
+      val buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+        log.warn("the registration journal {} has unknown format, it is ignored", path);
+        return result;
+      }
+
+      while (buffer.remaining() > Short.BYTES) {
+        val kind = buffer.get();
+        if (kind == END) {
+          break;
+        }
+        ByteBuffer body = buffer.slice();
+        body.limit(Short.toUnsignedInt(buffer.getShort()) + Short.BYTES);
+        body.position(Short.BYTES);
+        buffer.position(buffer.position() + body.remaining());
+
+        if (kind == REGISTERED) {
+          val node = readNode(body);
+          result.put(node.getName(), node);
+        } else {
+          result.remove(readName(body));
+        }
+      }
+    } catch (BufferUnderflowException | IllegalArgumentException | UnknownHostException ex) {
+      log.warn("the registration journal {} is corrupted, {} nodes are restored", path, result.size());
+    }
+    return result;
+  }
+
+  Path path;
+
+  Path compacted;
+
+  /**
+   * The journal's view of the registered nodes.
+   */
+  Map<String, Node> nodes = new LinkedHashMap<>();
+
+  ScheduledExecutorService compactor;
+
+  AtomicBoolean compactionRequested = new AtomicBoolean();
+
+  @NonFinal
+  int size;
+
+  @NonFinal
+  MappedByteBuffer buffer;
+
+  /**
+   * The number of the records appended since the last compaction's start.
+   */
+  @NonFinal
+  int appended;
+
+  /**
+   * The file misses some of the nodes' changes (it was full or the journal got
+   * the registry's snapshot), they are written by the next compaction.
+   */
+  @NonFinal
+  boolean overflowed;
+
+  /**
+   * The records appended during the running compaction.
+   */
+  List<ByteBuffer> tail = new ArrayList<>();
+
+  @NonFinal
+  boolean compacting;
+
+  private RegistrationJournal (Path path, int size, Collection<Node> restored) throws IOException {
+    this.path = path;
+    compacted = path.resolveSibling(path.getFileName() + ".compacted");
+    compactor = AppulseExecutors.newScheduledThreadPool()
+        .poolSize(1)
+        .threadFactory(AppulseThreadFactory.builder()
+            .name("epmd-journal-%d")
+            .daemon(true)
+            .build())
+        .build();
+
+    this.size = sizeFor(restored, size);
+    buffer = write(restored, this.size);
+    for (val node : restored) {
+      nodes.put(node.getName(), node);
+    }
+  }
+
+  /**
+   * Returns the journal's view of the registered nodes, right after
+   * the journal's opening these are the restored provisional nodes.
+   *
+   * @return the journaled nodes
+   */
+  synchronized Collection<Node> getNodes () {
+    return new ArrayList<>(nodes.values());
+  }
+
+  /**
+   * Returns the number of the records appended since the last compaction's start.
+   *
+   * @return the appended records number
+   */
+  synchronized int getAppended () {
+    return appended;
+  }
+
+  @Override
+  public synchronized void listened (Collection<Node> registered) {
+    nodes.clear();
+    for (val node : registered) {
+      nodes.put(node.getName(), node);
+    }
+    overflowed = true;
+    requestCompaction();
+  }
+
+  @Override
+  public synchronized void registered (Node node) {
+    nodes.put(node.getName(), node);
+    append(REGISTERED, encode(node));
+  }
+
+  @Override
+  public synchronized void unregistered (Node node) {
+    nodes.remove(node.getName());
+    append(UNREGISTERED, encode(node.getName()));
+  }
+
+  /**
+   * Stops the background compaction, writes the changes, which are not
+   * in the file yet, and flushes the file to the disk.
+   */
+  @Override
+  public void close () {
+    compactor.shutdown();
+    try {
+      if (!compactor.awaitTermination(5, SECONDS)) {
+        log.warn("the registration journal compaction is not finished in time");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+
+    synchronized (this) {
+      if (overflowed) {
+        compact();
+      }
+      buffer.force();
+    }
+  }
+
+  private void append (byte kind, ByteBuffer body) {
+    appended++;
+    if (compacting) {
+      tail.add(record(kind, body));
+    }
+    if (overflowed || !put(buffer, kind, body)) {
+      overflowed = true;
+      requestCompaction();
+    } else if (buffer.remaining() < buffer.position()) {
+      requestCompaction();
+    }
+  }
+
+  private void requestCompaction () {
+    if (!compactor.isShutdown() && !compactionRequested.getAndSet(true)) {
+      compactor.execute(this::compact);
+    }
+  }
+
+  private void compactIfAppended () {
+    if (getAppended() > 0) {
+      compact();
+    }
+  }
+
+  /**
+   * Writes the registered nodes into a new file and replaces the journal with it,
+   * only the snapshot of the nodes and the swap of the files in memory are
+   * done under the journal's lock.
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  void compact () {
+    List<Node> snapshot;
+    int currentSize;
+    synchronized (this) {
+      compactionRequested.set(false);
+      snapshot = new ArrayList<>(nodes.values());
+      currentSize = size;
+      appended = 0;
+      compacting = true;
+    }
+
+    val newSize = sizeFor(snapshot, currentSize);
+    MappedByteBuffer mapped;
+    try {
+      mapped = write(snapshot, newSize);
+    } catch (IOException | RuntimeException ex) {
+      log.error("the registration journal compaction error", ex);
+      synchronized (this) {
+        // the file has none of the changes since the compaction's start
+        overflowed = true;
+        compacting = false;
+        tail.clear();
+      }
+      return;
+    }
+
+    synchronized (this) {
+      // the appended records are in the tail, so the new file misses nothing, if they fit in it
+      overflowed = false;
+      for (ByteBuffer record : tail) {
+        if (!put(mapped, record)) {
+          overflowed = true;
+          requestCompaction();
+          break;
+        }
+      }
+      compacting = false;
+      tail.clear();
+      size = newSize;
+      buffer = mapped;
+    }
+    log.debug("the registration journal is compacted, {} nodes, {} bytes", snapshot.size(), newSize);
+  }
+
+  private MappedByteBuffer write (Collection<Node> registered, int fileSize) throws IOException {
+    try (val channel = FileChannel.open(compacted, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+      val mapped = channel.map(READ_WRITE, 0, fileSize);
+      mapped.putInt(MAGIC).put(VERSION);
+      for (val node : registered) {
+        mapped.put(REGISTERED).put(encode(node));
+      }
+      mapped.force();
+      Files.move(compacted, path, ATOMIC_MOVE, REPLACE_EXISTING);
+      return mapped;
+    }
+  }
+
+  private static int sizeFor (Collection<Node> registered, int currentSize) {
+    int length = HEADER_LENGTH + 1;
+    for (val node : registered) {
+      length += 1 + encode(node).remaining();
+    }
+    int result = currentSize;
+    while (result < length * 2) {
+      result *= 2;
+    }
+    return result;
+  }
+
+  private static boolean put (ByteBuffer target, ByteBuffer record) {
+    val body = record.duplicate();
+    body.position(1);
+    return put(target, record.get(0), body);
+  }
+
+  /**
+   * Writes a record, the kind is written after the body.
+   *
+   * @param target the journal's buffer
+   *
+   * @param kind the record's kind
+   *
+   * @param body the record's body
+   *
+   * @return {@code false} if the record doesn't fit in the buffer
+   */
+  private static boolean put (ByteBuffer target, byte kind, ByteBuffer body) {
+    if (target.remaining() < 1 + body.remaining() + 1) {
+      return false;
+    }
+    val position = target.position();
+    target.position(position + 1);
+    target.put(body.duplicate());
+    target.put(position, kind);
+    return true;
+  }
+
+  private static ByteBuffer record (byte kind, ByteBuffer body) {
+    val result = ByteBuffer.allocate(1 + body.remaining())
+        .put(kind)
+        .put(body.duplicate());
+    result.flip();
+    return result;
+  }
+
+  private static ByteBuffer encode (Node node) {
+    val name = node.getName().getBytes(ISO_8859_1);
+    val address = node.getAddress().getAddress();
+    val length = Integer.BYTES + Short.BYTES + 2 + Short.BYTES * 2 + 1 + address.length + Short.BYTES + name.length;
+    val buffer = ByteBuffer.allocate(Short.BYTES + length)
+        .putShort((short) length)
+        .putInt(node.getCreation())
+        .putShort((short) node.getPort())
+        .put(node.getType().getCode())
+        .put(node.getProtocol().getCode())
+        .putShort((short) node.getHigh().getCode())
+        .putShort((short) node.getLow().getCode())
+        .put((byte) address.length)
+        .put(address)
+        .putShort((short) name.length)
+        .put(name);
+    buffer.flip();
+    return buffer;
+  }
+
+  private static ByteBuffer encode (String name) {
+    val bytes = name.getBytes(ISO_8859_1);
+    val buffer = ByteBuffer.allocate(Short.BYTES * 2 + bytes.length)
+        .putShort((short) (Short.BYTES + bytes.length))
+        .putShort((short) bytes.length)
+        .put(bytes);
+    buffer.flip();
+    return buffer;
+  }
+
+  private static Node readNode (ByteBuffer body) throws IOException {
+    val creation = body.getInt();
+    val port = Short.toUnsignedInt(body.getShort());
+    val type = NodeType.of(body.get());
+    val protocol = Protocol.of(body.get());
+    val high = Version.of(Short.toUnsignedInt(body.getShort()));
+    val low = Version.of(Short.toUnsignedInt(body.getShort()));
+    val addressLength = Byte.toUnsignedInt(body.get());
+    if (addressLength != IPV4_LENGTH && addressLength != IPV6_LENGTH) {
+      throw new IllegalArgumentException("Invalid node's address length " + addressLength);
+    }
+    val address = new byte[addressLength];
+    body.get(address);
+    return Node.builder()
+        .creation(creation)
+        .port(port)
+        .type(type)
+        .protocol(protocol)
+        .high(high)
+        .low(low)
+        .address(InetAddress.getByAddress(address))
+        .name(readName(body))
+        .build();
+  }
+
+  private static String readName (ByteBuffer body) {
+    val name = new byte[Short.toUnsignedInt(body.getShort())];
+    body.get(name);
+    return new String(name, ISO_8859_1);
+  }
+}
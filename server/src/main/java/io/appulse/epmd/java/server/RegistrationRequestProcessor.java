@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.response.RegistrationResult;
+import io.appulse.epmd.java.core.model.response.Response;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The ALIVE2 request processor.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+class RegistrationRequestProcessor extends RespondingRequestProcessor<Registration> {
+
+  RegistrationRequestProcessor (SubcommandServer server, Request request, Session session) {
+    super(server, (Registration) request, session);
+  }
+
+  @Override
+  protected Response respond () {
+    if (server.partition != null && !server.partition.owns(request.getName())) {
+      val owner = server.partition.getRing().owner(request.getName());
+      if (server.partition.isStrict()) {
+        log.warn("{} - the node '{}' is owned by the partition {}", session, request.getName(), owner);
+        return RegistrationResult.builder()
+            .ok(false)
+            .creation(0)
+            .build();
+      }
+      log.debug("{} - registering the node '{}', owned by the partition {}", session, request.getName(), owner);
+    }
+
+    val creation = (int) (System.currentTimeMillis() % 3 + 1);
+    val node = server.nodes.register(Node.builder()
+        .name(request.getName())
+        .port(request.getPort())
+        .type(request.getType())
+        .protocol(request.getProtocol())
+        .high(request.getHigh())
+        .low(request.getLow())
+        .creation(creation)
+        .session(session)
+        .build()
+    );
+
+    val registered = node.getSession() == session;
+    return RegistrationResult.builder()
+        .ok(registered)
+        .creation(registered
+                  ? node.getCreation()
+                  : 0
+        )
+        .build();
+  }
+
+  @Override
+  protected void afterSend (Response response) {
+    val result = (RegistrationResult) response;
+    if (!result.isOk()) {
+      session.close();
+      return;
+    }
+
+    server.nodes.get(request.getName())
+        .filter(node -> node.getSession() == session)
+        .ifPresent(node -> session.watch(() -> {
+          server.nodes.unregister(node);
+          log.debug("node '{}' was unregistered", node.getName());
+        }));
+  }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.Collections.emptyMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.client.NodesListener;
+import io.appulse.epmd.java.client.NodesSubscription;
+import io.appulse.epmd.java.core.model.response.ClusterNodesInfo;
+import io.appulse.epmd.java.core.model.response.NodeInfo;
+import io.appulse.utils.threads.AppulseExecutors;
+import io.appulse.utils.threads.AppulseThreadFactory;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The replication of the peers' registered nodes.
+ * <p>
+ * The server subscribes to every configured peer (see
+ * {@link io.appulse.epmd.java.core.model.request.Subscribe}) and keeps the peers'
+ * nodes as the replicas, tagged with their origin peer and a version. A peer
+ * sends only its own registrations, so the replicas are never forwarded further
+ * and every server of a cluster must list all the others as its peers.
+ * <p>
+ * Every (re)connection starts with the peer's full snapshot, which replaces
+ * the previous replicas of the peer at once, so the missed changes are
+ * repaired after the connection's loss. The replicas of a disconnected peer
+ * are dropped until it is reconnected.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class Replication implements Closeable {
+
+  /**
+   * Starts the replication of the server's peers.
+   *
+   * @param server the starting server
+   *
+   * @return the started replication, or empty if the server has no peers
+   */
+  static Optional<Replication> start (@NonNull SubcommandServer server) {
+    if (server.peers.isEmpty()) {
+      return Optional.empty();
+    }
+    val replication = new Replication(server.peers, server.peerRetryInterval);
+    replication.peers.forEach(Peer::connect);
+    return Optional.of(replication);
+  }
+
+  long retryInterval;
+
+  List<Peer> peers;
+
+  EpmdClient client;
+
+  ScheduledExecutorService scheduler;
+
+  AtomicBoolean closed = new AtomicBoolean();
+
+  Replication (@NonNull Collection<InetSocketAddress> addresses, long retryInterval) {
+    if (retryInterval <= 0) {
+      throw new IllegalArgumentException("The peer's retry interval must be positive, but it is " + retryInterval);
+    }
+    this.retryInterval = retryInterval;
+    peers = addresses.stream()
+        .map(Peer::new)
+        .collect(toList());
+
+    client = new EpmdClient();
+    scheduler = AppulseExecutors.newScheduledThreadPool()
+        .poolSize(1)
+        .threadFactory(AppulseThreadFactory.builder()
+            .name("epmd-replication-%d")
+            .daemon(true)
+            .build())
+        .build();
+  }
+
+  /**
+   * Finds the replicas of a node.
+   *
+   * @param name the node's name
+   *
+   * @return the node's replicas from all the connected peers
+   */
+  List<ClusterNodesInfo.Item> locate (@NonNull String name) {
+    return peers.stream()
+        .map(it -> it.replicas.get().get(name))
+        .filter(Objects::nonNull)
+        .collect(toList());
+  }
+
+  /**
+   * Returns the peers' statistics.
+   *
+   * @return the statistics of every peer
+   */
+  List<ReplicationStatistics> getStatistics () {
+    return peers.stream()
+        .map(Peer::getStatistics)
+        .collect(toList());
+  }
+
+  @Override
+  public void close () {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    scheduler.shutdownNow();
+    client.close();
+  }
+
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  private final class Peer {
+
+    InetSocketAddress address;
+
+    AtomicReference<Map<String, ClusterNodesInfo.Item>> replicas = new AtomicReference<>(emptyMap());
+
+    AtomicReference<NodesSubscription> subscription = new AtomicReference<>();
+
+    AtomicLong version = new AtomicLong();
+
+    AtomicLong connections = new AtomicLong();
+
+    AtomicLong events = new AtomicLong();
+
+    /**
+     * The received bytes of the closed subscriptions.
+     */
+    AtomicLong bytes = new AtomicLong();
+
+    Peer (InetSocketAddress address) {
+      this.address = address;
+    }
+
+    void connect () {
+      if (closed.get()) {
+        return;
+      }
+      // the peer's host is resolved on every attempt, so its address changes are picked up
+      val target = new InetSocketAddress(address.getHostString(), address.getPort());
+      if (target.isUnresolved()) {
+        log.debug("the peer {} could not be resolved", address);
+        reconnect();
+        return;
+      }
+
+      val generation = new Generation(this);
+      client.subscribe(generation, target.getAddress(), target.getPort())
+          .whenComplete((it, error) -> {
+            if (error != null) {
+              log.debug("the peer {} subscription error '{}'", address, error.getMessage());
+              reconnect();
+              return;
+            }
+            subscription.set(it);
+            connections.incrementAndGet();
+            replicas.set(generation.nodes);
+            log.info("the peer {} is connected, {} nodes are replicated", address, generation.nodes.size());
+          });
+    }
+
+    void disconnected (Generation generation, Throwable cause) {
+      log.info("the peer {} is disconnected - '{}'", address, cause.getMessage());
+      val current = subscription.getAndSet(null);
+      if (current != null) {
+        bytes.addAndGet(current.getReceivedBytes());
+      }
+      replicas.compareAndSet(generation.nodes, emptyMap());
+      reconnect();
+    }
+
+    ClusterNodesInfo.Item replicate (NodeInfo node) {
+      events.incrementAndGet();
+      return ClusterNodesInfo.Item.builder()
+          .origin(Optional.of(address))
+          .version(version.incrementAndGet())
+          .node(node)
+          .build();
+    }
+
+    void removed () {
+      events.incrementAndGet();
+      version.incrementAndGet();
+    }
+
+    ReplicationStatistics getStatistics () {
+      val current = subscription.get();
+      return ReplicationStatistics.builder()
+          .peer(address)
+          .connected(current != null)
+          .connections(connections.get())
+          .events(events.get())
+          .bytes(bytes.get() + (current == null ? 0 : current.getReceivedBytes()))
+          .nodes(replicas.get().size())
+          .build();
+    }
+
+    private void reconnect () {
+      if (closed.get()) {
+        return;
+      }
+      try {
+        scheduler.schedule(this::connect, retryInterval, MILLISECONDS);
+      } catch (RejectedExecutionException ex) {
+        log.debug("the peer {} reconnection is cancelled, the replication is closed", address);
+      }
+    }
+  }
+
+  /**
+   * A single subscription's replicas, they are published as the peer's replicas
+   * after the subscription's snapshot is received.
+   */
+  @RequiredArgsConstructor
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  private static final class Generation implements NodesListener {
+
+    Peer peer;
+
+    Map<String, ClusterNodesInfo.Item> nodes = new ConcurrentHashMap<>();
+
+    @Override
+    public void registered (NodeInfo node) {
+      val replica = peer.replicate(node);
+      node.getName()
+          .ifPresent(name -> nodes.put(name, replica));
+    }
+
+    @Override
+    public void unregistered (String name) {
+      peer.removed();
+      nodes.remove(name);
+    }
+
+    @Override
+    public void disconnected (Throwable cause) {
+      peer.disconnected(this, cause);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import java.net.InetSocketAddress;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A replication peer's statistics since the server's start.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Value
+@Builder
+public class ReplicationStatistics {
+
+  /**
+   * The peer's EPMD server address.
+   */
+  InetSocketAddress peer;
+
+  /**
+   * Tells if the peer's subscription is established at the moment.
+   */
+  boolean connected;
+
+  /**
+   * The number of the peer's established subscriptions.
+   */
+  long connections;
+
+  /**
+   * The number of the received registered nodes changes events,
+   * including the snapshots' events.
+   */
+  long events;
+
+  /**
+   * The number of the received events' bytes.
+   */
+  long bytes;
+
+  /**
+   * The number of the peer's replicated nodes.
+   */
+  int nodes;
+}
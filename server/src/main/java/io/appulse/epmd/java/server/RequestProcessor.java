@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.Optional.empty;
+
+import java.util.Optional;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.epmd.java.core.model.request.Request;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A base request processor, which handles a parsed request. The most of the
+ * processors respond to the client (see {@link RespondingRequestProcessor}),
+ * the others, like the subscriptions, manage the session on their own.
+ *
+ * @param <R> the type of processed request
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@RequiredArgsConstructor
+abstract class RequestProcessor<R extends Request> {
+
+  /**
+   * Finds an appropriate processor for the request.
+   *
+   * @param server the server, which handles the request
+   *
+   * @param request the parsed request
+   *
+   * @param session the client's session
+   *
+   * @return the request's processor or empty, if the request is not supported
+   */
+  static Optional<RequestProcessor<?>> of (SubcommandServer server, Request request, Session session) {
+    if (session.isPipelined() && !isPipelinable(request.getTag())) {
+      log.warn("{} - the request {} is not allowed in the pipelined mode", session, request.getTag());
+      return empty();
+    }
+    if (server.upstreams != null) {
+      return ofProxy(server, request, session);
+    }
+
+    switch (request.getTag()) {
+    case ALIVE2_REQUEST:
+      return Optional.of(new RegistrationRequestProcessor(server, request, session));
+    case DUMP_REQUEST:
+      return Optional.of(new DumpRequestProcessor(server, request, session));
+    case KILL_REQUEST:
+      return Optional.of(new KillRequestProcessor(server, request, session));
+    case PORT_PLEASE2_REQUEST:
+      return Optional.of(new GetNodeInfoRequestProcessor(server, request, session));
+    case NAMES_REQUEST:
+      return Optional.of(new GetEpmdInfoRequestProcessor(server, request, session));
+    case STOP_REQUEST:
+      return Optional.of(new StopRequestProcessor(server, request, session));
+    case BATCH_PORT_PLEASE2_REQUEST:
+      return Optional.of(new GetNodesInfoRequestProcessor(server, request, session));
+    case PIPELINE_REQUEST:
+      return Optional.of(new PipelineRequestProcessor(server, request, session));
+    case SUBSCRIBE_REQUEST:
+      return Optional.of(new SubscribeRequestProcessor(server, request, session));
+    case CLUSTER_PORT_PLEASE2_REQUEST:
+      return Optional.of(new GetClusterNodeInfoRequestProcessor(server, request, session));
+    default:
+      log.warn("unsupported request's tag - {}", request.getTag());
+      return empty();
+    }
+  }
+
+  /**
+   * Finds an appropriate processor for the proxy's request, only the lookups
+   * and the pipelined mode are supported.
+   *
+   * @param server the proxy's server
+   *
+   * @param request the parsed request
+   *
+   * @param session the client's session
+   *
+   * @return the request's processor or empty, if the request is not supported
+   */
+  static Optional<RequestProcessor<?>> ofProxy (SubcommandServer server, Request request, Session session) {
+    switch (request.getTag()) {
+    case PORT_PLEASE2_REQUEST:
+      return Optional.of(new ProxyGetNodeInfoRequestProcessor(server, request, session));
+    case NAMES_REQUEST:
+      return Optional.of(new ProxyGetEpmdInfoRequestProcessor(server, request, session));
+    case PIPELINE_REQUEST:
+      return Optional.of(new PipelineRequestProcessor(server, request, session));
+    default:
+      log.warn("the request's tag {} is not supported by the proxy", request.getTag());
+      return empty();
+    }
+  }
+
+  @NonNull
+  protected final SubcommandServer server;
+
+  @NonNull
+  protected final R request;
+
+  @NonNull
+  protected final Session session;
+
+  /**
+   * Handles the request.
+   */
+  abstract void process ();
+
+  /**
+   * Tells if the requests with the tag are allowed in the pipelined mode.
+   * Only the lookups are, the registrations and the administrative requests
+   * require their own connections.
+   *
+   * @param tag the request's tag
+   *
+   * @return {@code true} if the request is allowed in the pipelined mode
+   */
+  static boolean isPipelinable (Tag tag) {
+    switch (tag) {
+    case PORT_PLEASE2_REQUEST:
+    case BATCH_PORT_PLEASE2_REQUEST:
+    case CLUSTER_PORT_PLEASE2_REQUEST:
+    case NAMES_REQUEST:
+    case DUMP_REQUEST:
+      return true;
+    default:
+      return false;
+    }
+  }
+}
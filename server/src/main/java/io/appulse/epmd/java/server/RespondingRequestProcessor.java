@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.metrics.Phase.PROCESS;
+import static io.appulse.epmd.java.core.metrics.Phase.WRITE;
+
+import java.nio.ByteBuffer;
+
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.response.Response;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A request processor, which responds to the client: it builds the response,
+ * sends it and closes the session or waits for the next pipelined request.
+ *
+ * @param <R> the type of processed request
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+abstract class RespondingRequestProcessor<R extends Request> extends RequestProcessor<R> {
+
+  RespondingRequestProcessor (SubcommandServer server, R request, Session session) {
+    super(server, request, session);
+  }
+
+  @Override
+  void process () {
+    val start = System.nanoTime();
+    val response = respond();
+    val responded = System.nanoTime();
+    server.metrics.record(request.getTag(), PROCESS, responded - start);
+    if (response == null) {
+      session.close();
+      return;
+    }
+
+    send(response);
+    server.metrics.record(request.getTag(), WRITE, System.nanoTime() - responded);
+    afterSend(response);
+  }
+
+  protected abstract Response respond ();
+
+  protected void send (Response response) {
+    log.debug("sending a response to {}", session);
+    val buffers = response instanceof EncodedResponse
+                  ? ((EncodedResponse) response).toBuffers()
+                  : new ByteBuffer[] { ByteBuffer.wrap(response.toBytes()) };
+    session.send(buffers);
+    log.debug("{} was sent to {}", response, session);
+  }
+
+  protected void afterSend (Response response) {
+    if (session.isPipelined() && !server.isDraining()) {
+      session.next();
+      return;
+    }
+    log.debug("close connection to {}", session);
+    session.close();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * A single encoded response, cached for a {@link NodeRegistry} version.
+ * <p>
+ * While the registry is not changed, all the requests share the same
+ * encoded bytes; the first request after a change re-encodes the response.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+class ResponseCache {
+
+  AtomicReference<Entry> entry = new AtomicReference<>();
+
+  /**
+   * Returns the cached response for the version or creates and caches a new one.
+   *
+   * @param version the current registry's version, it must be read before the creation of the response
+   *
+   * @param supplier the encoded response's supplier
+   *
+   * @return the encoded response
+   */
+  EncodedResponse get (long version, @NonNull Supplier<EncodedResponse> supplier) {
+    val current = entry.get();
+    if (current != null && current.getVersion() == version) {
+      return current.getResponse();
+    }
+
+    val response = supplier.get();
+    val created = new Entry(version, response);
+    if (current == null || current.getVersion() < version) {
+      entry.compareAndSet(current, created);
+    }
+    return response;
+  }
+
+  @Value
+  private static class Entry {
+
+    long version;
+
+    EncodedResponse response;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The server's network engine, which accepts clients' connections,
+ * reads their requests and writes the responses back.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+public interface ServerEngine extends Closeable {
+
+  /**
+   * Starts the engine and blocks the current thread until the engine is closed.
+   *
+   * @throws IOException in case of the engine's I/O errors
+   */
+  void run () throws IOException;
+
+  /**
+   * Stops the engine and releases all its resources.
+   */
+  @Override
+  void close ();
+
+  /**
+   * The engine's types.
+   */
+  enum Type {
+
+    /**
+     * The classic thread-per-request engine, based on blocking sockets.
+     */
+    BLOCKING,
+
+    /**
+     * The multi-reactor engine, an acceptor and a number of non-blocking I/O loops.
+     */
+    NIO;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.metrics.Phase.DECODE;
+import static io.appulse.epmd.java.core.metrics.Phase.READ;
+import static java.util.Optional.ofNullable;
+
+import java.io.IOException;
+
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.utils.Bytes;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The server's {@link RequestMetrics} helpers.
+ * <p>
+ * The engines record the requests' read and decode phases, the processors
+ * record the process and write phases (see {@link RespondingRequestProcessor}).
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+final class ServerMetrics {
+
+  /**
+   * Publishes the server's metrics as the {@code type=Server,port=<port>} platform MBean,
+   * the server works without the MBean, if it could not be registered.
+   * The {@link PrometheusEndpoint} is started too, if the metrics' port is set.
+   *
+   * @param server the starting server
+   *
+   * @throws IOException if the metrics' port could not be bound
+   */
+  static void publish (@NonNull SubcommandServer server) throws IOException {
+    PrometheusEndpoint.start(server).ifPresent(server.metricsEndpoint::set);
+    try {
+      server.metrics.publish("type=Server,port=" + server.options.port);
+    } catch (IllegalStateException ex) {
+      log.warn("the server's metrics MBean is not published - '{}'", ex.getMessage());
+    }
+  }
+
+  /**
+   * Unregisters the server's metrics MBean and stops its {@link PrometheusEndpoint}.
+   *
+   * @param server the stopping server
+   */
+  static void unpublish (@NonNull SubcommandServer server) {
+    ofNullable(server.metricsEndpoint.getAndSet(null))
+        .ifPresent(PrometheusEndpoint::close);
+    server.metrics.unpublish();
+  }
+
+  /**
+   * Parses a request's frame and records its read and decode phases.
+   * A frame, which could not be parsed, is counted as a failed request.
+   *
+   * @param metrics the server's metrics
+   *
+   * @param frame the frame's bytes
+   *
+   * @param length the frame's length
+   *
+   * @param readStart the {@link System#nanoTime()} of the frame's header reading
+   *
+   * @return the parsed request
+   */
+  static Request decode (@NonNull RequestMetrics metrics, @NonNull byte[] frame, int length, long readStart) {
+    val decodeStart = System.nanoTime();
+    Request request;
+    try {
+      request = Request.parse(Bytes.wrap(frame).writerIndex(length), length);
+    } catch (RuntimeException ex) {
+      metrics.error(length > 0
+                    ? Tag.of(frame[0])
+                    : Tag.UNKNOWN);
+      throw ex;
+    }
+    metrics.record(request.getTag(), READ, decodeStart - readStart);
+    metrics.record(request.getTag(), DECODE, System.nanoTime() - decodeStart);
+    return request;
+  }
+
+  private ServerMetrics () {
+  }
+}
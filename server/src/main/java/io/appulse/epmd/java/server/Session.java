@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * A client's connection, as it is seen by the request processors.
+ * <p>
+ * It hides the server's engine specific I/O (blocking sockets or non-blocking channels)
+ * from the requests handling logic.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+interface Session extends Closeable {
+
+  /**
+   * Returns the remote client's socket address.
+   *
+   * @return the remote socket address
+   */
+  InetSocketAddress getRemoteAddress ();
+
+  /**
+   * Returns the moment, since which the current request waits for the server: the request's
+   * arrival (its frame was fully read), moved back by the time, which the accepted connection
+   * waited for the server before its reading was started. Before the request's arrival
+   * it is the moment of the connection's acceptance.
+   *
+   * @return the {@link System#nanoTime()} value of the request's waiting start
+   */
+  long getAcceptTime ();
+
+  /**
+   * Sends the buffers' remaining bytes to the remote client with a gathering write.
+   * <p>
+   * The buffers must not be modified after the call. In the pipelined mode
+   * the buffers are sent as a single response, prefixed by its length.
+   *
+   * @param buffers the buffers for sending
+   */
+  void send (ByteBuffer... buffers);
+
+  /**
+   * Keeps the session open and watches it for the remote client's disconnection
+   * (end-of-stream or connection reset).
+   * <p>
+   * The callback is invoked exactly once, when the session is closed by any side,
+   * or right away, if the session is already closed. The bytes, received from
+   * a watched session, are discarded.
+   *
+   * @param onClose the session's closing callback
+   */
+  void watch (Runnable onClose);
+
+  /**
+   * Sends the buffers' remaining bytes to the remote client of a watched session
+   * without blocking the caller.
+   * <p>
+   * The buffers must not be modified after the call. The next push must not be
+   * made before the callback's invocation.
+   *
+   * @param onSent the callback, which is invoked once all the bytes are written,
+   *               it is never invoked, if the session is closed before
+   *
+   * @param buffers the buffers for sending
+   */
+  void push (Runnable onSent, ByteBuffer... buffers);
+
+  /**
+   * Switches the session to the pipelined mode: the session is kept open
+   * after the responses and the next responses are prefixed by their lengths.
+   */
+  void pipeline ();
+
+  /**
+   * Tells if the session is in the pipelined mode.
+   *
+   * @return {@code true} if the session is pipelined
+   */
+  boolean isPipelined ();
+
+  /**
+   * Resumes reading the requests of a pipelined session, after the current
+   * request's response was sent.
+   */
+  void next ();
+
+  /**
+   * Closes the session.
+   * <p>
+   * All the bytes, which were sent before the closing, will be delivered to the client.
+   */
+  @Override
+  void close ();
+
+  /**
+   * Prefixes the buffers by their total remaining length,
+   * as a response of the pipelined mode.
+   *
+   * @param buffers the response's buffers
+   *
+   * @return the length-prefixed response's buffers
+   */
+  static ByteBuffer[] frame (ByteBuffer... buffers) {
+    int length = 0;
+    for (ByteBuffer buffer : buffers) {
+      length += buffer.remaining();
+    }
+
+    ByteBuffer[] result = new ByteBuffer[buffers.length + 1];
+    result[0] = ByteBuffer.allocate(Integer.BYTES).putInt(0, length);
+    System.arraycopy(buffers, 0, result, 1, buffers.length);
+    return result;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import java.net.InetSocketAddress;
+
+import picocli.CommandLine.ITypeConverter;
+
+/**
+ * The command line {@code HOST:PORT} options converter.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+class SocketAddressConverter implements ITypeConverter<InetSocketAddress> {
+
+  @Override
+  public InetSocketAddress convert (String value) {
+    return parse(value);
+  }
+
+  /**
+   * Parses a {@code HOST:PORT} string, the IPv6 hosts must be enclosed
+   * in the square brackets, like {@code [fd00::1]:4369}.
+   *
+   * @param value the parsed string
+   *
+   * @return the resolved socket address
+   */
+  static InetSocketAddress parse (String value) {
+    int separator = value.lastIndexOf(':');
+    if (separator <= 0 || separator == value.length() - 1) {
+      throw new IllegalArgumentException("The address must be in the HOST:PORT format, but it is '" + value + "'");
+    }
+    String host = value.substring(0, separator);
+    if (host.charAt(0) == '[' && host.charAt(host.length() - 1) == ']') {
+      host = host.substring(1, host.length() - 1);
+    }
+    int port = Integer.parseInt(value.substring(separator + 1));
+    return new InetSocketAddress(host, port);
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+
+/**
+ * A blocking {@link SocketChannel} based session.
+ * <p>
+ * Once the session is watched, its channel is handed over to
+ * the {@link DisconnectionWatcher} and switched to the non-blocking mode,
+ * the watcher's thread writes its pushed bytes.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class SocketSession implements Session {
+
+  @Getter
+  SocketChannel channel;
+
+  InetSocketAddress remoteAddress;
+
+  @Getter
+  @NonFinal
+  long acceptTime = System.nanoTime();
+
+  /**
+   * The time, which the accepted connection waited in the work queue for a worker.
+   */
+  @NonFinal
+  long queueDelay;
+
+  DisconnectionWatcher watcher;
+
+  /**
+   * The current request's ticket, an idle pipelined session's ticket is finished.
+   */
+  AtomicReference<InFlightRequests.Ticket> ticket;
+
+  /**
+   * The idle pipelined session's next request listener, it is set
+   * while the session is watched for the next request's arrival.
+   */
+  AtomicReference<Runnable> requestListener = new AtomicReference<>();
+
+  AtomicReference<Runnable> closeListener = new AtomicReference<>();
+
+  AtomicReference<Runnable> sentListener = new AtomicReference<>();
+
+  Queue<ByteBuffer> output = new ConcurrentLinkedQueue<>();
+
+  AtomicBoolean pipelined = new AtomicBoolean();
+
+  AtomicBoolean resumed = new AtomicBoolean();
+
+  SocketSession (@NonNull SocketChannel channel,
+                 @NonNull DisconnectionWatcher watcher,
+                 @NonNull InFlightRequests.Ticket ticket
+  ) {
+    this.channel = channel;
+    this.watcher = watcher;
+    this.ticket = new AtomicReference<>(ticket);
+    remoteAddress = (InetSocketAddress) channel.socket().getRemoteSocketAddress();
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress () {
+    return remoteAddress;
+  }
+
+  @Override
+  public void send (@NonNull ByteBuffer... buffers) {
+    ByteBuffer[] frame = pipelined.get()
+                 ? Session.frame(buffers)
+                 : buffers;
+    try {
+      while (hasRemaining(frame)) {
+        channel.write(frame);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  @Override
+  public void watch (@NonNull Runnable onClose) {
+    ticket.get().finish();
+    closeListener.set(onClose);
+    if (channel.isOpen()) {
+      watcher.watch(this);
+    } else {
+      notifyClosed();
+    }
+  }
+
+  @Override
+  public void push (@NonNull Runnable onSent, @NonNull ByteBuffer... buffers) {
+    for (val buffer : buffers) {
+      output.add(buffer);
+    }
+    sentListener.set(onSent);
+    watcher.flush(this);
+  }
+
+  @Override
+  public void pipeline () {
+    pipelined.set(true);
+  }
+
+  @Override
+  public boolean isPipelined () {
+    return pipelined.get();
+  }
+
+  @Override
+  public void next () {
+    resumed.set(true);
+  }
+
+  @Override
+  @SuppressWarnings("PMD.EmptyCatchBlock")
+  public void close () {
+    try {
+      channel.close();
+    } catch (IOException ex) {
+      // noop
+    }
+    output.clear();
+    sentListener.set(null);
+    ticket.get().finish();
+    notifyClosed();
+  }
+
+  /**
+   * Hands the idle pipelined session over to the {@link DisconnectionWatcher}
+   * until its next request arrives, so the session doesn't hold a worker
+   * and an in-flight request while its client is idle.
+   *
+   * @param onRequest the next request's listener, it is called, when the next
+   *                  request's bytes arrive and the channel is blocking again
+   */
+  void awaitRequest (@NonNull Runnable onRequest) {
+    requestListener.set(onRequest);
+    ticket.get().finish();
+    watcher.watch(this);
+  }
+
+  /**
+   * Tells if the session is watched for its next request's arrival.
+   *
+   * @return {@code true} if the session awaits its next request
+   */
+  boolean isAwaitingRequest () {
+    return requestListener.get() != null;
+  }
+
+  /**
+   * Notifies the awaiting session about its next request's arrival, it is called by
+   * the {@link DisconnectionWatcher}'s thread only, when the session's key is cancelled
+   * and deregistered from the watcher's selector.
+   */
+  void requestReadable () {
+    val listener = requestListener.getAndSet(null);
+    if (listener == null) {
+      return;
+    }
+    try {
+      channel.configureBlocking(true);
+    } catch (IOException ex) {
+      close();
+      return;
+    }
+    ticket.set(ticket.get().next());
+    acceptTime = System.nanoTime();
+    listener.run();
+  }
+
+  /**
+   * Tells if the next request of the pipelined session must be read,
+   * the call resets the {@link #next()}'s mark.
+   *
+   * @return {@code true} if the session was resumed
+   */
+  boolean resume () {
+    return resumed.getAndSet(false) && channel.isOpen();
+  }
+
+  /**
+   * Writes the pushed bytes of the watched session without blocking, it is
+   * called by the {@link DisconnectionWatcher}'s thread only.
+   *
+   * @param key the session's key of the watcher's selector
+   */
+  void flush (@NonNull SelectionKey key) {
+    try {
+      if (!output.isEmpty()) {
+        channel.write(output.toArray(new ByteBuffer[0]));
+        while (!output.isEmpty() && !output.peek().hasRemaining()) {
+          output.remove();
+        }
+      }
+    } catch (IOException ex) {
+      close();
+      return;
+    }
+
+    if (!output.isEmpty()) {
+      key.interestOps(OP_READ | OP_WRITE);
+      return;
+    }
+    key.interestOps(OP_READ);
+    val listener = sentListener.getAndSet(null);
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
+  /**
+   * Marks the moment, when a worker took the accepted connection from the work queue.
+   */
+  void dequeued () {
+    queueDelay = System.nanoTime() - acceptTime;
+  }
+
+  /**
+   * Marks the request's arrival, after its frame was fully read. The request's
+   * delay is counted since the arrival plus the connection's wait in the work queue,
+   * so the client's own sending time is never taken for the server's overload.
+   */
+  void requestArrived () {
+    acceptTime = System.nanoTime() - queueDelay;
+    queueDelay = 0;
+  }
+
+  @Override
+  public String toString () {
+    return String.valueOf(remoteAddress);
+  }
+
+  private static boolean hasRemaining (ByteBuffer[] buffers) {
+    for (val buffer : buffers) {
+      if (buffer.hasRemaining()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void notifyClosed () {
+    val listener = closeListener.getAndSet(null);
+    if (listener != null) {
+      listener.run();
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.request.Stop;
+import io.appulse.epmd.java.core.model.response.Response;
+import io.appulse.epmd.java.core.model.response.StopResult;
+
+/**
+ * The STOP request processor.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+class StopRequestProcessor extends RespondingRequestProcessor<Stop> {
+
+  StopRequestProcessor (SubcommandServer server, Request request, Session session) {
+    super(server, (Stop) request, session);
+  }
+
+  @Override
+  protected Response respond () {
+    if (!server.unsafe) {
+      return StopResult.NOEXIST;
+    }
+
+    return server.getNode(request.getName())
+        .filter(server.nodes::unregister)
+        .map(node -> {
+          node.close();
+          return StopResult.STOPPED;
+        })
+        .orElse(StopResult.NOEXIST);
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.Optional.ofNullable;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+/**
+ * EPMD caching proxy command.
+ * <p>
+ * The proxy listens on the EPMD port and answers the PORT_PLEASE2 and NAMES
+ * requests from the {@link UpstreamCache} of the upstream EPMD servers,
+ * the rest of the requests are rejected.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@NoArgsConstructor
+@Command(
+    name = "proxy",
+    sortOptions = false,
+    descriptionHeading = "%n",
+    parameterListHeading = "%nParameters:%n",
+    optionListHeading = "%nOptions:%n",
+    commandListHeading = "%nCommands:%n",
+    description = "Starts the caching proxy of the upstream epmd servers."
+)
+public class SubcommandProxy implements Runnable {
+
+  @ParentCommand
+  Epmd options;
+
+  @Option(
+      names = { "--upstream" },
+      paramLabel = "HOST:PORT",
+      required = true,
+      converter = SocketAddressConverter.class,
+      description =
+          "An upstream EPMD server, could be repeated for several servers. A node is answered by the first " +
+          "upstream in the listed order, which knows it"
+  )
+  List<InetSocketAddress> upstreams = new ArrayList<>();
+
+  @Option(
+      names = { "-a", "--allowed-ips" },
+      split = ",",
+      converter = CidrConverter.class,
+      description =
+          "The comma-separated list of the clients' IP addresses and networks in the CIDR notation, " +
+          "the loopback address is always allowed"
+  )
+  Set<Cidr> ips = new HashSet<>();
+
+  @Option(
+      names = { "--ttl" },
+      paramLabel = "TTL",
+      description =
+          "The time in milliseconds, while the found nodes and the names are answered from the cache. " +
+          "The read entries are refreshed in the background every half of it, default: ${DEFAULT-VALUE}"
+  )
+  long ttl = 5_000;
+
+  @Option(
+      names = { "--negative-ttl" },
+      paramLabel = "NEGATIVE_TTL",
+      description = "The time in milliseconds, while the unknown nodes are answered from the cache, default: ${DEFAULT-VALUE}"
+  )
+  long negativeTtl = 1_000;
+
+  @Option(
+      names = { "--upstream-timeout" },
+      paramLabel = "TIMEOUT",
+      description =
+          "The maximum time in milliseconds of waiting for every upstream, a lookup is answered by " +
+          "the first upstream, which knows the node, as soon as the upstreams before it have answered or " +
+          "timed out. The not answered lookups are answered as unknown nodes and are not cached, " +
+          "default: ${DEFAULT-VALUE}"
+  )
+  long upstreamTimeout = 1_000;
+
+  @Option(
+      names = { "--workers" },
+      paramLabel = "THREADS",
+      description =
+          "The maximum number of the worker threads, a cache miss holds its worker, while it waits for " +
+          "the upstreams. The upstreams' client gets a thread per worker and upstream, so the misses don't " +
+          "queue for the client's threads, default: ${DEFAULT-VALUE}"
+  )
+  int workers = 8;
+
+  @Option(
+      names = { "--metrics-port" },
+      paramLabel = "PORT",
+      description =
+          "The port of the embedded HTTP listener, which serves the proxy's metrics, including the cache " +
+          "hits, misses and staleness, at /metrics in the Prometheus text format. Disabled by default"
+  )
+  int metricsPort;
+
+  AtomicReference<UpstreamCache> cache = new AtomicReference<>();
+
+  AtomicReference<SubcommandServer> server = new AtomicReference<>();
+
+  @Builder
+  SubcommandProxy (Integer port,
+                   @Singular List<InetSocketAddress> upstreams,
+                   @Singular Set<Cidr> networks,
+                   Long ttl,
+                   Long negativeTtl,
+                   Long upstreamTimeout,
+                   Integer workers,
+                   Integer metricsPort
+  ) {
+    options = new Epmd();
+    ofNullable(port)
+        .ifPresent(options::setPort);
+
+    this.upstreams = new ArrayList<>(upstreams);
+    ips = new HashSet<>(networks);
+
+    ofNullable(ttl)
+        .ifPresent(it -> this.ttl = it);
+
+    ofNullable(negativeTtl)
+        .ifPresent(it -> this.negativeTtl = it);
+
+    ofNullable(upstreamTimeout)
+        .ifPresent(it -> this.upstreamTimeout = it);
+
+    ofNullable(workers)
+        .ifPresent(it -> this.workers = it);
+
+    ofNullable(metricsPort)
+        .ifPresent(it -> this.metricsPort = it);
+  }
+
+  @Override
+  public void run () {
+    val currentCache = new UpstreamCache(upstreams, ttl, negativeTtl, upstreamTimeout, workers * upstreams.size());
+    cache.set(currentCache);
+
+    // the cache misses wait for the upstreams, so the proxy uses the blocking engine,
+    // which processes the requests in the executor's threads instead of the I/O loops
+    val currentServer = SubcommandServer.builder()
+        .port(options.port)
+        .networks(ips)
+        .engine(ServerEngine.Type.BLOCKING)
+        .workers(workers)
+        .upstreams(currentCache)
+        .metricsPort(metricsPort)
+        .build();
+    currentServer.options.setDebug(options.debug);
+    server.set(currentServer);
+
+    currentCache.start();
+    log.info("EPMD proxy of {} is starting (ttl: {}, negative-ttl: {}, upstream-timeout: {}, workers: {})",
+             upstreams, ttl, negativeTtl, upstreamTimeout, workers);
+    try {
+      currentServer.run();
+    } finally {
+      server.set(null);
+      currentCache.close();
+    }
+  }
+
+  /**
+   * Stops the running proxy immediately.
+   */
+  public void stop () {
+    ofNullable(server.get())
+        .ifPresent(SubcommandServer::stop);
+  }
+
+  /**
+   * Returns the proxy's cache statistics: the hits, the misses and the staleness of the cached answers.
+   *
+   * @return the cache statistics since the proxy's start
+   */
+  public ProxyStatistics getStatistics () {
+    return ofNullable(cache.get())
+        .map(UpstreamCache::getStatistics)
+        .orElseGet(() -> ProxyStatistics.builder().build());
+  }
+}
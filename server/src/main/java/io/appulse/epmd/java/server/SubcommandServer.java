@@ -18,64 +18,49 @@ package io.appulse.epmd.java.server;
 
 import static ch.qos.logback.classic.Level.DEBUG;
 import static java.util.Arrays.asList;
-import static java.util.Optional.empty;
-import static java.util.Optional.of;
 import static java.util.Optional.ofNullable;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toSet;
 import static org.slf4j.Logger.ROOT_LOGGER_NAME;
 
-import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.SocketAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 
-import io.appulse.epmd.java.core.model.NodeType;
-import io.appulse.epmd.java.core.model.Protocol;
-import io.appulse.epmd.java.core.model.Version;
-import io.appulse.epmd.java.core.model.request.GetEpmdDump;
-import io.appulse.epmd.java.core.model.request.GetEpmdInfo;
-import io.appulse.epmd.java.core.model.request.GetNodeInfo;
-import io.appulse.epmd.java.core.model.request.Kill;
-import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.epmd.java.client.ExecutionMode;
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
+import io.appulse.epmd.java.core.model.Tag;
 import io.appulse.epmd.java.core.model.request.Request;
-import io.appulse.epmd.java.core.model.request.Stop;
-import io.appulse.epmd.java.core.model.response.EpmdDump;
-import io.appulse.epmd.java.core.model.response.EpmdDump.NodeDump;
-import io.appulse.epmd.java.core.model.response.EpmdInfo;
-import io.appulse.epmd.java.core.model.response.EpmdInfo.NodeDescription;
-import io.appulse.epmd.java.core.model.response.KillResult;
-import io.appulse.epmd.java.core.model.response.NodeInfo;
-import io.appulse.epmd.java.core.model.response.RegistrationResult;
-import io.appulse.epmd.java.core.model.response.Response;
-import io.appulse.epmd.java.core.model.response.StopResult;
-import io.appulse.utils.BytesUtils;
-import io.appulse.utils.SocketUtils;
+import io.appulse.epmd.java.core.model.response.PipelineResult;
+import io.appulse.utils.Bytes;
 import io.appulse.utils.threads.AppulseExecutors;
 import io.appulse.utils.threads.AppulseThreadFactory;
 
 import ch.qos.logback.classic.Logger;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.Singular;
 import lombok.SneakyThrows;
-import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.slf4j.LoggerFactory;
@@ -121,12 +106,25 @@ public class SubcommandServer implements Runnable {
 
   @Option(
       names = { "-a", "--allowed-ips" },
+      split = ",",
+      converter = CidrConverter.class,
       description =
-          "Lets this instance of epmd listen only on the comma-separated list of IP addresses" +
-          "and on the loopback address (which is implicitly added to the list if it has not been " +
-          "specified). This can also be set using environment variable ERL_EPMD_ADDRESS"
+          "Lets this instance of epmd listen only on the comma-separated list of IP addresses " +
+          "and networks in the CIDR notation (like 10.20.0.0/16 or fd00::/8) and on the loopback address " +
+          "(which is implicitly added to the list if it has not been specified). " +
+          "This can also be set using environment variable ERL_EPMD_ADDRESS"
   )
-  Set<InetAddress> ips = new HashSet<>(asList(LOOPBACK_ADDRESS));
+  Set<Cidr> ips = new HashSet<>(asList(Cidr.of(LOOPBACK_ADDRESS)));
+
+  @Option(
+      names = { "--listen-mode" },
+      description =
+          "The way how the allowed IPs list is applied: FILTER listens on all the local addresses and closes " +
+          "the not allowed clients' connections, BIND listens only on the listed local addresses (one listener " +
+          "per address, the loopback address is always included) like the original epmd. " +
+          "Valid values: ${COMPLETION-CANDIDATES}, default: ${DEFAULT-VALUE}"
+  )
+  ListenMode listenMode = ListenMode.FILTER;
 
   @Option(
       names = { "-u", "--unsafe-commands" },
@@ -140,14 +138,304 @@ public class SubcommandServer implements Runnable {
   )
   boolean unsafe;
 
-  Map<String, Node> nodes;
+  @Option(
+      names = { "-e", "--engine" },
+      description =
+          "The server's network engine: BLOCKING handles every connection in a worker thread, " +
+          "NIO accepts the connections in a single thread and multiplexes them in non-blocking I/O loops " +
+          "(see --io-threads). " +
+          "Valid values: ${COMPLETION-CANDIDATES}, default: ${DEFAULT-VALUE}"
+  )
+  ServerEngine.Type engineType = ServerEngine.Type.BLOCKING;
+
+  @Option(
+      names = { "-x", "--execution-mode" },
+      description =
+          "The way how the requests are processed: PLATFORM_THREADS uses a bounded pool of worker threads, " +
+          "VIRTUAL_THREADS starts a virtual thread for every request (if the JVM supports it, " +
+          "otherwise falls back to the pool). It applies to the BLOCKING engine, the NIO engine processes " +
+          "the requests in its I/O loops. Valid values: ${COMPLETION-CANDIDATES}, default: ${DEFAULT-VALUE}"
+  )
+  ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+
+  @Option(
+      names = { "--workers" },
+      paramLabel = "THREADS",
+      description =
+          "The maximum number of the BLOCKING engine's platform worker threads, which process the requests, " +
+          "default: ${DEFAULT-VALUE}"
+  )
+  int workers = 8;
+
+  @Option(
+      names = { "--io-threads" },
+      paramLabel = "NUMBER",
+      description =
+          "The number of the NIO engine's I/O loops, every loop reads, processes and responds to the requests " +
+          "of its share of the connections. Default: the number of the available processors (${DEFAULT-VALUE})"
+  )
+  int ioThreads = Runtime.getRuntime().availableProcessors();
+
+  @Option(
+      names = { "--listeners" },
+      paramLabel = "NUMBER",
+      description =
+          "The number of the listening sockets, bound to the server's port with SO_REUSEPORT, every listener has " +
+          "its own accept queue and thread. Falls back to a single listener if SO_REUSEPORT is not supported " +
+          "by the JVM (it needs Java 9+) or the platform, default: ${DEFAULT-VALUE}"
+  )
+  int listeners = 1;
+
+  @Option(
+      names = { "--liveness-check-interval" },
+      paramLabel = "MILLIS",
+      description =
+          "The interval between the background probes of the registered nodes' ports, the unreachable nodes " +
+          "are unregistered. The nodes are always unregistered when their registration connections are closed, " +
+          "so the probes are disabled by default (${DEFAULT-VALUE})"
+  )
+  long livenessCheckInterval;
+
+  @Option(
+      names = { "--liveness-check-timeout" },
+      paramLabel = "MILLIS",
+      description = "The node's port connection timeout of the background probes, default: ${DEFAULT-VALUE}"
+  )
+  int livenessCheckTimeout = 2_000;
+
+  @Option(
+      names = { "--liveness-check-host-limit" },
+      paramLabel = "NUMBER",
+      description = "The maximum number of the simultaneous background probes of the same host, default: ${DEFAULT-VALUE}"
+  )
+  int livenessCheckHostLimit = 256;
+
+  @Option(
+      names = { "--max-frame-size" },
+      paramLabel = "BYTES",
+      description =
+          "The maximum size of a request's frame, the bigger frames are rejected. The default is the protocol's " +
+          "maximum ${DEFAULT-VALUE}, the frames up to 1024 bytes are read into the pooled buffers. The pipelined " +
+          "clients get the value with the PIPELINE response and size their batch requests by it"
+  )
+  int maxFrameSize = PipelineResult.DEFAULT_MAX_FRAME_LENGTH;
+
+  @Option(
+      names = { "--overload-delay" },
+      paramLabel = "MILLIS",
+      description =
+          "The maximum time of a request's waiting for the server in the work queue or the I/O loops, " +
+          "the client's sending time is not counted. The overdue PORT_PLEASE2 requests are shed, " +
+          "NAMES and DUMP requests are shed after a half of the delay, ALIVE2, STOP and KILL requests " +
+          "are never shed. 0 disables the shedding, default: ${DEFAULT-VALUE} (disabled)"
+  )
+  long overloadDelay;
+
+  @Option(
+      names = { "--overload-action" },
+      description =
+          "The shed requests' action: CLOSE closes the connection, REPLY sends a minimal error response, " +
+          "where the protocol allows one, and closes the connection otherwise. " +
+          "Valid values: ${COMPLETION-CANDIDATES}, default: ${DEFAULT-VALUE}"
+  )
+  OverloadAction overloadAction = OverloadAction.REPLY;
+
+  @Option(
+      names = { "--drain-timeout" },
+      paramLabel = "TIMEOUT",
+      description =
+          "The maximum time in milliseconds of the server's graceful shutdown (on a KILL request or a termination signal): " +
+          "the server stops accepting the connections and waits for the in-flight requests, the requests, " +
+          "which are not completed in time, are aborted. Default: ${DEFAULT-VALUE}"
+  )
+  long drainTimeout = 5_000;
+
+  @Option(
+      names = { "--subscription-buffer" },
+      paramLabel = "EVENTS",
+      description =
+          "The maximum number of the registered nodes changes events, which are not sent to a subscriber yet. " +
+          "The subscribers, which don't keep up with the changes, are disconnected, default: ${DEFAULT-VALUE}"
+  )
+  int subscriptionBuffer = 1024;
+
+  @Option(
+      names = { "--journal" },
+      paramLabel = "FILE",
+      description =
+          "The memory-mapped journal of the registrations for the warm restart. The journaled nodes are restored " +
+          "at the server's start as the provisional ones, which answer the lookups until the nodes re-register, " +
+          "the unreachable nodes are evicted. Disabled by default"
+  )
+  Path journal;
+
+  @Option(
+      names = { "--journal-size" },
+      paramLabel = "SIZE",
+      description = "The journal's initial size in bytes, it is enlarged when needed, default: ${DEFAULT-VALUE}"
+  )
+  int journalSize = 1024 * 1024;
+
+  @Option(
+      names = { "--journal-grace" },
+      paramLabel = "PERIOD",
+      description =
+          "The time in milliseconds, in which the restored provisional nodes must re-register, " +
+          "the rest of them are evicted, default: ${DEFAULT-VALUE}"
+  )
+  long journalGrace = 60_000;
+
+  @Option(
+      names = { "--peer" },
+      paramLabel = "HOST:PORT",
+      converter = SocketAddressConverter.class,
+      description =
+          "A peer epmd-java server, which registered nodes are replicated, could be repeated for several peers. " +
+          "The replicated nodes are answered to the cluster's lookups with their origin peers, every server " +
+          "of the cluster must list all the others. Disabled by default"
+  )
+  Set<InetSocketAddress> peers = new HashSet<>();
+
+  @Option(
+      names = { "--peer-retry-interval" },
+      paramLabel = "INTERVAL",
+      description = "The time in milliseconds between a peer's reconnection attempts, default: ${DEFAULT-VALUE}"
+  )
+  long peerRetryInterval = 1_000;
+
+  @Option(
+      names = { "--partition" },
+      paramLabel = "HOST:PORT",
+      converter = SocketAddressConverter.class,
+      description =
+          "A partitioned server, could be repeated for all the servers, including this one. The servers " +
+          "share the names on a consistent-hash ring, the clients route the requests by the same ring. " +
+          "Disabled by default"
+  )
+  Set<InetSocketAddress> partitions = new HashSet<>();
+
+  @Option(
+      names = { "--partition-strict" },
+      description =
+          "The partitioned server rejects the registrations of the names, which it does not own. Breaks " +
+          "the stock Erlang nodes, which register at their local server, default: ${DEFAULT-VALUE}"
+  )
+  boolean partitionStrict;
+
+  @Option(
+      names = { "--rate-limit" },
+      paramLabel = "TAG=RATE",
+      description =
+          "The maximum rate (requests per second) of a request's tag from a single remote address, for example " +
+          "PORT_PLEASE2_REQUEST=100, could be repeated for several tags. The connections over the limit are dropped " +
+          "before their requests are parsed. Valid tags: ${COMPLETION-CANDIDATES}, no limits by default"
+  )
+  Map<Tag, Integer> rateLimits = new EnumMap<>(Tag.class);
+
+  @Option(
+      names = { "--metrics-port" },
+      paramLabel = "PORT",
+      description =
+          "The port of the embedded HTTP listener, which serves the server's metrics at /metrics " +
+          "in the Prometheus text format, only to the clients, which could send the EPMD requests " +
+          "(see --allowed-ips and --listen-mode). Disabled by default"
+  )
+  int metricsPort;
+
+  NodeRegistry nodes;
+
+  ResponseCache namesResponse;
+
+  ResponseCache dumpResponse;
+
+  /**
+   * The server's port, encoded as the NAMES and DUMP responses' header.
+   */
+  ByteBuffer portHeader;
+
+  BufferPool bufferPool;
+
+  OverloadGuard overload;
+
+  RateLimiter rateLimiter;
+
+  InFlightRequests inFlight;
+
+  /**
+   * The requests' counters and the latencies of their phases by the requests' tags,
+   * since the server's creation. The running server publishes them as
+   * the {@code io.appulse.epmd.java:type=Server,port=<port>} platform MBean.
+   */
+  @Getter
+  RequestMetrics metrics = new RequestMetrics();
+
+  /**
+   * The number of the connections, which were closed, because their
+   * remote addresses are not allowed.
+   */
+  LongAdder forbidden = new LongAdder();
+
+  AtomicReference<Drain> draining = new AtomicReference<>();
+
+  AtomicReference<AddressTrie> allowlist = new AtomicReference<>();
+
+  /**
+   * The listeners' local addresses, {@code null} means all the local addresses.
+   */
+  List<InetAddress> bindAddresses;
 
   ExecutorService executor;
 
+  AtomicReference<ServerEngine> engine = new AtomicReference<>();
+
+  AtomicReference<LivenessSweeper> sweeper = new AtomicReference<>();
+
+  AtomicReference<WarmRestart> warmRestart = new AtomicReference<>();
+
+  AtomicReference<Replication> replication = new AtomicReference<>();
+
+  AtomicReference<PrometheusEndpoint> metricsEndpoint = new AtomicReference<>();
+
+  /**
+   * The proxy's upstreams cache, or {@code null} if the server is not a proxy.
+   */
+  UpstreamCache upstreams;
+
+  /**
+   * The server's partition of the names, or {@code null} if the servers are not partitioned.
+   */
+  Partition partition;
+
   @Builder
+  @SuppressWarnings("PMD.ExcessiveParameterList")
   SubcommandServer (Integer port,
                     @Singular Set<InetAddress> ips,
-                    boolean unsafe
+                    @Singular Set<Cidr> networks,
+                    ListenMode listenMode,
+                    boolean unsafe,
+                    ServerEngine.Type engine,
+                    ExecutionMode executionMode,
+                    Integer workers,
+                    Integer ioThreads,
+                    Integer listeners,
+                    Long livenessCheckInterval,
+                    Integer livenessCheckTimeout,
+                    Integer livenessCheckHostLimit,
+                    Integer maxFrameSize,
+                    Long overloadDelay,
+                    OverloadAction overloadAction,
+                    Long drainTimeout,
+                    Integer subscriptionBuffer,
+                    Path journal,
+                    Integer journalSize,
+                    Long journalGrace,
+                    @Singular Set<InetSocketAddress> peers,
+                    Long peerRetryInterval,
+                    UpstreamCache upstreams,
+                    @Singular Set<InetSocketAddress> partitions,
+                    boolean partitionStrict,
+                    @Singular Map<Tag, Integer> rateLimits,
+                    Integer metricsPort
   ) {
     options = new Epmd();
     ofNullable(port)
@@ -155,425 +443,450 @@ public class SubcommandServer implements Runnable {
 
     this.unsafe = unsafe;
 
-    ofNullable(ips)
+    Set<Cidr> allowed = new HashSet<>(networks);
+    ips.stream()
+        .map(Cidr::of)
+        .forEach(allowed::add);
+    if (!allowed.isEmpty()) {
+      this.ips = allowed;
+    }
+
+    ofNullable(listenMode)
+        .ifPresent(it -> this.listenMode = it);
+
+    ofNullable(engine)
+        .ifPresent(it -> engineType = it);
+
+    ofNullable(executionMode)
+        .ifPresent(it -> this.executionMode = it);
+    ofNullable(workers)
+        .ifPresent(it -> this.workers = it);
+
+    ofNullable(ioThreads)
+        .ifPresent(it -> this.ioThreads = it);
+    ofNullable(listeners)
+        .ifPresent(it -> this.listeners = it);
+
+    ofNullable(livenessCheckInterval)
+        .ifPresent(it -> this.livenessCheckInterval = it);
+    ofNullable(livenessCheckTimeout)
+        .ifPresent(it -> this.livenessCheckTimeout = it);
+    ofNullable(livenessCheckHostLimit)
+        .ifPresent(it -> this.livenessCheckHostLimit = it);
+
+    ofNullable(maxFrameSize)
+        .ifPresent(it -> this.maxFrameSize = it);
+
+    ofNullable(overloadDelay)
+        .ifPresent(it -> this.overloadDelay = it);
+    ofNullable(overloadAction)
+        .ifPresent(it -> this.overloadAction = it);
+
+    ofNullable(drainTimeout)
+        .ifPresent(it -> this.drainTimeout = it);
+    ofNullable(subscriptionBuffer)
+        .ifPresent(it -> this.subscriptionBuffer = it);
+
+    this.journal = journal;
+    ofNullable(journalSize)
+        .ifPresent(it -> this.journalSize = it);
+    ofNullable(journalGrace)
+        .ifPresent(it -> this.journalGrace = it);
+
+    this.peers = new HashSet<>(peers);
+    ofNullable(peerRetryInterval)
+        .ifPresent(it -> this.peerRetryInterval = it);
+
+    this.upstreams = upstreams;
+    this.partitions = new HashSet<>(partitions);
+    this.partitionStrict = partitionStrict;
+
+    ofNullable(rateLimits)
         .filter(it -> !it.isEmpty())
-        .map(HashSet::new)
-        .ifPresent(it -> this.ips = it);
+        .map(EnumMap::new)
+        .ifPresent(it -> this.rateLimits = it);
+    ofNullable(metricsPort)
+        .ifPresent(it -> this.metricsPort = it);
   }
 
   @Override
   @SneakyThrows
-  @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
   public void run () {
     setupEnvironmentVariables();
+    allowlist.set(createAllowlist(ips));
+    bindAddresses = listenMode.getBindAddresses(ips);
 
-    val root = (Logger) LoggerFactory.getLogger(ROOT_LOGGER_NAME);
     if (options.debug) {
-      root.setLevel(DEBUG);
+      ((Logger) LoggerFactory.getLogger(ROOT_LOGGER_NAME)).setLevel(DEBUG);
     }
 
-    nodes = new ConcurrentHashMap<>();
-    executor = AppulseExecutors.newCachedThreadPool()
+    checkOptions();
+    partition = Partition.of(partitions, options.port, partitionStrict).orElse(null);
+    bufferPool = new BufferPool(BufferPool.DEFAULT_BUFFER_SIZE, maxFrameSize, 256);
+    overload = new OverloadGuard(overloadAction, overloadDelay);
+    rateLimiter = new RateLimiter(rateLimits);
+    inFlight = new InFlightRequests();
+    draining.set(null);
+
+    nodes = new NodeRegistry();
+    namesResponse = new ResponseCache();
+    dumpResponse = new ResponseCache();
+    portHeader = EncodedResponse.direct(Bytes.allocate(Integer.BYTES)
+        .write4B(options.port)
+        .array());
+    executor = executionMode.createExecutor(() -> AppulseExecutors.newCachedThreadPool()
         .threadFactory(AppulseThreadFactory.builder()
             .name("epmd-%d")
             .build())
-        .corePoolSize(2)
-        .maxPoolSize(8)
+        .corePoolSize(Math.min(2, workers))
+        .maxPoolSize(workers)
         .keepAliveTime(100L)
         .unit(MILLISECONDS)
         .queueLimit(1000)
-        .build();
+        .build());
+
+    LivenessSweeper.start(this).ifPresent(sweeper::set);
+    WarmRestart.start(this).ifPresent(warmRestart::set);
+    Replication.start(this).ifPresent(replication::set);
+    ServerMetrics.publish(this);
 
-    try (val serverSocket = new ServerSocket(options.port, 1000)) {
-      log.info("EPMD server started (debug: {}, port: {}, allowed-ips: {}, unsafe-commands: {})",
-               options.debug, options.port, ips, unsafe);
-
-      while (!Thread.interrupted()) {
-        val clientSocket = serverSocket.accept();
-
-        val remoteSocketAddress = clientSocket.getRemoteSocketAddress();
-        val remoteAddress = ofNullable(remoteSocketAddress)
-            .filter(it -> it instanceof InetSocketAddress)
-            .map(it -> (InetSocketAddress) it)
-            .map(InetSocketAddress::getAddress)
-            .orElse(null);
-
-        if (remoteAddress == null) {
-          log.warn("uh?");
-          continue;
-        } else if (!ips.contains(ANY_ADDRESS) && !ips.contains(remoteAddress) && !LOCALHOST.equals(remoteAddress)) {
-          clientSocket.close();
-          log.warn("unacceptable remote client's address {}", remoteAddress);
-          continue;
-        }
-        log.debug("{} - a new incoming connection", remoteSocketAddress);
-
-        val handler = new ServerHandler(clientSocket);
-        executor.execute(handler);
+    val currentEngine = createEngine();
+    engine.set(currentEngine);
+    Thread shutdownHook = new Thread(() -> drain().join(), "epmd-drain");
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+    try {
+      if (log.isInfoEnabled()) {
+        log.info("EPMD server started (debug: {}, port: {}, allowed-ips: {}, unsafe-commands: {}, " +
+                 "listen-mode: {}, engine: {}, execution-mode: {}, io-threads: {}, listeners: {})",
+                 options.debug, options.port, ips, unsafe, listenMode, engineType, executionMode, ioThreads, listeners);
       }
+
+      currentEngine.run();
     } finally {
-      executor.shutdown();
-      val termnated = executor.awaitTermination(5, SECONDS);
+      ofNullable(sweeper.getAndSet(null))
+          .ifPresent(LivenessSweeper::close);
+      closeJournal();
+      ofNullable(replication.getAndSet(null))
+          .ifPresent(Replication::close);
+      currentEngine.close();
+      engine.set(null);
+      removeShutdownHook(shutdownHook);
+      ServerMetrics.unpublish(this);
+
+      val termnated = shutdownExecutor();
       log.info("EPMD server terminated successfully ({})", termnated);
     }
   }
 
   /**
-   * Gets all registered and alive nodes in the server.
-   *
-   * @return all alive nodes
+   * Stops the running server immediately, the in-flight requests are aborted.
    */
-  public Collection<Node> getNodes () {
-    nodes.entrySet()
-        .removeIf(entry -> !entry.getValue().isAlive());
-
-    return nodes.values();
+  public void stop () {
+    closeJournal();
+    ofNullable(engine.get())
+        .ifPresent(ServerEngine::close);
   }
 
   /**
-   * Returns a registered node, only if it is alive.
+   * Gracefully stops the running server within the configured drain timeout.
    *
-   * @param name the node's name
+   * @return the drain's report future
    *
-   * @return the registered and alive node
+   * @see #drain(long)
    */
-  public Optional<Node> getNode (String name) {
-    return ofNullable(name)
-        .map(nodes::get)
-        .filter(Node::isAlive);
+  public CompletableFuture<DrainReport> drain () {
+    return drain(drainTimeout);
   }
 
-  private void setupEnvironmentVariables () {
-    if (new SubcommandServer().ips.equals(ips)) { // checks it is not set
-      ips = ofNullable(System.getProperty("ERL_EPMD_ADDRESS"))
-          .map(it -> it.split(","))
-          .map(it -> Stream.of(it)
-              .map(String::trim)
-              .filter(ip -> !ip.isEmpty())
-              .map(ip -> {
-                try {
-                  return InetAddress.getByName(ip);
-                } catch (UnknownHostException ex) {
-                  throw new IllegalArgumentException("Invalid host " + ip, ex);
-                }
-              })
-              .collect(toSet()))
-          .map(it -> {
-            it.add(LOOPBACK_ADDRESS);
-            return it;
-          })
-          .orElse(ips);
-    }
-    ips.add(LOOPBACK_ADDRESS);
-
-    if (!unsafe) {
-      val string = ofNullable(System.getProperty("ERL_EPMD_RELAXED_COMMAND_CHECK"))
-          .filter(it -> !it.isEmpty())
-          .orElse("true");
-      unsafe = Boolean.valueOf(string);
+  /**
+   * Gracefully stops the running server: it stops accepting the connections,
+   * waits for the in-flight requests up to the timeout, aborts the rest of them
+   * and stops.
+   * <p>
+   * The repeated calls return the first drain's report future.
+   *
+   * @param timeout the maximum drain's time in milliseconds
+   *
+   * @return the drain's report future, it is completed before the server is stopped,
+   *         or immediately, if the server is not running
+   */
+  public CompletableFuture<DrainReport> drain (long timeout) {
+    val currentEngine = engine.get();
+    if (currentEngine == null) {
+      return CompletableFuture.completedFuture(DrainReport.builder().build());
     }
-  }
 
-  @Value
-  private class ServerHandler implements Runnable {
-
-    @NonNull
-    Socket socket;
-
-    @Override
-    @SneakyThrows
-    public void run () {
-      try {
-        val requestLengthBytes = SocketUtils.read(socket, 2);
-        val requestLength = BytesUtils.asShort(requestLengthBytes);
-
-        val requestBytes = SocketUtils.read(socket, requestLength);
-        val request = Request.parse(requestBytes, requestLength);
-
-        log.debug("the new reqeust is {}", request);
-        findProcessor(request, socket)
-            .map(it -> {
-              log.debug("reqeust processor is {}", it.getClass().getSimpleName());
-              return it;
-            })
-            .ifPresent(RequestProcessor::process);
-      } catch (Exception ex) {
-        if (options.debug) {
-          log.error("handling {} connection error - '{}'", ex.getMessage(), ex);
-        } else {
-          log.error("handling {} connection error - '{}'", ex.getMessage());
-        }
-      }
+    val newDrain = new Drain(inFlight, timeout);
+    if (!draining.compareAndSet(null, newDrain)) {
+      return draining.get().getFuture();
     }
-
-    private Optional<RequestProcessor<?>> findProcessor (Request request, Socket clientSocket) {
-      switch (request.getTag()) {
-      case ALIVE2_REQUEST:
-        return of(new RegistrationRequestProcessor(request, clientSocket));
-      case DUMP_REQUEST:
-        return of(new DumpRequestProcessor(request, clientSocket));
-      case KILL_REQUEST:
-        return of(new KillRequestProcessor(request, clientSocket));
-      case PORT_PLEASE2_REQUEST:
-        return of(new GetNodeInfoRequestProcessor(request, clientSocket));
-      case NAMES_REQUEST:
-        return of(new GetEpmdInfoRequestProcessor(request, clientSocket));
-      case STOP_REQUEST:
-        return of(new StopRequestProcessor(request, clientSocket));
-      default:
-        log.warn("unsupported request's tag - {}", request.getTag());
-        return empty();
-      }
+    if (engine.get() == null) { // the server has just stopped
+      newDrain.abort();
+    } else {
+      log.info("draining the server, the timeout is {}ms", timeout);
+      closeJournal();
+      currentEngine.close();
     }
+    return newDrain.getFuture();
+  }
 
-    @RequiredArgsConstructor
-    abstract class RequestProcessor<R extends Request> {
-
-      @NonNull
-      protected final R request;
-
-      @NonNull
-      protected final Socket socket;
-
-      @SneakyThrows
-      void process () {
-        val response = respond();
-        if (response == null) {
-          socket.close();
-          return;
-        }
-
-        send(response);
-        afterSend(response);
-      }
+  /**
+   * Gets all registered nodes in the server.
+   * <p>
+   * A node stays registered while its registration connection is open.
+   *
+   * @return all registered nodes
+   */
+  public Collection<Node> getNodes () {
+    return nodes.getAll();
+  }
 
-      protected abstract Response respond ();
+  /**
+   * Returns a registered node.
+   *
+   * @param name the node's name
+   *
+   * @return the registered node
+   */
+  public Optional<Node> getNode (String name) {
+    return nodes.get(name);
+  }
 
-      @SneakyThrows
-      protected void send (Response response) {
-        log.debug("sending a response to {}", socket.getRemoteSocketAddress());
-        val responseBytes = response.toBytes();
-        socket.getOutputStream().write(responseBytes);
-        socket.getOutputStream().flush();
-        log.debug("{} was sent to {}", response, socket.getRemoteSocketAddress());
-      }
+  /**
+   * Returns the statistics of the last background liveness sweep.
+   *
+   * @return the last sweep statistics, or empty if the sweeps are disabled or none was completed yet
+   */
+  public Optional<SweepStatistics> getLastSweep () {
+    return ofNullable(sweeper.get())
+        .flatMap(LivenessSweeper::getLastSweep);
+  }
 
-      @SneakyThrows
-      protected void afterSend (Response response) {
-        log.debug("close connection to {}", socket.getRemoteSocketAddress());
-        socket.close();
-      }
+  /**
+   * Returns the overload statistics: the rejected, rate limited connections and the shed requests.
+   *
+   * @return the overload statistics since the server's start
+   */
+  public OverloadStatistics getOverloadStatistics () {
+    if (overload == null) {
+      return OverloadStatistics.builder().build();
     }
+    return overload.getStatistics()
+        .toBuilder()
+        .limited(rateLimiter.getDropped())
+        .build();
+  }
 
-    class RegistrationRequestProcessor extends RequestProcessor<Registration> {
-
-      RegistrationRequestProcessor (Request request, Socket socket) {
-        super((Registration) request, socket);
-      }
+  /**
+   * Returns the replication peers' statistics.
+   *
+   * @return the statistics of every peer, or empty if the replication is disabled
+   */
+  public List<ReplicationStatistics> getReplicationStatistics () {
+    return ofNullable(replication.get())
+        .map(Replication::getStatistics)
+        .orElseGet(Collections::emptyList);
+  }
 
-      @Override
-      protected Response respond () {
-        val creation = (int) (System.currentTimeMillis() % 3 + 1);
-        val node = nodes.computeIfAbsent(request.getName(), key -> Node.builder()
-            .name(request.getName())
-            .port(request.getPort())
-            .type(request.getType())
-            .protocol(request.getProtocol())
-            .high(request.getHigh())
-            .low(request.getLow())
-            .creation(creation)
-            .socket(socket)
-            .build()
-        );
-
-        return RegistrationResult.builder()
-            .ok(node != null)
-            .creation(node == null
-                      ? 0
-                      : node.getCreation()
-            )
-            .build();
-      }
+  /**
+   * Replaces the allowed IPs list of the running server.
+   * <p>
+   * The loopback address is implicitly added to the list. The new list
+   * affects only the connections, which are accepted after the call,
+   * in the {@link ListenMode#FILTER} mode (the bound listeners are not changed).
+   *
+   * @param networks the allowed addresses and networks
+   */
+  public void setAllowedIps (@NonNull Collection<Cidr> networks) {
+    Set<Cidr> newIps = new HashSet<>(networks);
+    newIps.add(Cidr.of(LOOPBACK_ADDRESS));
+    allowlist.set(createAllowlist(newIps));
+    ips = newIps;
+    log.info("the allowed IPs are {}", newIps);
+  }
 
-      @Override
-      @SneakyThrows
-      protected void afterSend (Response response) {
-        val result = (RegistrationResult) response;
-        if (result.isOk()) {
-          return;
-        }
-        socket.close();
-      }
+  /**
+   * Checks a just accepted client's address against the allowed IPs list.
+   *
+   * @param remoteSocketAddress the client's socket address
+   *
+   * @return the client's inet address, if it is allowed, or {@code null} otherwise
+   */
+  InetAddress getAllowedRemoteAddress (SocketAddress remoteSocketAddress) {
+    val remoteAddress = ofNullable(remoteSocketAddress)
+        .filter(it -> it instanceof InetSocketAddress)
+        .map(it -> (InetSocketAddress) it)
+        .map(InetSocketAddress::getAddress)
+        .orElse(null);
+
+    if (remoteAddress == null) {
+      log.warn("unknown remote client's address {}", remoteSocketAddress);
+      return null;
+    } else if (listenMode == ListenMode.FILTER && !allowlist.get().contains(remoteAddress)) {
+      log.warn("unacceptable remote client's address {}", remoteAddress);
+      forbidden.increment();
+      return null;
     }
+    return remoteAddress;
+  }
 
-    class DumpRequestProcessor extends RequestProcessor<GetEpmdDump> {
-
-      DumpRequestProcessor (Request request, Socket socket) {
-        super((GetEpmdDump) request, socket);
+  /**
+   * Processes a client's request and responds to it.
+   *
+   * @param request the parsed request
+   *
+   * @param session the client's session
+   */
+  void handle (@NonNull Request request, @NonNull Session session) {
+    log.debug("the new reqeust is {}", request);
+    metrics.request(request.getTag());
+    try {
+      if (overload.shed(request, session)) {
+        metrics.error(request.getTag());
+        return;
       }
-
-      @Override
-      protected Response respond () {
-        val builder = EpmdDump.builder()
-            .port(options.port);
-
-        getNodes().stream()
-            .map(it -> NodeDump.builder()
-                .status(NodeDump.Status.ACTIVE)
-                .name(it.getName())
-                .port(it.getPort())
-                .fileDescriptor(-1)
-                .build()
-            )
-            .forEach(builder::node);
-
-        return builder.build();
+      val processor = RequestProcessor.of(this, request, session);
+      if (!processor.isPresent()) {
+        metrics.error(request.getTag());
+        session.close();
+        return;
       }
+      log.debug("reqeust processor is {}", processor.get().getClass().getSimpleName());
+      processor.get().process();
+    } catch (Exception ex) {
+      metrics.error(request.getTag());
+      handleError(session, ex);
     }
+  }
 
-    class KillRequestProcessor extends RequestProcessor<Kill> {
-
-      KillRequestProcessor (Request request, Socket socket) {
-        super((Kill) request, socket);
-      }
-
-      @Override
-      protected Response respond () {
-        if (!unsafe) {
-          return KillResult.NOK;
-        }
-        nodes.values().forEach(Node::close);
-        return KillResult.OK;
-      }
-
-      @Override
-      protected void afterSend (Response response) {
-        if (response.equals(KillResult.NOK)) {
-          return;
-        }
-        executor.shutdownNow();
-      }
+  /**
+   * Logs a client's connection error and closes the session.
+   *
+   * @param session the client's session
+   *
+   * @param throwable the error
+   */
+  void handleError (@NonNull Session session, @NonNull Throwable throwable) {
+    if (options.debug) {
+      log.error("handling {} connection error - '{}'", session, throwable.getMessage(), throwable);
+    } else {
+      log.error("handling {} connection error - '{}'", session, throwable.getMessage());
     }
+    session.close();
+  }
 
-    class GetNodeInfoRequestProcessor extends RequestProcessor<GetNodeInfo> {
-
-      GetNodeInfoRequestProcessor (Request request, Socket socket) {
-        super((GetNodeInfo) request, socket);
-      }
-
-      @Override
-      protected Response respond () {
-        return getNode(request.getName())
-            .filter(Objects::nonNull)
-            .map(node -> NodeInfo.builder()
-                .ok(true)
-                .port(node.getPort())
-                .type(node.getType())
-                .protocol(node.getProtocol())
-                .high(node.getHigh())
-                .low(node.getLow())
-                .name(node.getName())
-                .build())
-            .orElseGet(() -> NodeInfo.builder()
-                .ok(false)
-                .build());
-      }
+  private ServerEngine createEngine () {
+    switch (engineType) {
+    case NIO:
+      return new NioServerEngine(this);
+    case BLOCKING:
+    default:
+      return new BlockingServerEngine(this);
     }
+  }
 
-    class GetEpmdInfoRequestProcessor extends RequestProcessor<GetEpmdInfo> {
-
-      GetEpmdInfoRequestProcessor (Request request, Socket socket) {
-        super((GetEpmdInfo) request, socket);
-      }
+  /**
+   * Waits for the in-flight requests, if the server is being drained.
+   * <p>
+   * The engines call it after their listeners were closed and before
+   * aborting the rest of the connections.
+   */
+  void awaitDrain () {
+    ofNullable(draining.get())
+        .ifPresent(Drain::await);
+  }
 
-      @Override
-      protected Response respond () {
-        val builder = EpmdInfo.builder()
-            .port(options.port);
+  /**
+   * Tells if the server is being drained.
+   *
+   * @return {@code true} if the server's drain was started
+   */
+  boolean isDraining () {
+    return draining.get() != null;
+  }
 
-        getNodes().stream()
-            .map(it -> NodeDescription.builder()
-                .name(it.getName())
-                .port(it.getPort())
-                .build()
-            )
-            .forEach(builder::node);
+  /**
+   * Opens the server's listeners on its port and bind addresses.
+   *
+   * @return the opened listeners
+   *
+   * @throws IOException in case of binding errors
+   */
+  Listeners openListeners () throws IOException {
+    return Listeners.open(bindAddresses, options.port, listeners);
+  }
 
-        return builder.build();
-      }
+  private void checkOptions () {
+    if (maxFrameSize < Short.BYTES || maxFrameSize > 0xFFFF) {
+      throw new IllegalArgumentException("The maximum frame size must be in [2, 65535] range, but it is " + maxFrameSize);
     }
-
-    class StopRequestProcessor extends RequestProcessor<Stop> {
-
-      StopRequestProcessor (Request request, Socket socket) {
-        super((Stop) request, socket);
-      }
-
-      @Override
-      protected Response respond () {
-        if (!unsafe) {
-          return StopResult.NOEXIST;
-        }
-
-        return getNode(request.getName())
-            .map(Node::getName)
-            .map(nodes::remove)
-            .filter(Objects::nonNull)
-            .map(node -> {
-              node.close();
-              return StopResult.STOPPED;
-            })
-            .orElse(StopResult.NOEXIST);
-      }
+    if (ioThreads <= 0) {
+      throw new IllegalArgumentException("The number of the I/O threads must be positive, but it is " + ioThreads);
+    }
+    if (listeners <= 0) {
+      throw new IllegalArgumentException("The number of the listeners must be positive, but it is " + listeners);
+    }
+    if (subscriptionBuffer <= 0) {
+      throw new IllegalArgumentException("The subscription's buffer size must be positive, but it is " + subscriptionBuffer);
     }
   }
 
-  @Value
-  @Builder
-  private static class Node implements Closeable {
-
-    @NonNull
-    String name;
-
-    int port;
-
-    @NonNull
-    NodeType type;
-
-    @NonNull
-    Protocol protocol;
+  private void closeJournal () {
+    ofNullable(warmRestart.getAndSet(null))
+        .ifPresent(WarmRestart::close);
+  }
 
-    @NonNull
-    Version high;
+  private boolean shutdownExecutor () throws InterruptedException {
+    val currentDrain = draining.get();
+    if (currentDrain == null) {
+      executor.shutdown();
+      return executor.awaitTermination(5, SECONDS);
+    }
 
-    @NonNull
-    Version low;
+    executor.shutdownNow();
+    val terminated = executor.awaitTermination(1, SECONDS);
+    // the engine could fail before the drain's end
+    currentDrain.abort();
+    return terminated;
+  }
 
-    int creation;
+  @SuppressWarnings("PMD.EmptyCatchBlock")
+  private void removeShutdownHook (Thread hook) {
+    try {
+      Runtime.getRuntime().removeShutdownHook(hook);
+    } catch (IllegalStateException ex) {
+      // the JVM is shutting down, the hook is running
+    }
+  }
 
-    Socket socket;
+  private AddressTrie createAllowlist (Set<Cidr> networks) {
+    Set<Cidr> all = new HashSet<>(networks);
+    all.add(Cidr.of(LOCALHOST));
+    return AddressTrie.of(all);
+  }
 
-    @Override
-    @SuppressWarnings("PMD.EmptyCatchBlock")
-    public void close () {
-      try {
-        socket.close();
-      } catch (IOException ex) {
-        // noop
-      }
+  private void setupEnvironmentVariables () {
+    if (new SubcommandServer().ips.equals(ips)) { // checks it is not set
+      ips = ofNullable(System.getProperty("ERL_EPMD_ADDRESS"))
+          .map(it -> it.split(","))
+          .map(it -> Stream.of(it)
+              .map(String::trim)
+              .filter(ip -> !ip.isEmpty())
+              .map(Cidr::parse)
+              .collect(toSet()))
+          .map(it -> {
+            it.add(Cidr.of(LOOPBACK_ADDRESS));
+            return it;
+          })
+          .orElse(ips);
     }
+    ips.add(Cidr.of(LOOPBACK_ADDRESS));
 
-    @SneakyThrows
-    @SuppressFBWarnings("REC_CATCH_EXCEPTION")
-    boolean isAlive () {
-      val nodeSocketAddress = new InetSocketAddress(socket.getInetAddress(), port);
-      try (val nodeSocket = new Socket()) {
-        nodeSocket.connect(nodeSocketAddress, 2_000);
-        nodeSocket.close();
-      } catch (Exception ex) {
-        return false;
-      }
-      return true;
+    if (!unsafe) {
+      val string = ofNullable(System.getProperty("ERL_EPMD_RELAXED_COMMAND_CHECK"))
+          .filter(it -> !it.isEmpty())
+          .orElse("true");
+      unsafe = Boolean.valueOf(string);
     }
   }
 }
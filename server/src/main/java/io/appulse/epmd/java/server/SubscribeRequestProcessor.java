@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import io.appulse.epmd.java.core.model.request.Request;
+import io.appulse.epmd.java.core.model.request.Subscribe;
+
+/**
+ * The SUBSCRIBE request processor, it keeps the session open
+ * and starts its {@link Subscription}. It has no direct response,
+ * the nodes' events are sent by the subscription.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+class SubscribeRequestProcessor extends RequestProcessor<Subscribe> {
+
+  SubscribeRequestProcessor (SubcommandServer server, Request request, Session session) {
+    super(server, (Subscribe) request, session);
+  }
+
+  @Override
+  void process () {
+    if (server.isDraining()) {
+      session.close();
+      return;
+    }
+    new Subscription(server.nodes, session, server.subscriptionBuffer).start();
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.Tag.NODE_EVENT_RESPONSE;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Arrays.asList;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.appulse.epmd.java.core.model.response.NodeEvent;
+
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * A subscriber's stream of the registered nodes changes events.
+ * <p>
+ * The registry's changes are encoded into the bounded queue, without blocking
+ * the registrations, and are pushed to the subscriber's watched session
+ * by batches, one batch at a time. The subscriber, which doesn't keep up
+ * with the changes and overflows the queue, is disconnected.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class Subscription implements NodeRegistry.Listener {
+
+  static final ByteBuffer SYNCED = EncodedResponse.direct(NodeEvent.synced().toBytes());
+
+  NodeRegistry registry;
+
+  Session session;
+
+  BlockingQueue<ByteBuffer[]> events;
+
+  AtomicBoolean sending = new AtomicBoolean();
+
+  AtomicBoolean closed = new AtomicBoolean();
+
+  Subscription (@NonNull NodeRegistry registry, @NonNull Session session, int capacity) {
+    this.registry = registry;
+    this.session = session;
+    events = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Starts the subscription: sends the registered nodes snapshot
+   * and the following changes, until the session is closed.
+   */
+  void start () {
+    session.watch(this::cancel);
+    registry.listen(this);
+    if (closed.get()) {
+      registry.unlisten(this);
+    }
+  }
+
+  @Override
+  public void listened (Collection<Node> nodes) {
+    List<ByteBuffer> snapshot = new ArrayList<>();
+    for (val node : nodes) {
+      snapshot.addAll(asList(registered(node.getName(), node.getNodeInfo().toBuffers())));
+    }
+    snapshot.addAll(asList(Session.frame(SYNCED.duplicate())));
+    publish(snapshot.toArray(new ByteBuffer[0]));
+  }
+
+  @Override
+  public void registered (Node node) {
+    publish(registered(node.getName(), node.getNodeInfo().toBuffers()));
+  }
+
+  @Override
+  public void unregistered (Node node) {
+    publish(Session.frame(header(NodeEvent.Type.UNREGISTERED, node.getName())));
+  }
+
+  @Override
+  public String toString () {
+    return "Subscription(" + session + ')';
+  }
+
+  private static ByteBuffer[] registered (String name, ByteBuffer[] nodeInfo) {
+    val buffers = new ByteBuffer[nodeInfo.length + 1];
+    buffers[0] = header(NodeEvent.Type.REGISTERED, name);
+    System.arraycopy(nodeInfo, 0, buffers, 1, nodeInfo.length);
+    return Session.frame(buffers);
+  }
+
+  private static ByteBuffer header (NodeEvent.Type type, String name) {
+    val bytes = name.getBytes(ISO_8859_1);
+    val header = ByteBuffer.allocate(2 + Short.BYTES + bytes.length)
+        .put(NODE_EVENT_RESPONSE.getCode())
+        .put(type.getCode())
+        .putShort((short) bytes.length)
+        .put(bytes);
+    header.flip();
+    return header;
+  }
+
+  private void publish (ByteBuffer... event) {
+    if (closed.get()) {
+      return;
+    }
+    if (!events.offer(event)) {
+      log.warn("{} - the subscriber doesn't keep up with the changes, disconnecting", session);
+      session.close();
+      return;
+    }
+    pump();
+  }
+
+  private void pump () {
+    boolean pushed = false;
+    while (!pushed && !events.isEmpty() && sending.compareAndSet(false, true)) {
+      val batch = pollAll();
+      if (batch.length == 0) {
+        sending.set(false);
+      } else {
+        session.push(this::sent, batch);
+        pushed = true;
+      }
+    }
+  }
+
+  private ByteBuffer[] pollAll () {
+    List<ByteBuffer> batch = new ArrayList<>();
+    for (ByteBuffer[] event = events.poll(); event != null; event = events.poll()) {
+      Collections.addAll(batch, event);
+    }
+    return batch.toArray(new ByteBuffer[0]);
+  }
+
+  private void sent () {
+    sending.set(false);
+    pump();
+  }
+
+  private void cancel () {
+    closed.set(true);
+    events.clear();
+    registry.unlisten(this);
+    log.debug("{} - the subscription was cancelled", session);
+  }
+}
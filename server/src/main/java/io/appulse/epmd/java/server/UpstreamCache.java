@@ -0,0 +1,435 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.client.EpmdDefaults;
+import io.appulse.epmd.java.core.model.response.EpmdInfo.NodeDescription;
+import io.appulse.epmd.java.core.model.response.NodeInfo;
+import io.appulse.utils.threads.AppulseExecutors;
+import io.appulse.utils.threads.AppulseThreadFactory;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * The proxy's cache of the upstream EPMD servers' answers.
+ * <p>
+ * A lookup asks all the upstreams at once and the first upstream in the configured
+ * order, which knows the node, answers, as soon as all the upstreams before it
+ * have answered or failed. Every upstream is waited at most the timeout, so
+ * a dead upstream delays only the answers of the upstreams after it and
+ * at most by the timeout. The found nodes are cached for the TTL,
+ * the unknown ones - for the negative TTL, the concurrent misses of the same
+ * entry share a single upstreams' request. The entries, which were read since
+ * their last fetch, are refreshed in the background every half of the TTL,
+ * so the hot entries are always answered from memory, the idle expired
+ * entries are evicted.
+ * <p>
+ * An entry is never answered after its TTL: if none of the upstreams answers
+ * in time, the lookup is answered as "not found" and nothing is cached.
+ * <p>
+ * A miss waits for the upstreams in its worker's thread and every upstream's
+ * request holds a client's thread, so the client has a thread for every
+ * worker and upstream, the misses don't queue behind each other.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@Slf4j
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class UpstreamCache implements Closeable {
+
+  List<InetSocketAddress> upstreams;
+
+  long ttl;
+
+  long negativeTtl;
+
+  long timeout;
+
+  EpmdClient client;
+
+  ScheduledExecutorService scheduler;
+
+  Map<String, Entry<Optional<NodeInfo>>> nodes = new ConcurrentHashMap<>();
+
+  Entry<List<NodeDescription>> names = new Entry<>();
+
+  LongAdder hits = new LongAdder();
+
+  LongAdder misses = new LongAdder();
+
+  LongAdder negatives = new LongAdder();
+
+  LongAdder refreshes = new LongAdder();
+
+  LongAdder errors = new LongAdder();
+
+  /**
+   * Constructs a not started cache.
+   *
+   * @param upstreams the upstream EPMD servers in the order of their priority
+   *
+   * @param ttl the found nodes and the names list time to live in milliseconds
+   *
+   * @param negativeTtl the unknown nodes time to live in milliseconds
+   *
+   * @param timeout the upstreams' answers timeout in milliseconds
+   *
+   * @param threads the upstreams' client threads, every upstream's request holds one
+   *                until the upstream answers
+   */
+  UpstreamCache (@NonNull Collection<InetSocketAddress> upstreams, long ttl, long negativeTtl, long timeout, int threads) {
+    if (upstreams.isEmpty()) {
+      throw new IllegalArgumentException("At least one upstream EPMD server is required");
+    }
+    if (ttl <= 0 || negativeTtl < 0 || timeout <= 0) {
+      throw new IllegalArgumentException("The TTL and the timeout must be positive, the negative TTL must not be negative");
+    }
+    this.upstreams = new ArrayList<>(upstreams);
+    this.ttl = MILLISECONDS.toNanos(ttl);
+    this.negativeTtl = MILLISECONDS.toNanos(negativeTtl);
+    this.timeout = timeout;
+
+    client = EpmdClient.builder()
+        .address(EpmdDefaults.ADDRESS)
+        .port(EpmdDefaults.PORT)
+        .threads(threads)
+        .build();
+    scheduler = AppulseExecutors.newScheduledThreadPool()
+        .poolSize(1)
+        .threadFactory(AppulseThreadFactory.builder()
+            .name("epmd-proxy-%d")
+            .daemon(true)
+            .build())
+        .build();
+  }
+
+  /**
+   * Schedules the background refreshes.
+   */
+  void start () {
+    val period = Math.max(1, NANOSECONDS.toMillis(ttl) / 2);
+    scheduler.scheduleWithFixedDelay(this::refresh, period, period, MILLISECONDS);
+  }
+
+  /**
+   * Looks up a node in the upstreams.
+   *
+   * @param name the node's name
+   *
+   * @return the node's info, or empty if it is unknown or the upstreams didn't answer in time
+   */
+  Optional<NodeInfo> lookup (@NonNull String name) {
+    val entry = nodes.computeIfAbsent(name, it -> new Entry<>());
+    val result = get(entry, () -> fetch(name), it -> it.isPresent() ? ttl : negativeTtl, Optional.empty());
+    if (!result.isPresent()) {
+      negatives.increment();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the names of the upstreams' nodes, the same name from several
+   * upstreams is listed once, from the first of them.
+   *
+   * @return the upstreams' nodes names and ports
+   */
+  List<NodeDescription> getNames () {
+    return get(names, this::fetchNames, it -> ttl, emptyList());
+  }
+
+  ProxyStatistics getStatistics () {
+    val now = System.nanoTime();
+    val staleness = Stream.concat(nodes.values().stream(), Stream.of(names))
+        .map(it -> it.fetched.get())
+        .filter(Objects::nonNull)
+        .mapToLong(it -> now - it.time)
+        .max()
+        .orElse(0);
+
+    return ProxyStatistics.builder()
+        .hits(hits.sum())
+        .misses(misses.sum())
+        .negatives(negatives.sum())
+        .refreshes(refreshes.sum())
+        .errors(errors.sum())
+        .entries(nodes.size() + (names.fetched.get() == null ? 0 : 1))
+        .staleness(NANOSECONDS.toMillis(staleness))
+        .build();
+  }
+
+  @Override
+  public void close () {
+    scheduler.shutdownNow();
+    client.close();
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  void refresh () {
+    try {
+      val now = System.nanoTime();
+      nodes.forEach((name, entry) -> {
+        if (entry.accessed.getAndSet(false)) {
+          refreshes.increment();
+          entry.load(() -> fetch(name));
+        } else if (entry.isExpired(now, ttl)) {
+          nodes.remove(name, entry);
+        }
+      });
+      if (names.accessed.getAndSet(false)) {
+        refreshes.increment();
+        names.load(this::fetchNames);
+      }
+    } catch (RuntimeException ex) {
+      log.error("the proxy's cache refresh error", ex);
+    }
+  }
+
+  private <T> T get (Entry<T> entry, Supplier<CompletableFuture<T>> loader, ToLongFunction<T> lifetime, T fallback) {
+    entry.accessed.set(true);
+    val current = entry.fetched.get();
+    if (current != null && !entry.isExpired(System.nanoTime(), lifetime.applyAsLong(current.value))) {
+      hits.increment();
+      return current.value;
+    }
+
+    misses.increment();
+    try {
+      // every upstream's answer is bounded by the timeout already,
+      // the doubled one only guards the worker against a lost completion
+      return entry.load(loader).get(timeout * 2, MILLISECONDS);
+    } catch (ExecutionException | TimeoutException ex) {
+      log.debug("the upstreams didn't answer - '{}'", ex.getMessage());
+      return fallback;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return fallback;
+    }
+  }
+
+  private CompletableFuture<Optional<NodeInfo>> fetch (String name) {
+    return first(upstream -> client.lookup(name, upstream.getAddress(), upstream.getPort()));
+  }
+
+  private CompletableFuture<List<NodeDescription>> fetchNames () {
+    return all(upstream -> client.getNodes(upstream.getAddress(), upstream.getPort()))
+        .thenApply(answers -> {
+          Map<String, NodeDescription> result = new LinkedHashMap<>();
+          answers.forEach(list -> list.forEach(it -> result.putIfAbsent(it.getName(), it)));
+          return new ArrayList<>(result.values());
+        });
+  }
+
+  /**
+   * Asks all the upstreams. The answer is the first present one in the upstreams'
+   * order, as soon as all the upstreams before it have answered or failed,
+   * so a slow or dead upstream delays only the answers, which it could win.
+   * The result fails only if all the upstreams have failed.
+   */
+  private <T> CompletableFuture<Optional<T>> first (Function<InetSocketAddress, CompletableFuture<Optional<T>>> request) {
+    List<CompletableFuture<Optional<T>>> requests = ask(request);
+    CompletableFuture<Optional<T>> result = new CompletableFuture<>();
+    requests.forEach(it -> it.whenComplete((answer, error) -> decide(requests, result, error)));
+    return result;
+  }
+
+  /**
+   * Asks all the upstreams and waits for all of them. The failed upstreams
+   * are skipped, the result fails only if all of them have failed.
+   */
+  private <T> CompletableFuture<List<T>> all (Function<InetSocketAddress, CompletableFuture<T>> request) {
+    val requests = ask(request);
+    return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0]))
+        .handle((ignored, error) -> {
+          val answers = requests.stream()
+              .filter(it -> !it.isCompletedExceptionally())
+              .map(CompletableFuture::join)
+              .collect(toList());
+
+          if (answers.isEmpty()) {
+            throw new CompletionException(error);
+          }
+          return answers;
+        });
+  }
+
+  /**
+   * Sends the request to every upstream, every upstream's answer is waited
+   * at most the timeout, the failed and the late answers are counted as the errors.
+   */
+  @SuppressWarnings({
+      "PMD.AvoidCatchingGenericException",
+      "PMD.AvoidInstantiatingObjectsInLoops"
+  })
+  private <T> List<CompletableFuture<T>> ask (Function<InetSocketAddress, CompletableFuture<T>> request) {
+    List<CompletableFuture<T>> result = new ArrayList<>(upstreams.size());
+    for (val upstream : upstreams) {
+      CompletableFuture<T> answer = new CompletableFuture<>();
+      val timer = scheduler.schedule(() -> {
+        if (answer.completeExceptionally(new TimeoutException("The upstream " + upstream + " didn't answer in time"))) {
+          errors.increment();
+        }
+      }, timeout, MILLISECONDS);
+
+      CompletableFuture<T> sent;
+      try {
+        sent = request.apply(upstream);
+      } catch (RuntimeException ex) {
+        sent = new CompletableFuture<>();
+        sent.completeExceptionally(ex);
+      }
+      sent.whenComplete((value, error) -> {
+        timer.cancel(false);
+        if (error == null) {
+          answer.complete(value);
+        } else if (answer.completeExceptionally(error)) {
+          errors.increment();
+        }
+      });
+      result.add(answer);
+    }
+    return result;
+  }
+
+  private static <T> void decide (List<CompletableFuture<Optional<T>>> requests,
+                                  CompletableFuture<Optional<T>> result,
+                                  Throwable error
+  ) {
+    boolean failed = true;
+    for (val request : requests) {
+      if (!request.isDone()) {
+        return;
+      }
+      if (request.isCompletedExceptionally()) {
+        continue;
+      }
+      failed = false;
+      val answer = request.join();
+      if (answer.isPresent()) {
+        result.complete(answer);
+        return;
+      }
+    }
+    if (failed) {
+      result.completeExceptionally(error);
+    } else {
+      result.complete(Optional.empty());
+    }
+  }
+
+  /**
+   * A cached entry, it has no value until the first fetch.
+   */
+  @FieldDefaults(level = PRIVATE, makeFinal = true)
+  private static final class Entry<T> {
+
+    AtomicReference<Fetched<T>> fetched = new AtomicReference<>();
+
+    AtomicBoolean accessed = new AtomicBoolean();
+
+    AtomicReference<CompletableFuture<T>> loading = new AtomicReference<>();
+
+    boolean isExpired (long now, long lifetime) {
+      val current = fetched.get();
+      return current == null || now - current.time >= lifetime;
+    }
+
+    /**
+     * Starts the value's fetch, if it is not being fetched yet.
+     *
+     * @param loader the value's fetch
+     *
+     * @return the value's fetch in progress
+     */
+    CompletableFuture<T> load (Supplier<CompletableFuture<T>> loader) {
+      CompletableFuture<T> created = new CompletableFuture<>();
+      val current = loading.updateAndGet(it -> it == null ? created : it);
+      if (current != created) {
+        return current;
+      }
+
+      fetch(loader).whenComplete((result, error) -> {
+        if (error == null) {
+          fetched.set(new Fetched<>(result, System.nanoTime()));
+        }
+        loading.set(null);
+        if (error == null) {
+          created.complete(result);
+        } else {
+          created.completeExceptionally(error);
+        }
+      });
+      return created;
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private static <T> CompletableFuture<T> fetch (Supplier<CompletableFuture<T>> loader) {
+      try {
+        return loader.get();
+      } catch (RuntimeException ex) {
+        CompletableFuture<T> failed = new CompletableFuture<>();
+        failed.completeExceptionally(ex);
+        return failed;
+      }
+    }
+  }
+
+  /**
+   * A fetched value with its fetch time.
+   */
+  @Value
+  private static class Fetched<T> {
+
+    T value;
+
+    long time;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static lombok.AccessLevel.PRIVATE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Optional;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+
+/**
+ * The server's warm restart: the {@link RegistrationJournal} and the
+ * {@link ProvisionalNodes}, restored from it.
+ *
+ * @since 2.1.0
+ * @author Artem Labazin
+ */
+@RequiredArgsConstructor(access = PRIVATE)
+@FieldDefaults(level = PRIVATE, makeFinal = true)
+final class WarmRestart implements Closeable {
+
+  /**
+   * Opens the server's journal, restores the journaled nodes as the provisional ones
+   * and starts journaling the server's registry.
+   *
+   * @param server the starting server
+   *
+   * @return the started warm restart, or empty if the server has no journal
+   *
+   * @throws IOException if the journal could not be opened
+   */
+  static Optional<WarmRestart> start (@NonNull SubcommandServer server) throws IOException {
+    if (server.journal == null) {
+      return Optional.empty();
+    }
+    val journal = RegistrationJournal.open(server.journal, server.journalSize);
+    val provisional = new ProvisionalNodes(server.nodes, journal.getNodes(),
+                                           server.livenessCheckTimeout, server.livenessCheckHostLimit);
+    provisional.start(server.journalGrace);
+    server.nodes.listen(journal);
+    return Optional.of(new WarmRestart(server.nodes, journal, provisional));
+  }
+
+  @NonNull
+  NodeRegistry registry;
+
+  @NonNull
+  RegistrationJournal journal;
+
+  @NonNull
+  ProvisionalNodes provisional;
+
+  /**
+   * Stops the journaling, it must be done before the server's stop,
+   * so the server's own disconnections of the nodes are not journaled.
+   */
+  @Override
+  public void close () {
+    provisional.close();
+    registry.unlisten(journal);
+    journal.close();
+  }
+}
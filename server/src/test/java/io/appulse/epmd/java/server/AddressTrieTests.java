@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class AddressTrieTests {
+
+  @Test
+  void empty () throws Exception {
+    val trie = AddressTrie.of(emptyList());
+
+    assertThat(trie.contains(InetAddress.getByName("10.20.0.1")))
+        .isFalse();
+    assertThat(trie.contains(InetAddress.getByName("::1")))
+        .isFalse();
+  }
+
+  @Test
+  void networksAndHosts () throws Exception {
+    val trie = AddressTrie.of(asList(
+        Cidr.parse("10.20.0.0/16"),
+        Cidr.parse("192.168.1.5"),
+        Cidr.parse("fd00:1::/32")
+    ));
+
+    assertThat(trie.contains(InetAddress.getByName("10.20.0.1"))).isTrue();
+    assertThat(trie.contains(InetAddress.getByName("10.20.255.255"))).isTrue();
+    assertThat(trie.contains(InetAddress.getByName("10.21.0.1"))).isFalse();
+    assertThat(trie.contains(InetAddress.getByName("192.168.1.5"))).isTrue();
+    assertThat(trie.contains(InetAddress.getByName("192.168.1.6"))).isFalse();
+    assertThat(trie.contains(InetAddress.getByName("fd00:1:ffff::1"))).isTrue();
+    assertThat(trie.contains(InetAddress.getByName("fd00:2::1"))).isFalse();
+    assertThat(trie.contains(InetAddress.getByName("::ffff:10.20.0.1"))).isTrue();
+  }
+
+  @Test
+  void nestedNetworks () throws Exception {
+    val trie = AddressTrie.of(asList(
+        Cidr.parse("10.20.30.0/24"),
+        Cidr.parse("10.0.0.0/8")
+    ));
+
+    assertThat(trie.contains(InetAddress.getByName("10.99.0.1"))).isTrue();
+    assertThat(trie.contains(InetAddress.getByName("10.20.30.40"))).isTrue();
+    assertThat(trie.contains(InetAddress.getByName("11.0.0.1"))).isFalse();
+  }
+
+  @Test
+  void anyAddress () throws Exception {
+    val trie = AddressTrie.of(singletonList(Cidr.parse("0.0.0.0")));
+
+    assertThat(trie.contains(InetAddress.getByName("8.8.8.8"))).isTrue();
+    assertThat(trie.contains(InetAddress.getByName("2001:db8::1"))).isTrue();
+  }
+
+  @Test
+  void ipv4AnyNetwork () throws Exception {
+    val trie = AddressTrie.of(singletonList(Cidr.parse("0.0.0.0/0")));
+
+    assertThat(trie.contains(InetAddress.getByName("8.8.8.8"))).isTrue();
+    assertThat(trie.contains(InetAddress.getByName("2001:db8::1"))).isFalse();
+  }
+
+  @Test
+  void manyNodes () throws Exception {
+    List<Cidr> networks = new ArrayList<>();
+    for (int index = 0; index < 256; index++) {
+      networks.add(Cidr.parse("10." + index + ".0.0/16"));
+    }
+    val trie = AddressTrie.of(networks);
+
+    assertThat(trie.contains(InetAddress.getByName("10.255.1.2"))).isTrue();
+    assertThat(trie.contains(InetAddress.getByName("11.0.1.2"))).isFalse();
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R3_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.utils.SocketUtils;
+import io.appulse.utils.threads.AppulseExecutors;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class BatchLookupTests {
+
+  ExecutorService executorService = AppulseExecutors.newSingleThreadExecutor().build();
+
+  Future<?> future;
+
+  @AfterEach
+  void after () {
+    if (future != null) {
+      future.cancel(true);
+    }
+  }
+
+  @Test
+  void pipelinedFallback () throws Exception {
+    fallback(true);
+  }
+
+  @Test
+  void classicFallback () throws Exception {
+    fallback(false);
+  }
+
+  @Test
+  void unknownHost () throws Exception {
+    try (val client = new EpmdClient(InetAddress.getLoopbackAddress(), 4369)) {
+      // the future fails, instead of the synchronous exception
+      assertThatThrownBy(() -> client.lookupAll(asList("popa@unknown-host.invalid"), 4369).get(5, SECONDS))
+          .isInstanceOf(ExecutionException.class)
+          .hasCauseInstanceOf(UnknownHostException.class);
+    }
+  }
+
+  /**
+   * The server rejects the batch requests, which exceed its maximum frame size,
+   * as the servers without the batch requests support do. The pipelined client
+   * sizes its batches by the frame size from the server's PIPELINE response.
+   */
+  void fallback (boolean pipelining) throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    val server = SubcommandServer.builder()
+        .port(port)
+        .maxFrameSize(32)
+        .build();
+    future = executorService.submit(server);
+    SECONDS.sleep(1);
+
+    val registration = Registration.builder()
+        .name("fallback")
+        .port(8980)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+
+    try (val nodeClient = new EpmdClient(port);
+         val client = EpmdClient.builder()
+             .address(InetAddress.getLoopbackAddress())
+             .port(port)
+             .pipelining(pipelining)
+             .build()) {
+
+      nodeClient.register(registration).get(3, SECONDS);
+
+      val names = asList("fallback", "unknown-node-1", "unknown-node-2", "unknown-node-3");
+      val result = client.lookupAll(names, InetAddress.getLoopbackAddress(), port).get(5, SECONDS);
+      assertThat(result)
+          .containsOnlyKeys(names);
+      assertThat(result.get("fallback"))
+          .hasValueSatisfying(it -> assertThat(it.getPort()).hasValue(8980));
+      assertThat(result.get("unknown-node-1"))
+          .isNotPresent();
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.utils.SocketUtils;
+import io.appulse.utils.threads.AppulseExecutors;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class BindListenModeTests {
+
+  ExecutorService executorService = AppulseExecutors.newSingleThreadExecutor().build();
+
+  Future<?> future;
+
+  @AfterEach
+  void after () {
+    if (future != null) {
+      future.cancel(true);
+    }
+  }
+
+  @Test
+  void bindAllowedAddresses () throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    val server = SubcommandServer.builder()
+        .port(port)
+        .ip(InetAddress.getByName("127.0.0.2"))
+        .listenMode(ListenMode.BIND)
+        .build();
+    future = executorService.submit(server);
+    SECONDS.sleep(1);
+
+    try (val client = new EpmdClient(port)) {
+      assertThat(client.getNodes(InetAddress.getByName("127.0.0.2"), port).get(3, SECONDS))
+          .isEmpty();
+      assertThat(client.getNodes(InetAddress.getLoopbackAddress(), port).get(3, SECONDS))
+          .isEmpty();
+    }
+    assertThatThrownBy(() -> new Socket(InetAddress.getByName("127.0.0.3"), port))
+        .isInstanceOf(ConnectException.class);
+  }
+
+  @Test
+  void networksCantBeBound () {
+    val server = SubcommandServer.builder()
+        .port(SocketUtils.findFreePort().orElseThrow(RuntimeException::new))
+        .network(Cidr.parse("10.20.0.0/16"))
+        .listenMode(ListenMode.BIND)
+        .build();
+
+    assertThatThrownBy(server::run)
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
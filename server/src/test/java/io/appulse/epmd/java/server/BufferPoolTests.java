@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class BufferPoolTests {
+
+  @Test
+  void reuse () {
+    val pool = new BufferPool(16, 1);
+
+    val first = pool.acquire();
+    first.put((byte) 42);
+    pool.release(first);
+
+    val second = pool.acquire();
+    assertThat(second)
+        .isSameAs(first);
+    assertThat(second.position())
+        .isEqualTo(0);
+    assertThat(second.remaining())
+        .isEqualTo(16);
+  }
+
+  @Test
+  void retainedLimit () {
+    val pool = new BufferPool(16, 1);
+
+    val first = pool.acquire();
+    val second = pool.acquire();
+    pool.release(first);
+    pool.release(second);
+
+    assertThat(pool.acquire())
+        .isSameAs(first);
+    assertThat(pool.acquire())
+        .isNotSameAs(second);
+  }
+
+  @Test
+  void foreignBuffer () {
+    val pool = new BufferPool(16, 1);
+
+    val foreign = ByteBuffer.allocate(8);
+    pool.release(foreign);
+
+    assertThat(pool.acquire())
+        .isNotSameAs(foreign);
+  }
+
+  @Test
+  void oversizedBuffer () {
+    val pool = new BufferPool(16, 64, 1);
+
+    val oversized = pool.acquire(32);
+    assertThat(oversized.capacity())
+        .isEqualTo(32);
+    pool.release(oversized);
+
+    assertThat(pool.acquire(8).capacity())
+        .isEqualTo(16);
+    assertThatThrownBy(() -> pool.acquire(65))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
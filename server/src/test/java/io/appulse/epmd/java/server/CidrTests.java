@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetAddress;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class CidrTests {
+
+  @Test
+  void parseNetwork () throws Exception {
+    val network = Cidr.parse("10.20.30.40/16");
+
+    assertThat(network.getAddress())
+        .isEqualTo(InetAddress.getByName("10.20.0.0"));
+    assertThat(network.getPrefix())
+        .isEqualTo(16);
+    assertThat(network.isHost())
+        .isFalse();
+    assertThat(network.toString())
+        .isEqualTo("10.20.0.0/16");
+  }
+
+  @Test
+  void parseHost () throws Exception {
+    val host = Cidr.parse(" 192.168.1.5 ");
+
+    assertThat(host.getPrefix())
+        .isEqualTo(32);
+    assertThat(host.isHost())
+        .isTrue();
+    assertThat(host)
+        .isEqualTo(Cidr.of(InetAddress.getByName("192.168.1.5")));
+    assertThat(host.toString())
+        .isEqualTo("192.168.1.5");
+  }
+
+  @Test
+  void parseIpv6 () throws Exception {
+    val network = Cidr.parse("fd00:1:2::7/32");
+
+    assertThat(network.getAddress())
+        .isEqualTo(InetAddress.getByName("fd00:1::"));
+    assertThat(Cidr.parse("::1").getPrefix())
+        .isEqualTo(128);
+  }
+
+  @Test
+  void invalid () {
+    assertThatThrownBy(() -> Cidr.parse("10.0.0.0/33"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> Cidr.parse("10.0.0.0/popa"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> Cidr.parse("::/-1"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import io.appulse.utils.SocketUtils;
+import io.appulse.utils.threads.AppulseExecutors;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class DrainTests {
+
+  ExecutorService executorService = AppulseExecutors.newSingleThreadExecutor().build();
+
+  Future<?> future;
+
+  @AfterEach
+  void after () {
+    if (future != null) {
+      future.cancel(true);
+    }
+  }
+
+  @Test
+  void blockingCompleted () throws Exception {
+    completed(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioCompleted () throws Exception {
+    completed(ServerEngine.Type.NIO);
+  }
+
+  @Test
+  void blockingAborted () throws Exception {
+    aborted(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioAborted () throws Exception {
+    aborted(ServerEngine.Type.NIO);
+  }
+
+  @Test
+  void notRunning () throws Exception {
+    val server = SubcommandServer.builder()
+        .port(SocketUtils.findFreePort().orElseThrow(RuntimeException::new))
+        .build();
+
+    val report = server.drain(1_000).get(1, SECONDS);
+    assertThat(report.getCompleted())
+        .isEqualTo(0);
+    assertThat(report.getAborted())
+        .isEqualTo(0);
+  }
+
+  void completed (ServerEngine.Type engine) throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    val server = start(port, engine);
+
+    val socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    MILLISECONDS.sleep(200);
+
+    val drain = server.drain(5_000);
+    assertThat(server.drain(1))
+        .isSameAs(drain);
+    MILLISECONDS.sleep(200);
+    assertThatThrownBy(() -> new Socket(InetAddress.getLoopbackAddress(), port))
+        .isInstanceOf(ConnectException.class);
+    assertThat(drain)
+        .isNotDone();
+
+    socket.close();
+    val report = drain.get(5, SECONDS);
+    assertThat(report.getCompleted())
+        .isEqualTo(1);
+    assertThat(report.getAborted())
+        .isEqualTo(0);
+
+    future.get(5, SECONDS);
+    assertThat(server.drain().get(1, SECONDS).getCompleted())
+        .isEqualTo(0);
+  }
+
+  void aborted (ServerEngine.Type engine) throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    val server = start(port, engine);
+
+    try (val socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      MILLISECONDS.sleep(200);
+
+      val report = server.drain(300).get(5, SECONDS);
+      assertThat(report.getCompleted())
+          .isEqualTo(0);
+      assertThat(report.getAborted())
+          .isEqualTo(1);
+      assertThat(report.getDuration())
+          .isGreaterThanOrEqualTo(300);
+
+      future.get(5, SECONDS);
+      assertThat(socket.getInputStream().read())
+          .isEqualTo(-1);
+    }
+  }
+
+  SubcommandServer start (int port, ServerEngine.Type engine) throws Exception {
+    val server = SubcommandServer.builder()
+        .port(port)
+        .engine(engine)
+        .build();
+    future = executorService.submit(server);
+    SECONDS.sleep(1);
+    return server;
+  }
+}
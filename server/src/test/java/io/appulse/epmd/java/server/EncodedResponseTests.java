@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.appulse.epmd.java.core.model.response.EpmdInfo;
+import io.appulse.epmd.java.core.model.response.EpmdInfo.NodeDescription;
+import io.appulse.utils.Bytes;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class EncodedResponseTests {
+
+  @Test
+  void sharedHeader () {
+    val response = EpmdInfo.builder()
+        .port(4369)
+        .node(NodeDescription.builder()
+            .name("popa")
+            .port(9090)
+            .build())
+        .build();
+
+    val header = EncodedResponse.direct(Bytes.allocate(Integer.BYTES)
+        .write4B(4369)
+        .array());
+
+    val encoded = EncodedResponse.of(header, response);
+    assertThat(encoded.toBytes())
+        .isEqualTo(response.toBytes());
+
+    val buffers = encoded.toBuffers();
+    assertThat(buffers)
+        .hasSize(2)
+        .allMatch(it -> it.isDirect());
+
+    buffers[0].position(buffers[0].limit());
+    assertThat(encoded.toBuffers()[0].remaining())
+        .isEqualTo(Integer.BYTES);
+  }
+}
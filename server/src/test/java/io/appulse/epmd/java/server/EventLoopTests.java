@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class EventLoopTests {
+
+  @Test
+  void abortPendingRegistrationsOnShutdown () throws Exception {
+    val server = SubcommandServer.builder().build();
+    server.inFlight = new InFlightRequests();
+
+    try (val listener = ServerSocketChannel.open()) {
+      listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      try (val client = SocketChannel.open(listener.getLocalAddress());
+           val accepted = listener.accept()) {
+
+        val loop = new EventLoop(server, new BufferPool(16, 1));
+        // the loop's thread is not started yet, so the registration stays queued
+        loop.register(accepted, (InetSocketAddress) accepted.getRemoteAddress(), null);
+        assertThat(server.inFlight.getActive())
+            .isEqualTo(1);
+
+        loop.close();
+        loop.run();
+
+        assertThat(accepted.isOpen())
+            .isFalse();
+        assertThat(server.inFlight.getActive())
+            .isEqualTo(0);
+
+        loop.register(client, (InetSocketAddress) client.getRemoteAddress(), null);
+        assertThat(client.isOpen())
+            .isFalse();
+      }
+    }
+  }
+}
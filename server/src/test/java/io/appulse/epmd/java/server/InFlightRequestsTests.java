@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class InFlightRequestsTests {
+
+  @Test
+  void finishIsIdempotent () {
+    val requests = new InFlightRequests();
+    val first = requests.start();
+    requests.start();
+    assertThat(requests.getActive())
+        .isEqualTo(2);
+
+    first.finish();
+    first.finish();
+    assertThat(requests.getActive())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void awaitCompleted () throws Exception {
+    val requests = new InFlightRequests();
+    requests.start().finish();
+    val ticket = requests.start();
+
+    val thread = new Thread(() -> {
+      try {
+        MILLISECONDS.sleep(100);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      ticket.finish();
+    });
+    thread.start();
+
+    val started = System.nanoTime();
+    val report = requests.await(started + MILLISECONDS.toNanos(5_000), started);
+    assertThat(report.getCompleted())
+        .isEqualTo(1);
+    assertThat(report.getAborted())
+        .isEqualTo(0);
+    assertThat(report.getDuration())
+        .isLessThan(5_000);
+  }
+
+  @Test
+  void awaitAborted () throws Exception {
+    val requests = new InFlightRequests();
+    requests.start();
+
+    val started = System.nanoTime();
+    val report = requests.await(started + MILLISECONDS.toNanos(100), started);
+    assertThat(report.getCompleted())
+        .isEqualTo(0);
+    assertThat(report.getAborted())
+        .isEqualTo(1);
+    assertThat(report.getDuration())
+        .isGreaterThanOrEqualTo(100);
+  }
+}
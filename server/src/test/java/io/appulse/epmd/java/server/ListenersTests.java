@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import io.appulse.utils.SocketUtils;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class ListenersTests {
+
+  @Test
+  void singleListener () throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    try (val listeners = Listeners.open(port, 1)) {
+      assertThat(listeners.size())
+          .isEqualTo(1);
+    }
+  }
+
+  @Test
+  void reusePortOrFallback () throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    try (val listeners = Listeners.open(port, 3)) {
+      assertThat(listeners.size())
+          .isEqualTo(Listeners.SO_REUSEPORT.isPresent() ? 3 : 1);
+    }
+  }
+
+  @Test
+  void bindAddresses () throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    val addresses = asList(InetAddress.getByName("127.0.0.1"), InetAddress.getByName("127.0.0.2"));
+    try (val listeners = Listeners.open(addresses, port, 1)) {
+      assertThat(listeners.size())
+          .isEqualTo(2);
+
+      try (val socket = new Socket(InetAddress.getByName("127.0.0.2"), port)) {
+        assertThat(socket.isConnected())
+            .isTrue();
+      }
+      assertThatThrownBy(() -> new Socket(InetAddress.getByName("127.0.0.3"), port))
+          .isInstanceOf(ConnectException.class);
+    }
+  }
+
+  @Test
+  void acceptAndClose () throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    val listeners = Listeners.open(port, 2);
+    val accepted = new CountDownLatch(10);
+
+    val acceptor = CompletableFuture.runAsync(() -> {
+      try {
+        listeners.accept(channel -> {
+          accepted.countDown();
+          channel.close();
+        });
+      } catch (Exception ex) {
+        throw new IllegalStateException(ex);
+      }
+    });
+
+    for (int index = 0; index < 10; index++) {
+      try (val socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+        assertThat(socket.getInputStream().read())
+            .isEqualTo(-1);
+      }
+    }
+    assertThat(accepted.await(3, SECONDS))
+        .isTrue();
+
+    listeners.close();
+    acceptor.get(3, SECONDS);
+  }
+}
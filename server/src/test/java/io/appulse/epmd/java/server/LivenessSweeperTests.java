@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R3_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.ServerSocket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.utils.SocketUtils;
+import io.appulse.utils.threads.AppulseExecutors;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LivenessSweeperTests {
+
+  ExecutorService executorService = AppulseExecutors.newSingleThreadExecutor().build();
+
+  SubcommandServer server;
+
+  EpmdClient client;
+
+  Future<?> future;
+
+  @BeforeEach
+  void before () throws Exception {
+    server = SubcommandServer.builder()
+        .port(SocketUtils.findFreePort().orElseThrow(RuntimeException::new))
+        .ip(SubcommandServer.ANY_ADDRESS)
+        .livenessCheckInterval(100L)
+        .livenessCheckTimeout(500)
+        .build();
+
+    future = executorService.submit(server);
+
+    SECONDS.sleep(1);
+
+    client = new EpmdClient(server.options.port);
+  }
+
+  @AfterEach
+  void after () {
+    client.close();
+    server.stop();
+    future.cancel(true);
+  }
+
+  @Test
+  void evictsUnreachable () throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    val registration = Registration.builder()
+        .name("unreachable")
+        .port(port)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+
+    try (val serverSocket = new ServerSocket(port, 1000)) {
+      client.register(registration).get(3, SECONDS);
+      SECONDS.sleep(1);
+
+      assertThat(client.lookup("unreachable", client.getPort()).get(3, SECONDS))
+          .isPresent();
+    }
+
+    SECONDS.sleep(1);
+    assertThat(client.lookup("unreachable", client.getPort()).get(3, SECONDS))
+        .isNotPresent();
+
+    assertThat(server.getLastSweep())
+        .hasValueSatisfying(it -> assertThat(it.getSweep()).isGreaterThan(1));
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.metrics.Phase.DECODE;
+import static io.appulse.epmd.java.core.metrics.Phase.PROCESS;
+import static io.appulse.epmd.java.core.metrics.Phase.READ;
+import static io.appulse.epmd.java.core.metrics.Phase.WRITE;
+import static io.appulse.epmd.java.core.model.NodeType.R3_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Tag.ALIVE2_REQUEST;
+import static io.appulse.epmd.java.core.model.Tag.PORT_PLEASE2_REQUEST;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.management.ObjectName;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.core.metrics.Phase;
+import io.appulse.epmd.java.core.metrics.RequestMetrics;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.utils.SocketUtils;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MetricsTests {
+
+  ExecutorService executorService = Executors.newCachedThreadPool();
+
+  SubcommandServer server;
+
+  @AfterEach
+  void after () {
+    if (server != null) {
+      server.stop();
+    }
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void blockingMetrics () throws Exception {
+    metrics(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioMetrics () throws Exception {
+    metrics(ServerEngine.Type.NIO);
+  }
+
+  void metrics (ServerEngine.Type engine) throws Exception {
+    // the MBean's name has the port, the other tests' servers mostly take the top ports
+    val port = SocketUtils.findFreePort(1024, 40_000).orElseThrow(RuntimeException::new);
+    server = SubcommandServer.builder()
+        .port(port)
+        .engine(engine)
+        .build();
+    val serverFuture = executorService.submit(server);
+    SECONDS.sleep(1);
+
+    val mbeans = ManagementFactory.getPlatformMBeanServer();
+    val serverName = new ObjectName(RequestMetrics.DOMAIN + ":type=Server,port=" + port);
+    assertThat(mbeans.isRegistered(serverName))
+        .isTrue();
+
+    val clientName = lookups(port);
+    assertThat(mbeans.isRegistered(clientName))
+        .isFalse();
+
+    val serverMetrics = server.getMetrics();
+    assertThat(serverMetrics.getRequests(ALIVE2_REQUEST))
+        .isEqualTo(1);
+    assertThat(serverMetrics.getRequests(PORT_PLEASE2_REQUEST))
+        .isGreaterThanOrEqualTo(10);
+    assertThat(serverMetrics.getErrors())
+        .isEmpty();
+    for (val phase : new Phase[] { READ, DECODE, PROCESS, WRITE }) {
+      assertThat(serverMetrics.getLatency(PORT_PLEASE2_REQUEST, phase))
+          .hasValueSatisfying(it -> assertThat(it.getCount()).isGreaterThanOrEqualTo(10));
+    }
+    assertThat(serverMetrics.getLatencies())
+        .anySatisfy(it -> {
+          assertThat(it.getTag()).isEqualTo(ALIVE2_REQUEST);
+          assertThat(it.getPhase()).isEqualTo(PROCESS);
+          assertThat(it.getMax()).isPositive();
+        });
+
+    server.stop();
+    serverFuture.get(5, SECONDS);
+    assertThat(mbeans.isRegistered(serverName))
+        .isFalse();
+  }
+
+  ObjectName lookups (int port) throws Exception {
+    try (val client = new EpmdClient(InetAddress.getLoopbackAddress(), port)) {
+      val clientName = client.getMetrics()
+          .getObjectName()
+          .orElseThrow(IllegalStateException::new);
+      assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(clientName))
+          .isTrue();
+
+      client.register(Registration.builder()
+          .name("popa")
+          .port(8971)
+          .type(R3_ERLANG)
+          .protocol(TCP)
+          .high(R6)
+          .low(R6)
+          .build()
+      ).get(2, SECONDS);
+      for (int index = 0; index < 10; index++) {
+        assertThat(client.lookup("popa", port).get(2, SECONDS))
+            .isPresent();
+      }
+
+      val clientMetrics = client.getMetrics();
+      assertThat(clientMetrics.getRequests(PORT_PLEASE2_REQUEST))
+          .isEqualTo(10);
+      assertThat(clientMetrics.getErrors())
+          .isEmpty();
+      assertThat(clientMetrics.getLatency(ALIVE2_REQUEST, WRITE))
+          .isPresent();
+      // the pipelined lookups' writes are measured as a part of their round-trips
+      for (val phase : new Phase[] { READ, DECODE, PROCESS }) {
+        assertThat(clientMetrics.getLatency(PORT_PLEASE2_REQUEST, phase))
+            .hasValueSatisfying(it -> assertThat(it.getCount()).isPositive());
+      }
+      return clientName;
+    }
+  }
+}
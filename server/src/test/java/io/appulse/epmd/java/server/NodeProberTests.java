@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+
+import io.appulse.utils.SocketUtils;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NodeProberTests {
+
+  NodeProber prober;
+
+  @BeforeEach
+  void before () throws Exception {
+    prober = new NodeProber(1_000, 4);
+    new Thread(prober, "test-prober").start();
+  }
+
+  @AfterEach
+  void after () {
+    prober.close();
+  }
+
+  @Test
+  void reachable () throws Exception {
+    try (val serverSocket = new ServerSocket(0, 1000, InetAddress.getLoopbackAddress())) {
+      val address = new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+      assertThat(prober.probe(address).get(3, SECONDS))
+          .isTrue();
+    }
+  }
+
+  @Test
+  void unreachable () throws Exception {
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    val address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    assertThat(prober.probe(address).get(3, SECONDS))
+        .isFalse();
+  }
+
+  @Test
+  void manyProbesOfOneHost () throws Exception {
+    try (val serverSocket = new ServerSocket(0, 1000, InetAddress.getLoopbackAddress())) {
+      val address = new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+      val probes = new CompletableFuture<?>[200];
+      for (int index = 0; index < probes.length; index++) {
+        probes[index] = prober.probe(address);
+      }
+      CompletableFuture.allOf(probes).get(10, SECONDS);
+
+      for (val probe : probes) {
+        assertThat(probe.get())
+            .isEqualTo(true);
+      }
+    }
+  }
+
+  @Test
+  void cancelledOnClose () throws Exception {
+    prober.close();
+    SECONDS.sleep(1);
+
+    val address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 4369);
+    assertThat(prober.probe(address))
+        .isCancelled();
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R6_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import io.appulse.epmd.java.core.model.Tag;
+import io.appulse.epmd.java.core.model.request.GetEpmdInfo;
+import io.appulse.epmd.java.core.model.request.GetNodeInfo;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.utils.SocketUtils;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class OverloadGuardTests {
+
+  static final Registration REGISTRATION = Registration.builder()
+      .name("popa")
+      .port(8971)
+      .type(R6_ERLANG)
+      .protocol(TCP)
+      .high(R6)
+      .low(R6)
+      .build();
+
+  @Test
+  void freshRequests () {
+    val guard = new OverloadGuard(OverloadAction.REPLY, 1_000);
+    val session = new RecordingSession(0);
+
+    assertThat(guard.shed(new GetNodeInfo("popa"), session))
+        .isFalse();
+    assertThat(guard.shed(new GetEpmdInfo(), session))
+        .isFalse();
+    assertThat(session.closed)
+        .isFalse();
+  }
+
+  @Test
+  void priorities () {
+    val guard = new OverloadGuard(OverloadAction.CLOSE, 1_000);
+
+    assertThat(guard.shed(new GetEpmdInfo(), new RecordingSession(600)))
+        .isTrue();
+    assertThat(guard.shed(new GetNodeInfo("popa"), new RecordingSession(600)))
+        .isFalse();
+    assertThat(guard.shed(new GetNodeInfo("popa"), new RecordingSession(1_100)))
+        .isTrue();
+    assertThat(guard.shed(REGISTRATION, new RecordingSession(60_000)))
+        .isFalse();
+
+    val statistics = guard.getStatistics();
+    assertThat(statistics.getShed())
+        .containsEntry(Tag.NAMES_REQUEST, 1L)
+        .containsEntry(Tag.PORT_PLEASE2_REQUEST, 1L)
+        .doesNotContainKey(Tag.ALIVE2_REQUEST);
+    assertThat(statistics.getShedTotal())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void actions () {
+    val close = new RecordingSession(2_000);
+    new OverloadGuard(OverloadAction.CLOSE, 1_000).shed(new GetNodeInfo("popa"), close);
+    assertThat(close.sent)
+        .isEmpty();
+    assertThat(close.closed)
+        .isTrue();
+
+    val reply = new RecordingSession(2_000);
+    new OverloadGuard(OverloadAction.REPLY, 1_000).shed(new GetNodeInfo("popa"), reply);
+    assertThat(reply.sent)
+        .hasSize(1);
+    assertThat(reply.closed)
+        .isTrue();
+  }
+
+  @Test
+  void disabled () {
+    val guard = new OverloadGuard(OverloadAction.REPLY, 0);
+
+    assertThat(guard.shed(new GetEpmdInfo(), new RecordingSession(60_000)))
+        .isFalse();
+  }
+
+  @Test
+  void rejected () {
+    val guard = new OverloadGuard(OverloadAction.REPLY, 1_000);
+    val session = new RecordingSession(0);
+
+    guard.rejected(session);
+
+    assertThat(session.closed)
+        .isTrue();
+    assertThat(guard.getStatistics().getRejected())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void slowClient () throws Exception {
+    for (val engine : ServerEngine.Type.values()) {
+      slowClient(engine);
+    }
+  }
+
+  void slowClient (ServerEngine.Type engine) throws Exception {
+    val server = SubcommandServer.builder()
+        .port(SocketUtils.findFreePort().orElseThrow(RuntimeException::new))
+        .engine(engine)
+        .overloadDelay(200L)
+        .overloadAction(OverloadAction.CLOSE)
+        .build();
+    val executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(server);
+      SECONDS.sleep(1);
+
+      val frame = new GetNodeInfo("popa").toBytes();
+      try (val socket = new Socket(InetAddress.getLoopbackAddress(), server.options.port)) {
+        socket.setSoTimeout(3_000);
+        val output = socket.getOutputStream();
+        output.write(frame, 0, 1);
+        output.flush();
+        // the client's own slowness is not the server's overload
+        MILLISECONDS.sleep(500);
+        output.write(frame, 1, frame.length - 1);
+        output.flush();
+
+        assertThat(socket.getInputStream().read())
+            .isEqualTo(Tag.PORT2_RESPONSE.getCode() & 0xFF);
+      }
+      assertThat(server.getOverloadStatistics().getShedTotal())
+          .isEqualTo(0);
+    } finally {
+      server.stop();
+      executor.shutdownNow();
+    }
+  }
+
+  static class RecordingSession implements Session {
+
+    final long acceptTime;
+
+    final List<ByteBuffer[]> sent = new ArrayList<>();
+
+    boolean closed;
+
+    RecordingSession (long delay) {
+      acceptTime = System.nanoTime() - MILLISECONDS.toNanos(delay);
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress () {
+      return new InetSocketAddress(0);
+    }
+
+    @Override
+    public long getAcceptTime () {
+      return acceptTime;
+    }
+
+    @Override
+    public void send (ByteBuffer... buffers) {
+      sent.add(buffers);
+    }
+
+    @Override
+    public void watch (Runnable onClose) {
+      // not used
+    }
+
+    @Override
+    public void push (Runnable onSent, ByteBuffer... buffers) {
+      // not used
+    }
+
+    @Override
+    public void pipeline () {
+      // not used
+    }
+
+    @Override
+    public boolean isPipelined () {
+      return false;
+    }
+
+    @Override
+    public void next () {
+      // not used
+    }
+
+    @Override
+    public void close () {
+      closed = true;
+    }
+  }
+}
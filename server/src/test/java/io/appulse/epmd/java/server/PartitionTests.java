@@ -0,0 +1,186 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R3_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.client.HashRing;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.utils.SocketUtils;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PartitionTests {
+
+  ExecutorService executorService = Executors.newCachedThreadPool();
+
+  List<SubcommandServer> servers = new ArrayList<>();
+
+  int lastPort = 65_536;
+
+  @AfterEach
+  void after () {
+    servers.forEach(SubcommandServer::stop);
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void blockingPartitions () throws Exception {
+    partitions(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioPartitions () throws Exception {
+    partitions(ServerEngine.Type.NIO);
+  }
+
+  @Test
+  void notOwnServer () {
+    val partition = member(findFreePort());
+    val server = SubcommandServer.builder()
+        .port(findFreePort())
+        .partition(partition)
+        .build();
+
+    assertThatThrownBy(server::run)
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void lenientPartition () throws Exception {
+    List<InetSocketAddress> members = new ArrayList<>();
+    for (int index = 0; index < 2; index++) {
+      members.add(member(findFreePort()));
+    }
+    members.forEach(it -> start(ServerEngine.Type.BLOCKING, it.getPort(), members, false));
+    SECONDS.sleep(1);
+
+    // a not owned name is registered, like a stock node does at its local server
+    val other = members.stream()
+        .filter(it -> !it.equals(new HashRing(members).owner("popa100")))
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+    try (val direct = new EpmdClient(other.getPort())) {
+      assertThat(direct.register(registration("popa100", 9100)).get(3, SECONDS).isOk())
+          .isTrue();
+      assertThat(direct.lookup("popa100", other.getPort()).get(3, SECONDS))
+          .hasValueSatisfying(it -> assertThat(it.getPort()).hasValue(9100));
+    }
+  }
+
+  void partitions (ServerEngine.Type engine) throws Exception {
+    List<InetSocketAddress> members = new ArrayList<>();
+    for (int index = 0; index < 3; index++) {
+      members.add(member(findFreePort()));
+    }
+    members.forEach(it -> start(engine, it.getPort(), members, true));
+    SECONDS.sleep(1);
+
+    val ring = new HashRing(members);
+    try (val client = EpmdClient.builder()
+        .address(InetAddress.getLoopbackAddress())
+        .port(members.get(0).getPort())
+        .ring(ring)
+        .build()) {
+
+      for (int index = 0; index < 30; index++) {
+        client.register(registration("popa" + index, 9000 + index)).get(3, SECONDS);
+      }
+
+      // every server has only its own names
+      for (val server : servers) {
+        val self = member(server.options.port);
+        assertThat(server.getNodes())
+            .isNotEmpty()
+            .allSatisfy(it -> assertThat(ring.owner(it.getName())).isEqualTo(self));
+      }
+
+      assertThat(client.lookup("popa7").get(3, SECONDS))
+          .hasValueSatisfying(it -> assertThat(it.getPort()).hasValue(9007));
+      assertThat(client.lookupAll(asNames(30)).get(3, SECONDS))
+          .hasSize(30)
+          .allSatisfy((name, info) -> assertThat(info).isPresent());
+
+      // a not owned name is rejected
+      val owner = ring.owner("popa100");
+      val other = members.stream()
+          .filter(it -> !it.equals(owner))
+          .findFirst()
+          .orElseThrow(IllegalStateException::new);
+      try (val direct = new EpmdClient(other.getPort())) {
+        assertThatThrownBy(() -> direct.register(registration("popa100", 9100)).get(3, SECONDS))
+            .isInstanceOf(ExecutionException.class);
+      }
+    }
+  }
+
+  void start (ServerEngine.Type engine, int port, List<InetSocketAddress> members, boolean strict) {
+    val builder = SubcommandServer.builder()
+        .port(port)
+        .engine(engine)
+        .partitionStrict(strict);
+    members.forEach(builder::partition);
+    val server = builder.build();
+    servers.add(server);
+    executorService.submit(server);
+  }
+
+  // the ports are searched downwards, every next port is below the previous one
+  private int findFreePort () {
+    lastPort = SocketUtils.findFreePort(1024, lastPort - 1).orElseThrow(RuntimeException::new);
+    return lastPort;
+  }
+
+  private static List<String> asNames (int count) {
+    List<String> result = new ArrayList<>(count);
+    for (int index = 0; index < count; index++) {
+      result.add("popa" + index);
+    }
+    return result;
+  }
+
+  private static InetSocketAddress member (int port) {
+    return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+  }
+
+  private static Registration registration (String name, int port) {
+    return Registration.builder()
+        .name(name)
+        .port(port)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+  }
+}
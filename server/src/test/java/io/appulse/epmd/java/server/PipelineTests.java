@@ -0,0 +1,258 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R3_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Tag.PIPELINE_RESPONSE;
+import static io.appulse.epmd.java.core.model.Tag.PORT2_RESPONSE;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.DataInputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.core.model.request.GetEpmdInfo;
+import io.appulse.epmd.java.core.model.request.GetNodeInfo;
+import io.appulse.epmd.java.core.model.request.Kill;
+import io.appulse.epmd.java.core.model.request.Pipeline;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.epmd.java.core.model.response.EpmdInfo;
+import io.appulse.epmd.java.core.model.response.PipelineResult;
+import io.appulse.epmd.java.core.model.response.Response;
+import io.appulse.utils.Bytes;
+import io.appulse.utils.SocketUtils;
+import io.appulse.utils.threads.AppulseExecutors;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PipelineTests {
+
+  ExecutorService executorService = AppulseExecutors.newSingleThreadExecutor().build();
+
+  Future<?> future;
+
+  int port;
+
+  SubcommandServer server;
+
+  @AfterEach
+  void after () {
+    if (future != null) {
+      future.cancel(true);
+    }
+  }
+
+  @Test
+  void blockingPipelinedLookups () throws Exception {
+    pipelinedLookups(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioPipelinedLookups () throws Exception {
+    pipelinedLookups(ServerEngine.Type.NIO);
+  }
+
+  @Test
+  void blockingClassicConnection () throws Exception {
+    classicConnection(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioClassicConnection () throws Exception {
+    classicConnection(ServerEngine.Type.NIO);
+  }
+
+  @Test
+  void blockingIdleSessions () throws Exception {
+    idleSessions(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioIdleSessions () throws Exception {
+    idleSessions(ServerEngine.Type.NIO);
+  }
+
+  @Test
+  void blockingConcurrentLookups () throws Exception {
+    concurrentLookups(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioConcurrentLookups () throws Exception {
+    concurrentLookups(ServerEngine.Type.NIO);
+  }
+
+  void concurrentLookups (ServerEngine.Type engine) throws Exception {
+    start(engine);
+    val registration = Registration.builder()
+        .name("popa")
+        .port(9001)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+
+    try (val node = new EpmdClient(InetAddress.getLoopbackAddress(), port);
+         val client = new EpmdClient(InetAddress.getLoopbackAddress(), port)) {
+
+      node.register(registration).get(3, SECONDS);
+
+      // the concurrent callers share the pipelined connection, every one gets its own responses
+      val callers = Executors.newFixedThreadPool(8);
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int caller = 0; caller < 8; caller++) {
+          futures.add(callers.submit(() -> {
+            for (int index = 0; index < 25; index++) {
+              assertThat(client.lookup("popa", port).get(5, SECONDS))
+                  .hasValueSatisfying(it -> assertThat(it.getPort()).hasValue(9001));
+              assertThat(client.lookup("popa2", port).get(5, SECONDS))
+                  .isEmpty();
+            }
+            return null;
+          }));
+        }
+        for (val it : futures) {
+          it.get(30, SECONDS);
+        }
+      } finally {
+        callers.shutdownNow();
+      }
+    }
+  }
+
+  void idleSessions (ServerEngine.Type engine) throws Exception {
+    start(engine);
+    List<Socket> idle = new ArrayList<>();
+    try {
+      // more idle pipelined sessions than the blocking engine's workers
+      for (int index = 0; index < 16; index++) {
+        val socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        idle.add(socket);
+        socket.setSoTimeout(3_000);
+        val input = new DataInputStream(socket.getInputStream());
+        socket.getOutputStream().write(new Pipeline().toBytes());
+        assertThat(input.readByte())
+            .isEqualTo(PIPELINE_RESPONSE.getCode());
+        input.readUnsignedByte();
+        input.readUnsignedShort();
+        socket.getOutputStream().write(new GetNodeInfo("popa").toBytes());
+        assertThat(readFrame(input))
+            .containsExactly(PORT2_RESPONSE.getCode(), (byte) 1);
+      }
+
+      try (val socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+        socket.setSoTimeout(3_000);
+        socket.getOutputStream().write(new GetNodeInfo("popa").toBytes());
+        assertThat(socket.getInputStream().read())
+            .isEqualTo(PORT2_RESPONSE.getCode() & 0xFF);
+      }
+
+      // the idle sessions have no in-flight requests
+      val report = server.drain(10_000).get(5, SECONDS);
+      assertThat(report.getAborted())
+          .isEqualTo(0);
+    } finally {
+      for (val socket : idle) {
+        socket.close();
+      }
+    }
+  }
+
+  void pipelinedLookups (ServerEngine.Type engine) throws Exception {
+    start(engine);
+    try (val socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      val input = new DataInputStream(socket.getInputStream());
+      val output = socket.getOutputStream();
+
+      output.write(new Pipeline().toBytes());
+      assertThat(input.readByte())
+          .isEqualTo(PIPELINE_RESPONSE.getCode());
+      assertThat(input.readUnsignedByte())
+          .isEqualTo(Pipeline.VERSION);
+      assertThat(input.readUnsignedShort())
+          .isEqualTo(PipelineResult.DEFAULT_MAX_FRAME_LENGTH);
+
+      val requests = Bytes.resizableArray()
+          .writeNB(new GetNodeInfo("popa").toBytes())
+          .writeNB(new GetEpmdInfo().toBytes())
+          .writeNB(new GetNodeInfo("popa2").toBytes())
+          .arrayCopy();
+      output.write(requests);
+
+      assertThat(readFrame(input))
+          .containsExactly(PORT2_RESPONSE.getCode(), (byte) 1);
+
+      val names = Response.parse(readFrame(input), EpmdInfo.class);
+      assertThat(names.getPort())
+          .isEqualTo(port);
+      assertThat(names.getNodes())
+          .isEmpty();
+
+      assertThat(readFrame(input))
+          .containsExactly(PORT2_RESPONSE.getCode(), (byte) 1);
+
+      // the administrative requests are not allowed
+      output.write(new Kill().toBytes());
+      assertThat(input.read())
+          .isEqualTo(-1);
+    }
+  }
+
+  void classicConnection (ServerEngine.Type engine) throws Exception {
+    start(engine);
+    try (val socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      val input = new DataInputStream(socket.getInputStream());
+      socket.getOutputStream().write(new GetNodeInfo("popa").toBytes());
+
+      assertThat(input.readByte())
+          .isEqualTo(PORT2_RESPONSE.getCode());
+      assertThat(input.readByte())
+          .isEqualTo((byte) 1);
+      assertThat(input.read())
+          .isEqualTo(-1);
+    }
+  }
+
+  void start (ServerEngine.Type engine) throws Exception {
+    port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    server = SubcommandServer.builder()
+        .port(port)
+        .engine(engine)
+        .build();
+    future = executorService.submit(server);
+    SECONDS.sleep(1);
+  }
+
+  private static byte[] readFrame (DataInputStream input) throws Exception {
+    val frame = new byte[input.readInt()];
+    input.readFully(frame);
+    return frame;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R3_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.utils.SocketUtils;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PrometheusEndpointTests {
+
+  ExecutorService executorService = Executors.newCachedThreadPool();
+
+  SubcommandServer server;
+
+  @AfterEach
+  void after () {
+    if (server != null) {
+      server.stop();
+    }
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void scrape () throws Exception {
+    val port = SocketUtils.findFreePort(1024, 40_000).orElseThrow(RuntimeException::new);
+    val metricsPort = SocketUtils.findFreePort(1024, port - 1).orElseThrow(RuntimeException::new);
+    server = SubcommandServer.builder()
+        .port(port)
+        .metricsPort(metricsPort)
+        .livenessCheckInterval(60_000L)
+        .build();
+    val serverFuture = executorService.submit(server);
+    SECONDS.sleep(1);
+
+    val url = new URL("http://localhost:" + metricsPort + "/metrics");
+    try (val client = new EpmdClient(InetAddress.getLoopbackAddress(), port)) {
+      client.register(Registration.builder()
+          .name("popa")
+          .port(8971)
+          .type(R3_ERLANG)
+          .protocol(TCP)
+          .high(R6)
+          .low(R6)
+          .build()
+      ).get(2, SECONDS);
+      for (int index = 0; index < 3; index++) {
+        assertThat(client.lookup("popa", port).get(2, SECONDS))
+            .isPresent();
+      }
+
+      val connection = (HttpURLConnection) url.openConnection();
+      assertThat(connection.getResponseCode())
+          .isEqualTo(200);
+      assertThat(connection.getContentType())
+          .startsWith("text/plain; version=0.0.4");
+      assertThat(read(connection.getInputStream()))
+          .contains("# TYPE epmd_requests_total counter\n")
+          .contains("epmd_requests_total{tag=\"ALIVE2_REQUEST\"} 1\n")
+          .contains("epmd_requests_total{tag=\"PORT_PLEASE2_REQUEST\"} 3\n")
+          .contains("# TYPE epmd_request_duration_seconds summary\n")
+          .contains("epmd_request_duration_seconds{tag=\"PORT_PLEASE2_REQUEST\",phase=\"process\",quantile=\"0.99\"} ")
+          .contains("epmd_request_duration_seconds{tag=\"PORT_PLEASE2_REQUEST\",phase=\"process\",quantile=\"0.999\"} ")
+          .contains("epmd_request_duration_seconds_count{tag=\"PORT_PLEASE2_REQUEST\",phase=\"read\"} 3\n")
+          .contains("epmd_registered_nodes 1\n")
+          .contains("epmd_liveness_probes_total{outcome=\"unreachable\"} 0\n")
+          .contains("epmd_rejected_connections_total{reason=\"forbidden\"} 0\n")
+          .contains("epmd_executor_queue_depth ");
+    }
+
+    val post = (HttpURLConnection) url.openConnection();
+    post.setRequestMethod("POST");
+    assertThat(post.getResponseCode())
+        .isEqualTo(405);
+
+    server.stop();
+    serverFuture.get(5, SECONDS);
+    assertThatThrownBy(() -> ((HttpURLConnection) url.openConnection()).getResponseCode())
+        .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void notListenedAddress () throws Exception {
+    val port = SocketUtils.findFreePort(1024, 40_000).orElseThrow(RuntimeException::new);
+    val metricsPort = SocketUtils.findFreePort(1024, port - 1).orElseThrow(RuntimeException::new);
+    server = SubcommandServer.builder()
+        .port(port)
+        .listenMode(ListenMode.BIND)
+        .ip(InetAddress.getByName("127.0.0.2"))
+        .metricsPort(metricsPort)
+        .build();
+    executorService.submit(server);
+    SECONDS.sleep(1);
+
+    val allowed = (HttpURLConnection) new URL("http://127.0.0.2:" + metricsPort + "/metrics").openConnection();
+    assertThat(allowed.getResponseCode())
+        .isEqualTo(200);
+
+    // the server doesn't listen the EPMD requests on this address
+    val forbidden = (HttpURLConnection) new URL("http://127.0.0.3:" + metricsPort + "/metrics").openConnection();
+    assertThat(forbidden.getResponseCode())
+        .isEqualTo(403);
+  }
+
+  static String read (InputStream input) throws IOException {
+    try (val output = new ByteArrayOutputStream()) {
+      val buffer = new byte[1024];
+      int length;
+      while ((length = input.read(buffer)) >= 0) {
+        output.write(buffer, 0, length);
+      }
+      return new String(output.toByteArray(), UTF_8);
+    } finally {
+      input.close();
+    }
+  }
+}
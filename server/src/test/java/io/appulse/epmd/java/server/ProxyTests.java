@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R3_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.epmd.java.core.model.response.EpmdInfo.NodeDescription;
+import io.appulse.utils.SocketUtils;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ProxyTests {
+
+  ExecutorService executorService = Executors.newCachedThreadPool();
+
+  List<Runnable> stops = new ArrayList<>();
+
+  int lastPort = 65_536;
+
+  int metricsPort;
+
+  @AfterEach
+  void after () {
+    stops.forEach(Runnable::run);
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void cachedLookups () throws Exception {
+    val upstreamPort = findFreePort();
+    val deadPort = findFreePort();
+    val proxyPort = findFreePort();
+    metricsPort = findFreePort();
+    val upstream = startServer(upstreamPort);
+    val proxy = startProxy(proxyPort, 60_000, deadPort, upstreamPort);
+    SECONDS.sleep(1);
+
+    try (val node = new EpmdClient(upstreamPort);
+         val client = new EpmdClient(proxyPort)) {
+
+      node.register(registration("popa1", 9001)).get(3, SECONDS);
+
+      assertThat(client.lookup("popa1", proxyPort).get(3, SECONDS))
+          .hasValueSatisfying(it -> assertThat(it.getPort()).hasValue(9001));
+      assertThat(client.lookup("popa1", proxyPort).get(3, SECONDS))
+          .isPresent();
+
+      assertThat(client.lookup("unknown", proxyPort).get(3, SECONDS))
+          .isEmpty();
+      assertThat(client.lookup("unknown", proxyPort).get(3, SECONDS))
+          .isEmpty();
+
+      assertThat(client.getNodes(proxyPort).get(3, SECONDS))
+          .extracting(NodeDescription::getName)
+          .containsExactly("popa1");
+
+      val statistics = proxy.getStatistics();
+      assertThat(statistics.getMisses()).isEqualTo(3);
+      assertThat(statistics.getHits()).isEqualTo(2);
+      assertThat(statistics.getNegatives()).isEqualTo(2);
+      assertThat(statistics.getHitRatio()).isEqualTo(0.4);
+      assertThat(statistics.getErrors()).isEqualTo(3);
+      assertThat(statistics.getEntries()).isEqualTo(3);
+
+      val scrape = new URL("http://localhost:" + metricsPort + "/metrics").openStream();
+      assertThat(PrometheusEndpointTests.read(scrape))
+          .contains("epmd_proxy_cache_requests_total{result=\"hit\"} 2\n")
+          .contains("epmd_proxy_cache_requests_total{result=\"miss\"} 3\n")
+          .contains("epmd_proxy_negative_answers_total 2\n")
+          .contains("epmd_proxy_upstream_errors_total 3\n")
+          .contains("epmd_proxy_cache_entries 3\n")
+          .contains("epmd_proxy_cache_staleness_seconds ");
+
+      // the upstream is gone, but the answer is cached
+      upstream.stop();
+      assertThat(client.lookup("popa1", proxyPort).get(3, SECONDS))
+          .isPresent();
+    }
+  }
+
+  @Test
+  void backgroundRefresh () throws Exception {
+    val upstreamPort = findFreePort();
+    val proxyPort = findFreePort();
+    startServer(upstreamPort);
+    val proxy = startProxy(proxyPort, 200, upstreamPort);
+    SECONDS.sleep(1);
+
+    try (val client = new EpmdClient(proxyPort)) {
+      try (val node = new EpmdClient(upstreamPort)) {
+        node.register(registration("popa1", 9001)).get(3, SECONDS);
+        assertThat(client.lookup("popa1", proxyPort).get(3, SECONDS))
+            .isPresent();
+      }
+
+      // the hot entry is refreshed in the background and sees the unregistration
+      val deadline = System.nanoTime() + SECONDS.toNanos(3);
+      while (client.lookup("popa1", proxyPort).get(3, SECONDS).isPresent() && System.nanoTime() < deadline) {
+        MILLISECONDS.sleep(20);
+      }
+      assertThat(client.lookup("popa1", proxyPort).get(3, SECONDS))
+          .isEmpty();
+
+      val statistics = proxy.getStatistics();
+      assertThat(statistics.getRefreshes()).isPositive();
+      assertThat(statistics.getStaleness()).isLessThan(200);
+    }
+  }
+
+  @Test
+  void deadUpstream () throws Exception {
+    val upstreamPort = findFreePort();
+    val firstProxyPort = findFreePort();
+    val lastProxyPort = findFreePort();
+    // the dead upstream accepts the connections, but never answers
+    try (val dead = new ServerSocket(0, 100, InetAddress.getLoopbackAddress())) {
+      startServer(upstreamPort);
+      startProxy(firstProxyPort, 60_000, upstreamPort, dead.getLocalPort());
+      startProxy(lastProxyPort, 60_000, dead.getLocalPort(), upstreamPort);
+      SECONDS.sleep(1);
+
+      try (val node = new EpmdClient(upstreamPort);
+           val client = new EpmdClient(firstProxyPort)) {
+
+        node.register(registration("popa1", 9001)).get(3, SECONDS);
+
+        // the healthy upstream is asked first, the dead one doesn't delay its answer
+        val start = System.nanoTime();
+        assertThat(client.lookup("popa1", firstProxyPort).get(3, SECONDS))
+            .isPresent();
+        assertThat(System.nanoTime() - start)
+            .isLessThan(MILLISECONDS.toNanos(500));
+
+        // the dead upstream is asked first, its timeout delays the healthy upstream's answer
+        assertThat(client.lookup("popa1", lastProxyPort).get(3, SECONDS))
+            .hasValueSatisfying(it -> assertThat(it.getPort()).hasValue(9001));
+        assertThat(client.getNodes(lastProxyPort).get(3, SECONDS))
+            .extracting(NodeDescription::getName)
+            .containsExactly("popa1");
+      }
+    }
+  }
+
+  SubcommandServer startServer (int port) {
+    val server = SubcommandServer.builder()
+        .port(port)
+        .build();
+    stops.add(server::stop);
+    executorService.submit(server);
+    return server;
+  }
+
+  SubcommandProxy startProxy (int port, long ttl, int... upstreams) {
+    val builder = SubcommandProxy.builder()
+        .port(port)
+        .ttl(ttl)
+        .negativeTtl(ttl)
+        .upstreamTimeout(1_000L)
+        .metricsPort(metricsPort);
+    for (val upstream : upstreams) {
+      builder.upstream(new InetSocketAddress(InetAddress.getLoopbackAddress(), upstream));
+    }
+    val proxy = builder.build();
+    stops.add(proxy::stop);
+    executorService.submit(proxy);
+    return proxy;
+  }
+
+  // the ports are searched downwards, every next port is below the previous one
+  private int findFreePort () {
+    lastPort = SocketUtils.findFreePort(1024, lastPort - 1).orElseThrow(RuntimeException::new);
+    return lastPort;
+  }
+
+  private static Registration registration (String name, int port) {
+    return Registration.builder()
+        .name(name)
+        .port(port)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+  }
+}
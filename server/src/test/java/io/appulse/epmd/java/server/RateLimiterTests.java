@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.Tag.NAMES_REQUEST;
+import static io.appulse.epmd.java.core.model.Tag.PORT_PLEASE2_REQUEST;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+
+import io.appulse.epmd.java.core.model.request.GetEpmdInfo;
+import io.appulse.utils.SocketUtils;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTests {
+
+  @Test
+  void disabled () {
+    val limiter = new RateLimiter(emptyMap());
+
+    assertThat(limiter.of(InetAddress.getLoopbackAddress()))
+        .isNull();
+  }
+
+  @Test
+  void invalidRate () {
+    assertThatThrownBy(() -> new RateLimiter(singletonMap(NAMES_REQUEST, 0)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void limit () {
+    val limiter = new RateLimiter(singletonMap(PORT_PLEASE2_REQUEST, 10));
+    val buckets = limiter.of(InetAddress.getLoopbackAddress());
+
+    int allowed = 0;
+    for (int index = 0; index < 20; index++) {
+      if (buckets.tryAcquire(PORT_PLEASE2_REQUEST.getCode())) {
+        allowed++;
+      }
+    }
+    assertThat(allowed)
+        .isBetween(10, 11);
+    assertThat(limiter.getDropped())
+        .isEqualTo(20 - allowed);
+
+    assertThat(buckets.tryAcquire(NAMES_REQUEST.getCode()))
+        .isTrue();
+    assertThat(buckets.tryAcquire((byte) 42))
+        .isTrue();
+  }
+
+  @Test
+  void perAddress () throws Exception {
+    val limiter = new RateLimiter(singletonMap(PORT_PLEASE2_REQUEST, 1));
+
+    assertThat(limiter.of(InetAddress.getByName("10.20.0.1")).tryAcquire(PORT_PLEASE2_REQUEST.getCode()))
+        .isTrue();
+    assertThat(limiter.of(InetAddress.getByName("10.20.0.1")).tryAcquire(PORT_PLEASE2_REQUEST.getCode()))
+        .isFalse();
+    assertThat(limiter.of(InetAddress.getByName("10.20.0.2")).tryAcquire(PORT_PLEASE2_REQUEST.getCode()))
+        .isTrue();
+  }
+
+  @Test
+  void evictIdle () throws Exception {
+    val limiter = new RateLimiter(singletonMap(PORT_PLEASE2_REQUEST, 1_000));
+    limiter.of(InetAddress.getByName("10.20.0.1"));
+    limiter.of(InetAddress.getByName("10.20.0.2"))
+        .tryAcquire(PORT_PLEASE2_REQUEST.getCode());
+    assertThat(limiter.size())
+        .isEqualTo(2);
+
+    limiter.evictIdle();
+    assertThat(limiter.size())
+        .isBetween(0, 1);
+
+    Thread.sleep(10);
+    limiter.evictIdle();
+    assertThat(limiter.size())
+        .isEqualTo(0);
+  }
+
+  @Test
+  void blockingNamesLimit () throws Exception {
+    namesLimit(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioNamesLimit () throws Exception {
+    namesLimit(ServerEngine.Type.NIO);
+  }
+
+  void namesLimit (ServerEngine.Type engine) throws Exception {
+    val server = SubcommandServer.builder()
+        .port(SocketUtils.findFreePort().orElseThrow(RuntimeException::new))
+        .engine(engine)
+        .rateLimit(NAMES_REQUEST, 1)
+        .build();
+    val executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(server);
+      SECONDS.sleep(1);
+
+      // NAMES is a single byte frame, its tag is the whole frame's body
+      int answered = 0;
+      for (int index = 0; index < 5; index++) {
+        try (val socket = new Socket(InetAddress.getLoopbackAddress(), server.options.port)) {
+          socket.setSoTimeout(3_000);
+          socket.getOutputStream().write(new GetEpmdInfo().toBytes());
+          socket.getOutputStream().flush();
+          if (socket.getInputStream().read() >= 0) {
+            answered++;
+          }
+        }
+      }
+      assertThat(answered)
+          .isBetween(1, 2);
+      assertThat(server.getOverloadStatistics().getLimited())
+          .isGreaterThanOrEqualTo(3);
+    } finally {
+      server.stop();
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R3_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.utils.SocketUtils;
+import io.appulse.utils.threads.AppulseExecutors;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RegistrationJournalTests {
+
+  @TempDir
+  Path directory;
+
+  ExecutorService executorService = AppulseExecutors.newSingleThreadExecutor().build();
+
+  Future<?> future;
+
+  @AfterEach
+  void after () {
+    if (future != null) {
+      future.cancel(true);
+    }
+  }
+
+  @Test
+  void replay () throws Exception {
+    val path = directory.resolve("epmd.journal");
+    val registry = new NodeRegistry();
+    val popa1 = node("popa1", 9001);
+    val popa2 = node("popa2", 9002);
+
+    try (val journal = RegistrationJournal.open(path, 1024)) {
+      registry.listen(journal);
+      registry.register(popa1);
+      registry.register(popa2);
+      registry.unregister(popa1);
+    }
+
+    val restored = RegistrationJournal.replay(path);
+    assertThat(restored)
+        .containsOnlyKeys("popa2");
+
+    val node = restored.get("popa2");
+    assertThat(node.isProvisional())
+        .isTrue();
+    assertThat(node.getPort())
+        .isEqualTo(9002);
+    assertThat(node.getAddress())
+        .isEqualTo(InetAddress.getLoopbackAddress());
+    assertThat(node.getNodeInfo().toBytes())
+        .isEqualTo(popa2.getNodeInfo().toBytes());
+  }
+
+  @Test
+  void compaction () throws Exception {
+    val path = directory.resolve("epmd.journal");
+    val registry = new NodeRegistry();
+
+    try (val journal = RegistrationJournal.open(path, 64)) {
+      registry.listen(journal);
+      for (int index = 0; index < 100; index++) {
+        val node = node("popa" + index, 9000 + index);
+        registry.register(node);
+        if (index % 2 == 0) {
+          registry.unregister(node);
+        }
+      }
+    }
+
+    assertThat(RegistrationJournal.replay(path))
+        .hasSize(50)
+        .containsKeys("popa1", "popa99")
+        .doesNotContainKeys("popa0", "popa98");
+    assertThat(Files.exists(directory.resolve("epmd.journal.compacted")))
+        .isFalse();
+  }
+
+  @Test
+  void periodicCompaction () throws Exception {
+    val path = directory.resolve("epmd.journal");
+    val registry = new NodeRegistry();
+
+    try (val journal = RegistrationJournal.open(path, 64 * 1024, 300)) {
+      registry.listen(journal);
+      MILLISECONDS.sleep(100);
+
+      val popa0 = node("popa0", 9000);
+      registry.register(popa0);
+      for (int index = 1; index < 10; index++) {
+        registry.register(node("popa" + index, 9000 + index));
+      }
+
+      // the file is far from full, only the period triggers the compaction
+      SECONDS.sleep(1);
+      assertThat(journal.getAppended())
+          .isEqualTo(0);
+
+      registry.unregister(popa0);
+    }
+
+    assertThat(RegistrationJournal.replay(path))
+        .hasSize(9)
+        .doesNotContainKeys("popa0");
+  }
+
+  @Test
+  void corrupted () throws Exception {
+    val path = directory.resolve("epmd.journal");
+    Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7 });
+
+    assertThat(RegistrationJournal.replay(path))
+        .isEmpty();
+  }
+
+  @Test
+  void corruptedAddress () throws Exception {
+    val path = directory.resolve("epmd.journal");
+    val registry = new NodeRegistry();
+
+    try (val journal = RegistrationJournal.open(path, 1024)) {
+      registry.listen(journal);
+      registry.register(node("popa1", 9001));
+      registry.register(node("popa2", 9002));
+    }
+
+    // the header, the first record and the second record's fields before its address' length
+    val offset = RegistrationJournal.HEADER_LENGTH + 27 + 15;
+    val bytes = Files.readAllBytes(path);
+    assertThat(bytes[offset])
+        .isEqualTo((byte) 4);
+
+    for (val length : new byte[] { -1, 5 }) {
+      bytes[offset] = length;
+      Files.write(path, bytes);
+
+      try (val journal = RegistrationJournal.open(path, 1024)) {
+        assertThat(journal.getNodes())
+            .extracting(Node::getName)
+            .containsOnly("popa1");
+      }
+    }
+  }
+
+  @Test
+  void blockingWarmRestart () throws Exception {
+    warmRestart(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioWarmRestart () throws Exception {
+    warmRestart(ServerEngine.Type.NIO);
+  }
+
+  void warmRestart (ServerEngine.Type engine) throws Exception {
+    val path = directory.resolve("epmd.journal");
+    val port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+
+    try (val distribution = new ServerSocket(0)) {
+      val server = start(engine, port, path);
+      try (val client = new EpmdClient(port)) {
+        client.register(registration("alive", distribution.getLocalPort())).get(3, SECONDS);
+        client.register(registration("dead", SocketUtils.findFreePort().orElseThrow(RuntimeException::new)))
+            .get(3, SECONDS);
+        server.stop();
+        future.get(5, SECONDS);
+      }
+
+      start(engine, port, path);
+      try (val client = new EpmdClient(port)) {
+        // the provisional nodes answer right after the start
+        assertThat(client.lookup("alive", port).get(3, SECONDS))
+            .hasValueSatisfying(it -> assertThat(it.getPort()).hasValue(distribution.getLocalPort()));
+
+        // the unreachable one is evicted after its probe
+        SECONDS.sleep(1);
+        assertThat(client.lookup("dead", port).get(3, SECONDS))
+            .isEmpty();
+
+        // the re-registration confirms the provisional node
+        assertThat(client.register(registration("alive", distribution.getLocalPort())).get(3, SECONDS).isOk())
+            .isTrue();
+      }
+    }
+  }
+
+  SubcommandServer start (ServerEngine.Type engine, int port, Path path) throws Exception {
+    val server = SubcommandServer.builder()
+        .port(port)
+        .engine(engine)
+        .journal(path)
+        .build();
+    future = executorService.submit(server);
+    SECONDS.sleep(1);
+    return server;
+  }
+
+  private static Registration registration (String name, int port) {
+    return Registration.builder()
+        .name(name)
+        .port(port)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+  }
+
+  private static Node node (String name, int port) {
+    return Node.builder()
+        .name(name)
+        .port(port)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .address(InetAddress.getLoopbackAddress())
+        .build();
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R3_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.epmd.java.core.model.response.ClusterNodesInfo;
+import io.appulse.utils.SocketUtils;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+class ReplicationTests {
+
+  ExecutorService executorService = Executors.newCachedThreadPool();
+
+  List<SubcommandServer> servers = new ArrayList<>();
+
+  int lastPort = 65_536;
+
+  @AfterEach
+  void after () {
+    servers.forEach(SubcommandServer::stop);
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void blockingReplication () throws Exception {
+    replicate(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioReplication () throws Exception {
+    replicate(ServerEngine.Type.NIO);
+  }
+
+  @Test
+  void lateStartedPeer () throws Exception {
+    val port1 = findFreePort();
+    val port2 = findFreePort();
+    val server2 = start(ServerEngine.Type.NIO, port2, port1);
+    SECONDS.sleep(1);
+
+    assertThat(server2.getReplicationStatistics())
+        .hasSize(1)
+        .allSatisfy(it -> assertThat(it.isConnected()).isFalse());
+
+    start(ServerEngine.Type.NIO, port1, port2);
+    SECONDS.sleep(1);
+
+    try (val node = new EpmdClient(port1);
+         val client = new EpmdClient(port2)) {
+
+      node.register(registration("popa1", 9001)).get(3, SECONDS);
+      val located = awaitLocated(client, port2, "popa1", 1);
+      assertThat(located.get(0).getOrigin())
+          .hasValueSatisfying(it -> assertThat(it.getPort()).isEqualTo(port1));
+    }
+  }
+
+  @Test
+  void peerOption () {
+    assertThat(SocketAddressConverter.parse("127.0.0.1:4369"))
+        .isEqualTo(new InetSocketAddress(InetAddress.getLoopbackAddress(), 4369));
+    assertThat(SocketAddressConverter.parse("[::1]:4370").getPort())
+        .isEqualTo(4370);
+
+    assertThatThrownBy(() -> SocketAddressConverter.parse("localhost"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> SocketAddressConverter.parse("localhost:"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  void replicate (ServerEngine.Type engine) throws Exception {
+    val port1 = findFreePort();
+    val port2 = findFreePort();
+    val port3 = findFreePort();
+    val server1 = start(engine, port1, port2, port3);
+    val server2 = start(engine, port2, port1, port3);
+    start(engine, port3, port1, port2);
+    SECONDS.sleep(1);
+
+    try (val client = new EpmdClient(port2)) {
+      assertThat(client.locate("popa1", InetAddress.getLoopbackAddress(), port2).get(3, SECONDS))
+          .isEmpty();
+
+      try (val node = new EpmdClient(port1)) {
+        val start = System.nanoTime();
+        node.register(registration("popa1", 9001)).get(3, SECONDS);
+
+        val located = awaitLocated(client, port2, "popa1", 1);
+        log.info("the registration converged in {}ms", NANOSECONDS.toMillis(System.nanoTime() - start));
+        assertThat(located.get(0).getOrigin())
+            .hasValue(new InetSocketAddress(InetAddress.getLoopbackAddress(), port1));
+        assertThat(located.get(0).getNode().getPort())
+            .hasValue(9001);
+
+        // the local registration goes first
+        val local = awaitLocated(client, port1, "popa1", 1);
+        assertThat(local.get(0).getOrigin())
+            .isEmpty();
+
+        assertThat(server2.getReplicationStatistics())
+            .filteredOn(it -> it.getPeer().getPort() == port1)
+            .hasSize(1)
+            .allSatisfy(it -> {
+              assertThat(it.isConnected()).isTrue();
+              assertThat(it.getNodes()).isEqualTo(1);
+              assertThat(it.getEvents()).isEqualTo(1);
+              assertThat(it.getBytes()).isPositive();
+            });
+      }
+
+      val start = System.nanoTime();
+      awaitLocated(client, port3, "popa1", 0);
+      log.info("the unregistration converged in {}ms", NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    assertThat(server1.getReplicationStatistics())
+        .hasSize(2)
+        .allSatisfy(it -> assertThat(it.getNodes()).isZero());
+  }
+
+  SubcommandServer start (ServerEngine.Type engine, int port, int... peers) {
+    val builder = SubcommandServer.builder()
+        .port(port)
+        .engine(engine)
+        .peerRetryInterval(100L);
+    for (val peer : peers) {
+      builder.peer(new InetSocketAddress(InetAddress.getLoopbackAddress(), peer));
+    }
+    val server = builder.build();
+    servers.add(server);
+    executorService.submit(server);
+    return server;
+  }
+
+  private static List<ClusterNodesInfo.Item> awaitLocated (EpmdClient client, int port, String name, int expected)
+      throws Exception {
+    val deadline = System.nanoTime() + SECONDS.toNanos(5);
+    while (System.nanoTime() < deadline) {
+      val located = client.locate(name, InetAddress.getLoopbackAddress(), port).get(3, SECONDS);
+      if (located.size() == expected) {
+        return located;
+      }
+      MILLISECONDS.sleep(10);
+    }
+    throw new TimeoutException("the node '" + name + "' is not located at " + port);
+  }
+
+  // the ports are searched downwards, every next port is below the previous one
+  private int findFreePort () {
+    lastPort = SocketUtils.findFreePort(1024, lastPort - 1).orElseThrow(RuntimeException::new);
+    return lastPort;
+  }
+
+  private static Registration registration (String name, int port) {
+    return Registration.builder()
+        .name(name)
+        .port(port)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.appulse.epmd.java.core.model.response.EpmdInfo;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+class ResponseCacheTests {
+
+  @Test
+  void sameVersion () {
+    val cache = new ResponseCache();
+    val encodings = new AtomicInteger();
+
+    val first = cache.get(1, () -> {
+      encodings.incrementAndGet();
+      return EncodedResponse.of(EpmdInfo.builder().port(4369).build());
+    });
+    val second = cache.get(1, () -> {
+      encodings.incrementAndGet();
+      return EncodedResponse.of(EpmdInfo.builder().port(4369).build());
+    });
+
+    assertThat(second).isSameAs(first);
+    assertThat(encodings).hasValue(1);
+  }
+
+  @Test
+  void changedVersion () {
+    val cache = new ResponseCache();
+
+    val first = cache.get(1, () -> EncodedResponse.of(EpmdInfo.builder().port(4369).build()));
+    val second = cache.get(2, () -> EncodedResponse.of(EpmdInfo.builder().port(4370).build()));
+    val stale = cache.get(1, () -> EncodedResponse.of(EpmdInfo.builder().port(4371).build()));
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(cache.get(2, () -> EncodedResponse.of(EpmdInfo.builder().port(4372).build())))
+        .isSameAs(second);
+    assertThat(stale.toBytes())
+        .isEqualTo(EpmdInfo.builder().port(4371).build().toBytes());
+  }
+}
@@ -24,7 +24,10 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.net.InetAddress;
 import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -32,8 +35,10 @@ import java.util.concurrent.Future;
 
 import io.appulse.epmd.java.client.EpmdClient;
 import io.appulse.epmd.java.client.exception.EpmdRegistrationException;
+import io.appulse.epmd.java.core.model.Tag;
 import io.appulse.epmd.java.core.model.request.Registration;
 import io.appulse.epmd.java.core.model.response.EpmdDump.NodeDump;
+import io.appulse.epmd.java.core.model.response.EpmdInfo.NodeDescription;
 import io.appulse.epmd.java.core.model.response.NodeInfo;
 import io.appulse.utils.SocketUtils;
 import io.appulse.utils.threads.AppulseExecutors;
@@ -59,6 +64,12 @@ class SubcommandServerTests {
     val server = SubcommandServer.builder()
         .port(SocketUtils.findFreePort().orElseThrow(RuntimeException::new))
         .ip(SubcommandServer.ANY_ADDRESS)
+        .engine(engineType())
+        .ioThreads(2)
+        .listeners(2)
+        .maxFrameSize(4096)
+        .rateLimit(Tag.NAMES_REQUEST, 1_000)
+        .rateLimit(Tag.PORT_PLEASE2_REQUEST, 1_000)
         .build();
 
     future = executorService.submit(() -> {
@@ -74,6 +85,10 @@ class SubcommandServerTests {
     client = new EpmdClient(server.options.port);
   }
 
+  ServerEngine.Type engineType () {
+    return ServerEngine.Type.BLOCKING;
+  }
+
   @AfterEach
   void after () {
     client.close();
@@ -133,6 +148,119 @@ class SubcommandServerTests {
     client.stop("register");
   }
 
+  @Test
+  void unregisterOnDisconnect () throws Exception {
+    val registration = Registration.builder()
+        .name("disconnects")
+        .port(8977)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+
+    try (val nodeClient = new EpmdClient(client.getPort())) {
+      nodeClient.register(registration).get(3, SECONDS);
+      assertThat(client.lookup("disconnects", client.getPort()).get(3, SECONDS))
+          .isPresent();
+    }
+
+    SECONDS.sleep(1);
+    assertThat(client.lookup("disconnects", client.getPort()).get(3, SECONDS))
+        .isNotPresent();
+  }
+
+  @Test
+  void lookupAll () throws Exception {
+    val registration = Registration.builder()
+        .name("batch")
+        .port(8979)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+
+    List<String> names = new ArrayList<>();
+    names.add("batch");
+    for (int index = 0; index < 300; index++) {
+      names.add("unknown-node-" + index);
+    }
+    names.add("batch@localhost");
+
+    try (val nodeClient = new EpmdClient(client.getPort())) {
+      nodeClient.register(registration).get(3, SECONDS);
+
+      val result = client.lookupAll(names, InetAddress.getLoopbackAddress(), client.getPort()).get(3, SECONDS);
+      assertThat(result)
+          .hasSize(302)
+          .containsOnlyKeys(names);
+      assertThat(result.get("batch"))
+          .hasValueSatisfying(it -> assertThat(it.getPort()).hasValue(8979));
+      assertThat(result.get("batch@localhost"))
+          .isEqualTo(result.get("batch"));
+      assertThat(result.get("unknown-node-299"))
+          .isNotPresent();
+    }
+  }
+
+  @Test
+  void namesFollowRegistrations () throws Exception {
+    assertThat(client.getNodes(client.getPort()).get(3, SECONDS))
+        .isEmpty();
+
+    val registration = Registration.builder()
+        .name("names")
+        .port(8978)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+
+    try (val nodeClient = new EpmdClient(client.getPort())) {
+      nodeClient.register(registration).get(3, SECONDS);
+
+      assertThat(client.getNodes(client.getPort()).get(3, SECONDS))
+          .extracting(NodeDescription::getName)
+          .containsExactly("names");
+    }
+
+    SECONDS.sleep(1);
+    assertThat(client.getNodes(client.getPort()).get(3, SECONDS))
+        .isEmpty();
+  }
+
+  @Test
+  void registerLargeFrame () throws Exception {
+    val registration = Registration.builder()
+        .name("large")
+        .port(8977)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .extra(new byte[2048])
+        .build();
+
+    client.register(registration).get(3, SECONDS);
+    assertThat(client.getNodes(client.getPort()).get(3, SECONDS))
+        .extracting(NodeDescription::getName)
+        .containsExactly("large");
+  }
+
+  @Test
+  void rejectTooLargeFrame () throws Exception {
+    try (val socket = new Socket(InetAddress.getLoopbackAddress(), client.getPort())) {
+      socket.setSoTimeout(3_000);
+      socket.getOutputStream().write(new byte[] { (byte) 0xFF, (byte) 0xFF });
+      socket.getOutputStream().flush();
+
+      assertThat(socket.getInputStream().read())
+          .isEqualTo(-1);
+    }
+  }
+
   @Test
   void dumpEmpty () throws Exception {
     val nodes = client.dump().get(3, SECONDS);
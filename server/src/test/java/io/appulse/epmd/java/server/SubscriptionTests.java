@@ -0,0 +1,268 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.appulse.epmd.java.server;
+
+import static io.appulse.epmd.java.core.model.NodeType.R3_ERLANG;
+import static io.appulse.epmd.java.core.model.Protocol.TCP;
+import static io.appulse.epmd.java.core.model.Version.R6;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import io.appulse.epmd.java.client.EpmdClient;
+import io.appulse.epmd.java.client.NodesListener;
+import io.appulse.epmd.java.core.model.request.Registration;
+import io.appulse.epmd.java.core.model.request.Subscribe;
+import io.appulse.epmd.java.core.model.response.NodeInfo;
+import io.appulse.utils.SocketUtils;
+import io.appulse.utils.threads.AppulseExecutors;
+
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionTests {
+
+  ExecutorService executorService = AppulseExecutors.newSingleThreadExecutor().build();
+
+  Future<?> future;
+
+  int port;
+
+  @AfterEach
+  void after () {
+    if (future != null) {
+      future.cancel(true);
+    }
+  }
+
+  @Test
+  void blockingSubscribe () throws Exception {
+    subscribe(ServerEngine.Type.BLOCKING);
+  }
+
+  @Test
+  void nioSubscribe () throws Exception {
+    subscribe(ServerEngine.Type.NIO);
+  }
+
+  @Test
+  void slowSubscriber () {
+    val registry = new NodeRegistry();
+    val session = new PushingSession();
+    new Subscription(registry, session, 2).start();
+
+    // the snapshot is pushed, but is not sent yet
+    assertThat(session.pushed)
+        .hasSize(1);
+
+    registry.register(node("popa1", session));
+    registry.register(node("popa2", session));
+    assertThat(session.closed)
+        .isFalse();
+
+    registry.register(node("popa3", session));
+    assertThat(session.closed)
+        .isTrue();
+
+    // the cancelled subscription doesn't get the changes anymore
+    session.onSent.run();
+    registry.register(node("popa4", session));
+    assertThat(session.pushed)
+        .hasSize(1);
+  }
+
+  @Test
+  void closedBeforeSync () throws Exception {
+    // the server accepts the subscription, but never syncs it
+    try (val server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+         val subscriber = new EpmdClient(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+
+      server.setSoTimeout(3_000);
+      val subscription = subscriber.subscribe(new NodesListener() {
+
+        @Override
+        public void registered (NodeInfo node) {
+          // never synced
+        }
+
+        @Override
+        public void unregistered (String name) {
+          // never synced
+        }
+      });
+
+      try (val connection = server.accept()) {
+        connection.setSoTimeout(3_000);
+        subscriber.close();
+
+        // the closed client closes its connecting subscription
+        val input = connection.getInputStream();
+        int read = 0;
+        while (input.read() != -1) {
+          read++;
+        }
+        assertThat(read)
+            .isEqualTo(new Subscribe().toBytes().length);
+      }
+      assertThatThrownBy(() -> subscription.get(3, SECONDS))
+          .isInstanceOf(ExecutionException.class);
+    }
+  }
+
+  void subscribe (ServerEngine.Type engine) throws Exception {
+    start(engine);
+    BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    val listener = new NodesListener() {
+
+      @Override
+      public void registered (NodeInfo node) {
+        events.add("+" + node.getName().orElse(null) + ':' + node.getPort().orElse(null));
+      }
+
+      @Override
+      public void unregistered (String name) {
+        events.add("-" + name);
+      }
+    };
+
+    try (val node1 = new EpmdClient(port);
+         val subscriber = new EpmdClient(port)) {
+
+      node1.register(registration("popa1", 9001)).get(3, SECONDS);
+
+      val subscription = subscriber.subscribe(listener).get(3, SECONDS);
+      assertThat(events.poll())
+          .isEqualTo("+popa1:9001");
+
+      try (val node2 = new EpmdClient(port)) {
+        node2.register(registration("popa2", 9002)).get(3, SECONDS);
+        assertThat(events.poll(3, SECONDS))
+            .isEqualTo("+popa2:9002");
+      }
+      assertThat(events.poll(3, SECONDS))
+          .isEqualTo("-popa2");
+
+      subscription.close();
+      assertThat(subscription.isClosed())
+          .isTrue();
+    }
+  }
+
+  void start (ServerEngine.Type engine) throws Exception {
+    port = SocketUtils.findFreePort().orElseThrow(RuntimeException::new);
+    val server = SubcommandServer.builder()
+        .port(port)
+        .engine(engine)
+        .build();
+    future = executorService.submit(server);
+    SECONDS.sleep(1);
+  }
+
+  private static Registration registration (String name, int port) {
+    return Registration.builder()
+        .name(name)
+        .port(port)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .build();
+  }
+
+  private static Node node (String name, Session session) {
+    return Node.builder()
+        .name(name)
+        .port(9000)
+        .type(R3_ERLANG)
+        .protocol(TCP)
+        .high(R6)
+        .low(R6)
+        .session(session)
+        .build();
+  }
+
+  static class PushingSession implements Session {
+
+    final List<ByteBuffer[]> pushed = new ArrayList<>();
+
+    Runnable onSent;
+
+    Runnable onClose;
+
+    boolean closed;
+
+    @Override
+    public InetSocketAddress getRemoteAddress () {
+      return new InetSocketAddress(0);
+    }
+
+    @Override
+    public long getAcceptTime () {
+      return System.nanoTime();
+    }
+
+    @Override
+    public void send (ByteBuffer... buffers) {
+      // not used
+    }
+
+    @Override
+    public void watch (Runnable closeListener) {
+      onClose = closeListener;
+    }
+
+    @Override
+    public void push (Runnable sentListener, ByteBuffer... buffers) {
+      onSent = sentListener;
+      pushed.add(buffers);
+    }
+
+    @Override
+    public void pipeline () {
+      // not used
+    }
+
+    @Override
+    public boolean isPipelined () {
+      return false;
+    }
+
+    @Override
+    public void next () {
+      // not used
+    }
+
+    @Override
+    public void close () {
+      closed = true;
+      onClose.run();
+    }
+  }
+}